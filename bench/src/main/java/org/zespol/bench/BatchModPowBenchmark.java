@@ -0,0 +1,70 @@
+package org.zespol.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zespol.core.BatchModPow;
+import org.zespol.core.StandardGroup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partia {@value #BATCH} niezależnych potęgowań r^s mod p (jak przy weryfikacji pojedynczej): {@link BatchModPow}
+ * na torach wektora wobec kolejnych wywołań {@link BigInteger#modPow}. Czas dotyczy całej partii.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BatchModPowBenchmark {
+    private static final int BATCH = 64;
+
+    @Param({"FFDHE_2048", "FFDHE_3072"})
+    public String group;
+
+    @Param({"256", "full"})
+    public String exponentBits;
+
+    private BatchModPow vectorized;
+    private BatchModPow scalar;
+    private BigInteger modulus;
+    private BigInteger[] bases;
+    private BigInteger[] exponents;
+
+    @Setup
+    public void setUp() {
+        modulus = StandardGroup.valueOf(group).getP();
+        vectorized = new BatchModPow(modulus);
+        scalar = new BatchModPow(modulus, false);
+        int bits = exponentBits.equals("full") ? modulus.bitLength() : Integer.parseInt(exponentBits);
+        Random random = new Random(64);
+        bases = new BigInteger[BATCH];
+        exponents = new BigInteger[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            bases[i] = new BigInteger(modulus.bitLength() - 1, random);
+            exponents[i] = new BigInteger(bits, random);
+        }
+    }
+
+    @Benchmark
+    public BigInteger[] vectorized() {
+        return vectorized.modPow(bases, exponents);
+    }
+
+    @Benchmark
+    public BigInteger[] scalar() {
+        return scalar.modPow(bases, exponents);
+    }
+}
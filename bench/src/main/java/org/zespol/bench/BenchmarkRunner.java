@@ -0,0 +1,54 @@
+package org.zespol.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Uruchamia wszystkie benchmarki dla kolejnych liczb wątków i zapisuje wyniki w formacie JSON JMH,
+ * po jednym pliku na liczbę wątków (np. {@code results-t4.json}).
+ * <p>
+ * Argumenty: {@code [prefiks pliku wyników] [liczba wątków...] [-include wyrażenie]}.
+ * Domyślnie: {@code results}, wątki 1, 2, 4 oraz liczba rdzeni, wszystkie benchmarki.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String prefix = "results";
+        String include = "org\\.zespol\\.bench\\..*";
+        TreeSet<Integer> threadCounts = new TreeSet<>();
+        List<String> rest = new ArrayList<>(List.of(args));
+        for (int i = 0; i < rest.size(); i++) {
+            String arg = rest.get(i);
+            if (arg.equals("-include") && i + 1 < rest.size()) {
+                include = rest.get(++i);
+            } else if (arg.chars().allMatch(Character::isDigit)) {
+                threadCounts.add(Integer.parseInt(arg));
+            } else {
+                prefix = arg;
+            }
+        }
+        if (threadCounts.isEmpty()) {
+            threadCounts.addAll(List.of(1, 2, 4, Runtime.getRuntime().availableProcessors()));
+        }
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(prefix + "-t" + threads + ".json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.zespol.bench;
+
+import org.zespol.core.ElGamal;
+import org.zespol.core.StandardGroup;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Parametry grup używane przez benchmarki. Dla 2048-4096 bitów to grupy z RFC 3526, a dla pozostałych
+ * długości - grupa z pamięci podręcznej parametrów (generowana przy pierwszym uruchomieniu), tak aby
+ * benchmarki operacji na kluczach nie mierzyły wyszukiwania liczby pierwszej.
+ */
+final class Groups {
+
+    private Groups() {
+    }
+
+    static List<BigInteger> parameters(ElGamal elGamal, int bitLength) {
+        for (StandardGroup group : StandardGroup.values()) {
+            if (group.getBitLength() == bitLength && group.getSpecification().equals("RFC 3526")) {
+                return group.parameters();
+            }
+        }
+        return elGamal.obtainParameters(bitLength, null);
+    }
+}
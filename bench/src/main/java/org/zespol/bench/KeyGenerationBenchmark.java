@@ -0,0 +1,53 @@
+package org.zespol.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zespol.core.ElGamal;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generowanie klucza prywatnego i publicznego dla gotowych parametrów.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyGenerationBenchmark {
+
+    @Param({"1024", "2048", "3072", "4096"})
+    public int bitLength;
+
+    private final ElGamal elGamal = new ElGamal();
+    private List<BigInteger> pg;
+    private BigInteger privateKey;
+
+    @Setup
+    public void setUp() {
+        pg = Groups.parameters(elGamal, bitLength);
+        privateKey = elGamal.generatePrivateKey(pg);
+    }
+
+    @Benchmark
+    public BigInteger generatePrivateKey() {
+        return elGamal.generatePrivateKey(pg);
+    }
+
+    @Benchmark
+    public List<BigInteger> generatePublicKey() {
+        return elGamal.generatePublicKey(pg, privateKey);
+    }
+}
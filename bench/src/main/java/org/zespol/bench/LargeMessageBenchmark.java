@@ -0,0 +1,91 @@
+package org.zespol.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zespol.core.ElGamal;
+import org.zespol.core.MerkleTree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Haszowanie i podpisywanie plików od 64 B do 1 GB (strumień, fragmenty mapowane w pamięć oraz równoległe
+ * drzewo Merkle'a).
+ * Pliki tworzone są raz na próbę w katalogu tymczasowym i usuwane po jej zakończeniu.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeMessageBenchmark {
+
+    @Param({"64", "1048576", "67108864", "1073741824"})
+    public long fileSize;
+
+    private final ElGamal elGamal = new ElGamal();
+    private List<BigInteger> pg;
+    private BigInteger privateKey;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pg = Groups.parameters(elGamal, 2048);
+        privateKey = elGamal.generatePrivateKey(pg);
+        file = Files.createTempFile("elgamal-bench", ".bin");
+        byte[] block = new byte[1 << 20];
+        new Random(fileSize).nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < fileSize; written += block.length) {
+                out.write(block, 0, (int) Math.min(block.length, fileSize - written));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] digestMapped() throws IOException, NoSuchAlgorithmException {
+        return elGamal.digest(file);
+    }
+
+    @Benchmark
+    public byte[] digestMerkle() throws IOException, NoSuchAlgorithmException {
+        return MerkleTree.of(file, MerkleTree.DEFAULT_CHUNK_SIZE).digest();
+    }
+
+    @Benchmark
+    public byte[] digestStream() throws IOException, NoSuchAlgorithmException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return elGamal.digest(in);
+        }
+    }
+
+    @Benchmark
+    public List<BigInteger> signFile() throws IOException, NoSuchAlgorithmException {
+        return elGamal.sign(file, privateKey, pg);
+    }
+}
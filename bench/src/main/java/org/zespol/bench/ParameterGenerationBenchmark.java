@@ -0,0 +1,40 @@
+package org.zespol.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zespol.core.ElGamal;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Czas wygenerowania nowych parametrów [p, g] (wyszukiwanie bezpiecznej liczby pierwszej).
+ * Czas pojedynczego wywołania ma duży rozrzut, więc mierzony jest w trybie SingleShotTime na kilku próbach.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParameterGenerationBenchmark {
+
+    @Param({"1024", "2048"})
+    public int bitLength;
+
+    private final ElGamal elGamal = new ElGamal();
+
+    @Benchmark
+    public List<BigInteger> generateParameters() {
+        return elGamal.generateParameters(bitLength);
+    }
+}
@@ -0,0 +1,66 @@
+package org.zespol.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zespol.core.SignatureScheme;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Podpisywanie i weryfikacja skrótu przez {@link SignatureScheme} - porównanie ElGamala w grupie 3072-bitowej
+ * z podpisem Schnorra na P-256 przy tym samym poziomie bezpieczeństwa (128 bitów).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemeBenchmark {
+
+    @Param({"elgamal-ffdhe3072", "ec-schnorr-p256"})
+    public String scheme;
+
+    private SignatureScheme signatureScheme;
+    private SignatureScheme.PrivateKey privateKey;
+    private SignatureScheme.PublicKey publicKey;
+    private byte[] digest;
+    private byte[] signature;
+
+    @Setup
+    public void setUp() {
+        signatureScheme = SignatureScheme.forName(scheme);
+        privateKey = signatureScheme.generatePrivateKey();
+        publicKey = privateKey.getPublicKey();
+        digest = new byte[32];
+        new Random(32).nextBytes(digest);
+        signature = signatureScheme.signDigest(digest, privateKey);
+    }
+
+    @Benchmark
+    public SignatureScheme.PrivateKey generateKey() {
+        SignatureScheme.PrivateKey key = signatureScheme.generatePrivateKey();
+        key.getPublicKey();
+        return key;
+    }
+
+    @Benchmark
+    public byte[] signDigest() {
+        return signatureScheme.signDigest(digest, privateKey);
+    }
+
+    @Benchmark
+    public boolean verifyDigest() {
+        return signatureScheme.verifyDigest(digest, signature, publicKey);
+    }
+}
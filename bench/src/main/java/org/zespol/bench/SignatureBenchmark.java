@@ -0,0 +1,88 @@
+package org.zespol.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.ElGamalSignature;
+
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Podpisywanie i weryfikacja wiadomości w pamięci dla różnych długości p i rozmiarów wiadomości.
+ * Większe wiadomości (do 1 GB) mierzy {@link LargeMessageBenchmark}, czytając je z pliku.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBenchmark {
+
+    @Param({"1024", "2048", "3072", "4096"})
+    public int bitLength;
+
+    @Param({"64", "4096", "1048576"})
+    public int messageSize;
+
+    private final ElGamal elGamal = new ElGamal();
+    private List<BigInteger> pg;
+    private BigInteger privateKey;
+    private List<BigInteger> publicKey;
+    private byte[] message;
+    private List<BigInteger> signature;
+    private ElGamalPrivateKey typedPrivateKey;
+    private ElGamalPublicKey typedPublicKey;
+    private ElGamalSignature typedSignature;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        pg = Groups.parameters(elGamal, bitLength);
+        privateKey = elGamal.generatePrivateKey(pg);
+        publicKey = elGamal.generatePublicKey(pg, privateKey);
+        message = new byte[messageSize];
+        new Random(messageSize).nextBytes(message);
+        signature = elGamal.sign(message, privateKey, pg);
+
+        // Typy niezmienne - wartości pochodne (p-1, kontekst, tablice g i y) liczone raz na klucz
+        typedPrivateKey = new ElGamalPrivateKey(ElGamalParameters.of(pg), privateKey);
+        typedPublicKey = typedPrivateKey.getPublicKey();
+        typedSignature = ElGamalSignature.of(signature);
+    }
+
+    @Benchmark
+    public List<BigInteger> sign() throws NoSuchAlgorithmException {
+        return elGamal.sign(message, privateKey, pg);
+    }
+
+    @Benchmark
+    public boolean verify() throws NoSuchAlgorithmException {
+        return elGamal.verify(message, signature, publicKey);
+    }
+
+    @Benchmark
+    public ElGamalSignature signTyped() throws NoSuchAlgorithmException {
+        return elGamal.sign(message, typedPrivateKey);
+    }
+
+    @Benchmark
+    public boolean verifyTyped() throws NoSuchAlgorithmException {
+        return elGamal.verify(message, typedSignature, typedPublicKey);
+    }
+}
@@ -0,0 +1,100 @@
+package org.zespol.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Źródło ścieżek plików do przetworzenia. Argument może być:
+ * <ul>
+ *     <li>ścieżką pliku,</li>
+ *     <li>ścieżką katalogu - brane są wszystkie zwykłe pliki w poddrzewie,</li>
+ *     <li>wzorcem glob (zawiera jeden ze znaków *, ?, [ lub {), np. {@code logi/**.log},</li>
+ *     <li>{@code -} - ścieżki czytane ze standardowego wejścia, po jednej w linii,</li>
+ *     <li>{@code @plik} - ścieżki czytane z pliku, po jednej w linii.</li>
+ * </ul>
+ * Ścieżki przekazywane są odbiorcy na bieżąco, bez gromadzenia listy w pamięci.
+ */
+final class FileSource {
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private final List<String> arguments;
+
+    FileSource(List<String> arguments) {
+        this.arguments = List.copyOf(arguments);
+    }
+
+    /**
+     * Przekazuje kolejne ścieżki odbiorcy.
+     *
+     * @throws IOException Jeśli nie da się odczytać listy ścieżek lub przejść katalogu.
+     */
+    void forEach(Consumer<Path> consumer) throws IOException {
+        for (String argument : arguments) {
+            if (argument.equals("-")) {
+                readLines(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), consumer);
+            } else if (argument.startsWith("@")) {
+                try (BufferedReader reader = Files.newBufferedReader(Paths.get(argument.substring(1)))) {
+                    readLines(reader, consumer);
+                }
+            } else if (isGlob(argument)) {
+                walkGlob(argument, consumer);
+            } else {
+                Path path = Paths.get(argument);
+                if (Files.isDirectory(path)) {
+                    walk(path, file -> true, consumer);
+                } else {
+                    consumer.accept(path);
+                }
+            }
+        }
+    }
+
+    private static void readLines(BufferedReader reader, Consumer<Path> consumer) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                consumer.accept(Paths.get(line.strip()));
+            }
+        }
+    }
+
+    static boolean isGlob(String argument) {
+        for (int i = 0; i < argument.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(argument.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Przechodzi katalog będący najdłuższym prefiksem wzorca bez znaków glob i dopasowuje pełne ścieżki.
+     */
+    private static void walkGlob(String pattern, Consumer<Path> consumer) throws IOException {
+        int firstGlob = 0;
+        while (GLOB_CHARACTERS.indexOf(pattern.charAt(firstGlob)) < 0) {
+            firstGlob++;
+        }
+        int separator = pattern.lastIndexOf('/', firstGlob);
+        Path base = Paths.get(separator < 0 ? "" : pattern.substring(0, separator + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        walk(base, matcher::matches, consumer);
+    }
+
+    private static void walk(Path directory, Predicate<Path> filter, Consumer<Path> consumer) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(filter).filter(Files::isRegularFile).forEach(consumer);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.zespol.cli;
+
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.KeyCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Zbiorczy plik podpisów: jeden plik na całe wywołanie zamiast osobnego pliku podpisu dla każdego pliku danych.
+ * <pre>
+ *   "EGSB"  wersja(u32)  { długość ścieżki(u16)  ścieżka UTF-8  długość rekordu(u16)  rekord podpisu KeyCodec }*
+ * </pre>
+ * Rekordy zapisywane są w kolejności zakończenia podpisywania, przez bufor 1 MiB.
+ */
+final class SignatureBundle {
+    private static final int MAGIC = 0x45475342; // "EGSB"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Jeden wpis: ścieżka pliku i jego podpis. */
+    record Entry(Path path, ElGamalSignature signature) {
+    }
+
+    private SignatureBundle() {
+    }
+
+    /** Zapis wpisów; {@link #write} jest bezpieczne wątkowo. */
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+
+        Writer(Path file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        synchronized void write(Path path, ElGamalSignature signature) throws IOException {
+            byte[] name = path.toString().getBytes(StandardCharsets.UTF_8);
+            byte[] record = signature.encode();
+            if (name.length > 0xFFFF || record.length > 0xFFFF) {
+                throw new IOException("Zbyt długa ścieżka lub podpis: " + path);
+            }
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeShort(record.length);
+            out.write(record);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /** Odczyt kolejnych wpisów. */
+    static final class Reader implements Closeable {
+        private final DataInputStream in;
+
+        /**
+         * @throws IllegalArgumentException Jeśli plik nie jest plikiem podpisów w obsługiwanej wersji.
+         */
+        Reader(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                in.close();
+                throw new IllegalArgumentException("Plik nie jest zbiorczym plikiem podpisów w wersji " + VERSION + ".");
+            }
+        }
+
+        /**
+         * @return Następny wpis lub null na końcu pliku.
+         * @throws IllegalArgumentException Jeśli plik jest ucięty lub uszkodzony.
+         */
+        Entry next() throws IOException {
+            int nameLength;
+            try {
+                nameLength = in.readUnsignedShort();
+            } catch (EOFException e) {
+                return null;
+            }
+            try {
+                byte[] name = new byte[nameLength];
+                in.readFully(name);
+                byte[] record = new byte[in.readUnsignedShort()];
+                in.readFully(record);
+                ElGamalSignature signature = ElGamalSignature.of(
+                        KeyCodec.decode(KeyCodec.Kind.SIGNATURE, ByteBuffer.wrap(record)));
+                return new Entry(Paths.get(new String(name, StandardCharsets.UTF_8)), signature);
+            } catch (EOFException e) {
+                throw new IllegalArgumentException("Ucięty plik podpisów.", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.zespol.cli;
+
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.KeyCodec;
+import org.zespol.core.LatencyHistogram;
+import org.zespol.core.MetricsRecorder;
+import org.zespol.core.RandomnessProvider;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wsadowe podpisywanie i weryfikacja plików z wiersza poleceń, bez JavaFX.
+ * <pre>
+ *   sign   -key klucz_prywatny -out podpisy.bin [-threads N] [-deterministic] źródło...
+ *   verify -key klucz_publiczny -signatures podpisy.bin [-threads N]
+ * </pre>
+ * Źródłami są pliki, katalogi, wzorce glob, {@code -} (ścieżki ze standardowego wejścia) lub {@code @lista}
+ * ({@link FileSource}). Klucz wczytywany jest raz, a jego tablice prekomputacji są wspólne dla wszystkich wątków.
+ * Pliki przetwarza pula N wątków (domyślnie liczba rdzeni) z ograniczoną kolejką, więc lista ścieżek nie jest
+ * gromadzona w pamięci. Podpisy trafiają do jednego pliku zbiorczego ({@link SignatureBundle}). Każdy wątek
+ * ma własny generator liczb losowych ({@link RandomnessProvider#perThread()}), a z {@code -deterministic}
+ * wartości k wynikają z klucza i skrótu pliku (RFC 6979), więc ponowne podpisanie tych samych plików daje
+ * identyczne podpisy.
+ * <p>
+ * Niepoprawne podpisy i błędy wypisywane są na standardowe wyjście, a podsumowanie (przepustowość i percentyle
+ * czasu na plik) na standardowe wyjście błędów. Kod wyjścia: 0 - sukces, 1 - niepoprawne podpisy lub błędy
+ * odczytu, 2 - nieprawidłowe argumenty.
+ */
+public final class SignatureCli {
+    private static final int QUEUE_PER_THREAD = 256; // Długość kolejki zadań na wątek
+
+    private final ElGamal elGamal = new ElGamal();
+    private final MetricsRecorder metrics = new MetricsRecorder();
+    private final LatencyHistogram fileLatency = new LatencyHistogram();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final PrintStream out = System.out;
+
+    SignatureCli() {
+        elGamal.setInstrumentation(metrics);
+        elGamal.setRandomnessProvider(RandomnessProvider.perThread());
+    }
+
+    public static void main(String[] args) {
+        System.exit(new SignatureCli().run(args));
+    }
+
+    /**
+     * Wykonuje polecenie.
+     *
+     * @return Kod wyjścia (zob. opis klasy).
+     */
+    int run(String[] args) {
+        if (args.length == 0) {
+            return usage("Brak polecenia.");
+        }
+        String command = args[0];
+        if (!command.equals("sign") && !command.equals("verify")) {
+            return usage("Nieznane polecenie: " + command);
+        }
+        Path key = null;
+        Path signatures = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> sources = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if (arg.equals("-deterministic")) {
+                elGamal.setDeterministicNonces(true);
+            } else if (arg.equals("-key") && hasValue) {
+                key = Paths.get(args[++i]);
+            } else if ((arg.equals("-out") || arg.equals("-signatures")) && hasValue) {
+                signatures = Paths.get(args[++i]);
+            } else if (arg.equals("-threads") && hasValue) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    return usage("Nieprawidłowa liczba wątków: " + args[i]);
+                }
+                if (threads < 1) {
+                    return usage("Liczba wątków musi być dodatnia.");
+                }
+            } else {
+                sources.add(arg);
+            }
+        }
+        if (key == null || signatures == null) {
+            return usage("Brak klucza lub pliku podpisów.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            switch (command) {
+                case "sign" -> {
+                    if (sources.isEmpty()) {
+                        return usage("Brak plików do podpisania.");
+                    }
+                    sign(key, signatures, new FileSource(sources), threads);
+                }
+                default -> {
+                    if (!sources.isEmpty()) {
+                        return usage("Nieoczekiwane argumenty: " + sources);
+                    }
+                    verify(key, signatures, threads);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Błąd: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        printSummary(System.nanoTime() - start);
+        return (invalid.sum() == 0 && errors.sum() == 0) ? 0 : 1;
+    }
+
+    private void sign(Path keyFile, Path bundle, FileSource source, int threads) throws IOException, InterruptedException {
+        ElGamalPrivateKey privateKey = ElGamalPrivateKey.of(KeyCodec.readPrivateKey(keyFile));
+        privateKey.getParameters().precompute();
+
+        try (SignatureBundle.Writer writer = new SignatureBundle.Writer(bundle)) {
+            ThreadPoolExecutor executor = newExecutor(threads);
+            try {
+                source.forEach(file -> executor.execute(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        long size = Files.size(file);
+                        ElGamalSignature signature = elGamal.sign(file, privateKey);
+                        writer.write(file, signature);
+                        completed(size, start);
+                    } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+                        failed(file, e);
+                    }
+                }));
+            } finally {
+                awaitTermination(executor);
+            }
+        }
+    }
+
+    private void verify(Path keyFile, Path bundle, int threads) throws IOException, InterruptedException {
+        ElGamalPublicKey publicKey = ElGamalPublicKey.of(KeyCodec.readPublicKey(keyFile));
+        publicKey.getParameters().precompute();
+
+        try (SignatureBundle.Reader reader = new SignatureBundle.Reader(bundle)) {
+            ThreadPoolExecutor executor = newExecutor(threads);
+            try {
+                SignatureBundle.Entry entry;
+                while ((entry = reader.next()) != null) {
+                    SignatureBundle.Entry task = entry;
+                    executor.execute(() -> {
+                        long start = System.nanoTime();
+                        try {
+                            long size = Files.size(task.path());
+                            if (!elGamal.verify(task.path(), task.signature(), publicKey)) {
+                                invalid.increment();
+                                report("NIEPOPRAWNY " + task.path());
+                            }
+                            completed(size, start);
+                        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+                            failed(task.path(), e);
+                        }
+                    });
+                }
+            } finally {
+                awaitTermination(executor);
+            }
+        }
+    }
+
+    /**
+     * Pula o stałej liczbie wątków z ograniczoną kolejką - gdy kolejka jest pełna, zadanie wykonuje wątek
+     * czytający ścieżki, co naturalnie wstrzymuje ich odczyt.
+     */
+    private static ThreadPoolExecutor newExecutor(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), task -> {
+            Thread thread = new Thread(task, "elgamal-cli-worker");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static void awaitTermination(ThreadPoolExecutor executor) throws InterruptedException {
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            // Duże partie mogą trwać godzinami - czekaj do skutku
+        }
+    }
+
+    private void completed(long size, long start) {
+        fileLatency.record(System.nanoTime() - start);
+        files.increment();
+        bytes.add(size);
+    }
+
+    /** Błąd jednego pliku (także nieoczekiwany wyjątek wykonania) - liczony do kodu wyjścia, partia trwa dalej. */
+    private void failed(Path file, Exception e) {
+        errors.increment();
+        report("BŁĄD " + file + ": " + (e.getMessage() != null ? e.getMessage() : e));
+    }
+
+    private void report(String line) {
+        synchronized (out) {
+            out.println(line);
+        }
+    }
+
+    private void printSummary(long nanos) {
+        double seconds = nanos / 1e9;
+        System.err.printf("Pliki: %d, niepoprawne: %d, błędy: %d, czas: %.2f s%n",
+                files.sum(), invalid.sum(), errors.sum(), seconds);
+        System.err.printf("Przepustowość: %.1f plików/s, %.1f MB/s%n",
+                files.sum() / seconds, bytes.sum() / 1e6 / seconds);
+        System.err.printf("Czas na plik: średnio %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                fileLatency.getMean() / 1e6, fileLatency.getPercentile(0.5) / 1e6,
+                fileLatency.getPercentile(0.99) / 1e6, fileLatency.getMax() / 1e6);
+        System.err.print(metrics.summary());
+    }
+
+    private static int usage(String message) {
+        System.err.println(message);
+        System.err.println("Użycie:");
+        System.err.println("  sign   -key klucz_prywatny -out podpisy.bin [-threads N] [-deterministic] plik|katalog|glob|-|@lista ...");
+        System.err.println("  verify -key klucz_publiczny -signatures podpisy.bin [-threads N]");
+        return 2;
+    }
+}
@@ -0,0 +1,75 @@
+package org.zespol.cli;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FileSourceTest {
+    private static Path file(Path directory, String name) throws IOException {
+        Path path = directory.resolve(name);
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, name);
+    }
+
+    private static List<Path> expand(String... arguments) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        new FileSource(List.of(arguments)).forEach(paths::add);
+        return paths;
+    }
+
+    /** Jak {@link #expand}, ale posortowane - kolejność przechodzenia katalogu nie jest określona. */
+    private static List<Path> expandSorted(String... arguments) throws IOException {
+        List<Path> paths = expand(arguments);
+        paths.sort(null);
+        return paths;
+    }
+
+    @Test
+    public void expandsFilesDirectoriesAndGlobs() throws IOException {
+        Path directory = Files.createTempDirectory("elgamal-cli");
+        Path a = file(directory, "a.txt");
+        Path b = file(directory, "b.log");
+        Path c = file(directory, "sub/c.log");
+        Path d = file(directory, "sub/deeper/d.txt");
+
+        Assert.assertEquals(List.of(a), expand(a.toString()));
+        // Katalog - wszystkie zwykłe pliki poddrzewa
+        Assert.assertEquals(List.of(c, d), expandSorted(directory.resolve("sub").toString()));
+        // * nie przechodzi przez separator, ** tak
+        Assert.assertEquals(List.of(a), expand(directory + "/*.txt"));
+        Assert.assertEquals(List.of(b, c), expandSorted(directory + "/**.log"));
+        Assert.assertEquals(List.of(a, b), expandSorted(directory + "/{a.txt,b.log}"));
+        // Kilka argumentów - ścieżki w kolejności argumentów, bez usuwania powtórzeń
+        Assert.assertEquals(List.of(b, a, b), expand(b.toString(), directory + "/*.txt", b.toString()));
+
+        Assert.assertTrue(FileSource.isGlob("logi/**.log"));
+        Assert.assertTrue(FileSource.isGlob("plik[0-9]"));
+        Assert.assertFalse(FileSource.isGlob("zwykły/plik.txt"));
+    }
+
+    @Test
+    public void readsPathListsFromFileAndStandardInput() throws IOException {
+        Path directory = Files.createTempDirectory("elgamal-cli");
+        Path a = file(directory, "a.txt");
+        Path b = file(directory, "b.txt");
+        Path list = Files.writeString(directory.resolve("lista"), a + "\n\n   \n  " + b + "  \n");
+        Assert.assertEquals(List.of(a, b), expand("@" + list));
+
+        InputStream stdin = System.in;
+        try {
+            System.setIn(new ByteArrayInputStream((b + "\n").getBytes(StandardCharsets.UTF_8)));
+            // Ścieżki z listy nie są rozwijane - katalog zostaje jedną ścieżką
+            Assert.assertEquals(List.of(b, directory), expand("-", "@" + Files.writeString(directory.resolve("katalogi"), directory.toString())));
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.zespol.cli;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamalSignature;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class SignatureBundleTest {
+    @Test
+    public void roundTrip() throws IOException {
+        Path bundle = Files.createTempFile("elgamal-bundle", ".bin");
+        Path[] paths = {Paths.get("a.txt"), Paths.get("katalog/plik.bin"), Paths.get("/bezwzgledna/sciezka")};
+        ElGamalSignature[] signatures = {
+                new ElGamalSignature(BigInteger.ONE, BigInteger.TWO),
+                new ElGamalSignature(BigInteger.TWO.pow(2047).add(BigInteger.ONE), BigInteger.TEN),
+                new ElGamalSignature(BigInteger.valueOf(12345), BigInteger.TWO.pow(2000))};
+        try (SignatureBundle.Writer writer = new SignatureBundle.Writer(bundle)) {
+            for (int i = 0; i < paths.length; i++) {
+                writer.write(paths[i], signatures[i]);
+            }
+        }
+
+        try (SignatureBundle.Reader reader = new SignatureBundle.Reader(bundle)) {
+            for (int i = 0; i < paths.length; i++) {
+                Assert.assertEquals(new SignatureBundle.Entry(paths[i], signatures[i]), reader.next());
+            }
+            Assert.assertNull(reader.next());
+        }
+
+        // Ucięty ostatni wpis
+        byte[] content = Files.readAllBytes(bundle);
+        Files.write(bundle, Arrays.copyOf(content, content.length - 3));
+        try (SignatureBundle.Reader reader = new SignatureBundle.Reader(bundle)) {
+            reader.next();
+            reader.next();
+            Assert.assertThrows(IllegalArgumentException.class, reader::next);
+        }
+
+        // Inny plik niż zbiorczy plik podpisów
+        Files.writeString(bundle, "to nie są podpisy");
+        Assert.assertThrows(IllegalArgumentException.class, () -> new SignatureBundle.Reader(bundle));
+    }
+}
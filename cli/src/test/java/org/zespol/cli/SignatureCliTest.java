@@ -0,0 +1,73 @@
+package org.zespol.cli;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.StandardGroup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SignatureCliTest {
+    /** Uruchamia polecenie, przechwytując standardowe wyjście (wynik: kod wyjścia). */
+    private static int run(ByteArrayOutputStream output, String... args) {
+        PrintStream stdout = System.out;
+        try {
+            System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+            return new SignatureCli().run(args);
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    @Test
+    public void signsAndVerifiesWithSeveralThreads() throws IOException {
+        Path directory = Files.createTempDirectory("elgamal-cli");
+        ElGamalPrivateKey privateKey = new ElGamal().generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+        Path privateFile = Files.write(directory.resolve("klucz.key"), privateKey.encode());
+        Path publicFile = Files.write(directory.resolve("klucz.pub"), privateKey.getPublicKey().encode());
+        Path data = Files.createDirectories(directory.resolve("dane"));
+        int count = 24;
+        for (int i = 0; i < count; i++) {
+            Files.writeString(data.resolve("plik" + i + ".txt"), "zawartość " + i);
+        }
+        Path bundle = directory.resolve("podpisy.bin");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Assert.assertEquals(0, run(output, "sign", "-key", privateFile.toString(), "-out", bundle.toString(),
+                "-threads", "4", data.toString()));
+        Set<Path> signed = new HashSet<>();
+        try (SignatureBundle.Reader reader = new SignatureBundle.Reader(bundle)) {
+            SignatureBundle.Entry entry;
+            while ((entry = reader.next()) != null) {
+                signed.add(entry.path());
+            }
+        }
+        Assert.assertEquals(count, signed.size());
+        Assert.assertEquals(0, run(output, "verify", "-key", publicFile.toString(), "-signatures", bundle.toString(),
+                "-threads", "4"));
+        Assert.assertEquals("", output.toString(StandardCharsets.UTF_8));
+
+        // Zmieniony plik jest niepoprawny, usunięty - błędem odczytu; pozostałe nadal przechodzą
+        Path tampered = data.resolve("plik7.txt");
+        Files.writeString(tampered, "zawartość 8");
+        Path removed = data.resolve("plik11.txt");
+        Files.delete(removed);
+        Assert.assertEquals(1, run(output, "verify", "-key", publicFile.toString(), "-signatures", bundle.toString(),
+                "-threads", "4"));
+        String report = output.toString(StandardCharsets.UTF_8);
+        Assert.assertEquals(2, report.lines().count());
+        Assert.assertTrue(report.contains("NIEPOPRAWNY " + tampered));
+        Assert.assertTrue(report.contains("BŁĄD " + removed));
+
+        Assert.assertEquals(2, run(output, "verify", "-key", publicFile.toString()));
+    }
+}
@@ -1,5 +1,18 @@
+/**
+ * Biblioteka podpisów ElGamala.
+ * <p>
+ * Moduł {@code jdk.incubator.vector} jest zależnością opcjonalną ({@code requires static}): potrzebuje go tylko
+ * {@code VectorMontgomery} przy {@link org.zespol.core.ElGamal#setVectorizedBatches}. Sama
+ * deklaracja wystarcza jednak, by javac przy każdej kompilacji modułu wypisał ostrzeżenie
+ * "using incubating module(s): jdk.incubator.vector". Ostrzeżenie jest oczekiwane i nie da się go wyłączyć
+ * osobno ({@code -Xlint:none} ukryłoby też wszystkie inne ostrzeżenia); zniknie, gdy Vector API wyjdzie
+ * z inkubatora. W czasie działania moduł nie jest ładowany, jeśli JVM nie uruchomiono z
+ * {@code --add-modules jdk.incubator.vector}.
+ */
 module org.zespol.core {
     requires java.base;
+    requires jdk.jfr;
+    requires static jdk.incubator.vector; // opcjonalnie, zob. BatchModPow
     exports org.zespol.core;
     opens org.zespol.core to java.base;
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+
+/**
+ * Wiele niezależnych potęgowań base_i^exponent_i mod n dla wspólnego modułu, np. r_i^s_i przy weryfikacji
+ * partii podpisów.
+ * <p>
+ * Gdy w czasie działania dostępny jest moduł {@code jdk.incubator.vector} (JVM uruchomiona z
+ * {@code --add-modules jdk.incubator.vector}), pełne grupy po {@link #getLanes()} potęgowań liczone są
+ * jednocześnie na torach wektora ({@link VectorMontgomery}). W przeciwnym razie, a także dla reszty partii
+ * mniejszej od liczby torów, parzystego modułu i ujemnych wykładników, używany jest {@link BigInteger#modPow}.
+ * Wyniki są w obu przypadkach identyczne z {@link BigInteger#modPow}.
+ * <p>
+ * Uwaga na wydajność: HotSpot liczy {@link BigInteger#modPow} wewnętrznym mnożeniem Montgomery'ego na
+ * 64-bitowych limbach, a Vector API ma tylko 64-bitowe mnożenie torów, więc ścieżka wektorowa musi używać
+ * limbów 28-bitowych. Na AVX-512 (8 torów) obie ścieżki mają zbliżoną przepustowość dla modułów 2048-3072 bitów;
+ * przy 4 torach (AVX2) ścieżka wektorowa jest wolniejsza. Dlatego {@link ElGamal} korzysta z niej tylko po
+ * jawnym włączeniu ({@link ElGamal#setVectorizedBatches}).
+ * <p>
+ * Z powodu opcjonalnej zależności od modułu inkubacyjnego każda kompilacja modułu {@code org.zespol.core}
+ * wypisuje ostrzeżenie "using incubating module(s)" - zob. opis modułu w {@code module-info.java}.
+ * <p>
+ * Obiekt jest niezmienny i może być współdzielony przez wątki.
+ */
+public final class BatchModPow {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final boolean VECTOR_AVAILABLE = probeVectorSupport();
+
+    private final BigInteger modulus;
+    private final boolean vectorized;
+
+    /**
+     * @param modulus Moduł większy od zera.
+     * @throws IllegalArgumentException Jeśli moduł nie jest dodatni.
+     */
+    public BatchModPow(BigInteger modulus) {
+        this(modulus, true);
+    }
+
+    /**
+     * @param modulus         Moduł większy od zera.
+     * @param allowVectorized false wymusza {@link BigInteger#modPow} nawet przy dostępnym Vector API.
+     * @throws IllegalArgumentException Jeśli moduł nie jest dodatni.
+     */
+    public BatchModPow(BigInteger modulus, boolean allowVectorized) {
+        if (modulus == null || modulus.signum() <= 0) {
+            throw new IllegalArgumentException("Moduł musi być dodatni.");
+        }
+        this.modulus = modulus;
+        this.vectorized = allowVectorized && VECTOR_AVAILABLE && modulus.testBit(0) && !modulus.equals(BigInteger.ONE);
+    }
+
+    /** Czy JVM udostępnia Vector API z co najmniej dwoma torami. */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    /** Czy potęgowania są liczone na torach wektora. */
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    /** Liczba potęgowań liczonych jednocześnie (1 bez Vector API). */
+    public int getLanes() {
+        return vectorized ? VectorLanes.LANES : 1;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    /**
+     * Liczy bases[i]^exponents[i] mod n dla wszystkich i.
+     *
+     * @return Nowa tablica wyników.
+     * @throws IllegalArgumentException Jeśli tablice mają różne długości lub zawierają null.
+     */
+    public BigInteger[] modPow(BigInteger[] bases, BigInteger[] exponents) {
+        if (bases.length != exponents.length) {
+            throw new IllegalArgumentException("Liczba podstaw i wykładników musi być równa.");
+        }
+        int count = bases.length;
+        BigInteger[] results = new BigInteger[count];
+        if (vectorized && count >= VectorLanes.LANES) {
+            vectorModPow(bases, exponents, results);
+        }
+        for (int i = 0; i < count; i++) {
+            if (results[i] == null) {
+                results[i] = scalarModPow(bases[i], exponents[i]);
+            }
+        }
+        return results;
+    }
+
+    /** Liczy pełne grupy torów; resztę i grupy z ujemnym wykładnikiem zostawia ścieżce skalarnej. */
+    private void vectorModPow(BigInteger[] bases, BigInteger[] exponents, BigInteger[] results) {
+        VectorMontgomery engine = new VectorMontgomery(modulus);
+        int lanes = engine.lanes();
+        int full = bases.length - bases.length % lanes;
+        for (int from = 0; from < full; from += lanes) {
+            boolean supported = true;
+            for (int i = from; i < from + lanes; i++) {
+                if (bases[i] == null || exponents[i] == null) {
+                    throw new IllegalArgumentException("Podstawa i wykładnik nie mogą być null.");
+                }
+                supported &= exponents[i].signum() >= 0;
+            }
+            if (supported) {
+                engine.modPow(bases, exponents, results, from, lanes);
+            }
+        }
+    }
+
+    private BigInteger scalarModPow(BigInteger base, BigInteger exponent) {
+        if (base == null || exponent == null) {
+            throw new IllegalArgumentException("Podstawa i wykładnik nie mogą być null.");
+        }
+        return base.modPow(exponent, modulus);
+    }
+
+    private static boolean probeVectorSupport() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return false;
+        }
+        try {
+            // Przy jednym torze przetwarzanie wsadowe nie ma sensu
+            return VectorMontgomery.preferredLanes() >= 2;
+        } catch (LinkageError e) {
+            // Moduł obecny, ale jego klasy nie dają się załadować - zostaje BigInteger.modPow
+            return false;
+        }
+    }
+
+    /** Liczba torów; osobna klasa, żeby bez modułu wektorowego nie ładować {@link VectorMontgomery}. */
+    private static final class VectorLanes {
+        static final int LANES = VectorMontgomery.preferredLanes();
+    }
+}
@@ -0,0 +1,107 @@
+package org.zespol.core;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Deterministyczne wartości k według RFC 6979 (rozdz. 3.2): HMAC-DRBG z HMAC-SHA256 zasilany kluczem prywatnym x
+ * i skrótem H(m). Ta sama para (x, H(m)) daje zawsze ten sam ciąg kandydatów, a różne wiadomości - niezależne
+ * wartości k, więc podpis nie potrzebuje generatora liczb losowych ani wspólnego stanu między wątkami.
+ * <p>
+ * Kolejne wywołania {@link #next()} zwracają kolejnych kandydatów z zakresu [1, order-1]; wywołujący odrzuca
+ * nieprzydatne (np. NWD(k, p-1) != 1 albo s = 0) i prosi o następnego, jak w kroku h.3 RFC. Obiekt nie jest
+ * bezpieczny wątkowo - tworzony jest dla jednego podpisu.
+ */
+public final class DeterministicNonceGenerator {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HMAC_LENGTH = 32;
+
+    private final BigInteger order;
+    private final int orderBits;
+    private final int orderBytes;
+    private final Mac mac;
+    private byte[] k;
+    private byte[] v;
+
+    /**
+     * @param order  Rząd wykładników: q w podgrupie lub p-1 w pełnej grupie.
+     * @param x      Klucz prywatny, 1 &lt;= x &lt; order.
+     * @param digest Skrót wiadomości H(m).
+     * @throws IllegalArgumentException Jeśli x jest poza zakresem.
+     */
+    public DeterministicNonceGenerator(BigInteger order, BigInteger x, byte[] digest) {
+        if (order == null || order.compareTo(BigInteger.TWO) < 0 || x == null || x.signum() <= 0
+                || x.compareTo(order) >= 0 || digest == null) {
+            throw new IllegalArgumentException("Klucz prywatny musi spełniać 1 <= x < rząd.");
+        }
+        this.order = order;
+        this.orderBits = order.bitLength();
+        this.orderBytes = (orderBits + 7) / 8;
+        try {
+            this.mac = Mac.getInstance(HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Brak algorytmu " + HMAC_ALGORITHM + ".", e);
+        }
+
+        byte[] xOctets = toOctets(x);
+        byte[] hOctets = toOctets(bitsToInteger(digest).mod(order));
+        v = new byte[HMAC_LENGTH];
+        Arrays.fill(v, (byte) 0x01);
+        k = new byte[HMAC_LENGTH];
+        k = hmac(k, v, new byte[]{0x00}, xOctets, hOctets);
+        v = hmac(k, v);
+        k = hmac(k, v, new byte[]{0x01}, xOctets, hOctets);
+        v = hmac(k, v);
+    }
+
+    /**
+     * Następny kandydat na k z zakresu [1, order-1].
+     */
+    public BigInteger next() {
+        while (true) {
+            byte[] t = new byte[orderBytes];
+            for (int filled = 0; filled < orderBytes; filled += HMAC_LENGTH) {
+                v = hmac(k, v);
+                System.arraycopy(v, 0, t, filled, Math.min(HMAC_LENGTH, orderBytes - filled));
+            }
+            BigInteger candidate = bitsToInteger(t);
+            // Krok h.3 wykonywany od razu, żeby kolejne wywołanie dało następnego kandydata
+            k = hmac(k, v, new byte[]{0x00});
+            v = hmac(k, v);
+            if (candidate.signum() > 0 && candidate.compareTo(order) < 0) {
+                return candidate;
+            }
+        }
+    }
+
+    /** bits2int: liczba z najstarszych orderBits bitów ciągu. */
+    private BigInteger bitsToInteger(byte[] bits) {
+        BigInteger value = new BigInteger(1, bits);
+        int length = bits.length * 8;
+        return length > orderBits ? value.shiftRight(length - orderBits) : value;
+    }
+
+    /** int2octets: liczba jako orderBytes bajtów big-endian. */
+    private byte[] toOctets(BigInteger value) {
+        byte[] magnitude = value.toByteArray();
+        byte[] octets = new byte[orderBytes];
+        int length = Math.min(magnitude.length, orderBytes);
+        System.arraycopy(magnitude, magnitude.length - length, octets, orderBytes - length, length);
+        return octets;
+    }
+
+    private byte[] hmac(byte[] key, byte[]... parts) {
+        try {
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Nieprawidłowy klucz HMAC.", e);
+        }
+        for (byte[] part : parts) {
+            mac.update(part);
+        }
+        return mac.doFinal();
+    }
+}
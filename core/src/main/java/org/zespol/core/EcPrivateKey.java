@@ -0,0 +1,76 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+
+/**
+ * Niezmienny klucz prywatny d na krzywej P-256, kodowany jako 32 bajty big-endian.
+ * <p>
+ * Klucz publiczny liczony jest przy pierwszym wywołaniu {@link #getPublicKey()} i zapamiętywany.
+ * {@link #toString()} nie ujawnia wartości d.
+ */
+public final class EcPrivateKey implements SignatureScheme.PrivateKey {
+    private final BigInteger d;
+    private volatile EcPublicKey publicKey;
+
+    /**
+     * @param d Klucz prywatny, 1 &lt;= d &lt;= n-1.
+     * @throws IllegalArgumentException Jeśli d jest null lub poza zakresem.
+     */
+    public EcPrivateKey(BigInteger d) {
+        if (d == null || d.signum() <= 0 || d.compareTo(P256.N) >= 0) {
+            throw new IllegalArgumentException("Klucz prywatny musi spełniać 1 <= d <= n-1.");
+        }
+        this.d = d;
+    }
+
+    /**
+     * Klucz z postaci binarnej ({@link #encode()}).
+     *
+     * @throws IllegalArgumentException Jeśli dane mają złą długość lub wartość jest poza zakresem.
+     */
+    public static EcPrivateKey decode(byte[] encoded) {
+        if (encoded == null || encoded.length != P256.FIELD_BYTES) {
+            throw new IllegalArgumentException("Klucz prywatny P-256 musi mieć " + P256.FIELD_BYTES + " bajty.");
+        }
+        return new EcPrivateKey(new BigInteger(1, encoded));
+    }
+
+    /**
+     * Klucz publiczny Q = dG.
+     */
+    @Override
+    public EcPublicKey getPublicKey() {
+        EcPublicKey current = publicKey;
+        if (current == null) {
+            BigInteger[] q = P256.toAffine(P256.multiplyGenerator(d));
+            current = new EcPublicKey(q[0], q[1]);
+            publicKey = current;
+        }
+        return current;
+    }
+
+    /** 32 bajty big-endian. */
+    @Override
+    public byte[] encode() {
+        return P256.toBytes(d);
+    }
+
+    public BigInteger getD() {
+        return d;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EcPrivateKey other && d.equals(other.d);
+    }
+
+    @Override
+    public int hashCode() {
+        return d.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "EcPrivateKey[P-256]";
+    }
+}
@@ -0,0 +1,94 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Niezmienny klucz publiczny Q = dG na krzywej P-256, kodowany jako 33-bajtowy punkt skompresowany SEC 1.
+ * <p>
+ * Jak {@link ElGamalPublicKey}, klucz używany do wielu weryfikacji buduje po {@value #TABLE_THRESHOLD} z nich
+ * własną tablicę wielokrotności (ok. 150 KB), z którą eQ kosztuje tyle co kG zamiast 256 podwojeń.
+ */
+public final class EcPublicKey implements SignatureScheme.PublicKey {
+    /** Liczba weryfikacji, po której budowana jest tablica wielokrotności Q. */
+    public static final int TABLE_THRESHOLD = 16;
+
+    private final BigInteger[] point;
+    private final byte[] encoded;
+    private final AtomicInteger uses = new AtomicInteger();
+    private volatile BigInteger[][][] table;
+
+    /**
+     * @throws IllegalArgumentException Jeśli punkt nie leży na krzywej.
+     */
+    public EcPublicKey(BigInteger x, BigInteger y) {
+        if (x == null || y == null || !P256.isOnCurve(x, y)) {
+            throw new IllegalArgumentException("Punkt nie leży na krzywej P-256.");
+        }
+        point = new BigInteger[]{x, y};
+        encoded = P256.compress(point);
+    }
+
+    /**
+     * Klucz z postaci skompresowanej ({@link #encode()}).
+     *
+     * @throws IllegalArgumentException Jeśli dane nie są punktem krzywej.
+     */
+    public static EcPublicKey decode(byte[] encoded) {
+        BigInteger[] point = P256.decompress(encoded);
+        return new EcPublicKey(point[0], point[1]);
+    }
+
+    /** Punkt skompresowany: 0x02/0x03 (parzystość y) i 32 bajty x. */
+    @Override
+    public byte[] encode() {
+        return encoded.clone();
+    }
+
+    /**
+     * kQ we współrzędnych Jacobiego, z tablicy, gdy klucz był już wielokrotnie używany.
+     */
+    BigInteger[] multiply(BigInteger k) {
+        BigInteger[][][] current = table;
+        if (current == null && uses.incrementAndGet() >= TABLE_THRESHOLD) {
+            current = buildTable();
+        }
+        return current != null ? P256.multiply(current, k) : P256.multiply(point, k);
+    }
+
+    private synchronized BigInteger[][][] buildTable() {
+        if (table == null) {
+            table = P256.buildTable(point);
+        }
+        return table;
+    }
+
+    /** Postać skompresowana bez kopiowania, np. do haszowania. */
+    byte[] encoded() {
+        return encoded;
+    }
+
+    public BigInteger getX() {
+        return point[0];
+    }
+
+    public BigInteger getY() {
+        return point[1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EcPublicKey other && Arrays.equals(encoded, other.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+
+    @Override
+    public String toString() {
+        return "EcPublicKey[P-256, x=" + point[0].toString(16) + "]";
+    }
+}
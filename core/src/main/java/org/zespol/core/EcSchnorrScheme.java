@@ -0,0 +1,138 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Podpis Schnorra na krzywej P-256 w czystej Javie ({@link P256}).
+ * <ul>
+ *   <li>Podpis: losowe k z [1, n-1], R = kG, e = SHA-256(x(R) || Q || H(m)) mod n, s = (k + e d) mod n.</li>
+ *   <li>Weryfikacja: R' = sG - eQ, podpis jest poprawny, gdy R' nie jest punktem w nieskończoności
+ *       i SHA-256(x(R') || Q || H(m)) mod n == e.</li>
+ * </ul>
+ * Q w skrócie to 33-bajtowy punkt skompresowany, co wiąże podpis z kluczem. Podpis to e i s po 32 bajty
+ * (razem {@value #SIGNATURE_LENGTH}), klucz prywatny ma 32 bajty, a publiczny 33.
+ * <p>
+ * Poziom bezpieczeństwa (128 bitów) odpowiada grupie 3072-bitowej, a podpis kosztuje jedno mnożenie przez G
+ * z tablicy (64 dodawania punktów na liczbach 256-bitowych) zamiast potęgowania modulo 3072-bitowe p.
+ */
+public final class EcSchnorrScheme implements SignatureScheme {
+    /** Nazwa schematu dla {@link SignatureScheme#forName}. */
+    public static final String NAME = "ec-schnorr-p256";
+    /** Długość zakodowanego podpisu w bajtach. */
+    public static final int SIGNATURE_LENGTH = 2 * P256.FIELD_BYTES;
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int DIGEST_LENGTH = 32; // Długość skrótu SHA-256 w bajtach
+
+    private final SecureRandom random;
+
+    public EcSchnorrScheme() {
+        this(new SecureRandom());
+    }
+
+    /**
+     * @param random Źródło losowości kluczy i wartości k.
+     */
+    public EcSchnorrScheme(SecureRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException("Źródło losowości nie może być null.");
+        }
+        this.random = random;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public EcPrivateKey generatePrivateKey() {
+        return new EcPrivateKey(randomScalar());
+    }
+
+    @Override
+    public byte[] signDigest(byte[] digest, PrivateKey privateKey) {
+        checkDigest(digest);
+        if (!(privateKey instanceof EcPrivateKey key)) {
+            throw new IllegalArgumentException("Klucz nie należy do schematu " + NAME + ".");
+        }
+        byte[] publicKey = key.getPublicKey().encoded();
+        BigInteger e;
+        BigInteger s;
+        do {
+            BigInteger k = randomScalar();
+            BigInteger[] r = P256.toAffine(P256.multiplyGenerator(k));
+            e = challenge(r[0], publicKey, digest);
+            s = k.add(e.multiply(key.getD())).mod(P256.N);
+        } while (s.signum() == 0);
+
+        byte[] signature = new byte[SIGNATURE_LENGTH];
+        System.arraycopy(P256.toBytes(e), 0, signature, 0, P256.FIELD_BYTES);
+        System.arraycopy(P256.toBytes(s), 0, signature, P256.FIELD_BYTES, P256.FIELD_BYTES);
+        return signature;
+    }
+
+    @Override
+    public boolean verifyDigest(byte[] digest, byte[] signature, PublicKey publicKey) {
+        checkDigest(digest);
+        if (!(publicKey instanceof EcPublicKey key)) {
+            throw new IllegalArgumentException("Klucz nie należy do schematu " + NAME + ".");
+        }
+        if (signature == null || signature.length != SIGNATURE_LENGTH) {
+            return false;
+        }
+        BigInteger e = new BigInteger(1, signature, 0, P256.FIELD_BYTES);
+        BigInteger s = new BigInteger(1, signature, P256.FIELD_BYTES, P256.FIELD_BYTES);
+        if (e.compareTo(P256.N) >= 0 || s.signum() == 0 || s.compareTo(P256.N) >= 0) {
+            return false;
+        }
+        BigInteger[] minusEQ = key.multiply(P256.N.subtract(e).mod(P256.N));
+        BigInteger[] r = P256.toAffine(P256.add(P256.multiplyGenerator(s), minusEQ));
+        return r != null && challenge(r[0], key.encoded(), digest).equals(e);
+    }
+
+    @Override
+    public EcPrivateKey decodePrivateKey(byte[] encoded) {
+        return EcPrivateKey.decode(encoded);
+    }
+
+    @Override
+    public EcPublicKey decodePublicKey(byte[] encoded) {
+        return EcPublicKey.decode(encoded);
+    }
+
+    private BigInteger randomScalar() {
+        BigInteger k;
+        do {
+            k = new BigInteger(P256.N.bitLength(), random);
+        } while (k.signum() == 0 || k.compareTo(P256.N) >= 0);
+        return k;
+    }
+
+    private static BigInteger challenge(BigInteger rx, byte[] publicKey, byte[] digest) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak algorytmu " + HASH_ALGORITHM + ".", e);
+        }
+        md.update(P256.toBytes(rx));
+        md.update(publicKey);
+        md.update(digest);
+        return new BigInteger(1, md.digest()).mod(P256.N);
+    }
+
+    private static void checkDigest(byte[] digest) {
+        if (digest == null || digest.length != DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Skrót wiadomości musi mieć " + DIGEST_LENGTH + " bajty (SHA-256).");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EcSchnorrScheme[" + NAME + "]";
+    }
+}
@@ -1,86 +1,551 @@
 package org.zespol.core;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ElGamal {
     private static final int DEFAULT_CERTAINTY = 100; // Pewność testu pierwszości Millera-Rabina
-    private static final SecureRandom random = new SecureRandom();
+    private static final RandomnessProvider DEFAULT_RANDOMNESS = RandomnessProvider.shared(new SecureRandom());
 
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int DIGEST_LENGTH = 32; // Długość skrótu SHA-256 w bajtach
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024; // Bufor dla strumieni i kanałów
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024; // Rozmiar jednego mapowanego fragmentu pliku
+    private static final int PROGRESS_SLICE_SIZE = 4 * 1024 * 1024;   // Co tyle bajtów zgłaszany jest postęp haszowania
+
+    private static final int PARAMETERS_CACHE_SIZE = 8; // Maksymalna liczba grup (p, g) zapamiętanych dla API list
+    private static final int PUBLIC_KEY_CACHE_SIZE = 8; // Maksymalna liczba kluczy [p, g, y] zapamiętanych dla API list
+
+    private static final int BATCH_CHUNK_SIZE = 256;    // Liczba podpisów sprawdzanych jednym testem kombinacji liniowej
+    private static final int BATCH_MIN_SIZE = 4;        // Poniżej tej liczby podpisy są weryfikowane pojedynczo
+    private static final int BATCH_EXPONENT_BITS = 64;  // Długość losowych wykładników - prawdopodobieństwo błędu <= 2^-64
+
+    private final Map<ElGamalParameters, NoncePool> noncePools = new ConcurrentHashMap<>();
+    private final int fixedBaseWindow; // Rozmiar okna tablic dla g i y, 0 wyłącza prekomputację
+    private volatile ParameterCache parameterCache = ParameterCache.defaultCache();
+    private volatile VerificationCache verificationCache; // Pamięć podręczna wyników weryfikacji, null = wyłączona
+    private volatile Instrumentation instrumentation = Instrumentation.NONE; // Pomiary operacji, domyślnie wyłączone
+    private volatile RandomnessProvider randomness = DEFAULT_RANDOMNESS;
+    private volatile boolean deterministicNonces; // k według RFC 6979 zamiast losowego
+    private volatile boolean vectorizedBatches;   // r^s w partiach przez BatchModPow na torach wektora
+    // Obiekty z wartościami pochodnymi (p-1, kontekst Montgomery'ego, tablice) dla ostatnio używanych list,
+    // żeby API oparte na listach nie tworzyło ich od nowa przy każdym wywołaniu
+    private final Map<List<BigInteger>, ElGamalParameters> parameterInstances = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<BigInteger>, ElGamalParameters> eldest) {
+            return size() > PARAMETERS_CACHE_SIZE;
+        }
+    };
+    private final Map<List<BigInteger>, ElGamalPublicKey> publicKeyInstances = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<BigInteger>, ElGamalPublicKey> eldest) {
+            return size() > PUBLIC_KEY_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Tworzy instancję z domyślnym rozmiarem okna tablic prekomputacji dla g ({@value FixedBaseTable#DEFAULT_WINDOW}).
+     */
+    public ElGamal() {
+        this(FixedBaseTable.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Tworzy instancję z podanym rozmiarem okna tablic prekomputacji dla generatora g i kluczy publicznych.
+     * Większe okno to szybsze potęgowanie kosztem pamięci (ok. bits/w * 2^w liczb długości p na grupę).
+     *
+     * @param fixedBaseWindow Rozmiar okna (1..{@value FixedBaseTable#MAX_WINDOW}) lub 0, aby wyłączyć prekomputację.
+     */
+    public ElGamal(int fixedBaseWindow) {
+        if (fixedBaseWindow < 0 || fixedBaseWindow > FixedBaseTable.MAX_WINDOW) {
+            throw new IllegalArgumentException("Rozmiar okna musi być z zakresu 0.." + FixedBaseTable.MAX_WINDOW + ".");
+        }
+        this.fixedBaseWindow = fixedBaseWindow;
+    }
+
+    /**
+     * Zwraca parametry (p, g) jako obiekt z wartościami pochodnymi. Ostatnio używane grupy są zapamiętywane,
+     * więc kolejne wywołania API opartego na listach korzystają z tego samego kontekstu i tablic prekomputacji.
+     * Parametry podgrupy zwraca {@link #subgroupParameters} - lista trzyelementowa jest tu odrzucana, bo
+     * w reszcie API oznacza zwykle klucz publiczny [p, g, y].
+     *
+     * @param pg - lista [p, g]
+     * @return Parametry grupy.
+     * @throws IllegalArgumentException Jeśli lista nie ma dokładnie dwóch elementów.
+     * @throws IllegalStateException Jeśli p lub g jest null.
+     */
+    public ElGamalParameters parameters(List<BigInteger> pg) {
+        if (pg.size() != 2) {
+            throw new IllegalArgumentException("Oczekiwano parametrów [p, g]; parametry podgrupy [p, g, q] zwraca subgroupParameters.");
+        }
+        return group(pg);
+    }
+
+    /**
+     * Zwraca parametry podgrupy rzędu q (np. z {@link #generateSubgroupParameters}), zapamiętywane tak jak
+     * {@link #parameters}.
+     *
+     * @throws IllegalArgumentException Jeśli q nie jest rzędem g ({@link ElGamalParameters}).
+     * @throws IllegalStateException Jeśli któraś z wartości jest null.
+     */
+    public ElGamalParameters subgroupParameters(BigInteger p, BigInteger g, BigInteger q) {
+        if (q == null) {
+            throw new IllegalStateException("Parametry p, g i q nie zostały zainicjowane.");
+        }
+        return group(Arrays.asList(p, g, q));
+    }
+
+    /**
+     * Parametry z listy [p, g] lub [p, g, q] - dla metod API opartego na listach, które przyjmują obie postacie.
+     */
+    private ElGamalParameters group(List<BigInteger> pg) {
+        BigInteger p = pg.get(0);
+        BigInteger g = pg.get(1);
+        BigInteger q = (pg.size() > 2) ? pg.get(2) : null;
+        if (p == null || g == null) {
+            throw new IllegalStateException("Parametry p i g nie zostały zainicjowane.");
+        }
+        List<BigInteger> group = (q != null) ? List.of(p, g, q) : List.of(p, g);
+        synchronized (parameterInstances) {
+            ElGamalParameters parameters = parameterInstances.get(group);
+            if (parameters == null) {
+                parameters = new ElGamalParameters(p, g, q, fixedBaseWindow);
+                parameterInstances.put(group, parameters);
+            }
+            return parameters;
+        }
+    }
+
+    /**
+     * Zwraca klucz publiczny [p, g, y] lub [p, g, y, q] jako obiekt, zapamiętując ostatnio używane klucze
+     * (tak jak {@link #parameters}).
+     *
+     * @throws IllegalStateException Jeśli któryś z elementów klucza jest null.
+     */
+    private ElGamalPublicKey publicKey(List<BigInteger> publicKey) {
+        BigInteger y = publicKey.get(2);
+        if (y == null || publicKey.get(0) == null || publicKey.get(1) == null
+                || (publicKey.size() > 3 && publicKey.get(3) == null)) {
+            throw new IllegalStateException("Któryś z elementów klucza publicznego p, g, y, q jest null");
+        }
+        List<BigInteger> key = List.copyOf(publicKey.subList(0, Math.min(publicKey.size(), 4)));
+        List<BigInteger> pg = (key.size() > 3) ? List.of(key.get(0), key.get(1), key.get(3)) : key.subList(0, 2);
+        synchronized (publicKeyInstances) {
+            ElGamalPublicKey instance = publicKeyInstances.get(key);
+            if (instance == null) {
+                instance = new ElGamalPublicKey(group(pg), y);
+                publicKeyInstances.put(key, instance);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Od razu buduje tablicę prekomputacji dla generatora g podanej grupy,
+     * zamiast czekać, aż grupa zostanie użyta kilka razy.
+     *
+     * @param pg - lista [p, g]
+     */
+    public void precompute(List<BigInteger> pg) {
+        group(pg).precompute();
+    }
+
+    /**
+     * Generuje jednorazową trójkę (k, r, k^(-1)) dla podpisu: losowe k z zakresu [1, p-2] takie, że NWD(k, p-1) = 1,
+     * r = g^k mod p oraz k^(-1) mod (p-1). Żaden z elementów nie zależy od wiadomości ani od klucza prywatnego.
+     * W podgrupie rzędu q: k z zakresu [1, q-1], r = (g^k mod p) mod q != 0 oraz k^(-1) mod q.
+     */
+    NoncePool.Nonce generateNonce(ElGamalParameters parameters) {
+        if (parameters.isSubgroup()) {
+            return generateSubgroupNonce(parameters);
+        }
+        BigInteger p = parameters.getP();
+        BigInteger pMinusOne = parameters.getPMinusOne();
+        BigInteger pMinusTwo = parameters.getPMinusTwo();
+        SecureRandom random = randomness.current();
+        BigInteger k;
+        int attempts = 0;
+
+        // Wygeneruj losowe k takie, że 1 <= k <= p-2 oraz NWD(k, p-1) = 1
+        do {
+            k = new BigInteger(p.bitLength() - 1, random);
+            attempts++;
+            // Pętla działa dopóki k jest poza zakresem [1, p-2] LUB gcd(k, p-1) != 1
+        } while (k.compareTo(BigInteger.ONE) < 0 || k.compareTo(pMinusTwo) > 0 || !k.gcd(pMinusOne).equals(BigInteger.ONE));
+
+        Instrumentation metrics = instrumentation;
+        if (attempts > 1 && metrics.isEnabled()) {
+            metrics.recordRetries(Instrumentation.Operation.SIGN, parameters.getBitLength(), attempts - 1);
+        }
+
+        // Oblicz r = g^k mod p oraz k^(-1) mod (p-1) - zadziała, bo gcd(k, p-1)=1
+        return new NoncePool.Nonce(k, parameters.generatorPow(k), k.modInverse(pMinusOne));
+    }
+
+    private NoncePool.Nonce generateSubgroupNonce(ElGamalParameters parameters) {
+        BigInteger q = parameters.getQ();
+        SecureRandom random = randomness.current();
+        BigInteger k;
+        BigInteger r;
+        int attempts = 0;
+        do {
+            // k z zakresu [1, q-1]; q jest pierwsze, więc każde takie k jest odwracalne
+            do {
+                k = new BigInteger(q.bitLength(), random);
+            } while (k.signum() == 0 || k.compareTo(q) >= 0);
+            r = parameters.generatorPow(k).mod(q);
+            attempts++;
+        } while (r.signum() == 0);
+
+        Instrumentation metrics = instrumentation;
+        if (attempts > 1 && metrics.isEnabled()) {
+            metrics.recordRetries(Instrumentation.Operation.SIGN, parameters.getBitLength(), attempts - 1);
+        }
+        return new NoncePool.Nonce(k, r, k.modInverse(q));
+    }
+
+    /**
+     * Trójka z deterministycznym k według RFC 6979 - kolejni kandydaci z generatora, aż k będzie przydatne
+     * (NWD(k, p-1) = 1 albo r != 0 w podgrupie).
+     */
+    private NoncePool.Nonce generateDeterministicNonce(ElGamalParameters parameters, DeterministicNonceGenerator generator) {
+        BigInteger q = parameters.getQ();
+        BigInteger pMinusOne = parameters.getPMinusOne();
+        while (true) {
+            BigInteger k = generator.next();
+            if (q != null) {
+                BigInteger r = parameters.generatorPow(k).mod(q);
+                if (r.signum() != 0) {
+                    return new NoncePool.Nonce(k, r, k.modInverse(q));
+                }
+            } else if (k.gcd(pMinusOne).equals(BigInteger.ONE)) {
+                return new NoncePool.Nonce(k, parameters.generatorPow(k), k.modInverse(pMinusOne));
+            }
+        }
+    }
+
+    /**
+     * Włącza pulę jednorazowych trójek (k, r, k^(-1)) wypełnianą w tle dla grupy (p, g).
+     * Trójki nie zależą od klucza prywatnego, więc jedna pula obsługuje wszystkie klucze danej grupy.
+     * Podpisywanie pobiera trójki z puli, a gdy ta jest pusta - generuje je jak dotychczas.
+     * Jeśli dla grupy istniała już pula, zostaje zamknięta i zastąpiona.
+     *
+     * @param pg - lista [p, g]
+     * @param maxSize Maksymalna liczba trójek w puli.
+     * @param refillThreshold Liczba trójek, poniżej której pula jest uzupełniana w tle.
+     * @return Utworzona pula (zamknięcie jej wyłącza korzystanie z puli).
+     */
+    public NoncePool enableNoncePool(List<BigInteger> pg, int maxSize, int refillThreshold) {
+        return enableNoncePool(group(pg), maxSize, refillThreshold);
+    }
+
+    /**
+     * Włącza pulę trójek dla grupy (p, g) - wariant dla {@link ElGamalParameters}.
+     *
+     * @see #enableNoncePool(List, int, int)
+     */
+    public NoncePool enableNoncePool(ElGamalParameters parameters, int maxSize, int refillThreshold) {
+        NoncePool pool = new NoncePool(() -> generateNonce(parameters), maxSize, refillThreshold,
+                closed -> noncePools.remove(parameters, closed));
+        NoncePool previous = noncePools.put(parameters, pool);
+        if (previous != null) {
+            previous.close();
+        }
+        pool.refill();
+        return pool;
+    }
+
+    /**
+     * Wyłącza i zamyka pulę trójek dla grupy (p, g), jeśli była włączona.
+     *
+     * @param pg - lista [p, g]
+     */
+    public void disableNoncePool(List<BigInteger> pg) {
+        NoncePool pool = noncePools.remove(group(pg));
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Pula trójek używana przy podpisywaniu w grupie (p, g).
+     *
+     * @return Włączona pula lub null, jeśli dla grupy nie ma puli (także po jej zamknięciu).
+     */
+    public NoncePool getNoncePool(ElGamalParameters parameters) {
+        return noncePools.get(parameters);
+    }
+
+
+    /**
+     * Generuje parametry podgrupy [p, g, q] z q o długości
+     * {@value SubgroupParameterGenerator#DEFAULT_SUBGROUP_BIT_LENGTH} bitów.
+     *
+     * @param bitLength Długość bitowa liczby pierwszej p.
+     * @return pgq - lista [p, g, q]
+     * @see #generateSubgroupParameters(int, int, ProgressListener)
+     */
+    public List<BigInteger> generateSubgroupParameters(int bitLength) {
+        return generateSubgroupParameters(bitLength, SubgroupParameterGenerator.DEFAULT_SUBGROUP_BIT_LENGTH,
+                ProgressListener.NONE);
+    }
+
+    /**
+     * Generuje parametry podgrupy [p, g, q] w stylu DSA: g ma pierwszy rząd q, a klucze, jednorazowe k
+     * i s liczone są modulo q. Podpis ma postać r = (g^k mod p) mod q, s = k^(-1) * (H(m) + x*r) mod q,
+     * więc zajmuje 2 * |q| bitów, a podpisywanie i weryfikacja używają wykładników długości q zamiast p.
+     * Listę można przekazać metodom API opartego na listach tam, gdzie [p, g]; klucz publiczny ma wtedy postać
+     * [p, g, y, q]. Obiekt parametrów zwraca {@link #subgroupParameters}.
+     * <p>
+     * W tym trybie weryfikacja wsadowa sprawdza podpisy pojedynczo - r jest redukowane modulo q,
+     * więc test kombinacji liniowej nie ma zastosowania.
+     *
+     * @param bitLength Długość bitowa liczby pierwszej p.
+     * @param subgroupBitLength Długość bitowa q.
+     * @param listener Odbiorca postępu (liczba sprawdzonych kandydatów).
+     * @return pgq - lista [p, g, q]
+     * @throws IllegalArgumentException Jeśli długości są spoza zakresu ({@link SubgroupParameterGenerator}).
+     * @throws java.util.concurrent.CancellationException Jeśli wątek wywołujący został przerwany.
+     */
+    public List<BigInteger> generateSubgroupParameters(int bitLength, int subgroupBitLength, ProgressListener listener) {
+        Instrumentation metrics = instrumentation;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        List<BigInteger> pgq = new SubgroupParameterGenerator(DEFAULT_CERTAINTY, randomness.current())
+                .generate(bitLength, subgroupBitLength, listener);
+        if (metrics.isEnabled()) {
+            metrics.recordOperation(Instrumentation.Operation.PARAMETER_GENERATION, bitLength, System.nanoTime() - start, 0, true);
+        }
+        return pgq;
+    }
 
     /**
      * Generuje parametry p i g.
-     * UWAGA: Generowanie bezpiecznych parametrów ElGamal jest złożone.
-     * Ta metoda jest uproszczona i może nie generować parametrów
-     * o wystarczającej sile kryptograficznej do rzeczywistych zastosowań.
+     * p jest bezpieczną liczbą pierwszą (p = 2q + 1, q pierwsze), co daje znaną faktoryzację p-1 = 2q,
+     * a g jest sprawdzonym generatorem grupy multiplikatywnej Z_p^*.
+     * Wyszukiwanie odbywa się równolegle na wszystkich rdzeniach ({@link SafePrimeGenerator}).
      *
      * @param bitLength Długość bitowa liczby pierwszej p.
      * @return pg - lista [p, g]
      */
     public List<BigInteger> generateParameters(int bitLength) {
-        BigInteger p;
+        return generateParameters(bitLength, ProgressListener.NONE);
+    }
 
-        // Generuj p - dużą liczbę pierwszą
-        do {
-            // Generuje liczbę o CO NAJMNIEJ takiej długości a my chcemy konkretnie tą długość, więć do while
-            p = BigInteger.probablePrime(bitLength, random);
-        } while (p.bitLength() != bitLength);
+    /**
+     * Generuje parametry p i g, raportując postęp wyszukiwania liczby pierwszej.
+     *
+     * @param bitLength Długość bitowa liczby pierwszej p.
+     * @param listener Odbiorca postępu (liczba sprawdzonych kandydatów).
+     * @return pg - lista [p, g]
+     * @throws java.util.concurrent.CancellationException Jeśli wątek wywołujący został przerwany.
+     */
+    public List<BigInteger> generateParameters(int bitLength, ProgressListener listener) {
+        Instrumentation metrics = instrumentation;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
 
-        // Generuj g - generator grupy multiplikatywnej Z_p^*;
+        // Generuj p - bezpieczną liczbę pierwszą o dokładnie podanej długości
+        // oraz g - generator grupy multiplikatywnej Z_p^*;
         // Oznacza to, że g^1 mod p, ..., g^(p-1) mod p da zbiór wszystkich liczb od 1 do p-1
+        List<BigInteger> pg = new SafePrimeGenerator(DEFAULT_CERTAINTY, randomness.current()).generate(bitLength, listener);
 
-        // Znalezienie generatora wymaga znajomości faktoryzacji p-1.
-        // Prostsze (ale nie zawsze poprawne/bezpieczne) podejście to wybranie losowej liczby
-        // i sprawdzenie kilku warunków lub użycie stałej wartości jak 2, jeśli warunki są spełnione.
-
-        // Tutaj dla uproszczenia wybierzemy g=2, zakładając, że będzie działać.
-        // W realnym systemie to wymagałoby porządnego algorytmu znajdowania generatora.
+        // p jest bezpieczną liczbą pierwszą z konstrukcji - zapamiętaj to dla weryfikacji wsadowej
+        group(pg).markSafePrime();
 
-        BigInteger g = BigInteger.TWO;
+        if (metrics.isEnabled()) {
+            metrics.recordOperation(Instrumentation.Operation.PARAMETER_GENERATION, bitLength, System.nanoTime() - start, 0, true);
+        }
+        return pg;
+    }
 
-        System.out.println("Wygenerowano parametry:");
-        System.out.println("p (hex): " + p.toString(16));
-        System.out.println("g (hex): " + g.toString(16));
 
-        List<BigInteger> pg = new ArrayList<>();
-        pg.add(p);
-        pg.add(g);
+    /**
+     * Zwraca parametry standardowej grupy z RFC 3526 lub RFC 7919, np. "MODP_2048" lub "ffdhe3072".
+     *
+     * @param name Nazwa grupy ({@link StandardGroup#forName(String)}).
+     * @return pg - lista [p, g]
+     * @throws IllegalArgumentException Jeśli nie ma grupy o takiej nazwie.
+     */
+    public List<BigInteger> standardParameters(String name) {
+        StandardGroup group = StandardGroup.forName(name);
+        List<BigInteger> pg = group.parameters();
+        group(pg).markSafePrime();
+        return pg;
+    }
 
+    /**
+     * Zwraca parametry o podanej długości bitowej z pamięci podręcznej na dysku, a jeśli ich tam nie ma -
+     * generuje nowe ({@link #generateParameters(int, ProgressListener)}) i zapisuje je na następne uruchomienie.
+     * Wpis z pamięci podręcznej jest przed użyciem sprawdzany (pierwszość p i (p-1)/2, generator g), co jest
+     * wielokrotnie tańsze od ponownego wyszukiwania. Błąd zapisu nie przerywa operacji - parametry są wtedy po
+     * prostu generowane ponownie następnym razem.
+     *
+     * @param bitLength Długość bitowa liczby pierwszej p.
+     * @param listener Odbiorca postępu wyszukiwania liczby pierwszej.
+     * @return pg - lista [p, g]
+     */
+    public List<BigInteger> obtainParameters(int bitLength, ProgressListener listener) {
+        ParameterCache cache = parameterCache;
+        if (cache != null) {
+            List<BigInteger> cached = cache.load(bitLength);
+            // Plik na dysku mógł zostać uszkodzony lub podmieniony - wpis, który nie jest grupą bezpiecznej liczby
+            // pierwszej z generatorem, jest pomijany i zastępowany nowymi parametrami
+            if (cached != null && SafePrimeGenerator.isSafePrimeGroup(cached, DEFAULT_CERTAINTY)) {
+                group(cached).markSafePrime();
+                return cached;
+            }
+        }
+        List<BigInteger> pg = generateParameters(bitLength, listener);
+        if (cache != null) {
+            try {
+                cache.store(pg);
+            } catch (IOException ignored) {
+                // Bez wpisu w pamięci podręcznej parametry zostaną po prostu wygenerowane ponownie
+            }
+        }
         return pg;
     }
 
+    /**
+     * Ustawia pamięć podręczną parametrów używaną przez {@link #obtainParameters(int, ProgressListener)}.
+     * Domyślnie jest to {@link ParameterCache#defaultCache()}.
+     *
+     * @param parameterCache Pamięć podręczna lub null, aby ją wyłączyć.
+     */
+    public void setParameterCache(ParameterCache parameterCache) {
+        this.parameterCache = parameterCache;
+    }
+
+    /**
+     * Ustawia pamięć podręczną wyników weryfikacji używaną przez {@code verify} i {@link #verifyDigest}.
+     * Domyślnie jest wyłączona.
+     *
+     * @param verificationCache Pamięć podręczna lub null, aby ją wyłączyć.
+     */
+    public void setVerificationCache(VerificationCache verificationCache) {
+        this.verificationCache = verificationCache;
+    }
+
+    /**
+     * Ustawia odbiorcę pomiarów operacji (np. {@link MetricsRecorder} lub {@link JfrInstrumentation}).
+     * Domyślnie pomiary są wyłączone ({@link Instrumentation#NONE}).
+     *
+     * @param instrumentation Odbiorca pomiarów lub null, aby je wyłączyć.
+     */
+    public void setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = (instrumentation != null) ? instrumentation : Instrumentation.NONE;
+    }
+
+    /** Bieżący odbiorca pomiarów. */
+    public Instrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * Ustawia źródło losowości kluczy, wartości k i weryfikacji wsadowej. Domyślnie jest to jeden
+     * {@link SecureRandom} wspólny dla wszystkich instancji; przy wielu wątkach podpisujących lepiej sprawdza się
+     * {@link RandomnessProvider#perThread()}.
+     *
+     * @param randomness Źródło losowości lub null, aby przywrócić domyślne.
+     */
+    public void setRandomnessProvider(RandomnessProvider randomness) {
+        this.randomness = (randomness != null) ? randomness : DEFAULT_RANDOMNESS;
+    }
+
+    public RandomnessProvider getRandomnessProvider() {
+        return randomness;
+    }
+
+    /**
+     * Włącza deterministyczne wartości k według RFC 6979 ({@link DeterministicNonceGenerator}): k wynika z klucza
+     * prywatnego i skrótu wiadomości, więc podpis nie korzysta z generatora liczb losowych, a ta sama wiadomość
+     * podpisana tym samym kluczem daje ten sam podpis. Pule trójek ({@link #enableNoncePool}) są wtedy pomijane.
+     * Domyślnie wyłączone.
+     */
+    public void setDeterministicNonces(boolean deterministicNonces) {
+        this.deterministicNonces = deterministicNonces;
+    }
+
+    public boolean isDeterministicNonces() {
+        return deterministicNonces;
+    }
+
+    /**
+     * Włącza liczenie potęg r^s przez {@link BatchModPow} przy weryfikacji partii, gdy podpisy są sprawdzane
+     * pojedynczo (p nie jest bezpieczną liczbą pierwszą albo test kombinacji liniowej nie przeszedł). Działa
+     * tylko przy JVM uruchomionej z {@code --add-modules jdk.incubator.vector}, w przeciwnym razie nic nie
+     * zmienia. Wyniki są identyczne; opłaca się na procesorach z AVX-512 (zob. {@link BatchModPow}).
+     * Domyślnie wyłączone.
+     */
+    public void setVectorizedBatches(boolean vectorizedBatches) {
+        this.vectorizedBatches = vectorizedBatches;
+    }
+
+    public boolean isVectorizedBatches() {
+        return vectorizedBatches;
+    }
 
     /**
      * Generuje klucz prywatny x.
-     * @param pg - lista [p, g]
+     * @param pg - lista [p, g] lub [p, g, q]
      * @return x - liczba pierwsza x
      */
     public BigInteger generatePrivateKey(List<BigInteger> pg) {
-        BigInteger p = pg.get(0);
-        BigInteger g = pg.get(1);
-
-        if (p == null || g == null) {
-            throw new IllegalStateException("Parametry p i g nie zostały zainicjowane.");
-        }
+        return generatePrivateKey(group(pg)).getX();
+    }
 
+    /**
+     * Generuje klucz prywatny x dla podanej grupy.
+     *
+     * @param parameters Parametry grupy.
+     * @return Klucz prywatny (klucz publiczny dostępny przez {@link ElGamalPrivateKey#getPublicKey()}).
+     */
+    public ElGamalPrivateKey generatePrivateKey(ElGamalParameters parameters) {
+        Instrumentation metrics = instrumentation;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        BigInteger p = parameters.getP();
+        SecureRandom random = randomness.current();
         BigInteger x;
 
-        // Klucz prywatny x: losowa liczba z zakresu 1 <= x <= p-2
-        BigInteger pMinusTwo = p.subtract(BigInteger.TWO); // zwraca p-2, BigInt nie ma zwykłych operacji arytmetycznych
-
-        do {
-            // Generuj x o długości bitowej zbliżonej do p, ale mniejszej niż p-1
-            x = new BigInteger(p.bitLength() - 1, random);
-        } while (x.compareTo(BigInteger.ONE) < 0 || x.compareTo(pMinusTwo) > 0);
-
+        if (parameters.isSubgroup()) {
+            // W podgrupie: losowa liczba z zakresu 1 <= x <= q-1
+            BigInteger q = parameters.getQ();
+            do {
+                x = new BigInteger(q.bitLength(), random);
+            } while (x.signum() == 0 || x.compareTo(q) >= 0);
+        } else {
+            // Klucz prywatny x: losowa liczba z zakresu 1 <= x <= p-2
+            BigInteger pMinusTwo = parameters.getPMinusTwo();
 
-        System.out.println("Klucz prywatny x (hex): " + x.toString(16));
+            do {
+                // Generuj x o długości bitowej zbliżonej do p, ale mniejszej niż p-1
+                x = new BigInteger(p.bitLength() - 1, random);
+            } while (x.compareTo(BigInteger.ONE) < 0 || x.compareTo(pMinusTwo) > 0);
+        }
 
-        return x;
+        if (metrics.isEnabled()) {
+            metrics.recordOperation(Instrumentation.Operation.PRIVATE_KEY_GENERATION, parameters.getBitLength(),
+                    System.nanoTime() - start, 0, true);
+        }
+        return new ElGamalPrivateKey(parameters, x);
     }
 
     /**
@@ -90,33 +555,17 @@ public class ElGamal {
      * @return publicKey - Lista [p, g, y]
      */
     public List<BigInteger> generatePublicKey(List<BigInteger> pg, BigInteger privateKey) {
-
-        BigInteger p = pg.get(0);
-        BigInteger g = pg.get(1);
-        BigInteger x = privateKey;
-
-        if (p == null || g == null) {
-            throw new IllegalStateException("Parametry p i g nie zostały zainicjowane.");
-        }
-
-        BigInteger y;
+        Instrumentation metrics = instrumentation;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
 
         // y klucza publicznego y = g^x mod p
-        y = g.modPow(x, p);
-
-        List<BigInteger> publicKey = new ArrayList<>();
-        publicKey.add(p);
-        publicKey.add(g);
-        publicKey.add(y);
+        ElGamalPublicKey publicKey = new ElGamalPrivateKey(group(pg), privateKey).getPublicKey();
 
-        System.out.println("\nWygenerowano klucz:");
-
-        System.out.println("Klucz publiczny (p, g, y) (hex): ");
-        for (BigInteger el : publicKey) {
-            System.out.print(el.toString(16) + " ");
+        if (metrics.isEnabled()) {
+            metrics.recordOperation(Instrumentation.Operation.PUBLIC_KEY_GENERATION,
+                    publicKey.getParameters().getBitLength(), System.nanoTime() - start, 1, true);
         }
-
-        return publicKey;
+        return publicKey.toList();
     }
 
     /**
@@ -127,10 +576,149 @@ public class ElGamal {
      * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
      */
     private BigInteger hashMessage(byte[] message) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hashBytes = digest.digest(message);
         // Konwertuj bajty hasha na dodatnią liczbę BigInteger
-        return new BigInteger(1, hashBytes);
+        return new BigInteger(1, digest(message));
+    }
+
+    /**
+     * Oblicza skrót SHA-256 wiadomości przekazanej w całości.
+     *
+     * @param message Wiadomość jako tablica bajtów.
+     * @return Skrót wiadomości (32 bajty).
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public byte[] digest(byte[] message) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(HASH_ALGORITHM).digest(message);
+    }
+
+    /**
+     * Oblicza skrót SHA-256 danych czytanych ze strumienia, bez wczytywania ich w całości do pamięci.
+     * Strumień nie jest zamykany.
+     *
+     * @param in Strumień z danymi.
+     * @return Skrót danych (32 bajty).
+     * @throws IOException Jeśli odczyt ze strumienia się nie powiedzie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public byte[] digest(InputStream in) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Oblicza skrót SHA-256 danych czytanych z kanału. Kanał nie jest zamykany.
+     *
+     * @param channel Kanał z danymi.
+     * @return Skrót danych (32 bajty).
+     * @throws IOException Jeśli odczyt z kanału się nie powiedzie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public byte[] digest(ReadableByteChannel channel) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Oblicza skrót SHA-256 pliku. Plik jest czytany fragmentami mapowanymi w pamięć
+     * (po 64 MiB), więc zużycie sterty nie zależy od rozmiaru pliku. Pliki nie większe niż 64 KiB
+     * czytane są zwykłym odczytem - dla nich koszt mapowania przewyższa koszt kopiowania.
+     *
+     * @param path Ścieżka do pliku.
+     * @return Skrót pliku (32 bajty).
+     * @throws IOException Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public byte[] digest(Path path) throws IOException, NoSuchAlgorithmException {
+        return digest(path, ProgressListener.NONE);
+    }
+
+    /**
+     * Oblicza skrót SHA-256 pliku, informując o postępie co {@value #PROGRESS_SLICE_SIZE} bajtów
+     * (liczba przetworzonych bajtów i rozmiar pliku). Przerwanie wątku wywołującego kończy haszowanie.
+     *
+     * @param path Ścieżka do pliku.
+     * @param listener Odbiorca postępu.
+     * @return Skrót pliku (32 bajty).
+     * @throws IOException Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     * @throws java.util.concurrent.CancellationException Jeśli wątek wywołujący został przerwany.
+     * @see #digest(Path)
+     */
+    public byte[] digest(Path path, ProgressListener listener) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= STREAM_BUFFER_SIZE) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    // Kanał plikowy może zwrócić mniej bajtów niż żądano - czytaj do skutku
+                }
+                digest.update(buffer.flip());
+                listener.onProgress(size, size);
+                return digest.digest();
+            }
+            for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+                checkInterrupted();
+                long length = Math.min(MAPPED_REGION_SIZE, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (listener == ProgressListener.NONE) {
+                    digest.update(region);
+                    continue;
+                }
+                for (int offset = 0; offset < length; offset += PROGRESS_SLICE_SIZE) {
+                    checkInterrupted();
+                    int slice = (int) Math.min(PROGRESS_SLICE_SIZE, length - offset);
+                    digest.update(region.slice(offset, slice));
+                    listener.onProgress(position + offset + slice, size);
+                }
+            }
+        } catch (ClosedByInterruptException e) {
+            // Operacje kanału w przerwanym wątku zamykają kanał - to również jest anulowanie
+            CancellationException cancelled = new CancellationException("Haszowanie zostało przerwane.");
+            cancelled.initCause(e);
+            throw cancelled;
+        }
+        return digest.digest();
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Haszowanie zostało przerwane.");
+        }
+    }
+
+    /**
+     * Zamienia skrót obliczony przez wywołującego na BigInteger, sprawdzając jego długość.
+     *
+     * @param digest Skrót SHA-256 wiadomości.
+     * @return Skrót jako dodatni BigInteger.
+     * @throws IllegalArgumentException Jeśli skrót jest null lub nie ma długości skrótu SHA-256.
+     */
+    private BigInteger digestToInteger(byte[] digest) {
+        if (digest == null || digest.length != DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Skrót wiadomości musi mieć " + DIGEST_LENGTH + " bajty (SHA-256).");
+        }
+        return new BigInteger(1, digest);
+    }
+
+    /** Odwrotność {@link #digestToInteger}: skrót jako {@value #DIGEST_LENGTH} bajty big-endian. */
+    private static byte[] hashToBytes(BigInteger mHash) {
+        byte[] magnitude = mHash.toByteArray();
+        byte[] digest = new byte[DIGEST_LENGTH];
+        int length = Math.min(magnitude.length, DIGEST_LENGTH);
+        System.arraycopy(magnitude, magnitude.length - length, digest, DIGEST_LENGTH - length, length);
+        return digest;
     }
 
     /**
@@ -144,57 +732,183 @@ public class ElGamal {
      * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
      */
     public List<BigInteger> sign(byte[] message, BigInteger privateKey, List<BigInteger> pg) throws NoSuchAlgorithmException {
+        // Oblicz skrót wiadomości H(m) i podpisz skrót
+        return signDigest(digest(message), privateKey, pg);
+    }
 
-        BigInteger x = privateKey;
-        BigInteger p = pg.getFirst();
-        BigInteger g = pg.get(1);
+    /**
+     * Podpisuje dane czytane ze strumienia. Dane są haszowane przyrostowo, więc nie muszą mieścić się w pamięci.
+     *
+     * @param message Strumień z danymi do podpisania (nie jest zamykany).
+     * @param privateKey Klucz prywatny jako BigInteger.
+     * @param pg Parametry p i g jako Lista [p, g].
+     * @return Tablica [r, s] reprezentująca podpis.
+     * @throws IOException Jeśli odczyt ze strumienia się nie powiedzie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public List<BigInteger> sign(InputStream message, BigInteger privateKey, List<BigInteger> pg) throws IOException, NoSuchAlgorithmException {
+        return signDigest(digest(message), privateKey, pg);
+    }
+
+    /**
+     * Podpisuje dane czytane z kanału.
+     *
+     * @param message Kanał z danymi do podpisania (nie jest zamykany).
+     * @param privateKey Klucz prywatny jako BigInteger.
+     * @param pg Parametry p i g jako Lista [p, g].
+     * @return Tablica [r, s] reprezentująca podpis.
+     * @throws IOException Jeśli odczyt z kanału się nie powiedzie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public List<BigInteger> sign(ReadableByteChannel message, BigInteger privateKey, List<BigInteger> pg) throws IOException, NoSuchAlgorithmException {
+        return signDigest(digest(message), privateKey, pg);
+    }
 
+    /**
+     * Podpisuje plik. Plik jest haszowany fragmentami mapowanymi w pamięć, więc zużycie pamięci jest stałe.
+     *
+     * @param message Ścieżka do pliku do podpisania.
+     * @param privateKey Klucz prywatny jako BigInteger.
+     * @param pg Parametry p i g jako Lista [p, g].
+     * @return Tablica [r, s] reprezentująca podpis.
+     * @throws IOException Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public List<BigInteger> sign(Path message, BigInteger privateKey, List<BigInteger> pg) throws IOException, NoSuchAlgorithmException {
+        return signDigest(digest(message), privateKey, pg);
+    }
 
-        if (x == null || p == null || g == null) {
+    /**
+     * Podpisuje skrót SHA-256 obliczony wcześniej przez wywołującego (np. blisko danych).
+     *
+     * @param digest Skrót SHA-256 wiadomości (32 bajty).
+     * @param privateKey Klucz prywatny jako BigInteger.
+     * @param pg Parametry p i g jako Lista [p, g].
+     * @return Tablica [r, s] reprezentująca podpis.
+     * @throws IllegalArgumentException Jeśli skrót ma nieprawidłową długość.
+     */
+    public List<BigInteger> signDigest(byte[] digest, BigInteger privateKey, List<BigInteger> pg) {
+        BigInteger mHash = digestToInteger(digest);
+        if (privateKey == null) {
             throw new IllegalStateException("Klucze lub parametry nie zostały zainicjowane.");
         }
+        return signHash(mHash, new ElGamalPrivateKey(group(pg), privateKey)).toList();
+    }
 
-        BigInteger pMinusOne = p.subtract(BigInteger.ONE);
-        BigInteger pMinusTwo = pMinusOne.subtract(BigInteger.ONE); // p-2
-        BigInteger k, r, s;
+    /**
+     * Podpisuje wiadomość kluczem prywatnym z wartościami pochodnymi policzonymi wcześniej.
+     *
+     * @param message Wiadomość jako tablica bajtów.
+     * @param privateKey Klucz prywatny.
+     * @return Podpis (r, s).
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public ElGamalSignature sign(byte[] message, ElGamalPrivateKey privateKey) throws NoSuchAlgorithmException {
+        return signHash(hashMessage(message), privateKey);
+    }
+
+    /**
+     * Podpisuje dane czytane ze strumienia (nie jest zamykany).
+     *
+     * @see #sign(byte[], ElGamalPrivateKey)
+     */
+    public ElGamalSignature sign(InputStream message, ElGamalPrivateKey privateKey) throws IOException, NoSuchAlgorithmException {
+        return signDigest(digest(message), privateKey);
+    }
+
+    /**
+     * Podpisuje dane czytane z kanału (nie jest zamykany).
+     *
+     * @see #sign(byte[], ElGamalPrivateKey)
+     */
+    public ElGamalSignature sign(ReadableByteChannel message, ElGamalPrivateKey privateKey) throws IOException, NoSuchAlgorithmException {
+        return signDigest(digest(message), privateKey);
+    }
 
-        // 1. Oblicz skrót wiadomości H(m)
-        BigInteger mHash = hashMessage(message);
+    /**
+     * Podpisuje plik haszowany fragmentami mapowanymi w pamięć.
+     *
+     * @see #sign(byte[], ElGamalPrivateKey)
+     */
+    public ElGamalSignature sign(Path message, ElGamalPrivateKey privateKey) throws IOException, NoSuchAlgorithmException {
+        return signDigest(digest(message), privateKey);
+    }
+
+    /**
+     * Podpisuje skrót SHA-256 obliczony wcześniej przez wywołującego.
+     *
+     * @param digest Skrót SHA-256 wiadomości (32 bajty).
+     * @param privateKey Klucz prywatny.
+     * @return Podpis (r, s).
+     * @throws IllegalArgumentException Jeśli skrót ma nieprawidłową długość.
+     */
+    public ElGamalSignature signDigest(byte[] digest, ElGamalPrivateKey privateKey) {
+        return signHash(digestToInteger(digest), privateKey);
+    }
+
+    /**
+     * Właściwe podpisywanie dla gotowego skrótu H(m).
+     */
+    private ElGamalSignature signHash(BigInteger mHash, ElGamalPrivateKey privateKey) {
+        Instrumentation metrics = instrumentation;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        int modExps = 0;
+        int attempts = 0;
+
+        ElGamalParameters parameters = privateKey.getParameters();
+        BigInteger x = privateKey.getX();
+        BigInteger pMinusOne = parameters.getPMinusOne();
+        BigInteger q = parameters.getQ();
+        BigInteger r, s;
+        DeterministicNonceGenerator deterministic = deterministicNonces
+                ? new DeterministicNonceGenerator(parameters.getExponentOrder(), x, hashToBytes(mHash)) : null;
+        NoncePool pool = (deterministic == null) ? noncePools.get(parameters) : null;
+
+        // 1. Skrót wiadomości H(m) jest już obliczony (mHash)
 
         // Pętla do generowania k, r, s - powtarzamy, jeśli s wyjdzie 0 (zgodnie ze standardem)
         do {
-            // 2. Wygeneruj losowe k takie, że 1 <= k <= p-2 oraz NWD(k, p-1) = 1
-            do {
-                k = new BigInteger(p.bitLength() - 1, random);
-                // Pętla działa dopóki k jest poza zakresem [1, p-2] LUB gcd(k, p-1) != 1
-            } while (k.compareTo(BigInteger.ONE) < 0 || k.compareTo(pMinusTwo) > 0 || !k.gcd(pMinusOne).equals(BigInteger.ONE));
+            // 2-3. Pobierz trójkę (k, r = g^k mod p, k^(-1) mod (p-1)) z puli lub wygeneruj ją na miejscu
+            NoncePool.Nonce nonce = (pool != null) ? pool.poll() : null;
+            if (nonce == null) {
+                nonce = (deterministic != null) ? generateDeterministicNonce(parameters, deterministic) : generateNonce(parameters);
+                modExps++;
+            }
+            attempts++;
+            r = nonce.r();
 
-            // 3. Oblicz r = g^k mod p
-            r = g.modPow(k, p);
+            // 4.1 k^(-1) mod (p-1) (lub mod q) jest już obliczone razem z k
+            BigInteger kInv = nonce.kInv();
 
-            // 4. Oblicz s = (H(m) - x*r) * k^(-1) mod (p-1)
+            if (q != null) {
+                // 4. W podgrupie (jak w DSA): s = k^(-1) * (H(m) + x*r) mod q
+                s = mHash.add(x.multiply(r)).multiply(kInv).mod(q);
+            } else {
+                // 4. Oblicz s = (H(m) - x*r) * k^(-1) mod (p-1)
 
-            // 4.1 Oblicz k^(-1) mod (p-1) - zadziała, bo gcd(k, p-1)=1
-            BigInteger kInv = k.modInverse(pMinusOne);
+                // 4.2 Oblicz xr = x * r
+                BigInteger xr = x.multiply(r);
 
-            // 4.2 Oblicz xr = x * r
-            BigInteger xr = x.multiply(r);
+                // 4.3 Oblicz H(m) - xr
+                BigInteger mMinusXr = mHash.subtract(xr);
 
-            // 4.3 Oblicz H(m) - xr
-            BigInteger mMinusXr = mHash.subtract(xr);
-
-            // 4.4 Oblicz s = (H(m) - xr) * k^(-1) mod (p-1)
-            s = mMinusXr.multiply(kInv).mod(pMinusOne);
+                // 4.4 Oblicz s = (H(m) - xr) * k^(-1) mod (p-1)
+                s = mMinusXr.multiply(kInv).mod(pMinusOne);
+            }
 
             // 5. Jeśli s = 0, standard ElGamal wymaga wygenerowania nowego k i powtórzenia kroków.
         } while (s.equals(BigInteger.ZERO));
 
+        if (metrics.isEnabled()) {
+            int bitLength = parameters.getBitLength();
+            if (attempts > 1) {
+                metrics.recordRetries(Instrumentation.Operation.SIGN, bitLength, attempts - 1);
+            }
+            metrics.recordOperation(Instrumentation.Operation.SIGN, bitLength, System.nanoTime() - start, modExps, true);
+        }
 
-        // Wynik podpisu lista r i s
-        List<BigInteger> signature = new ArrayList<>();
-        signature.add(r);
-        signature.add(s);
-        return signature;
+        // Wynik podpisu (r, s)
+        return new ElGamalSignature(r, s);
     }
 
 
@@ -210,45 +924,576 @@ public class ElGamal {
      * @throws IllegalArgumentException Jeśli podpis ma niepoprawny format lub wartości r,s są poza zakresem.
      */
     public boolean verify(byte[] message, List<BigInteger> signature, List<BigInteger> publicKey) throws NoSuchAlgorithmException {
+        // Oblicz skrót wiadomości H(m) i zweryfikuj podpis dla skrótu
+        return verifyDigest(digest(message), signature, publicKey);
+    }
 
-        BigInteger p = publicKey.get(0);
-        BigInteger g = publicKey.get(1);
-        BigInteger y = publicKey.get(2);
+    /**
+     * Weryfikuje podpis danych czytanych ze strumienia.
+     *
+     * @param message Strumień z danymi (nie jest zamykany).
+     * @param signature Podpis jako lista [r, s].
+     * @param publicKey Klucz publiczny jako lista [p, g, y].
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws IOException Jeśli odczyt ze strumienia się nie powiedzie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public boolean verify(InputStream message, List<BigInteger> signature, List<BigInteger> publicKey) throws IOException, NoSuchAlgorithmException {
+        return verifyDigest(digest(message), signature, publicKey);
+    }
+
+    /**
+     * Weryfikuje podpis danych czytanych z kanału.
+     *
+     * @param message Kanał z danymi (nie jest zamykany).
+     * @param signature Podpis jako lista [r, s].
+     * @param publicKey Klucz publiczny jako lista [p, g, y].
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws IOException Jeśli odczyt z kanału się nie powiedzie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public boolean verify(ReadableByteChannel message, List<BigInteger> signature, List<BigInteger> publicKey) throws IOException, NoSuchAlgorithmException {
+        return verifyDigest(digest(message), signature, publicKey);
+    }
 
-        BigInteger r = signature.get(0);
-        BigInteger s = signature.get(1);
+    /**
+     * Weryfikuje podpis pliku. Plik jest haszowany fragmentami mapowanymi w pamięć.
+     *
+     * @param message Ścieżka do pliku.
+     * @param signature Podpis jako lista [r, s].
+     * @param publicKey Klucz publiczny jako lista [p, g, y].
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws IOException Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public boolean verify(Path message, List<BigInteger> signature, List<BigInteger> publicKey) throws IOException, NoSuchAlgorithmException {
+        return verifyDigest(digest(message), signature, publicKey);
+    }
+
+    /**
+     * Weryfikuje podpis dla skrótu SHA-256 obliczonego wcześniej przez wywołującego.
+     *
+     * @param digest Skrót SHA-256 wiadomości (32 bajty).
+     * @param signature Podpis jako lista [r, s].
+     * @param publicKey Klucz publiczny jako lista [p, g, y].
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws IllegalArgumentException Jeśli skrót ma nieprawidłową długość lub podpis ma niepoprawny format.
+     */
+    public boolean verifyDigest(byte[] digest, List<BigInteger> signature, List<BigInteger> publicKey) {
+        ElGamalPublicKey key = publicKey(publicKey);
+        return verifyDigest(digest, ElGamalSignature.of(signature), key);
+    }
 
-        if (y == null || p == null || g == null) {
-            throw new IllegalStateException("Któryś z elementów klucza publicznego p, g, y jest null");
+    /**
+     * Weryfikuje podpis wiadomości kluczem publicznym z wartościami pochodnymi policzonymi wcześniej.
+     * Klucz używany wielokrotnie buduje własną tablicę prekomputacji dla y.
+     *
+     * @param message Wiadomość jako tablica bajtów.
+     * @param signature Podpis (r, s).
+     * @param publicKey Klucz publiczny.
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public boolean verify(byte[] message, ElGamalSignature signature, ElGamalPublicKey publicKey) throws NoSuchAlgorithmException {
+        return verifyDigest(digest(message), signature, publicKey);
+    }
+
+    /**
+     * Weryfikuje podpis danych czytanych ze strumienia (nie jest zamykany).
+     *
+     * @see #verify(byte[], ElGamalSignature, ElGamalPublicKey)
+     */
+    public boolean verify(InputStream message, ElGamalSignature signature, ElGamalPublicKey publicKey) throws IOException, NoSuchAlgorithmException {
+        return verifyDigest(digest(message), signature, publicKey);
+    }
+
+    /**
+     * Weryfikuje podpis danych czytanych z kanału (nie jest zamykany).
+     *
+     * @see #verify(byte[], ElGamalSignature, ElGamalPublicKey)
+     */
+    public boolean verify(ReadableByteChannel message, ElGamalSignature signature, ElGamalPublicKey publicKey) throws IOException, NoSuchAlgorithmException {
+        return verifyDigest(digest(message), signature, publicKey);
+    }
+
+    /**
+     * Weryfikuje podpis pliku haszowanego fragmentami mapowanymi w pamięć.
+     *
+     * @see #verify(byte[], ElGamalSignature, ElGamalPublicKey)
+     */
+    public boolean verify(Path message, ElGamalSignature signature, ElGamalPublicKey publicKey) throws IOException, NoSuchAlgorithmException {
+        return verifyDigest(digest(message), signature, publicKey);
+    }
+
+    /**
+     * Podpisuje plik w trybie drzewa Merkle'a z domyślnym rozmiarem fragmentu ({@link MerkleTree#DEFAULT_CHUNK_SIZE}).
+     *
+     * @see #signMerkle(Path, ElGamalPrivateKey, int)
+     */
+    public MerkleSignature signMerkle(Path message, ElGamalPrivateKey privateKey) throws IOException, NoSuchAlgorithmException {
+        return signMerkle(message, privateKey, MerkleTree.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Podpisuje plik w trybie drzewa Merkle'a: fragmenty pliku haszowane są równolegle na wszystkich rdzeniach,
+     * a podpisywany jest skrót korzenia ({@link MerkleTree#digest()}). Rozmiar fragmentu i długość pliku trafiają
+     * do podpisu, więc weryfikujący buduje identyczne drzewo. Podpis nie jest zgodny z {@link #sign(Path, ElGamalPrivateKey)},
+     * bo podpisywany jest inny skrót.
+     *
+     * @param message Ścieżka do pliku.
+     * @param privateKey Klucz prywatny.
+     * @param chunkSize Rozmiar fragmentu w bajtach (co najmniej {@value MerkleTree#MIN_CHUNK_SIZE}).
+     * @return Podpis wraz z parametrami drzewa.
+     * @throws IllegalArgumentException Jeśli rozmiar fragmentu jest nieprawidłowy.
+     * @throws IOException Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public MerkleSignature signMerkle(Path message, ElGamalPrivateKey privateKey, int chunkSize) throws IOException, NoSuchAlgorithmException {
+        MerkleTree tree = MerkleTree.of(message, chunkSize);
+        return new MerkleSignature(signDigest(tree.digest(), privateKey), chunkSize, tree.getLength());
+    }
+
+    /**
+     * Weryfikuje podpis pliku w trybie drzewa Merkle'a, budując drzewo z parametrami zapisanymi w podpisie.
+     *
+     * @param message Ścieżka do pliku.
+     * @param signature Podpis wraz z parametrami drzewa.
+     * @param publicKey Klucz publiczny.
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie (również gdy długość pliku się zmieniła).
+     * @throws IOException Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public boolean verifyMerkle(Path message, MerkleSignature signature, ElGamalPublicKey publicKey) throws IOException, NoSuchAlgorithmException {
+        if (Files.size(message) != signature.getLength()) {
+            return false;
         }
-        if (signature == null || signature.size() != 2 || r == null || s == null) {
-            throw new IllegalArgumentException("Nieprawidłowy format podpisu.");
+        MerkleTree tree = MerkleTree.of(message, signature.getChunkSize());
+        return verifyDigest(tree.digest(), signature.getSignature(), publicKey);
+    }
+
+    /**
+     * Weryfikuje pojedynczy fragment podpisanej wiadomości: z fragmentu i dowodu przynależności
+     * ({@link MerkleTree#proof(long)}) odtwarza korzeń drzewa i sprawdza podpis jego skrótu.
+     * Nie wymaga dostępu do pozostałych fragmentów.
+     *
+     * @param chunk Zawartość fragmentu (pozycja bufora zostaje przesunięta na jego koniec).
+     * @param proof Dowód przynależności fragmentu.
+     * @param signature Podpis wiadomości w trybie drzewa Merkle'a.
+     * @param publicKey Klucz publiczny.
+     * @return true jeśli fragment należy do podpisanej wiadomości, false w przeciwnym razie.
+     */
+    public boolean verifyChunk(ByteBuffer chunk, MerkleProof proof, MerkleSignature signature, ElGamalPublicKey publicKey) {
+        if (proof.getChunkSize() != signature.getChunkSize() || proof.getLength() != signature.getLength()) {
+            return false;
         }
+        byte[] digest = proof.digest(chunk);
+        return digest != null && verifyDigest(digest, signature.getSignature(), publicKey);
+    }
+
+    /**
+     * Podpisuje manifest katalogu ({@link Manifest#build(Path, ManifestIndex)}) - jeden podpis dla wszystkich plików.
+     *
+     * @param manifest Manifest katalogu.
+     * @param privateKey Klucz prywatny.
+     * @return Podpis skrótu postaci kanonicznej manifestu.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public ElGamalSignature signManifest(Manifest manifest, ElGamalPrivateKey privateKey) throws NoSuchAlgorithmException {
+        return signDigest(manifest.digest(), privateKey);
+    }
+
+    /**
+     * Weryfikuje podpis manifestu. Zgodność katalogu z manifestem sprawdza się osobno:
+     * {@code Manifest.build(root, index).differences(manifest)}.
+     *
+     * @param manifest Manifest katalogu.
+     * @param signature Podpis manifestu.
+     * @param publicKey Klucz publiczny.
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public boolean verifyManifest(Manifest manifest, ElGamalSignature signature, ElGamalPublicKey publicKey) throws NoSuchAlgorithmException {
+        return verifyDigest(manifest.digest(), signature, publicKey);
+    }
+
+    /**
+     * Weryfikuje podpis dla skrótu SHA-256 obliczonego przez wywołującego.
+     * Gdy ustawiona jest pamięć podręczna wyników ({@link #setVerificationCache}), powtórna weryfikacja
+     * tej samej trójki (klucz, skrót, podpis) nie wykonuje potęgowań.
+     *
+     * @param digest Skrót SHA-256 wiadomości (32 bajty).
+     * @param signature Podpis (r, s).
+     * @param publicKey Klucz publiczny.
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws IllegalArgumentException Jeśli skrót ma nieprawidłową długość.
+     */
+    public boolean verifyDigest(byte[] digest, ElGamalSignature signature, ElGamalPublicKey publicKey) {
+        BigInteger mHash = digestToInteger(digest);
+        Instrumentation metrics = instrumentation;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        VerificationCache cache = verificationCache;
+        Boolean cached = (cache != null) ? cache.get(publicKey, digest, signature) : null;
+        boolean isValid;
+        int modExps = 0;
+        if (cached != null) {
+            isValid = cached;
+        } else {
+            isValid = verifyHash(mHash, signature, publicKey);
+            modExps = isValid || inRange(signature, publicKey.getParameters()) ? verifyModExps(publicKey.getParameters()) : 0;
+            if (cache != null) {
+                cache.put(publicKey, digest, signature, isValid);
+            }
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordOperation(Instrumentation.Operation.VERIFY, publicKey.getParameters().getBitLength(),
+                    System.nanoTime() - start, modExps, isValid);
+        }
+        return isValid;
+    }
+
+    /**
+     * Sprawdza warunki 0 < r < p oraz 0 < s < p-1 (w podgrupie: 0 < r < q oraz 0 < s < q).
+     */
+    private static boolean inRange(ElGamalSignature signature, ElGamalParameters parameters) {
+        BigInteger r = signature.getR();
+        BigInteger s = signature.getS();
+        BigInteger rBound = parameters.isSubgroup() ? parameters.getQ() : parameters.getP();
+        return r.signum() > 0 && r.compareTo(rBound) < 0
+                && s.signum() > 0 && s.compareTo(parameters.getExponentOrder()) < 0;
+    }
+
+    /** Liczba potęgowań pojedynczej weryfikacji: 2 w podgrupie, 3 w pełnej grupie. */
+    private static int verifyModExps(ElGamalParameters parameters) {
+        return parameters.isSubgroup() ? 2 : 3;
+    }
+
+    /**
+     * Właściwa weryfikacja dla gotowego skrótu H(m).
+     */
+    private boolean verifyHash(BigInteger mHash, ElGamalSignature signature, ElGamalPublicKey publicKey) {
+        return verifyHash(mHash, signature, publicKey, null);
+    }
+
+    /**
+     * @param rToS r^s mod p obliczone wcześniej (np. w partii przez {@link BatchModPow}) lub null.
+     */
+    private boolean verifyHash(BigInteger mHash, ElGamalSignature signature, ElGamalPublicKey publicKey, BigInteger rToS) {
+        ElGamalParameters parameters = publicKey.getParameters();
+        BigInteger p = parameters.getP();
+        BigInteger r = signature.getR();
+        BigInteger s = signature.getS();
 
         // 1. Sprawdź warunki: 0 < r < p oraz 0 < s < p-1
-        BigInteger pMinusOne = p.subtract(BigInteger.ONE);
-        if (r.compareTo(BigInteger.ZERO) <= 0 || r.compareTo(p) >= 0 ||
-                s.compareTo(BigInteger.ZERO) <= 0 || s.compareTo(pMinusOne) >= 0) {
-            System.err.println("Weryfikacja nie powiodła się: r lub s poza wymaganym zakresem.");
+        if (!inRange(signature, parameters)) {
             return false;
         }
 
-        // 2. Oblicz skrót wiadomości H(m)
-        BigInteger mHash = hashMessage(message);
+        if (parameters.isSubgroup()) {
+            // W podgrupie (jak w DSA): w = s^(-1), v = (g^(H(m)*w) * y^(r*w) mod p) mod q == r
+            BigInteger q = parameters.getQ();
+            BigInteger w = s.modInverse(q);
+            BigInteger u1 = mHash.multiply(w).mod(q);
+            BigInteger u2 = r.multiply(w).mod(q);
+            BigInteger v = parameters.generatorPow(u1).multiply(publicKey.pow(u2)).mod(p).mod(q);
+            return v.equals(r);
+        }
+
+        // 2. Skrót wiadomości H(m) jest już obliczony (mHash)
 
         // 3. Weryfikacja: Sprawdź czy g^H(m) ≡ y^r * r^s (mod p)
 
-        // Oblicz lewą stronę: g^H(m) mod p
-        BigInteger leftSide = g.modPow(mHash, p);
+        // Oblicz lewą stronę: g^H(m) mod p (z tablicy prekomputacji grupy, gdy jest gotowa)
+        BigInteger leftSide = parameters.generatorPow(mHash);
 
-        // Oblicz prawą stronę: (y^r * r^s) mod p
-        BigInteger yr = y.modPow(r, p);
-        BigInteger rs = r.modPow(s, p);
-        BigInteger rightSide = yr.multiply(rs).mod(p);
+        // Oblicz prawą stronę: (y^r * r^s) mod p (y^r z tablicy klucza, gdy jest gotowa). Dwie potęgi liczone są
+        // osobno: wspólne kwadraty w MultiExponentiation nie nadrabiają tu wolniejszego mnożenia w Javie
+        // (zob. MultiExponentiation.MIN_INTERLEAVED_BASES), a po zbudowaniu tablicy y^r nie wymaga kwadratów
+        BigInteger rightSide = publicKey.pow(r).multiply(rToS != null ? rToS : r.modPow(s, p)).mod(p);
 
         // Sprawdź, czy strony są równe
-        boolean isValid = leftSide.equals(rightSide);
-        System.out.println("Wynik weryfikacji: g^H(m)=" + leftSide.toString(16) + ", y^r*r^s=" + rightSide.toString(16) + " -> " + (isValid ? "POPRAWNY" : "NIEPOPRAWNY"));
-        return isValid;
+        return leftSide.equals(rightSide);
+    }
+
+    /**
+     * Weryfikuje wiele podpisów złożonych tym samym kluczem publicznym.
+     * Wynik jest taki sam jak przy wywołaniu {@link #verify(byte[], List, List)} dla każdej pary osobno.
+     *
+     * @param messages Wiadomości.
+     * @param signatures Podpisy [r, s], w tej samej kolejności co wiadomości.
+     * @param publicKey Klucz publiczny jako lista [p, g, y].
+     * @return Tablica wyników: true dla poprawnych podpisów.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public boolean[] verifyBatch(List<byte[]> messages, List<List<BigInteger>> signatures, List<BigInteger> publicKey) throws NoSuchAlgorithmException {
+        return verifyDigestBatch(digests(messages), signatures, publicKey);
+    }
+
+    /**
+     * Weryfikuje wiele podpisów złożonych tym samym kluczem publicznym - wariant dla typów niezmiennych.
+     *
+     * @see #verifyBatch(List, List, List)
+     */
+    public boolean[] verifyBatch(List<byte[]> messages, List<ElGamalSignature> signatures, ElGamalPublicKey publicKey) throws NoSuchAlgorithmException {
+        return verifyDigestBatch(digests(messages), signatures, publicKey);
+    }
+
+    private List<byte[]> digests(List<byte[]> messages) throws NoSuchAlgorithmException {
+        List<byte[]> digests = new ArrayList<>(messages.size());
+        for (byte[] message : messages) {
+            digests.add(digest(message));
+        }
+        return digests;
+    }
+
+    /**
+     * Weryfikuje wiele podpisów dla skrótów SHA-256 obliczonych przez wywołującego.
+     *
+     * @param digests Skróty SHA-256 wiadomości (po 32 bajty).
+     * @param signatures Podpisy [r, s], w tej samej kolejności co skróty.
+     * @param publicKey Klucz publiczny jako lista [p, g, y].
+     * @return Tablica wyników: true dla poprawnych podpisów.
+     * @throws IllegalArgumentException Jeśli listy mają różne długości, skrót ma złą długość lub podpis ma niepoprawny format.
+     * @see #verifyDigestBatch(List, List, ElGamalPublicKey)
+     */
+    public boolean[] verifyDigestBatch(List<byte[]> digests, List<List<BigInteger>> signatures, List<BigInteger> publicKey) {
+        ElGamalPublicKey key = publicKey(publicKey);
+        List<ElGamalSignature> converted = new ArrayList<>(signatures.size());
+        for (List<BigInteger> signature : signatures) {
+            converted.add(ElGamalSignature.of(signature));
+        }
+        return verifyDigestBatch(digests, converted, key);
+    }
+
+    /**
+     * Weryfikuje wiele podpisów dla skrótów SHA-256 obliczonych przez wywołującego, używając losowego testu
+     * kombinacji liniowej z małymi wykładnikami:
+     * <pre>
+     *     g^(Σ δ_i H_i) == y^(Σ δ_i r_i) * Π r_i^(δ_i s_i)   (mod p)
+     * </pre>
+     * gdzie δ_i to losowe {@value #BATCH_EXPONENT_BITS}-bitowe liczby. Potęgi g i y są wspólne dla całej partii,
+     * a potęgi r_i liczone jednym wielokrotnym potęgowaniem ze wspólnymi kwadratami, więc koszt na podpis jest
+     * znacznie mniejszy niż jedno potęgowanie. Jeśli test partii nie przejdzie, partia jest dzielona na pół
+     * aż do znalezienia niepoprawnych podpisów.
+     * <p>
+     * Test jest wiarygodny, gdy p jest bezpieczną liczbą pierwszą (p = 2q+1): składowa rzędu 2 jest wtedy
+     * sprawdzana dla każdego podpisu osobno symbolem Jacobiego, a pozostała część grupy ma pierwszy rząd q.
+     * Dla innych p, a także dla parametrów podgrupy ({@link ElGamalParameters#isSubgroup()}), podpisy są
+     * weryfikowane pojedynczo.
+     *
+     * @param digests Skróty SHA-256 wiadomości (po 32 bajty).
+     * @param signatures Podpisy, w tej samej kolejności co skróty.
+     * @param publicKey Klucz publiczny.
+     * @return Tablica wyników: true dla poprawnych podpisów.
+     * @throws IllegalArgumentException Jeśli listy mają różne długości lub skrót ma złą długość.
+     */
+    public boolean[] verifyDigestBatch(List<byte[]> digests, List<ElGamalSignature> signatures, ElGamalPublicKey publicKey) {
+        if (digests.size() != signatures.size()) {
+            throw new IllegalArgumentException("Liczba skrótów i podpisów musi być równa.");
+        }
+        Instrumentation metrics = instrumentation;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        ElGamalParameters parameters = publicKey.getParameters();
+        BigInteger p = parameters.getP();
+
+        int count = digests.size();
+        boolean[] results = new boolean[count];
+        BigInteger[] hashes = new BigInteger[count];
+        boolean batchable = parameters.isSafePrime(DEFAULT_CERTAINTY);
+        int gCharacter = batchable ? jacobi(parameters.getG(), p) : 0;
+        int yCharacter = batchable ? jacobi(publicKey.getY(), p) : 0;
+
+        // Podpisy spoza zakresu odrzucamy od razu, pozostałe trafiają do partii
+        int[] candidates = new int[count];
+        int candidateCount = 0;
+        for (int i = 0; i < count; i++) {
+            hashes[i] = digestToInteger(digests.get(i));
+            ElGamalSignature signature = signatures.get(i);
+            if (signature == null) {
+                throw new IllegalArgumentException("Nieprawidłowy format podpisu.");
+            }
+            if (!inRange(signature, parameters)) {
+                continue;
+            }
+            BigInteger r = signature.getR();
+            BigInteger s = signature.getS();
+            if (batchable) {
+                // Składowa rzędu 2: χ(g)^H == χ(y)^r * χ(r)^s, gdzie χ to symbol Legendre'a.
+                // Dla parzystego s czynnik χ(r)^s = 1, więc kosztowny symbol liczymy tylko dla nieparzystego s.
+                int left = characterPow(gCharacter, hashes[i]);
+                int right = characterPow(yCharacter, r) * (s.testBit(0) ? jacobi(r, p) : 1);
+                if (left != right) {
+                    continue;
+                }
+            }
+            candidates[candidateCount++] = i;
+        }
+
+        int modExps = 0;
+        for (int from = 0; from < candidateCount; from += BATCH_CHUNK_SIZE) {
+            int to = Math.min(from + BATCH_CHUNK_SIZE, candidateCount);
+            modExps += verifyBatchRange(candidates, from, to, batchable, hashes, signatures, publicKey, results);
+        }
+
+        if (metrics.isEnabled()) {
+            boolean allValid = true;
+            for (boolean result : results) {
+                allValid &= result;
+            }
+            metrics.recordOperation(Instrumentation.Operation.BATCH_VERIFY, parameters.getBitLength(),
+                    System.nanoTime() - start, modExps, allValid);
+        }
+        return results;
+    }
+
+    /**
+     * Sprawdza podpisy candidates[from..to) testem partii, a przy niepowodzeniu dzieli zakres na pół.
+     *
+     * @return Liczba wykonanych potęgowań (wielokrotne potęgowanie liczone jako jedno).
+     */
+    private int verifyBatchRange(int[] candidates, int from, int to, boolean batchable, BigInteger[] hashes,
+                                 List<ElGamalSignature> signatures, ElGamalPublicKey publicKey, boolean[] results) {
+        if (!batchable || to - from < BATCH_MIN_SIZE) {
+            BigInteger[] powers = batchPowers(candidates, from, to, signatures, publicKey);
+            for (int i = from; i < to; i++) {
+                int index = candidates[i];
+                results[index] = verifyHash(hashes[index], signatures.get(index), publicKey,
+                        powers != null ? powers[i - from] : null);
+            }
+            return verifyModExps(publicKey.getParameters()) * (to - from);
+        }
+        // g^(Σ δ_i H_i), wspólne wielokrotne potęgowanie oraz osobno y^(Σ δ_i r_i), gdy klucz ma tablicę
+        int modExps = publicKey.hasTable() ? 3 : 2;
+        if (batchEquationHolds(candidates, from, to, hashes, signatures, publicKey)) {
+            for (int i = from; i < to; i++) {
+                results[candidates[i]] = true;
+            }
+            return modExps;
+        }
+        int middle = (from + to) >>> 1;
+        modExps += verifyBatchRange(candidates, from, middle, true, hashes, signatures, publicKey, results);
+        modExps += verifyBatchRange(candidates, middle, to, true, hashes, signatures, publicKey, results);
+        return modExps;
+    }
+
+    /**
+     * Potęgi r_i^s_i mod p dla candidates[from..to) liczone razem przez {@link BatchModPow}, albo null, gdy
+     * przetwarzanie wektorowe jest wyłączone, niedostępne, podpisów w zakresie jest mniej niż torów lub parametry
+     * są w trybie podgrupy (tam weryfikacja nie liczy r^s). Podpisy poza zakresem ({@link #inRange}) są pomijane
+     * przed potęgowaniem i mają w wyniku null - {@link #verifyHash} odrzuca je bez użycia potęgi.
+     */
+    private BigInteger[] batchPowers(int[] candidates, int from, int to, List<ElGamalSignature> signatures,
+                                     ElGamalPublicKey publicKey) {
+        ElGamalParameters parameters = publicKey.getParameters();
+        if (!vectorizedBatches || parameters.isSubgroup()) {
+            return null;
+        }
+        BatchModPow batch = new BatchModPow(parameters.getP());
+        if (!batch.isVectorized() || to - from < batch.getLanes()) {
+            return null;
+        }
+        int[] positions = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (inRange(signatures.get(candidates[i]), parameters)) {
+                positions[count++] = i - from;
+            }
+        }
+        if (count < batch.getLanes()) {
+            return null;
+        }
+        BigInteger[] bases = new BigInteger[count];
+        BigInteger[] exponents = new BigInteger[count];
+        for (int j = 0; j < count; j++) {
+            ElGamalSignature signature = signatures.get(candidates[from + positions[j]]);
+            bases[j] = signature.getR();
+            exponents[j] = signature.getS();
+        }
+        BigInteger[] computed = batch.modPow(bases, exponents);
+        BigInteger[] powers = new BigInteger[to - from];
+        for (int j = 0; j < count; j++) {
+            powers[positions[j]] = computed[j];
+        }
+        return powers;
+    }
+
+    /**
+     * Sprawdza równanie g^(Σ δ_i H_i) == y^(Σ δ_i r_i) * Π r_i^(δ_i s_i) (mod p) dla losowych δ_i.
+     * Wykładniki redukowane są modulo p-1, bo wszystkie podstawy należą do Z_p^*.
+     */
+    private boolean batchEquationHolds(int[] candidates, int from, int to, BigInteger[] hashes,
+                                       List<ElGamalSignature> signatures, ElGamalPublicKey publicKey) {
+        ElGamalParameters parameters = publicKey.getParameters();
+        BigInteger p = parameters.getP();
+        BigInteger pMinusOne = parameters.getPMinusOne();
+        // Klucz z gotową tablicą liczy y^(Σ δ_i r_i) z tablicy, w przeciwnym razie y dołącza do wspólnych kwadratów
+        boolean separateY = publicKey.hasTable();
+        SecureRandom random = randomness.current();
+
+        int size = to - from;
+        int baseCount = separateY ? size : size + 1;
+        BigInteger[] bases = new BigInteger[baseCount];
+        BigInteger[] exponents = new BigInteger[baseCount];
+        BigInteger hashSum = BigInteger.ZERO;
+        BigInteger rSum = BigInteger.ZERO;
+        for (int i = 0; i < size; i++) {
+            int index = candidates[from + i];
+            BigInteger r = signatures.get(index).getR();
+            BigInteger s = signatures.get(index).getS();
+            BigInteger delta;
+            do {
+                delta = new BigInteger(BATCH_EXPONENT_BITS, random);
+            } while (delta.signum() == 0);
+            hashSum = hashSum.add(delta.multiply(hashes[index]));
+            rSum = rSum.add(delta.multiply(r));
+            bases[i] = r;
+            exponents[i] = delta.multiply(s).mod(pMinusOne);
+        }
+        BigInteger yExponent = rSum.mod(pMinusOne);
+        if (!separateY) {
+            bases[size] = publicKey.getY();
+            exponents[size] = yExponent;
+        }
+
+        BigInteger leftSide = parameters.generatorPow(hashSum.mod(pMinusOne));
+        BigInteger rightSide = MultiExponentiation.product(bases, exponents, parameters.getContext());
+        if (separateY) {
+            rightSide = rightSide.multiply(publicKey.pow(yExponent)).mod(p);
+        }
+        return leftSide.equals(rightSide);
+    }
+
+    /**
+     * Podnosi wartość symbolu Legendre'a (-1, 0 lub 1) do potęgi e.
+     */
+    private static int characterPow(int character, BigInteger e) {
+        if (e.signum() == 0) {
+            return 1;
+        }
+        return (character == -1 && !e.testBit(0)) ? 1 : character;
+    }
+
+    /**
+     * Oblicza symbol Jacobiego (a/n) dla nieparzystego n > 0. Dla pierwszego n to symbol Legendre'a,
+     * czyli składowa rzędu 2 elementu a w grupie Z_n^*.
+     */
+    static int jacobi(BigInteger a, BigInteger n) {
+        a = a.mod(n);
+        int result = 1;
+        while (a.signum() != 0) {
+            int zeros = a.getLowestSetBit();
+            a = a.shiftRight(zeros);
+            int nMod8 = n.intValue() & 7;
+            if ((zeros & 1) == 1 && (nMod8 == 3 || nMod8 == 5)) {
+                result = -result;
+            }
+            BigInteger t = a;
+            a = n;
+            n = t;
+            if ((a.intValue() & 3) == 3 && (n.intValue() & 3) == 3) {
+                result = -result;
+            }
+            a = a.mod(n);
+        }
+        return n.equals(BigInteger.ONE) ? result : 0;
     }
 }
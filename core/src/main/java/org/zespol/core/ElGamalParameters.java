@@ -0,0 +1,250 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Niezmienne parametry grupy (p, g) wraz z wartościami pochodnymi liczonymi raz, przy tworzeniu obiektu:
+ * p-1, p-2, długością bitową i kontekstem Montgomery'ego dla p.
+ * <p>
+ * Parametry mogą też opisywać podgrupę rzędu pierwszego q (tryb w stylu DSA, {@link #isSubgroup()}): g ma wtedy
+ * rząd q, a klucze, jednorazowe k i wszystkie wykładniki liczone są modulo q. Przy q 256-bitowym i p 2048-bitowym
+ * każde potęgowanie ma ok. 8 razy krótszy wykładnik przy tym samym poziomie bezpieczeństwa.
+ * <p>
+ * Tablica prekomputacji dla g ({@link FixedBaseTable}) budowana jest dopiero po
+ * {@value #TABLE_THRESHOLD} potęgowaniach (albo od razu przez {@link #precompute()}), bo jej budowa kosztuje
+ * kilkadziesiąt zwykłych potęgowań. Obiekt jest bezpieczny wątkowo i może być współdzielony przez wszystkie klucze
+ * grupy.
+ */
+public final class ElGamalParameters {
+    /** Liczba potęgowań g, po której budowana jest tablica prekomputacji. */
+    public static final int TABLE_THRESHOLD = 4;
+
+    private final BigInteger p;
+    private final BigInteger g;
+    private final BigInteger q; // Rząd podgrupy generowanej przez g lub null dla całej grupy Z_p^*
+    private final BigInteger exponentOrder;
+    private final BigInteger pMinusOne;
+    private final BigInteger pMinusTwo;
+    private final int bitLength;
+    private final int exponentBitLength;
+    private final MontgomeryContext context;
+    private final int window;
+    private final AtomicInteger uses = new AtomicInteger();
+    private volatile FixedBaseTable generatorTable;
+    private volatile Boolean safePrime;
+
+    /**
+     * @param p      Nieparzysta liczba pierwsza p &gt; 3.
+     * @param g      Generator, 1 &lt; g &lt; p.
+     * @param window Rozmiar okna tablicy prekomputacji dla g (0 wyłącza tablicę).
+     * @throws IllegalArgumentException Jeśli parametry są null lub poza zakresem.
+     */
+    public ElGamalParameters(BigInteger p, BigInteger g, int window) {
+        this(p, g, null, window);
+    }
+
+    /**
+     * Parametry podgrupy rzędu q. Pierwszość q nie jest sprawdzana - odpowiada za nią źródło parametrów
+     * (np. {@link SubgroupParameterGenerator}).
+     *
+     * @param p      Nieparzysta liczba pierwsza p &gt; 3.
+     * @param g      Generator podgrupy, 1 &lt; g &lt; p, g^q = 1 (mod p).
+     * @param q      Rząd podgrupy (dzielnik p-1) lub null dla całej grupy Z_p^*.
+     * @param window Rozmiar okna tablicy prekomputacji dla g (0 wyłącza tablicę).
+     * @throws IllegalArgumentException Jeśli parametry są null lub poza zakresem albo g nie ma rzędu q.
+     */
+    public ElGamalParameters(BigInteger p, BigInteger g, BigInteger q, int window) {
+        if (p == null || g == null) {
+            throw new IllegalArgumentException("Parametry p i g nie mogą być null.");
+        }
+        if (!p.testBit(0) || p.bitLength() < 3) {
+            throw new IllegalArgumentException("p musi być nieparzystą liczbą pierwszą większą od 3.");
+        }
+        if (g.compareTo(BigInteger.ONE) <= 0 || g.compareTo(p) >= 0) {
+            throw new IllegalArgumentException("g musi spełniać 1 < g < p.");
+        }
+        if (window < 0 || window > FixedBaseTable.MAX_WINDOW) {
+            throw new IllegalArgumentException("Rozmiar okna musi być z zakresu 0.." + FixedBaseTable.MAX_WINDOW + ".");
+        }
+        BigInteger pMinusOne = p.subtract(BigInteger.ONE);
+        if (q != null) {
+            if (!q.testBit(0) || q.compareTo(BigInteger.TWO) <= 0 || pMinusOne.mod(q).signum() != 0) {
+                throw new IllegalArgumentException("q musi być nieparzystym dzielnikiem p-1 większym od 2.");
+            }
+            if (!g.modPow(q, p).equals(BigInteger.ONE)) {
+                throw new IllegalArgumentException("g musi mieć rząd q (g^q = 1 mod p).");
+            }
+        }
+        this.p = p;
+        this.g = g;
+        this.q = q;
+        this.pMinusOne = pMinusOne;
+        this.pMinusTwo = p.subtract(BigInteger.TWO);
+        this.exponentOrder = (q != null) ? q : pMinusOne;
+        this.bitLength = p.bitLength();
+        this.exponentBitLength = exponentOrder.bitLength();
+        this.context = new MontgomeryContext(p);
+        this.window = window;
+    }
+
+    /**
+     * Parametry z domyślnym rozmiarem okna tablicy prekomputacji ({@value FixedBaseTable#DEFAULT_WINDOW}).
+     */
+    public static ElGamalParameters of(BigInteger p, BigInteger g) {
+        return new ElGamalParameters(p, g, FixedBaseTable.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Parametry podgrupy rzędu q z domyślnym rozmiarem okna tablicy prekomputacji.
+     */
+    public static ElGamalParameters of(BigInteger p, BigInteger g, BigInteger q) {
+        return new ElGamalParameters(p, g, q, FixedBaseTable.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Parametry z listy [p, g] albo [p, g, q] (podgrupa rzędu q).
+     */
+    public static ElGamalParameters of(List<BigInteger> pg) {
+        return pg.size() > 2 ? of(pg.get(0), pg.get(1), pg.get(2)) : of(pg.get(0), pg.get(1));
+    }
+
+    /**
+     * Parametry standardowej grupy; p jest z góry znane jako bezpieczna liczba pierwsza.
+     */
+    public static ElGamalParameters of(StandardGroup group) {
+        ElGamalParameters parameters = of(group.getP(), group.getG());
+        parameters.safePrime = Boolean.TRUE;
+        return parameters;
+    }
+
+    /** Lista [p, g] lub [p, g, q] (podgrupa) dla API opartego na listach. */
+    public List<BigInteger> toList() {
+        List<BigInteger> pg = new ArrayList<>();
+        pg.add(p);
+        pg.add(g);
+        if (q != null) {
+            pg.add(q);
+        }
+        return pg;
+    }
+
+    /**
+     * Od razu buduje tablicę prekomputacji dla g (jeśli nie jest wyłączona).
+     */
+    public void precompute() {
+        if (window != 0 && generatorTable == null) {
+            synchronized (this) {
+                if (generatorTable == null) {
+                    generatorTable = new FixedBaseTable(g, context, window, exponentBitLength);
+                }
+            }
+        }
+    }
+
+    /**
+     * Oblicza g^e mod p - z tablicy prekomputacji, gdy jest już zbudowana, w przeciwnym razie przez
+     * {@link BigInteger#modPow}.
+     */
+    BigInteger generatorPow(BigInteger e) {
+        FixedBaseTable table = generatorTable;
+        if (table == null && window != 0 && uses.incrementAndGet() >= TABLE_THRESHOLD) {
+            precompute();
+            table = generatorTable;
+        }
+        return table != null ? table.pow(e) : g.modPow(e, p);
+    }
+
+    /**
+     * Czy p jest bezpieczną liczbą pierwszą (p = 2q+1, q pierwsze). Wynik jest liczony raz i zapamiętywany.
+     *
+     * @param certainty Pewność testu pierwszości dla q.
+     */
+    boolean isSafePrime(int certainty) {
+        if (q != null) {
+            return false;
+        }
+        Boolean safe = safePrime;
+        if (safe == null) {
+            safe = p.shiftRight(1).isProbablePrime(certainty);
+            safePrime = safe;
+        }
+        return safe;
+    }
+
+    /** Oznacza p jako bezpieczną liczbę pierwszą znaną z konstrukcji (np. wygenerowaną przez {@link SafePrimeGenerator}). */
+    void markSafePrime() {
+        safePrime = Boolean.TRUE;
+    }
+
+    public BigInteger getP() {
+        return p;
+    }
+
+    public BigInteger getG() {
+        return g;
+    }
+
+    /** p-1, rząd grupy Z_p^*. */
+    public BigInteger getPMinusOne() {
+        return pMinusOne;
+    }
+
+    /** p-2, górna granica kluczy prywatnych i wartości k. */
+    public BigInteger getPMinusTwo() {
+        return pMinusTwo;
+    }
+
+    /** Rząd podgrupy generowanej przez g lub null, gdy g generuje całą grupę Z_p^*. */
+    public BigInteger getQ() {
+        return q;
+    }
+
+    /** Czy parametry opisują podgrupę rzędu q (tryb w stylu DSA). */
+    public boolean isSubgroup() {
+        return q != null;
+    }
+
+    /** Moduł, względem którego liczone są wykładniki: q dla podgrupy, p-1 w przeciwnym razie. */
+    public BigInteger getExponentOrder() {
+        return exponentOrder;
+    }
+
+    /** Długość bitowa wykładników (q lub p-1) - wyznacza rozmiar tablic prekomputacji. */
+    public int getExponentBitLength() {
+        return exponentBitLength;
+    }
+
+    public int getBitLength() {
+        return bitLength;
+    }
+
+    /** Rozmiar okna tablicy prekomputacji dla g (0 - tablica wyłączona). */
+    public int getWindow() {
+        return window;
+    }
+
+    MontgomeryContext getContext() {
+        return context;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ElGamalParameters other && p.equals(other.p) && g.equals(other.g)
+                && Objects.equals(q, other.q);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * p.hashCode() + g.hashCode()) + Objects.hashCode(q);
+    }
+
+    @Override
+    public String toString() {
+        String order = (q != null) ? ", q: " + q.bitLength() + " bitów" : "";
+        return "ElGamalParameters[" + bitLength + " bitów" + order + ", g=" + g.toString(16) + "]";
+    }
+}
@@ -0,0 +1,101 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Niezmienny klucz prywatny x wraz z parametrami grupy.
+ * <p>
+ * Odpowiadający mu klucz publiczny liczony jest przy pierwszym wywołaniu {@link #getPublicKey()} i zapamiętywany.
+ * {@link #toString()} nie ujawnia wartości x.
+ */
+public final class ElGamalPrivateKey implements SignatureScheme.PrivateKey {
+    private final ElGamalParameters parameters;
+    private final BigInteger x;
+    private volatile ElGamalPublicKey publicKey;
+
+    /**
+     * @param parameters Parametry grupy.
+     * @param x          Klucz prywatny, 1 &lt;= x &lt;= p-2 (w podgrupie 1 &lt;= x &lt;= q-1).
+     * @throws IllegalArgumentException Jeśli x jest null lub poza zakresem.
+     */
+    public ElGamalPrivateKey(ElGamalParameters parameters, BigInteger x) {
+        if (parameters == null || x == null) {
+            throw new IllegalArgumentException("Parametry i klucz prywatny x nie mogą być null.");
+        }
+        if (parameters.isSubgroup()) {
+            if (x.signum() <= 0 || x.compareTo(parameters.getQ()) >= 0) {
+                throw new IllegalArgumentException("Klucz prywatny musi spełniać 1 <= x <= q-1.");
+            }
+        } else if (x.signum() <= 0 || x.compareTo(parameters.getPMinusTwo()) > 0) {
+            throw new IllegalArgumentException("Klucz prywatny musi spełniać 1 <= x <= p-2.");
+        }
+        this.parameters = parameters;
+        this.x = x;
+    }
+
+    /**
+     * Klucz z parametrów [p, g] lub [p, g, q] i wartości x.
+     */
+    public static ElGamalPrivateKey of(List<BigInteger> pg, BigInteger x) {
+        return new ElGamalPrivateKey(ElGamalParameters.of(pg), x);
+    }
+
+    /**
+     * Klucz z listy [p, g, x] albo [p, g, q, x] (podgrupa), np. odczytanej przez {@link KeyCodec#readPrivateKey}.
+     */
+    public static ElGamalPrivateKey of(List<BigInteger> components) {
+        int last = components.size() - 1;
+        return of(components.subList(0, last), components.get(last));
+    }
+
+    /**
+     * Klucz publiczny y = g^x mod p.
+     */
+    @Override
+    public ElGamalPublicKey getPublicKey() {
+        ElGamalPublicKey current = publicKey;
+        if (current == null) {
+            current = new ElGamalPublicKey(parameters, parameters.generatorPow(x));
+            publicKey = current;
+        }
+        return current;
+    }
+
+    /** Lista [p, g, x] lub [p, g, q, x] (podgrupa), np. do zapisu przez {@link KeyCodec}. */
+    public List<BigInteger> toList() {
+        return parameters.isSubgroup()
+                ? List.of(parameters.getP(), parameters.getG(), parameters.getQ(), x)
+                : List.of(parameters.getP(), parameters.getG(), x);
+    }
+
+    /** Rekord binarny klucza ({@link KeyCodec}) - rodzaj zależy od trybu parametrów. */
+    @Override
+    public byte[] encode() {
+        List<BigInteger> components = toList();
+        return KeyCodec.encode(KeyCodec.privateKeyKind(components), components);
+    }
+
+    public ElGamalParameters getParameters() {
+        return parameters;
+    }
+
+    public BigInteger getX() {
+        return x;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ElGamalPrivateKey other && parameters.equals(other.parameters) && x.equals(other.x);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * parameters.hashCode() + x.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ElGamalPrivateKey[" + parameters.getBitLength() + " bitów]";
+    }
+}
@@ -0,0 +1,268 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Niezmienny klucz publiczny y = g^x mod p wraz z parametrami grupy.
+ * <p>
+ * Klucz używany do wielu weryfikacji buduje po {@value #TABLE_THRESHOLD} z nich własną tablicę prekomputacji
+ * dla y ({@link FixedBaseTable}), więc y^r kosztuje wtedy ok. bits/w mnożeń zamiast pełnego potęgowania.
+ * Tablica zajmuje tyle co tablica dla g (dla p 2048-bitowego i w = 6 ok. 5,5 MB), dlatego budowana jest tylko
+ * dla kluczy faktycznie używanych wielokrotnie (w trybie podgrupy tablice obejmują tylko wykładniki długości q,
+ * więc są wielokrotnie mniejsze). Tablice budowane automatycznie dzielą wspólny limit pamięci
+ * ({@link #setTableMemoryLimit}, domyślnie {@value #DEFAULT_TABLE_MEMORY_LIMIT} bajtów): po jego przekroczeniu
+ * zwalniana jest tablica klucza najdawniej używanego, a klucz buduje ją ponownie dopiero po kolejnych
+ * {@value #TABLE_THRESHOLD} weryfikacjach. Tablice zbudowane jawnie przez {@link #precompute()} nie podlegają
+ * limitowi. Odcisk {@link KeyFingerprint} liczony jest raz, przy pierwszym użyciu.
+ */
+public final class ElGamalPublicKey implements SignatureScheme.PublicKey {
+    /** Liczba weryfikacji, po której budowana jest tablica prekomputacji dla y. */
+    public static final int TABLE_THRESHOLD = 16;
+
+    /** Domyślny wspólny limit pamięci tablic budowanych automatycznie (64 MiB, ok. 11 kluczy 2048-bitowych). */
+    public static final long DEFAULT_TABLE_MEMORY_LIMIT = 64L << 20;
+
+    private static final TableBudget BUDGET = new TableBudget(DEFAULT_TABLE_MEMORY_LIMIT);
+    private static final AtomicLong CLOCK = new AtomicLong();
+
+    private final ElGamalParameters parameters;
+    private final BigInteger y;
+    private final AtomicInteger uses = new AtomicInteger();
+    private volatile FixedBaseTable table;
+    private volatile boolean pinned;   // tablica z precompute() - poza limitem pamięci
+    private volatile long lastUse;     // znacznik CLOCK ostatniego użycia tablicy - do wyboru klucza do zwolnienia
+    private volatile byte[] fingerprint;
+
+    /**
+     * @param parameters Parametry grupy.
+     * @param y          Wartość klucza publicznego, 0 &lt; y &lt; p.
+     * @throws IllegalArgumentException Jeśli y jest null lub poza zakresem.
+     */
+    public ElGamalPublicKey(ElGamalParameters parameters, BigInteger y) {
+        if (parameters == null || y == null) {
+            throw new IllegalArgumentException("Parametry i klucz publiczny y nie mogą być null.");
+        }
+        if (y.signum() <= 0 || y.compareTo(parameters.getP()) >= 0) {
+            throw new IllegalArgumentException("Klucz publiczny musi spełniać 0 < y < p.");
+        }
+        this.parameters = parameters;
+        this.y = y;
+    }
+
+    /**
+     * Klucz z listy [p, g, y] albo [p, g, y, q] (podgrupa rzędu q).
+     */
+    public static ElGamalPublicKey of(List<BigInteger> publicKey) {
+        ElGamalParameters parameters = (publicKey.size() > 3)
+                ? ElGamalParameters.of(publicKey.get(0), publicKey.get(1), publicKey.get(3))
+                : ElGamalParameters.of(publicKey.get(0), publicKey.get(1));
+        return new ElGamalPublicKey(parameters, publicKey.get(2));
+    }
+
+    /** Lista [p, g, y] lub [p, g, y, q] (podgrupa) dla API opartego na listach. */
+    public List<BigInteger> toList() {
+        List<BigInteger> publicKey = new ArrayList<>();
+        publicKey.add(parameters.getP());
+        publicKey.add(parameters.getG());
+        publicKey.add(y);
+        if (parameters.isSubgroup()) {
+            publicKey.add(parameters.getQ());
+        }
+        return publicKey;
+    }
+
+    /** Rekord binarny klucza ({@link KeyCodec}) - rodzaj zależy od trybu parametrów. */
+    @Override
+    public byte[] encode() {
+        List<BigInteger> components = toList();
+        return KeyCodec.encode(KeyCodec.publicKeyKind(components), components);
+    }
+
+    /**
+     * Oblicza y^e mod p, z tablicy prekomputacji, gdy klucz był już wielokrotnie używany.
+     */
+    BigInteger pow(BigInteger e) {
+        FixedBaseTable current = table;
+        if (current == null && parameters.getWindow() != 0 && uses.incrementAndGet() >= TABLE_THRESHOLD) {
+            current = buildTable(false);
+        }
+        if (current == null) {
+            return y.modPow(e, parameters.getP());
+        }
+        lastUse = CLOCK.incrementAndGet();
+        return current.pow(e);
+    }
+
+    /**
+     * Od razu buduje tablice prekomputacji dla y i g (jeśli nie są wyłączone), zamiast czekać na
+     * {@value #TABLE_THRESHOLD} weryfikacji - np. dla kluczy trzymanych długo w pamięci procesu.
+     */
+    public void precompute() {
+        parameters.precompute();
+        if (parameters.getWindow() != 0) {
+            buildTable(true);
+        }
+    }
+
+    /**
+     * Ustawia wspólny limit pamięci tablic prekomputacji budowanych automatycznie dla kluczy publicznych,
+     * zwalniając od razu tablice najdawniej używanych kluczy, jeśli zajmują więcej.
+     *
+     * @param bytes Limit w bajtach; 0 wyłącza automatyczne budowanie tablic.
+     * @throws IllegalArgumentException Jeśli limit jest ujemny.
+     */
+    public static void setTableMemoryLimit(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Limit pamięci nie może być ujemny.");
+        }
+        BUDGET.setLimit(bytes);
+    }
+
+    /** Bajty zajmowane obecnie przez tablice budowane automatycznie (wszystkie klucze). */
+    public static long getTableMemoryUsed() {
+        return BUDGET.getUsed();
+    }
+
+    /**
+     * @param explicit true dla {@link #precompute()} - tablica jest wtedy przypięta i wyjęta spod limitu.
+     * @return Tablica lub null, jeśli nie zmieściła się w limicie.
+     */
+    private synchronized FixedBaseTable buildTable(boolean explicit) {
+        FixedBaseTable current = table;
+        if (current == null) {
+            current = new FixedBaseTable(y, parameters.getContext(), parameters.getWindow(), parameters.getExponentBitLength());
+            if (explicit) {
+                pinned = true;
+                table = current;
+            } else if (!BUDGET.admit(this, current)) {
+                uses.set(0); // większa niż cały limit - spróbuj znowu dopiero po kolejnych użyciach
+                return null;
+            }
+        } else if (explicit && !pinned) {
+            BUDGET.pin(this, current);
+        }
+        return current;
+    }
+
+    /**
+     * Wspólny limit pamięci tablic budowanych automatycznie. Wszystkie zmiany {@link #table} takich kluczy
+     * odbywają się pod monitorem budżetu, więc licznik zawsze odpowiada tablicom faktycznie przypisanym.
+     * Do zwolnienia wybierany jest klucz o najmniejszym {@link #lastUse} - kluczy z tablicami jest tylko tyle,
+     * ile mieści limit, więc przegląd jest tani, a ścieżka potęgowania nie zajmuje żadnej blokady.
+     */
+    private static final class TableBudget {
+        // Według tożsamości - równe klucze to osobne obiekty z osobnymi tablicami
+        private final Map<ElGamalPublicKey, Long> owners = new IdentityHashMap<>();
+        private long limit;
+        private long used;
+
+        TableBudget(long limit) {
+            this.limit = limit;
+        }
+
+        synchronized boolean admit(ElGamalPublicKey key, FixedBaseTable table) {
+            long size = table.getMemorySize();
+            if (size > limit) {
+                return false;
+            }
+            evictUntil(limit - size);
+            key.lastUse = CLOCK.incrementAndGet();
+            key.table = table;
+            owners.put(key, size);
+            used += size;
+            return true;
+        }
+
+        /** Wyjmuje tablicę klucza spod limitu (także gdy właśnie została zwolniona - przypina ją ponownie). */
+        synchronized void pin(ElGamalPublicKey key, FixedBaseTable table) {
+            Long size = owners.remove(key);
+            if (size != null) {
+                used -= size;
+            }
+            key.pinned = true;
+            key.table = table;
+        }
+
+        synchronized void setLimit(long limit) {
+            this.limit = limit;
+            evictUntil(limit);
+        }
+
+        synchronized long getUsed() {
+            return used;
+        }
+
+        private void evictUntil(long target) {
+            while (used > target) {
+                ElGamalPublicKey oldest = null;
+                for (ElGamalPublicKey key : owners.keySet()) {
+                    if (oldest == null || key.lastUse < oldest.lastUse) {
+                        oldest = key;
+                    }
+                }
+                used -= owners.remove(oldest);
+                // Wątki, które już pobrały tablicę, dokończą na niej obliczenia; nowe użyją modPow
+                oldest.table = null;
+                oldest.uses.set(0);
+            }
+        }
+    }
+
+    /** Czy tablica prekomputacji dla y została już zbudowana. */
+    boolean hasTable() {
+        return table != null;
+    }
+
+    /**
+     * Odcisk SHA-256 klucza ({@link KeyFingerprint}).
+     *
+     * @return Kopia 32-bajtowego odcisku.
+     */
+    public byte[] fingerprint() {
+        return fingerprintBytes().clone();
+    }
+
+    /** Odcisk bez kopiowania - do użytku wewnątrz pakietu, tablica nie może być modyfikowana. */
+    byte[] fingerprintBytes() {
+        byte[] current = fingerprint;
+        if (current == null) {
+            try {
+                current = KeyFingerprint.of(toList());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorytm SHA-256 nie jest dostępny.", e);
+            }
+            fingerprint = current;
+        }
+        return current;
+    }
+
+    public ElGamalParameters getParameters() {
+        return parameters;
+    }
+
+    public BigInteger getY() {
+        return y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ElGamalPublicKey other && parameters.equals(other.parameters) && y.equals(other.y);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * parameters.hashCode() + y.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ElGamalPublicKey[" + parameters.getBitLength() + " bitów, y=" + y.toString(16) + "]";
+    }
+}
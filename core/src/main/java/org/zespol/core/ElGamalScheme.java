@@ -0,0 +1,123 @@
+package org.zespol.core;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * {@link SignatureScheme} dla podpisu ElGamala w grupie multiplikatywnej (także w trybie podgrupy). Operacje
+ * przechodzą przez podaną instancję {@link ElGamal}, więc korzystają z jej pul jednorazowych trójek, tablic
+ * prekomputacji i pomiarów. Klucze i podpisy kodowane są rekordami binarnymi {@link KeyCodec}, zgodnymi z plikami
+ * zapisywanymi przez aplikację.
+ */
+public final class ElGamalScheme implements SignatureScheme {
+    /** Przedrostek nazw schematu dla grup standardowych, np. {@code elgamal-ffdhe3072}. */
+    public static final String NAME_PREFIX = "elgamal-";
+    /** Przedrostek nazw schematu dla grup niestandardowych, np. {@code elgamal-custom-2048}. */
+    public static final String CUSTOM_NAME_PREFIX = NAME_PREFIX + "custom-";
+
+    private final String name;
+    private final ElGamal elGamal;
+    private final ElGamalParameters parameters;
+
+    /**
+     * Schemat w podanej grupie. Grupa standardowa dostaje tę samą nazwę co z {@link #of(StandardGroup)};
+     * każda inna - nazwę {@value #CUSTOM_NAME_PREFIX} z długością p, której {@link SignatureScheme#forName}
+     * nie rozpoznaje (parametrów nie da się odtworzyć z samej nazwy).
+     *
+     * @param elGamal    Instancja wykonująca operacje.
+     * @param parameters Grupa, w której generowane są nowe klucze.
+     */
+    public ElGamalScheme(ElGamal elGamal, ElGamalParameters parameters) {
+        this(nameOf(parameters), elGamal, parameters);
+    }
+
+    private ElGamalScheme(String name, ElGamal elGamal, ElGamalParameters parameters) {
+        if (elGamal == null || parameters == null) {
+            throw new IllegalArgumentException("Instancja ElGamal i parametry nie mogą być null.");
+        }
+        this.name = name;
+        this.elGamal = elGamal;
+        this.parameters = parameters;
+    }
+
+    /** Schemat w grupie standardowej z nową instancją {@link ElGamal}. */
+    public static ElGamalScheme of(StandardGroup group) {
+        return new ElGamalScheme(nameOf(group), new ElGamal(), ElGamalParameters.of(group.parameters()));
+    }
+
+    private static String nameOf(ElGamalParameters parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        if (!parameters.isSubgroup()) {
+            for (StandardGroup group : StandardGroup.values()) {
+                if (group.getP().equals(parameters.getP()) && group.getG().equals(parameters.getG())) {
+                    return nameOf(group);
+                }
+            }
+        }
+        return CUSTOM_NAME_PREFIX + parameters.getBitLength();
+    }
+
+    private static String nameOf(StandardGroup group) {
+        return NAME_PREFIX + group.name().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Nazwa schematu; dla grup niestandardowych ({@value #CUSTOM_NAME_PREFIX}...) tylko opisowa -
+     * {@link SignatureScheme#forName} odrzuca ją wyjątkiem IllegalArgumentException.
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public ElGamalParameters getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public ElGamalPrivateKey generatePrivateKey() {
+        return elGamal.generatePrivateKey(parameters);
+    }
+
+    @Override
+    public byte[] signDigest(byte[] digest, PrivateKey privateKey) {
+        if (!(privateKey instanceof ElGamalPrivateKey key)) {
+            throw new IllegalArgumentException("Klucz nie należy do schematu " + name + ".");
+        }
+        return elGamal.signDigest(digest, key).encode();
+    }
+
+    @Override
+    public boolean verifyDigest(byte[] digest, byte[] signature, PublicKey publicKey) {
+        if (!(publicKey instanceof ElGamalPublicKey key)) {
+            throw new IllegalArgumentException("Klucz nie należy do schematu " + name + ".");
+        }
+        if (signature == null) {
+            return false;
+        }
+        ElGamalSignature decoded;
+        try {
+            decoded = ElGamalSignature.of(KeyCodec.decode(KeyCodec.Kind.SIGNATURE, ByteBuffer.wrap(signature)));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return elGamal.verifyDigest(digest, decoded, key);
+    }
+
+    @Override
+    public ElGamalPrivateKey decodePrivateKey(byte[] encoded) {
+        return ElGamalPrivateKey.of(KeyCodec.decodePrivateKey(ByteBuffer.wrap(encoded)));
+    }
+
+    @Override
+    public ElGamalPublicKey decodePublicKey(byte[] encoded) {
+        return ElGamalPublicKey.of(KeyCodec.decodePublicKey(ByteBuffer.wrap(encoded)));
+    }
+
+    @Override
+    public String toString() {
+        return "ElGamalScheme[" + name + "]";
+    }
+}
@@ -0,0 +1,72 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Niezmienny podpis (r, s). Zakres wartości zależy od grupy, więc sprawdzany jest dopiero przy weryfikacji.
+ */
+public final class ElGamalSignature {
+    private final BigInteger r;
+    private final BigInteger s;
+
+    /**
+     * @throws IllegalArgumentException Jeśli r lub s jest null.
+     */
+    public ElGamalSignature(BigInteger r, BigInteger s) {
+        if (r == null || s == null) {
+            throw new IllegalArgumentException("Nieprawidłowy format podpisu.");
+        }
+        this.r = r;
+        this.s = s;
+    }
+
+    /**
+     * Podpis z listy [r, s].
+     *
+     * @throws IllegalArgumentException Jeśli lista nie ma dokładnie dwóch elementów różnych od null.
+     */
+    public static ElGamalSignature of(List<BigInteger> signature) {
+        if (signature == null || signature.size() != 2) {
+            throw new IllegalArgumentException("Nieprawidłowy format podpisu.");
+        }
+        return new ElGamalSignature(signature.get(0), signature.get(1));
+    }
+
+    /** Lista [r, s] dla API opartego na listach. */
+    public List<BigInteger> toList() {
+        List<BigInteger> signature = new ArrayList<>();
+        signature.add(r);
+        signature.add(s);
+        return signature;
+    }
+
+    /** Rekord binarny {@link KeyCodec}. */
+    public byte[] encode() {
+        return KeyCodec.encode(KeyCodec.Kind.SIGNATURE, List.of(r, s));
+    }
+
+    public BigInteger getR() {
+        return r;
+    }
+
+    public BigInteger getS() {
+        return s;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ElGamalSignature other && r.equals(other.r) && s.equals(other.s);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * r.hashCode() + s.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ElGamalSignature[r=" + r.toString(16) + ", s=" + s.toString(16) + "]";
+    }
+}
@@ -0,0 +1,181 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+
+/**
+ * Tablica prekomputacji dla potęgowania o stałej podstawie (metoda okienkowa, fixed-base windowing).
+ * <p>
+ * Wykładnik dzielony jest na okna po w bitów. Dla każdej pozycji okna i przechowywane są wartości
+ * base^(j * 2^(w*i)) mod p dla j = 1..2^w-1, więc base^e mod p to iloczyn co najwyżej
+ * ceil(bits / w) wartości z tablicy - bez ani jednego podnoszenia do kwadratu.
+ * <p>
+ * Rozmiar okna to kompromis pamięć/szybkość: tablica zajmuje ok. ceil(bits / w) * (2^w - 1) liczb
+ * długości p (dla p 2048-bitowego i w = 6 to ok. 5,5 MB), a potęgowanie kosztuje ceil(bits / w) mnożeń.
+ * Wartości przechowywane są w postaci Montgomery'ego ({@link MontgomeryContext}), więc mnożenia w pętli
+ * nie alokują pamięci. Obiekt jest niezmienny i bezpieczny wątkowo (każdy wątek ma własny obszar roboczy).
+ */
+public final class FixedBaseTable {
+    /** Domyślny rozmiar okna. */
+    public static final int DEFAULT_WINDOW = 6;
+    /** Największy dopuszczalny rozmiar okna. */
+    public static final int MAX_WINDOW = 10;
+
+    private final BigInteger base;
+    private final BigInteger modulus;
+    private final int window;
+    private final int maxExponentBits;
+    private final MontgomeryContext context;
+    private final ThreadLocal<Workspace> workspaces;
+    private final long[][][] table; // table[i][j] = base^(j * 2^(w*i)) mod p w postaci Montgomery'ego, table[i][0] nieużywane
+
+    /**
+     * Buduje tablicę dla wykładników o długości co najwyżej długości bitowej modułu.
+     *
+     * @param base Stała podstawa (np. generator g).
+     * @param modulus Moduł p (liczba pierwsza).
+     * @param window Rozmiar okna w bitach (1..{@value #MAX_WINDOW}).
+     */
+    public FixedBaseTable(BigInteger base, BigInteger modulus, int window) {
+        this(base, modulus, window, modulus.bitLength());
+    }
+
+    /**
+     * Buduje tablicę dla wykładników o długości co najwyżej {@code maxExponentBits} bitów.
+     *
+     * @param base Stała podstawa (np. generator g).
+     * @param modulus Moduł p (liczba pierwsza).
+     * @param window Rozmiar okna w bitach (1..{@value #MAX_WINDOW}).
+     * @param maxExponentBits Maksymalna długość bitowa wykładnika obsługiwana bez redukcji.
+     */
+    public FixedBaseTable(BigInteger base, BigInteger modulus, int window, int maxExponentBits) {
+        this(base, contextFor(modulus), window, maxExponentBits);
+    }
+
+    /**
+     * Buduje tablicę we wspólnym kontekście Montgomery'ego (np. z {@link ElGamalParameters}).
+     */
+    FixedBaseTable(BigInteger base, MontgomeryContext context, int window, int maxExponentBits) {
+        if (base == null) {
+            throw new IllegalArgumentException("Podstawa i moduł nie mogą być null.");
+        }
+        if (window < 1 || window > MAX_WINDOW) {
+            throw new IllegalArgumentException("Rozmiar okna musi być z zakresu 1.." + MAX_WINDOW + ".");
+        }
+        if (maxExponentBits < 1) {
+            throw new IllegalArgumentException("Maksymalna długość wykładnika musi być dodatnia.");
+        }
+        this.modulus = context.getModulus();
+        this.base = base.mod(modulus);
+        this.window = window;
+        this.maxExponentBits = maxExponentBits;
+        this.context = context;
+        this.workspaces = ThreadLocal.withInitial(Workspace::new);
+
+        int rows = (maxExponentBits + window - 1) / window;
+        int columns = 1 << window;
+        this.table = new long[rows][columns][];
+
+        MontgomeryContext.Workspace ws = context.newWorkspace();
+        long[] rowBase = context.newElement(); // base^(2^(w*i))
+        context.toMontgomery(this.base, rowBase, ws);
+        for (int i = 0; i < rows; i++) {
+            long[][] row = table[i];
+            row[1] = rowBase.clone();
+            for (int j = 2; j < columns; j++) {
+                row[j] = context.newElement();
+                context.multiply(row[j - 1], rowBase, row[j], ws);
+            }
+            // base^(2^(w*(i+1))) = base^((2^w - 1) * 2^(w*i)) * base^(2^(w*i))
+            context.multiply(row[columns - 1], rowBase, rowBase, ws);
+        }
+    }
+
+    private static MontgomeryContext contextFor(BigInteger modulus) {
+        if (modulus == null) {
+            throw new IllegalArgumentException("Podstawa i moduł nie mogą być null.");
+        }
+        return new MontgomeryContext(modulus);
+    }
+
+    /**
+     * Bufory jednego wątku: obszar roboczy kontekstu i akumulator wyniku.
+     */
+    private final class Workspace {
+        private final MontgomeryContext.Workspace context = FixedBaseTable.this.context.newWorkspace();
+        private final long[] accumulator = FixedBaseTable.this.context.newElement();
+    }
+
+    /**
+     * Oblicza base^exponent mod p.
+     * Wykładniki dłuższe niż obsługiwane przez tablicę są redukowane modulo p-1 (małe twierdzenie Fermata),
+     * co jest poprawne dla podstawy z grupy Z_p^* i pierwszego p.
+     *
+     * @param exponent Nieujemny wykładnik.
+     * @return base^exponent mod p.
+     */
+    public BigInteger pow(BigInteger exponent) {
+        if (exponent.signum() < 0) {
+            throw new IllegalArgumentException("Wykładnik nie może być ujemny.");
+        }
+        if (exponent.bitLength() > maxExponentBits) {
+            exponent = exponent.mod(modulus.subtract(BigInteger.ONE));
+            if (exponent.bitLength() > maxExponentBits) {
+                return base.modPow(exponent, modulus);
+            }
+        }
+
+        Workspace ws = workspaces.get();
+        long[] acc = ws.accumulator;
+        boolean started = false;
+        int mask = (1 << window) - 1;
+        int bits = exponent.bitLength();
+        for (int i = 0, offset = 0; offset < bits; i++, offset += window) {
+            int digit = windowAt(exponent, offset) & mask;
+            if (digit != 0) {
+                long[] factor = table[i][digit];
+                if (started) {
+                    context.multiply(acc, factor, acc, ws.context);
+                } else {
+                    System.arraycopy(factor, 0, acc, 0, acc.length);
+                    started = true;
+                }
+            }
+        }
+        return started ? context.fromMontgomery(acc, ws.context) : BigInteger.ONE.mod(modulus);
+    }
+
+    /**
+     * Odczytuje {@code window} bitów wykładnika począwszy od bitu {@code offset}.
+     */
+    private int windowAt(BigInteger exponent, int offset) {
+        int digit = 0;
+        for (int b = window - 1; b >= 0; b--) {
+            digit <<= 1;
+            if (exponent.testBit(offset + b)) {
+                digit |= 1;
+            }
+        }
+        return digit;
+    }
+
+    public BigInteger getBase() {
+        return base;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getMaxExponentBits() {
+        return maxExponentBits;
+    }
+
+    /** Przybliżony rozmiar tablicy na stercie w bajtach (same limby, bez nagłówków tablic). */
+    long getMemorySize() {
+        return (long) table.length * ((1 << window) - 1) * context.getLimbs() * Long.BYTES;
+    }
+}
@@ -0,0 +1,306 @@
+package org.zespol.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Trwała tablica mieszająca w pliku mapowanym w pamięć: 32-bajtowy klucz (skrót SHA-256 lub odcisk) -&gt;
+ * 8-bajtowa wartość różna od zera. Adresowanie otwarte z sondowaniem liniowym; {@link #put} zastępuje wartość
+ * istniejącego klucza. Wspólny indeks {@link PublicKeyStore} i {@link SignatureStore} - każdy z nich
+ * rozpoznaje swoje pliki po własnej sygnaturze nagłówka.
+ * <p>
+ * Nagłówek przechowuje też położenie w pliku danych, do którego indeks jest kompletny ({@link #getIndexedTo()}),
+ * żeby po awarii dało się odtworzyć tylko brakujący koniec. Klasa nie jest bezpieczna wątkowo - synchronizację
+ * zapewnia właściciel.
+ * <p>
+ * Gniazda mapowane są fragmentami po {@value #SLOTS_PER_CHUNK} (10 MiB), a położenia w pliku liczone są na
+ * {@code long}, więc rozmiar indeksu nie jest ograniczony rozmiarem pojedynczego mapowania. Pojemność rośnie
+ * do {@value #MAX_CAPACITY} gniazd (40 GiB), czyli ok. 750 mln kluczy przy współczynniku wypełnienia 0.7;
+ * powyżej tego {@link #put} i {@link #reserve} zgłaszają {@link IOException}.
+ */
+final class HashIndex implements Closeable {
+    static final int KEY_LENGTH = 32;
+
+    /** Domyślna sygnatura nagłówka ("EGHI"). */
+    static final int DEFAULT_MAGIC = 0x45474849;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CAPACITY_POSITION = 8;
+    private static final int COUNT_POSITION = 12;
+    private static final int INDEXED_TO_POSITION = 16;
+    private static final int SLOT_SIZE = KEY_LENGTH + 8;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CHUNK_SHIFT = 18;
+    static final int SLOTS_PER_CHUNK = 1 << CHUNK_SHIFT;
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private final Path file;
+    private final int magic;
+    private FileChannel channel;
+    private Table index;
+    private int capacity;
+    private int count;
+
+    /**
+     * Zmapowany plik indeksu: nagłówek i gniazda podzielone na fragmenty po {@link #SLOTS_PER_CHUNK}.
+     */
+    private static final class Table {
+        final MappedByteBuffer header;
+        final MappedByteBuffer[] chunks;
+        final int mask;
+
+        Table(FileChannel channel, int capacity) throws IOException {
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            int slotsPerChunk = Math.min(capacity, SLOTS_PER_CHUNK);
+            chunks = new MappedByteBuffer[capacity / slotsPerChunk];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + (long) i * SLOTS_PER_CHUNK * SLOT_SIZE, (long) slotsPerChunk * SLOT_SIZE);
+            }
+            mask = capacity - 1;
+        }
+
+        ByteBuffer chunk(int slot) {
+            return chunks[slot >>> CHUNK_SHIFT];
+        }
+
+        static int offset(int slot) {
+            return (slot & (SLOTS_PER_CHUNK - 1)) * SLOT_SIZE;
+        }
+
+        long value(int slot) {
+            return chunk(slot).getLong(offset(slot) + KEY_LENGTH);
+        }
+
+        void insert(byte[] key, long value) {
+            int slot = slotFor(key, mask);
+            while (value(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            ByteBuffer chunk = chunk(slot);
+            int position = offset(slot);
+            chunk.put(position, key);
+            // Wartość zapisywana jest na końcu - gniazdo z zerową wartością jest traktowane jako puste
+            chunk.putLong(position + KEY_LENGTH, value);
+        }
+
+        void force() {
+            header.force();
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+    }
+
+    private HashIndex(Path file, int magic, long initialIndexedTo) throws IOException {
+        this.file = file;
+        this.magic = magic;
+        if (!Files.exists(file)) {
+            create(file, magic, INITIAL_CAPACITY, 0, initialIndexedTo);
+        }
+        map();
+    }
+
+    /**
+     * Otwiera indeks z domyślną sygnaturą, tworząc pusty plik, jeśli nie istnieje.
+     *
+     * @throws IOException Jeśli plik jest uszkodzony lub niedostępny.
+     */
+    static HashIndex open(Path file) throws IOException {
+        return new HashIndex(file, DEFAULT_MAGIC, 0);
+    }
+
+    /**
+     * Otwiera indeks, tworząc pusty plik, jeśli nie istnieje.
+     *
+     * @param magic            Sygnatura nagłówka właściciela.
+     * @param initialIndexedTo {@link #getIndexedTo()} nowo utworzonego indeksu (np. rozmiar nagłówka pliku danych).
+     * @throws IOException Jeśli plik jest uszkodzony, ma inną sygnaturę lub jest niedostępny.
+     */
+    static HashIndex open(Path file, int magic, long initialIndexedTo) throws IOException {
+        return new HashIndex(file, magic, initialIndexedTo);
+    }
+
+    /** Wartość dla klucza lub 0, jeśli klucza nie ma. */
+    long get(byte[] key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : index.value(slot);
+    }
+
+    /**
+     * Wstawia klucz albo zastępuje jego wartość, powiększając tablicę w razie potrzeby.
+     *
+     * @param value Wartość różna od zera (zero oznacza puste gniazdo).
+     */
+    void put(byte[] key, long value) throws IOException {
+        int slot = find(key);
+        if (slot >= 0) {
+            index.chunk(slot).putLong(Table.offset(slot) + KEY_LENGTH, value);
+            return;
+        }
+        ensureCapacity(count + 1);
+        index.insert(key, value);
+        count++;
+        index.header.putInt(COUNT_POSITION, count);
+    }
+
+    /**
+     * Powiększa tablicę z wyprzedzeniem, tak żeby kolejne {@code additional} wywołań {@link #put} nie wymagało
+     * operacji na plikach.
+     *
+     * @throws IOException Także wtedy, gdy indeks przekroczyłby {@value #MAX_CAPACITY} gniazd.
+     */
+    void reserve(int additional) throws IOException {
+        ensureCapacity((long) count + additional);
+    }
+
+    /** Czy {@link #reserve} z tym argumentem musiałoby przebudować tablicę w nowym pliku. */
+    boolean needsGrowth(int additional) {
+        return grownCapacity((long) count + additional) != capacity;
+    }
+
+    /** Liczba kluczy. */
+    int size() {
+        return count;
+    }
+
+    /** Położenie w dzienniku, do którego wszystkie wpisy są w indeksie. */
+    long getIndexedTo() {
+        return index.header.getLong(INDEXED_TO_POSITION);
+    }
+
+    void setIndexedTo(long position) {
+        index.header.putLong(INDEXED_TO_POSITION, position);
+    }
+
+    void force() {
+        index.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        index.force();
+        index = null;
+        channel.close();
+    }
+
+    private static int slotFor(byte[] key, int mask) {
+        // Klucze są wynikami SHA-256, więc ich początkowe bajty są równomiernie rozłożone
+        return ((key[0] & 0xFF) << 24 | (key[1] & 0xFF) << 16 | (key[2] & 0xFF) << 8 | (key[3] & 0xFF)) & mask;
+    }
+
+    /** Numer gniazda z kluczem lub -1. */
+    private int find(byte[] key) {
+        if (key == null || key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("Klucz indeksu musi mieć " + KEY_LENGTH + " bajty.");
+        }
+        ByteBuffer wrapped = ByteBuffer.wrap(key);
+        long k0 = wrapped.getLong(0), k1 = wrapped.getLong(8), k2 = wrapped.getLong(16), k3 = wrapped.getLong(24);
+        int mask = index.mask;
+        for (int slot = slotFor(key, mask); ; slot = (slot + 1) & mask) {
+            ByteBuffer chunk = index.chunk(slot);
+            int position = Table.offset(slot);
+            if (chunk.getLong(position + KEY_LENGTH) == 0) {
+                return -1;
+            }
+            if (chunk.getLong(position) == k0 && chunk.getLong(position + 8) == k1
+                    && chunk.getLong(position + 16) == k2 && chunk.getLong(position + 24) == k3) {
+                return slot;
+            }
+        }
+    }
+
+    /** Pojemność mieszcząca {@code required} kluczy; może przekraczać {@link #MAX_CAPACITY}. */
+    private long grownCapacity(long required) {
+        long newCapacity = capacity;
+        // Współczynnik wypełnienia najwyżej 0.7, żeby ciągi sondowania pozostały krótkie
+        while (required * 10 > newCapacity * 7) {
+            newCapacity <<= 1;
+        }
+        return newCapacity;
+    }
+
+    private void ensureCapacity(long required) throws IOException {
+        long grown = grownCapacity(required);
+        if (grown == capacity) {
+            return;
+        }
+        if (grown > MAX_CAPACITY) {
+            throw new IOException("Indeks " + file.getFileName() + " może zawierać najwyżej "
+                    + (MAX_CAPACITY / 10 * 7) + " kluczy.");
+        }
+        int newCapacity = (int) grown;
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            create(temporary, magic, newCapacity, count, getIndexedTo());
+            try (FileChannel grownChannel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                Table table = new Table(grownChannel, newCapacity);
+                byte[] key = new byte[KEY_LENGTH];
+                for (int i = 0; i < capacity; i++) {
+                    long value = index.value(i);
+                    if (value != 0) {
+                        index.chunk(i).get(Table.offset(i), key);
+                        table.insert(key, value);
+                    }
+                }
+                table.force();
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        channel.close();
+        map();
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+    }
+
+    private static void create(Path file, int magic, int capacity, int count, long indexedTo) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(magic).putInt(FORMAT_VERSION).putInt(capacity).putInt(count).putLong(indexedTo);
+            channel.write(header.clear(), 0);
+            // Rozszerzenie pliku do pełnego rozmiaru - gniazda wypełnione zerami są puste
+            channel.write(ByteBuffer.allocate(1), fileSize(capacity) - 1);
+        }
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Plik " + file.getFileName() + " jest uszkodzony.");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            int storedCapacity = header.getInt(CAPACITY_POSITION);
+            if (header.getInt(0) != magic || header.getInt(4) != FORMAT_VERSION || storedCapacity > MAX_CAPACITY
+                    || Integer.bitCount(storedCapacity) != 1 || size != fileSize(storedCapacity)) {
+                throw new IOException("Plik " + file.getFileName() + " nie jest indeksem w wersji " + FORMAT_VERSION + ".");
+            }
+            index = new Table(channel, storedCapacity);
+            capacity = storedCapacity;
+            count = header.getInt(COUNT_POSITION);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.zespol.core;
+
+import java.util.List;
+
+/**
+ * Odbiorca pomiarów operacji {@link ElGamal}: czasu trwania, liczby potęgowań modularnych i liczby powtórzeń
+ * pętli losujących (k oraz s przy podpisywaniu).
+ * <p>
+ * Domyślnie używana jest implementacja {@link #NONE}, dla której {@link #isEnabled()} zwraca false - ElGamal
+ * nie odczytuje wtedy nawet zegara, więc koszt w gorącej ścieżce to jedno porównanie. Gotowe implementacje to
+ * {@link MetricsRecorder} (liczniki i histogramy w pamięci) oraz {@link JfrInstrumentation} (zdarzenia JDK Flight
+ * Recorder); kilka odbiorców łączy {@link #of(Instrumentation...)}. Implementacje muszą być bezpieczne wątkowo.
+ */
+public interface Instrumentation {
+    /** Rodzaje mierzonych operacji. */
+    enum Operation {
+        /** Generowanie parametrów (p, g). */
+        PARAMETER_GENERATION,
+        /** Generowanie klucza prywatnego. */
+        PRIVATE_KEY_GENERATION,
+        /** Wyznaczenie klucza publicznego y = g^x mod p. */
+        PUBLIC_KEY_GENERATION,
+        /** Podpisanie skrótu. */
+        SIGN,
+        /** Weryfikacja pojedynczego podpisu (również z pamięci podręcznej wyników). */
+        VERIFY,
+        /** Weryfikacja wsadowa. */
+        BATCH_VERIFY
+    }
+
+    /** Brak pomiarów. */
+    Instrumentation NONE = new Instrumentation() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * Czy pomiary są włączone. Gdy false, ElGamal nie mierzy czasu i nie wywołuje pozostałych metod.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Rejestruje zakończoną operację.
+     *
+     * @param operation Rodzaj operacji.
+     * @param bitLength Długość bitowa p.
+     * @param nanos     Czas trwania w nanosekundach.
+     * @param modExps   Liczba potęgowań modularnych wykonanych w ramach operacji.
+     * @param success   Wynik - dla weryfikacji czy podpis jest poprawny, dla pozostałych operacji zawsze true.
+     */
+    default void recordOperation(Operation operation, int bitLength, long nanos, int modExps, boolean success) {
+    }
+
+    /**
+     * Rejestruje powtórzenia pętli losujących (np. odrzucone k, dla którego NWD(k, p-1) != 1, albo s = 0).
+     *
+     * @param operation Rodzaj operacji.
+     * @param bitLength Długość bitowa p.
+     * @param retries   Liczba powtórzeń (dodatnia).
+     */
+    default void recordRetries(Operation operation, int bitLength, int retries) {
+    }
+
+    /**
+     * Łączy kilku odbiorców w jednego, np. {@code Instrumentation.of(metrics, new JfrInstrumentation())}.
+     */
+    static Instrumentation of(Instrumentation... delegates) {
+        List<Instrumentation> targets = List.of(delegates);
+        return new Instrumentation() {
+            @Override
+            public void recordOperation(Operation operation, int bitLength, long nanos, int modExps, boolean success) {
+                for (Instrumentation target : targets) {
+                    if (target.isEnabled()) {
+                        target.recordOperation(operation, bitLength, nanos, modExps, success);
+                    }
+                }
+            }
+
+            @Override
+            public void recordRetries(Operation operation, int bitLength, int retries) {
+                for (Instrumentation target : targets) {
+                    if (target.isEnabled()) {
+                        target.recordRetries(operation, bitLength, retries);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package org.zespol.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * {@link Instrumentation} emitujące zdarzenia JDK Flight Recorder: {@value #OPERATION_EVENT} dla każdej operacji
+ * i {@value #RETRY_EVENT} dla powtórzeń pętli losujących. Zdarzenia są domyślnie włączone bez śladu stosu;
+ * gdy nagrywanie nie jest aktywne, {@link Event#shouldCommit()} zwraca false i zdarzenie jest porzucane.
+ * <p>
+ * Przykład: {@code java -XX:StartFlightRecording:filename=elgamal.jfr ...}, a potem
+ * {@code jfr print --events org.zespol.core.Operation elgamal.jfr}.
+ */
+public final class JfrInstrumentation implements Instrumentation {
+    /** Nazwa zdarzenia operacji. */
+    public static final String OPERATION_EVENT = "org.zespol.core.Operation";
+    /** Nazwa zdarzenia powtórzeń. */
+    public static final String RETRY_EVENT = "org.zespol.core.Retry";
+
+    @Override
+    public void recordOperation(Operation operation, int bitLength, long nanos, int modExps, boolean success) {
+        OperationEvent event = new OperationEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.bitLength = bitLength;
+            event.latency = nanos;
+            event.modExps = modExps;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void recordRetries(Operation operation, int bitLength, int retries) {
+        RetryEvent event = new RetryEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.bitLength = bitLength;
+            event.retries = retries;
+            event.commit();
+        }
+    }
+
+    @Name(OPERATION_EVENT)
+    @Label("ElGamal Operation")
+    @Description("Operacja podpisu ElGamala: czas, liczba potęgowań i wynik")
+    @Category("ElGamal")
+    @StackTrace(false)
+    static final class OperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Bit Length")
+        int bitLength;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Modular Exponentiations")
+        int modExps;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name(RETRY_EVENT)
+    @Label("ElGamal Retry")
+    @Description("Powtórzenia pętli losującej k lub s")
+    @Category("ElGamal")
+    @StackTrace(false)
+    static final class RetryEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Bit Length")
+        int bitLength;
+
+        @Label("Retries")
+        int retries;
+    }
+}
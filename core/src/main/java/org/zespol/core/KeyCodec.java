@@ -0,0 +1,361 @@
+package org.zespol.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Zwarty, binarny format kluczy i podpisów oraz tekstowy format hex (Properties) do importu/eksportu.
+ * <p>
+ * Rekord binarny ma postać:
+ * <pre>
+ *   0xE7 'G'  wersja(1 bajt)  rodzaj(1 bajt)  { długość(u16, big-endian)  moduł liczby(big-endian) }*
+ * </pre>
+ * Liczby zapisywane są bez bajtu znaku, więc podpis 2048-bitowy zajmuje 520 bajtów zamiast ok. 1100 znaków hex.
+ * Dekodowanie czyta liczby wprost z {@link ByteBuffer} (dla buforów na tablicy bez kopiowania), bez pośrednich
+ * napisów, i przesuwa pozycję bufora za rekord - kolejne rekordy można więc czytać z jednego bufora jeden po drugim.
+ * Rekord jest samoopisujący, więc pliki binarne i tekstowe można rozróżnić po pierwszych bajtach
+ * ({@link #read(Kind, Path)}).
+ */
+public final class KeyCodec {
+    /** Wersja formatu binarnego. */
+    public static final int FORMAT_VERSION = 1;
+    /** Rozmiar nagłówka rekordu binarnego. */
+    public static final int HEADER_SIZE = 4;
+    /** Największa dopuszczalna długość pojedynczej liczby w bajtach (pole u16). */
+    public static final int MAX_COMPONENT_LENGTH = 0xFFFF;
+
+    private static final byte MAGIC_0 = (byte) 0xE7;
+    private static final byte MAGIC_1 = 'G';
+
+    /** Bufor pomocniczy dla buforów bezpośrednich (np. mapowanych plików), które nie mają tablicy. */
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    /** Rodzaj zapisanego obiektu - określa liczbę i nazwy składowych. */
+    public enum Kind {
+        /** Klucz prywatny [p, g, x]. */
+        PRIVATE_KEY(1, "ElGamal Private Key", "p", "g", "x"),
+        /** Klucz publiczny [p, g, y]. */
+        PUBLIC_KEY(2, "ElGamal Public Key", "p", "g", "y"),
+        /** Podpis [r, s]. */
+        SIGNATURE(3, "ElGamal Signature", "r", "s"),
+        /** Podpis skrótu drzewa Merkle'a [r, s, rozmiar fragmentu, długość wiadomości] ({@link MerkleSignature}). */
+        MERKLE_SIGNATURE(4, "ElGamal Merkle Signature", "r", "s", "chunkSize", "length"),
+        /** Punkt kontrolny dziennika [numer, przesunięcie, łańcuch, r, s] ({@link LogCheckpoint}). */
+        LOG_CHECKPOINT(5, "ElGamal Log Checkpoint", "sequence", "offset", "chain", "r", "s"),
+        /** Klucz prywatny w podgrupie rzędu q [p, g, q, x]. */
+        SUBGROUP_PRIVATE_KEY(6, "ElGamal Subgroup Private Key", "p", "g", "q", "x"),
+        /** Klucz publiczny w podgrupie rzędu q [p, g, y, q]. */
+        SUBGROUP_PUBLIC_KEY(7, "ElGamal Subgroup Public Key", "p", "g", "y", "q");
+
+        private final int tag;
+        private final String description;
+        private final String[] names;
+
+        Kind(int tag, String description, String... names) {
+            this.tag = tag;
+            this.description = description;
+            this.names = names;
+        }
+
+        /** Liczba składowych rekordu. */
+        public int size() {
+            return names.length;
+        }
+
+        static Kind forTag(int tag) {
+            for (Kind kind : values()) {
+                if (kind.tag == tag) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    private KeyCodec() {
+    }
+
+    /**
+     * Długość rekordu binarnego w bajtach.
+     *
+     * @param kind       Rodzaj rekordu.
+     * @param components Składowe w kolejności właściwej dla rodzaju.
+     */
+    public static int encodedLength(Kind kind, List<BigInteger> components) {
+        checkComponents(kind, components);
+        int length = HEADER_SIZE;
+        for (BigInteger value : components) {
+            length += 2 + magnitudeLength(value);
+        }
+        return length;
+    }
+
+    /**
+     * Koduje rekord do nowej tablicy bajtów.
+     *
+     * @param kind       Rodzaj rekordu.
+     * @param components Składowe w kolejności właściwej dla rodzaju.
+     * @return Rekord binarny.
+     */
+    public static byte[] encode(Kind kind, List<BigInteger> components) {
+        byte[] out = new byte[encodedLength(kind, components)];
+        encode(kind, components, ByteBuffer.wrap(out));
+        return out;
+    }
+
+    /**
+     * Koduje rekord do bufora od jego bieżącej pozycji (pozycja zostaje przesunięta za rekord).
+     *
+     * @param kind       Rodzaj rekordu.
+     * @param components Składowe w kolejności właściwej dla rodzaju.
+     * @param out        Bufor docelowy.
+     * @throws java.nio.BufferOverflowException Jeśli w buforze brakuje miejsca.
+     */
+    public static void encode(Kind kind, List<BigInteger> components, ByteBuffer out) {
+        checkComponents(kind, components);
+        out.put(MAGIC_0).put(MAGIC_1).put((byte) FORMAT_VERSION).put((byte) kind.tag);
+        for (BigInteger value : components) {
+            byte[] bytes = value.toByteArray();
+            // toByteArray() dodaje bajt zerowy, gdy najstarszy bit jest ustawiony - format przechowuje sam moduł
+            int offset = (bytes.length > 1 && bytes[0] == 0) ? 1 : 0;
+            int length = value.signum() == 0 ? 0 : bytes.length - offset;
+            out.putShort((short) length);
+            out.put(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Sprawdza, czy od bieżącej pozycji bufora zaczyna się rekord binarny, i zwraca jego rodzaj.
+     * Pozycja bufora nie jest zmieniana.
+     *
+     * @return Rodzaj rekordu lub null, jeśli dane nie są rekordem binarnym w obsługiwanej wersji.
+     */
+    public static Kind peekKind(ByteBuffer in) {
+        int position = in.position();
+        if (in.remaining() < HEADER_SIZE
+                || in.get(position) != MAGIC_0 || in.get(position + 1) != MAGIC_1
+                || in.get(position + 2) != FORMAT_VERSION) {
+            return null;
+        }
+        return Kind.forTag(in.get(position + 3) & 0xFF);
+    }
+
+    /**
+     * Dekoduje rekord zaczynający się na bieżącej pozycji bufora i przesuwa pozycję za rekord.
+     *
+     * @param expected Oczekiwany rodzaj rekordu.
+     * @param in       Bufor źródłowy.
+     * @return Lista składowych, np. [p, g, y] lub [r, s].
+     * @throws IllegalArgumentException Jeśli dane są uszkodzone, ucięte lub innego rodzaju.
+     */
+    public static List<BigInteger> decode(Kind expected, ByteBuffer in) {
+        Kind kind = peekKind(in);
+        if (kind == null) {
+            throw new IllegalArgumentException("Dane nie są rekordem binarnym w wersji " + FORMAT_VERSION + ".");
+        }
+        if (kind != expected) {
+            throw new IllegalArgumentException("Oczekiwano rekordu " + expected + ", a znaleziono " + kind + ".");
+        }
+        int start = in.position();
+        try {
+            in.position(start + HEADER_SIZE);
+            List<BigInteger> components = new ArrayList<>(kind.size());
+            for (int i = 0; i < kind.size(); i++) {
+                components.add(readMagnitude(in, in.getShort() & 0xFFFF));
+            }
+            return components;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            in.position(start);
+            throw new IllegalArgumentException("Ucięty rekord " + kind + ".", e);
+        }
+    }
+
+    /**
+     * Zapisuje składowe w tekstowym formacie Properties z liczbami hex (zgodnym z wcześniejszymi plikami kluczy).
+     *
+     * @param kind       Rodzaj rekordu.
+     * @param components Składowe w kolejności właściwej dla rodzaju.
+     * @param out        Strumień docelowy (nie jest zamykany).
+     */
+    public static void writeHex(Kind kind, List<BigInteger> components, OutputStream out) throws IOException {
+        checkComponents(kind, components);
+        Properties props = new Properties();
+        for (int i = 0; i < kind.size(); i++) {
+            props.setProperty(kind.names[i], components.get(i).toString(16));
+        }
+        props.store(out, kind.description);
+    }
+
+    /**
+     * Wczytuje składowe z tekstowego formatu Properties z liczbami hex.
+     *
+     * @param kind Rodzaj rekordu.
+     * @param in   Strumień źródłowy (nie jest zamykany).
+     * @return Lista składowych.
+     * @throws IllegalArgumentException Jeśli brakuje składowej lub nie jest poprawną liczbą hex.
+     */
+    public static List<BigInteger> readHex(Kind kind, InputStream in) throws IOException {
+        Properties props = new Properties();
+        props.load(in);
+        List<BigInteger> components = new ArrayList<>(kind.size());
+        for (String name : kind.names) {
+            String value = props.getProperty(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Brak składowej '" + name + "' w pliku (" + kind.description + ").");
+            }
+            // NumberFormatException dziedziczy po IllegalArgumentException
+            components.add(new BigInteger(value.trim(), 16));
+        }
+        return components;
+    }
+
+    /**
+     * Wczytuje plik w formacie binarnym lub tekstowym - format rozpoznawany jest po nagłówku.
+     *
+     * @param kind Oczekiwany rodzaj rekordu.
+     * @param file Ścieżka do pliku.
+     * @return Lista składowych.
+     * @throws IllegalArgumentException Jeśli zawartość jest uszkodzona.
+     */
+    public static List<BigInteger> read(Kind kind, Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (peekKind(buffer) != null) {
+            return decode(kind, buffer);
+        }
+        return readHex(kind, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Wczytuje klucz prywatny zapisany jako {@link Kind#PRIVATE_KEY} lub {@link Kind#SUBGROUP_PRIVATE_KEY}.
+     *
+     * @return Lista [p, g, x] albo [p, g, q, x] ({@link ElGamalPrivateKey#of(List)}).
+     * @throws IllegalArgumentException Jeśli plik nie jest kluczem prywatnym lub jest uszkodzony.
+     */
+    public static List<BigInteger> readPrivateKey(Path file) throws IOException {
+        return readEither(file, Kind.PRIVATE_KEY, Kind.SUBGROUP_PRIVATE_KEY);
+    }
+
+    /**
+     * Wczytuje klucz publiczny zapisany jako {@link Kind#PUBLIC_KEY} lub {@link Kind#SUBGROUP_PUBLIC_KEY}.
+     *
+     * @return Lista [p, g, y] albo [p, g, y, q] ({@link ElGamalPublicKey#of(List)}).
+     * @throws IllegalArgumentException Jeśli plik nie jest kluczem publicznym lub jest uszkodzony.
+     */
+    public static List<BigInteger> readPublicKey(Path file) throws IOException {
+        return readEither(file, Kind.PUBLIC_KEY, Kind.SUBGROUP_PUBLIC_KEY);
+    }
+
+    /**
+     * Dekoduje rekord klucza publicznego dowolnego trybu.
+     *
+     * @see #decode(Kind, ByteBuffer)
+     */
+    public static List<BigInteger> decodePublicKey(ByteBuffer in) {
+        return decode(peekKind(in) == Kind.SUBGROUP_PUBLIC_KEY ? Kind.SUBGROUP_PUBLIC_KEY : Kind.PUBLIC_KEY, in);
+    }
+
+    /**
+     * Dekoduje rekord klucza prywatnego dowolnego trybu.
+     *
+     * @see #decode(Kind, ByteBuffer)
+     */
+    public static List<BigInteger> decodePrivateKey(ByteBuffer in) {
+        return decode(peekKind(in) == Kind.SUBGROUP_PRIVATE_KEY ? Kind.SUBGROUP_PRIVATE_KEY : Kind.PRIVATE_KEY, in);
+    }
+
+    /** Rodzaj rekordu dla klucza publicznego w postaci listy [p, g, y] lub [p, g, y, q]. */
+    public static Kind publicKeyKind(List<BigInteger> publicKey) {
+        return publicKey.size() == Kind.SUBGROUP_PUBLIC_KEY.size() ? Kind.SUBGROUP_PUBLIC_KEY : Kind.PUBLIC_KEY;
+    }
+
+    /** Rodzaj rekordu dla klucza prywatnego w postaci listy [p, g, x] lub [p, g, q, x]. */
+    public static Kind privateKeyKind(List<BigInteger> privateKey) {
+        return privateKey.size() == Kind.SUBGROUP_PRIVATE_KEY.size() ? Kind.SUBGROUP_PRIVATE_KEY : Kind.PRIVATE_KEY;
+    }
+
+    /**
+     * Plik binarny rozpoznawany jest po nagłówku, a tekstowy - po obecności składowej q.
+     */
+    private static List<BigInteger> readEither(Path file, Kind kind, Kind subgroupKind) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        Kind found = peekKind(buffer);
+        if (found != null) {
+            return decode(found == subgroupKind ? subgroupKind : kind, buffer);
+        }
+        Properties props = new Properties();
+        props.load(new ByteArrayInputStream(data));
+        return readHex(props.containsKey("q") ? subgroupKind : kind, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Zapisuje plik w wybranym formacie.
+     *
+     * @param kind       Rodzaj rekordu.
+     * @param components Składowe w kolejności właściwej dla rodzaju.
+     * @param file       Ścieżka do pliku (istniejący plik jest nadpisywany).
+     * @param hex        true - tekstowy format Properties hex, false - format binarny.
+     */
+    public static void write(Kind kind, List<BigInteger> components, Path file, boolean hex) throws IOException {
+        if (hex) {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                writeHex(kind, components, out);
+            }
+        } else {
+            Files.write(file, encode(kind, components));
+        }
+    }
+
+    private static BigInteger readMagnitude(ByteBuffer in, int length) {
+        if (length == 0) {
+            return BigInteger.ZERO;
+        }
+        if (in.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+        int position = in.position();
+        BigInteger value;
+        if (in.hasArray()) {
+            value = new BigInteger(1, in.array(), in.arrayOffset() + position, length);
+        } else {
+            byte[] scratch = SCRATCH.get();
+            if (scratch.length < length) {
+                scratch = new byte[length];
+                SCRATCH.set(scratch);
+            }
+            in.get(position, scratch, 0, length);
+            value = new BigInteger(1, scratch, 0, length);
+        }
+        in.position(position + length);
+        return value;
+    }
+
+    private static int magnitudeLength(BigInteger value) {
+        return (value.bitLength() + 7) >>> 3;
+    }
+
+    private static void checkComponents(Kind kind, List<BigInteger> components) {
+        if (components.size() != kind.size()) {
+            throw new IllegalArgumentException(kind + " wymaga " + kind.size() + " składowych, podano " + components.size() + ".");
+        }
+        for (BigInteger value : components) {
+            if (value.signum() < 0) {
+                throw new IllegalArgumentException("Składowe nie mogą być ujemne.");
+            }
+            if (magnitudeLength(value) > MAX_COMPONENT_LENGTH) {
+                throw new IllegalArgumentException("Składowa przekracza " + MAX_COMPONENT_LENGTH + " bajtów.");
+            }
+        }
+    }
+}
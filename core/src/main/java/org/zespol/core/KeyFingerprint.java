@@ -0,0 +1,67 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Odcisk klucza publicznego: SHA-256 z (p, g, y) albo (p, g, y, q) dla klucza w podgrupie rzędu q.
+ * <p>
+ * Każda składowa haszowana jest jako 4-bajtowa długość i moduł liczby (big-endian, bez bajtu znaku),
+ * więc odcisk nie zależy od formatu pliku, w którym klucz był zapisany, a różne rozbicia tych samych bajtów
+ * na składowe dają różne odciski.
+ */
+public final class KeyFingerprint {
+    /** Długość odcisku w bajtach. */
+    public static final int LENGTH = 32;
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private KeyFingerprint() {
+    }
+
+    /**
+     * Oblicza odcisk klucza publicznego.
+     *
+     * @param publicKey - lista [p, g, y] lub [p, g, y, q]
+     * @return 32-bajtowy odcisk.
+     * @throws NoSuchAlgorithmException Jeśli SHA-256 nie jest dostępny.
+     */
+    public static byte[] of(List<BigInteger> publicKey) throws NoSuchAlgorithmException {
+        if (publicKey.size() < 3 || publicKey.size() > 4) {
+            throw new IllegalArgumentException("Klucz publiczny musi zawierać [p, g, y] lub [p, g, y, q].");
+        }
+        MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM);
+        for (int i = 0; i < publicKey.size(); i++) {
+            byte[] bytes = publicKey.get(i).toByteArray();
+            int offset = (bytes.length > 1 && bytes[0] == 0) ? 1 : 0;
+            int length = bytes.length - offset;
+            md.update((byte) (length >>> 24));
+            md.update((byte) (length >>> 16));
+            md.update((byte) (length >>> 8));
+            md.update((byte) length);
+            md.update(bytes, offset, length);
+        }
+        return md.digest();
+    }
+
+    /** Zapis szesnastkowy odcisku (małe litery). */
+    public static String toHex(byte[] fingerprint) {
+        return HexFormat.of().formatHex(fingerprint);
+    }
+
+    /**
+     * Odczytuje odcisk z zapisu szesnastkowego.
+     *
+     * @throws IllegalArgumentException Jeśli napis nie jest poprawnym odciskiem.
+     */
+    public static byte[] fromHex(String hex) {
+        byte[] fingerprint = HexFormat.of().parseHex(hex.trim());
+        if (fingerprint.length != LENGTH) {
+            throw new IllegalArgumentException("Odcisk musi mieć " + LENGTH + " bajty.");
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,99 @@
+package org.zespol.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram czasów (w nanosekundach) o przedziałach log-liniowych: każda potęga dwójki dzielona jest na
+ * {@value #SUB_BUCKETS} równych części, więc błąd względny percentyla nie przekracza 12,5%, a histogram
+ * zajmuje stałe 4 KB niezależnie od liczby pomiarów. Zapis jest bez blokad i bezpieczny wątkowo.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    /** Liczba przedziałów na każdą potęgę dwójki. */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Dodaje pomiar.
+     *
+     * @param nanos Czas w nanosekundach (wartości ujemne traktowane są jak 0).
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /** Liczba pomiarów. */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** Średni czas w nanosekundach (0 bez pomiarów). */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /** Najdłuższy zmierzony czas w nanosekundach. */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Przybliżony percentyl - górna granica przedziału, w którym znajduje się szukany pomiar.
+     *
+     * @param quantile Kwantyl z zakresu [0, 1], np. 0.99.
+     * @return Czas w nanosekundach (0 bez pomiarów).
+     */
+    public long getPercentile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Kwantyl musi być z zakresu [0, 1].");
+        }
+        long total = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
@@ -0,0 +1,148 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Niezmienny, podpisany punkt kontrolny dziennika dopisywanego na końcu ({@link LogSigner}). Obejmuje dziennik
+ * od początku do przesunięcia {@link #getOffset()} przez łańcuch skrótów:
+ * <pre>
+ *   chain_0 = 0^32
+ *   chain_i = H(0x03 || chain_(i-1) || offset_i(8 bajtów) || H(segment_i))
+ * </pre>
+ * gdzie segment_i to bajty [offset_(i-1), offset_i). Podpisywany jest chain_i, więc podpis punktu i potwierdza
+ * całą historię, a sprawdzenie następnego punktu wymaga haszowania tylko nowego segmentu.
+ * Zapisywany jako rekord {@link KeyCodec.Kind#LOG_CHECKPOINT}.
+ */
+public final class LogCheckpoint {
+    /** Punkt początkowy: pusty dziennik, łańcuch z samych zer, bez podpisu. */
+    public static final LogCheckpoint GENESIS = new LogCheckpoint(0, 0, new byte[MerkleTree.HASH_LENGTH], null);
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final byte CHAIN_PREFIX = 0x03;
+
+    private final long sequence;
+    private final long offset;
+    private final byte[] chain;
+    private final ElGamalSignature signature;
+
+    /**
+     * @param sequence  Numer punktu (GENESIS ma 0).
+     * @param offset    Przesunięcie końca objętej części dziennika.
+     * @param chain     Wartość łańcucha skrótów (32 bajty).
+     * @param signature Podpis wartości łańcucha (null tylko dla GENESIS).
+     * @throws IllegalArgumentException Jeśli wartości są spoza zakresu lub brakuje podpisu.
+     */
+    public LogCheckpoint(long sequence, long offset, byte[] chain, ElGamalSignature signature) {
+        if (sequence < 0 || offset < 0) {
+            throw new IllegalArgumentException("Numer i przesunięcie punktu kontrolnego nie mogą być ujemne.");
+        }
+        if (chain == null || chain.length != MerkleTree.HASH_LENGTH) {
+            throw new IllegalArgumentException("Łańcuch skrótów musi mieć " + MerkleTree.HASH_LENGTH + " bajty.");
+        }
+        if (signature == null && sequence != 0) {
+            throw new IllegalArgumentException("Brak podpisu punktu kontrolnego.");
+        }
+        this.sequence = sequence;
+        this.offset = offset;
+        this.chain = chain.clone();
+        this.signature = signature;
+    }
+
+    /**
+     * Punkt z listy [numer, przesunięcie, łańcuch, r, s].
+     *
+     * @throws IllegalArgumentException Jeśli lista ma zły format.
+     */
+    public static LogCheckpoint of(List<BigInteger> components) {
+        if (components == null || components.size() != KeyCodec.Kind.LOG_CHECKPOINT.size()
+                || components.stream().anyMatch(Objects::isNull)
+                || components.get(0).bitLength() > 63 || components.get(1).bitLength() > 63
+                || components.get(2).bitLength() > 8 * MerkleTree.HASH_LENGTH) {
+            throw new IllegalArgumentException("Nieprawidłowy format punktu kontrolnego.");
+        }
+        // Łańcuch zapisany jest jako liczba - uzupełnij wiodące zera do 32 bajtów
+        byte[] magnitude = components.get(2).toByteArray();
+        byte[] chain = new byte[MerkleTree.HASH_LENGTH];
+        int length = Math.min(magnitude.length, chain.length);
+        System.arraycopy(magnitude, magnitude.length - length, chain, chain.length - length, length);
+        return new LogCheckpoint(components.get(0).longValue(), components.get(1).longValue(), chain,
+                ElGamalSignature.of(components.subList(3, 5)));
+    }
+
+    /**
+     * Oblicza kolejną wartość łańcucha.
+     *
+     * @param previous       Poprzednia wartość łańcucha.
+     * @param offset         Przesunięcie końca nowego segmentu.
+     * @param segmentDigest  Skrót SHA-256 nowego segmentu.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public static byte[] chain(byte[] previous, long offset, byte[] segmentDigest) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        digest.update(CHAIN_PREFIX);
+        digest.update(previous);
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(offset).flip());
+        digest.update(segmentDigest);
+        return digest.digest();
+    }
+
+    /** Lista [numer, przesunięcie, łańcuch, r, s]. */
+    public List<BigInteger> toList() {
+        if (signature == null) {
+            throw new IllegalStateException("Punkt początkowy nie ma podpisu.");
+        }
+        return List.of(BigInteger.valueOf(sequence), BigInteger.valueOf(offset), new BigInteger(1, chain),
+                signature.getR(), signature.getS());
+    }
+
+    /** Rekord binarny {@link KeyCodec}. */
+    public byte[] encode() {
+        return KeyCodec.encode(KeyCodec.Kind.LOG_CHECKPOINT, toList());
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** Przesunięcie końca objętej części dziennika w bajtach. */
+    public long getOffset() {
+        return offset;
+    }
+
+    /** Wartość łańcucha skrótów (kopia) - to ona jest podpisywana. */
+    public byte[] getChain() {
+        return chain.clone();
+    }
+
+    byte[] chainBytes() {
+        return chain;
+    }
+
+    /** Podpis łańcucha lub null dla {@link #GENESIS}. */
+    public ElGamalSignature getSignature() {
+        return signature;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LogCheckpoint other && sequence == other.sequence && offset == other.offset
+                && Arrays.equals(chain, other.chain)
+                && Objects.equals(signature, other.signature);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(sequence) + Arrays.hashCode(chain);
+    }
+
+    @Override
+    public String toString() {
+        return "LogCheckpoint[sequence=" + sequence + ", offset=" + offset + ", chain=" + KeyFingerprint.toHex(chain) + "]";
+    }
+}
@@ -0,0 +1,126 @@
+package org.zespol.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Przyrostowe podpisywanie dziennika dopisywanego na końcu. Podpisujący przechowuje bieżący stan skrótu nowego
+ * segmentu i ostatni punkt kontrolny; {@link #checkpoint()} kończy segment, dołącza go do łańcucha skrótów
+ * ({@link LogCheckpoint}) i podpisuje nową wartość łańcucha. Koszt punktu zależy więc od ilości danych dopisanych
+ * od poprzedniego punktu, a nie od rozmiaru całego dziennika.
+ * <p>
+ * Dane można przekazywać bezpośrednio ({@link #update(ByteBuffer)}) albo dociągać z pliku dziennika
+ * ({@link #checkpoint(Path)}). Po restarcie podpisywanie wznawia się od ostatniego punktu kontrolnego
+ * ({@link #LogSigner(ElGamal, ElGamalPrivateKey, LogCheckpoint)}). Klasa jest bezpieczna wątkowo.
+ */
+public final class LogSigner {
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024; // Rozmiar jednego mapowanego fragmentu pliku
+
+    private final ElGamal elGamal;
+    private final ElGamalPrivateKey privateKey;
+    private final MessageDigest segment;
+    private LogCheckpoint last;
+    private long offset;
+
+    /**
+     * Podpisujący nowy dziennik (od {@link LogCheckpoint#GENESIS}).
+     *
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public LogSigner(ElGamal elGamal, ElGamalPrivateKey privateKey) throws NoSuchAlgorithmException {
+        this(elGamal, privateKey, LogCheckpoint.GENESIS);
+    }
+
+    /**
+     * Podpisujący wznawiający pracę od podanego punktu kontrolnego - kolejny segment zaczyna się
+     * od {@link LogCheckpoint#getOffset()}.
+     *
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public LogSigner(ElGamal elGamal, ElGamalPrivateKey privateKey, LogCheckpoint last) throws NoSuchAlgorithmException {
+        this.elGamal = elGamal;
+        this.privateKey = privateKey;
+        this.segment = MessageDigest.getInstance(HASH_ALGORITHM);
+        this.last = last;
+        this.offset = last.getOffset();
+    }
+
+    /**
+     * Dołącza dopisane dane do bieżącego segmentu.
+     *
+     * @param data Nowe bajty dziennika (pozycja bufora zostaje przesunięta na jego koniec).
+     */
+    public synchronized void update(ByteBuffer data) {
+        offset += data.remaining();
+        segment.update(data);
+    }
+
+    /**
+     * Dołącza dopisane dane do bieżącego segmentu.
+     */
+    public synchronized void update(byte[] data, int off, int len) {
+        segment.update(data, off, len);
+        offset += len;
+    }
+
+    /**
+     * Kończy bieżący segment i podpisuje nowy punkt kontrolny obejmujący dziennik do {@link #getOffset()}.
+     *
+     * @return Podpisany punkt kontrolny.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public synchronized LogCheckpoint checkpoint() throws NoSuchAlgorithmException {
+        byte[] chain = LogCheckpoint.chain(last.chainBytes(), offset, segment.digest());
+        last = new LogCheckpoint(last.getSequence() + 1, offset, chain, elGamal.signDigest(chain, privateKey));
+        return last;
+    }
+
+    /**
+     * Dociąga z pliku dziennika bajty dopisane od {@link #getOffset()} i podpisuje nowy punkt kontrolny.
+     *
+     * @param log Ścieżka do pliku dziennika.
+     * @return Podpisany punkt kontrolny obejmujący cały bieżący plik.
+     * @throws IllegalStateException    Jeśli plik jest krótszy niż część już objęta podpisem.
+     * @throws IOException              Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public synchronized LogCheckpoint checkpoint(Path log) throws IOException, NoSuchAlgorithmException {
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                throw new IllegalStateException("Dziennik został skrócony poniżej ostatniego punktu kontrolnego.");
+            }
+            hashRange(channel, offset, size, segment);
+            offset = size;
+        }
+        return checkpoint();
+    }
+
+    /**
+     * Haszuje bajty [from, to) pliku fragmentami mapowanymi w pamięć.
+     */
+    static void hashRange(FileChannel channel, long from, long to, MessageDigest digest) throws IOException {
+        for (long position = from; position < to; position += MAPPED_REGION_SIZE) {
+            long length = Math.min(MAPPED_REGION_SIZE, to - position);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            digest.update(region);
+        }
+    }
+
+    /** Ostatni podpisany punkt kontrolny (lub punkt, od którego wznowiono pracę). */
+    public synchronized LogCheckpoint getLastCheckpoint() {
+        return last;
+    }
+
+    /** Przesunięcie końca danych przekazanych do tej pory, również tych jeszcze nieobjętych punktem. */
+    public synchronized long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,113 @@
+package org.zespol.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Weryfikacja punktów kontrolnych {@link LogSigner} począwszy od ostatniego zaufanego punktu. Sprawdzenie
+ * kolejnego punktu haszuje wyłącznie segment dopisany od zaufanego punktu, odtwarza wartość łańcucha
+ * i weryfikuje jej podpis; po sukcesie punkt staje się nowym zaufanym punktem.
+ * <p>
+ * Zaufany punkt startowy to {@link LogCheckpoint#GENESIS} (weryfikacja od początku dziennika) albo punkt
+ * sprawdzony wcześniej, np. zapamiętany przez poprzednie uruchomienie. Klasa jest bezpieczna wątkowo.
+ */
+public final class LogVerifier {
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final ElGamal elGamal;
+    private final ElGamalPublicKey publicKey;
+    private LogCheckpoint trusted;
+
+    /**
+     * @param trusted Zaufany punkt startowy - jego podpis nie jest ponownie sprawdzany.
+     */
+    public LogVerifier(ElGamal elGamal, ElGamalPublicKey publicKey, LogCheckpoint trusted) {
+        this.elGamal = elGamal;
+        this.publicKey = publicKey;
+        this.trusted = trusted;
+    }
+
+    /**
+     * Sprawdza kolejny punkt kontrolny względem danych segmentu przekazanych w pamięci.
+     *
+     * @param segment    Bajty dziennika od zaufanego punktu do końca sprawdzanego punktu.
+     * @param checkpoint Następny punkt kontrolny.
+     * @return true, jeśli punkt jest poprawny - staje się wtedy nowym zaufanym punktem.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public synchronized boolean advance(ByteBuffer segment, LogCheckpoint checkpoint) throws NoSuchAlgorithmException {
+        if (!follows(checkpoint) || segment.remaining() != checkpoint.getOffset() - trusted.getOffset()) {
+            return false;
+        }
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        digest.update(segment);
+        return accept(checkpoint, digest.digest());
+    }
+
+    /**
+     * Sprawdza kolejny punkt kontrolny, haszując z pliku dziennika tylko bajty dopisane od zaufanego punktu.
+     *
+     * @param log        Ścieżka do pliku dziennika (może być dłuższy niż sprawdzany punkt).
+     * @param checkpoint Następny punkt kontrolny.
+     * @return true, jeśli punkt jest poprawny - staje się wtedy nowym zaufanym punktem.
+     * @throws IOException              Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public synchronized boolean advance(Path log, LogCheckpoint checkpoint) throws IOException, NoSuchAlgorithmException {
+        if (!follows(checkpoint)) {
+            return false;
+        }
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            if (channel.size() < checkpoint.getOffset()) {
+                return false;
+            }
+            LogSigner.hashRange(channel, trusted.getOffset(), checkpoint.getOffset(), digest);
+        }
+        return accept(checkpoint, digest.digest());
+    }
+
+    /**
+     * Sprawdza kolejne punkty kontrolne po kolei, zatrzymując się na pierwszym niepoprawnym.
+     *
+     * @return Liczba zaakceptowanych punktów.
+     * @throws IOException              Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public synchronized int advanceAll(Path log, List<LogCheckpoint> checkpoints) throws IOException, NoSuchAlgorithmException {
+        int accepted = 0;
+        for (LogCheckpoint checkpoint : checkpoints) {
+            if (!advance(log, checkpoint)) {
+                break;
+            }
+            accepted++;
+        }
+        return accepted;
+    }
+
+    private boolean follows(LogCheckpoint checkpoint) {
+        return checkpoint.getSequence() == trusted.getSequence() + 1 && checkpoint.getOffset() >= trusted.getOffset();
+    }
+
+    private boolean accept(LogCheckpoint checkpoint, byte[] segmentDigest) throws NoSuchAlgorithmException {
+        byte[] chain = LogCheckpoint.chain(trusted.chainBytes(), checkpoint.getOffset(), segmentDigest);
+        if (!Arrays.equals(chain, checkpoint.chainBytes())
+                || !elGamal.verifyDigest(chain, checkpoint.getSignature(), publicKey)) {
+            return false;
+        }
+        trusted = checkpoint;
+        return true;
+    }
+
+    /** Ostatni zaufany punkt kontrolny. */
+    public synchronized LogCheckpoint getTrusted() {
+        return trusted;
+    }
+}
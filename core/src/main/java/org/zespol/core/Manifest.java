@@ -0,0 +1,296 @@
+package org.zespol.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Niezmienny manifest katalogu: posortowane odwzorowanie ścieżka względna -> skrót SHA-256 pliku. Cały katalog
+ * podpisuje się jednym podpisem skrótu manifestu ({@link ElGamal#signManifest}) zamiast osobnego podpisu
+ * każdego pliku.
+ * <p>
+ * Postać kanoniczna ({@link #encode()}) to tekst UTF-8 zgodny z {@code sha256sum}: po jednej linii
+ * {@code <skrót hex>  <ścieżka>} na plik, w kolejności ścieżek, z separatorem '/'. Znaki '\' i nowej linii
+ * w ścieżkach są zapisywane jako "\\" i "\n". Podpisywany skrót to SHA-256 postaci kanonicznej.
+ * <p>
+ * {@link #build(Path, ManifestIndex)} haszuje pliki równolegle, a z {@link ManifestIndex} pomija pliki
+ * niezmienione od poprzedniego haszowania. Dowiązania symboliczne i pliki specjalne są pomijane.
+ */
+public final class Manifest {
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int SMALL_FILE_SIZE = 64 * 1024; // Mniejsze pliki czytane są w całości zamiast mapowania
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final SortedMap<String, byte[]> entries;
+
+    private Manifest(SortedMap<String, byte[]> entries) {
+        this.entries = Collections.unmodifiableSortedMap(entries);
+    }
+
+    /**
+     * Manifest z gotowych skrótów.
+     *
+     * @param entries Ścieżki względne (z separatorem '/') i skróty SHA-256 plików.
+     * @throws IllegalArgumentException Jeśli ścieżka jest pusta lub skrót nie ma 32 bajtów.
+     */
+    public static Manifest of(Map<String, byte[]> entries) {
+        SortedMap<String, byte[]> sorted = new TreeMap<>();
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            if (entry.getKey() == null || entry.getKey().isEmpty()) {
+                throw new IllegalArgumentException("Ścieżka w manifeście nie może być pusta.");
+            }
+            if (entry.getValue() == null || entry.getValue().length != MerkleTree.HASH_LENGTH) {
+                throw new IllegalArgumentException("Skrót pliku " + entry.getKey() + " musi mieć " + MerkleTree.HASH_LENGTH + " bajty.");
+            }
+            sorted.put(entry.getKey(), entry.getValue().clone());
+        }
+        return new Manifest(sorted);
+    }
+
+    /**
+     * Buduje manifest katalogu, haszując wszystkie pliki.
+     *
+     * @see #build(Path, ManifestIndex)
+     */
+    public static Manifest build(Path root) throws IOException, NoSuchAlgorithmException {
+        return build(root, null);
+    }
+
+    /**
+     * Buduje manifest katalogu. Pliki nieobecne w indeksie lub zmienione od poprzedniego haszowania (inny rozmiar
+     * albo czas modyfikacji) są haszowane równolegle we wspólnej puli {@link java.util.concurrent.ForkJoinPool};
+     * indeks jest aktualizowany nowymi skrótami i oczyszczany z usuniętych plików (zapis wywołującego:
+     * {@link ManifestIndex#save(Path)}).
+     *
+     * @param root  Katalog główny.
+     * @param index Indeks weryfikacji lub null, aby haszować wszystko.
+     * @throws IOException              Jeśli katalogu lub pliku nie da się odczytać.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public static Manifest build(Path root, ManifestIndex index) throws IOException, NoSuchAlgorithmException {
+        MessageDigest.getInstance(HASH_ALGORITHM);
+        SortedMap<String, byte[]> entries = new ConcurrentSkipListMap<>();
+        List<FileEntry> pending = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    String name = relativeName(root, file);
+                    long modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+                    byte[] digest = (index != null) ? index.lookup(name, attributes.size(), modified) : null;
+                    if (digest != null) {
+                        entries.put(name, digest);
+                    } else {
+                        pending.add(new FileEntry(name, file, attributes.size(), modified));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        try {
+            pending.parallelStream().forEach(entry -> {
+                long hashedAt = epochNanos(Instant.now());
+                byte[] digest = hashFile(entry.file(), entry.size());
+                entries.put(entry.name(), digest);
+                if (index != null) {
+                    index.update(entry.name(), entry.size(), entry.modified(), hashedAt, digest);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (index != null) {
+            index.retain(entries.keySet());
+        }
+        return new Manifest(new TreeMap<>(entries));
+    }
+
+    private record FileEntry(String name, Path file, long size, long modified) {
+    }
+
+    private static String relativeName(Path root, Path file) {
+        Path relative = root.relativize(file);
+        StringBuilder name = new StringBuilder();
+        for (Path part : relative) {
+            if (!name.isEmpty()) {
+                name.append('/');
+            }
+            name.append(part);
+        }
+        return name.toString();
+    }
+
+    private static long epochNanos(Instant instant) {
+        return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+    }
+
+    private static byte[] hashFile(Path file, long size) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            if (size <= SMALL_FILE_SIZE) {
+                return digest.digest(Files.readAllBytes(file));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                LogSigner.hashRange(channel, 0, channel.size(), digest);
+            }
+            return digest.digest();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            // Dostępność algorytmu sprawdzana jest przed rozpoczęciem haszowania
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Postać kanoniczna manifestu (tekst UTF-8). */
+    public byte[] encode() {
+        StringBuilder text = new StringBuilder(entries.size() * 100);
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            text.append(HEX.formatHex(entry.getValue())).append("  ");
+            String name = entry.getKey();
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '\\') {
+                    text.append("\\\\");
+                } else if (c == '\n') {
+                    text.append("\\n");
+                } else {
+                    text.append(c);
+                }
+            }
+            text.append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Odczytuje manifest z postaci kanonicznej.
+     *
+     * @throws IllegalArgumentException Jeśli linia ma nieprawidłowy format lub ścieżka się powtarza.
+     */
+    public static Manifest decode(byte[] encoded) {
+        SortedMap<String, byte[]> entries = new TreeMap<>();
+        String text = new String(encoded, StandardCharsets.UTF_8);
+        int hexLength = 2 * MerkleTree.HASH_LENGTH;
+        for (String line : text.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.length() <= hexLength + 2 || !line.startsWith("  ", hexLength)) {
+                throw new IllegalArgumentException("Nieprawidłowa linia manifestu: " + line);
+            }
+            byte[] digest = HEX.parseHex(line, 0, hexLength);
+            StringBuilder name = new StringBuilder();
+            for (int i = hexLength + 2; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '\\' && i + 1 < line.length()) {
+                    c = line.charAt(++i) == 'n' ? '\n' : line.charAt(i);
+                }
+                name.append(c);
+            }
+            if (entries.put(name.toString(), digest) != null) {
+                throw new IllegalArgumentException("Powtórzona ścieżka w manifeście: " + name);
+            }
+        }
+        return new Manifest(entries);
+    }
+
+    /** Zapisuje postać kanoniczną do pliku. */
+    public void write(Path file) throws IOException {
+        Files.write(file, encode());
+    }
+
+    /**
+     * Wczytuje manifest z pliku.
+     *
+     * @throws IllegalArgumentException Jeśli plik nie jest poprawnym manifestem.
+     */
+    public static Manifest read(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+
+    /**
+     * Skrót SHA-256 postaci kanonicznej - to on jest podpisywany.
+     *
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public byte[] digest() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(HASH_ALGORITHM).digest(encode());
+    }
+
+    /**
+     * Ścieżki, którymi manifesty się różnią: pliki dodane, usunięte lub o innym skrócie.
+     *
+     * @param other Manifest do porównania, np. podpisany manifest wzorcowy.
+     * @return Posortowana lista ścieżek (pusta, gdy manifesty są identyczne).
+     */
+    public List<String> differences(Manifest other) {
+        TreeSet<String> names = new TreeSet<>(entries.keySet());
+        names.addAll(other.entries.keySet());
+        List<String> differences = new ArrayList<>();
+        for (String name : names) {
+            byte[] mine = entries.get(name);
+            byte[] theirs = other.entries.get(name);
+            if (mine == null || theirs == null || !Arrays.equals(mine, theirs)) {
+                differences.add(name);
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Skrót pliku o podanej ścieżce względnej (kopia).
+     *
+     * @return Skrót lub null, jeśli pliku nie ma w manifeście.
+     */
+    public byte[] get(String path) {
+        byte[] digest = entries.get(path);
+        return (digest != null) ? digest.clone() : null;
+    }
+
+    /** Posortowane ścieżki względne. */
+    public List<String> paths() {
+        return List.copyOf(entries.keySet());
+    }
+
+    /** Liczba plików. */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Manifest other && differences(other).isEmpty();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            hash += entry.getKey().hashCode() ^ Arrays.hashCode(entry.getValue());
+        }
+        return hash;
+    }
+}
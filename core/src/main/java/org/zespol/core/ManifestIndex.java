@@ -0,0 +1,156 @@
+package org.zespol.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Indeks weryfikacji katalogu: dla każdej ścieżki rozmiar, czas modyfikacji i skrót pliku z ostatniego
+ * haszowania. {@link Manifest#build(Path, ManifestIndex)} haszuje ponownie tylko pliki, których rozmiar lub czas
+ * modyfikacji się zmienił, więc sprawdzenie niezmienionego drzewa sprowadza się do odczytu atrybutów plików.
+ * <p>
+ * Wpis nie jest używany, jeśli plik zmodyfikowano mniej niż {@value #RACY_WINDOW_SECONDS} s przed haszowaniem -
+ * zmiana w tym samym takcie zegara systemu plików nie zmieniłaby zapisanego czasu modyfikacji. Indeks to tylko
+ * pamięć podręczna: jego utrata lub uszkodzenie oznacza jedynie pełne haszowanie przy następnym sprawdzeniu.
+ * <p>
+ * Plik indeksu: nagłówek "EGMI" + wersja + liczba wpisów, a następnie wpisy
+ * (ścieżka UTF-8 z długością u16, rozmiar, czas modyfikacji i czas haszowania w ns od epoki, skrót 32 bajty).
+ * Klasa jest bezpieczna wątkowo.
+ */
+public final class ManifestIndex {
+    /** Margines czasu modyfikacji, w którym wpis nie jest uznawany za aktualny. */
+    public static final int RACY_WINDOW_SECONDS = 2;
+
+    private static final int MAGIC = 0x45474D49; // "EGMI"
+    private static final int VERSION = 1;
+    private static final long RACY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(RACY_WINDOW_SECONDS);
+
+    private record Entry(long size, long modified, long hashedAt, byte[] digest) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** Pusty indeks. */
+    public ManifestIndex() {
+    }
+
+    /**
+     * Wczytuje indeks z pliku. Brakujący, ucięty lub uszkodzony plik (albo indeks w innej wersji) daje pusty
+     * indeks - następne sprawdzenie haszuje wtedy wszystkie pliki, a {@link #save} zapisuje indeks od nowa.
+     *
+     * @throws IOException Jeśli plik istnieje, ale nie może zostać odczytany.
+     */
+    public static ManifestIndex load(Path file) throws IOException {
+        ManifestIndex index = new ManifestIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return new ManifestIndex();
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] path = new byte[in.readUnsignedShort()];
+                in.readFully(path);
+                long size = in.readLong();
+                long modified = in.readLong();
+                long hashedAt = in.readLong();
+                byte[] digest = new byte[MerkleTree.HASH_LENGTH];
+                in.readFully(digest);
+                index.entries.put(new String(path, StandardCharsets.UTF_8), new Entry(size, modified, hashedAt, digest));
+            }
+        } catch (NoSuchFileException e) {
+            return index;
+        } catch (EOFException e) {
+            return new ManifestIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Zapisuje indeks do pliku tymczasowego i podmienia nim plik docelowy - atomowo, jeśli system plików
+     * na to pozwala.
+     *
+     * @throws IOException Jeśli zapis się nie powiedzie.
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Entry> snapshot = Map.copyOf(entries);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+                byte[] path = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(path.length);
+                out.write(path);
+                Entry value = entry.getValue();
+                out.writeLong(value.size());
+                out.writeLong(value.modified());
+                out.writeLong(value.hashedAt());
+                out.write(value.digest());
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Skrót pliku z indeksu, jeśli rozmiar i czas modyfikacji się nie zmieniły.
+     *
+     * @return Skrót lub null, gdy plik trzeba haszować ponownie.
+     */
+    byte[] lookup(String path, long size, long modified) {
+        Entry entry = entries.get(path);
+        if (entry != null && entry.size() == size && entry.modified() == modified
+                && modified < entry.hashedAt() - RACY_WINDOW_NANOS) {
+            hits.increment();
+            return entry.digest();
+        }
+        misses.increment();
+        return null;
+    }
+
+    void update(String path, long size, long modified, long hashedAt, byte[] digest) {
+        if (path.getBytes(StandardCharsets.UTF_8).length <= 0xFFFF) {
+            entries.put(path, new Entry(size, modified, hashedAt, digest));
+        }
+    }
+
+    /** Usuwa wpisy plików, których już nie ma w katalogu. */
+    void retain(Set<String> paths) {
+        entries.keySet().retainAll(paths);
+    }
+
+    /** Liczba wpisów. */
+    public int size() {
+        return entries.size();
+    }
+
+    /** Liczba plików, których skrót wzięto z indeksu. */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** Liczba plików haszowanych ponownie. */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,156 @@
+package org.zespol.core;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Niezmienny dowód przynależności jednego fragmentu do drzewa {@link MerkleTree}. Razem z podpisem
+ * {@link MerkleSignature} pozwala sprawdzić pojedynczy fragment bez czytania reszty wiadomości
+ * ({@link ElGamal#verifyChunk}).
+ * <p>
+ * Postać binarna ({@link #encode()}):
+ * <pre>
+ *   wersja(1)  rozmiar fragmentu(u32)  długość(u64)  numer fragmentu(u64)  liczba skrótów(1)  { skrót(32) }*
+ * </pre>
+ */
+public final class MerkleProof {
+    /** Wersja formatu binarnego. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 1 + 4 + 8 + 8 + 1;
+
+    private final int chunkSize;
+    private final long length;
+    private final long chunk;
+    private final byte[][] siblings;
+
+    MerkleProof(int chunkSize, long length, long chunk, byte[][] siblings) {
+        int chunks = MerkleTree.chunkCount(length, chunkSize);
+        if (chunk < 0 || chunk >= chunks) {
+            throw new IllegalArgumentException("Numer fragmentu poza zakresem.");
+        }
+        if (siblings.length != expectedSiblings(chunk, chunks)) {
+            throw new IllegalArgumentException("Nieprawidłowa liczba skrótów w dowodzie.");
+        }
+        for (byte[] sibling : siblings) {
+            if (sibling == null || sibling.length != MerkleTree.HASH_LENGTH) {
+                throw new IllegalArgumentException("Nieprawidłowy skrót w dowodzie.");
+            }
+        }
+        this.chunkSize = chunkSize;
+        this.length = length;
+        this.chunk = chunk;
+        this.siblings = siblings;
+    }
+
+    private static int expectedSiblings(long chunk, int chunks) {
+        int count = 0;
+        for (long i = chunk, width = chunks; width > 1; i >>>= 1, width = (width + 1) / 2) {
+            if ((i ^ 1) < width) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Odtwarza korzeń drzewa z fragmentu i skrótów rodzeństwa.
+     *
+     * @param data Zawartość fragmentu (pozycja bufora zostaje przesunięta na jego koniec).
+     * @return Korzeń lub null, jeśli długość fragmentu nie zgadza się z jego numerem.
+     */
+    public byte[] computeRoot(ByteBuffer data) {
+        long start = chunk * chunkSize;
+        long expected = Math.min(chunkSize, length - start);
+        if (data.remaining() != expected) {
+            return null;
+        }
+        byte[] hash = MerkleTree.leafHash(data);
+        int next = 0;
+        for (long i = chunk, width = MerkleTree.chunkCount(length, chunkSize); width > 1; i >>>= 1, width = (width + 1) / 2) {
+            if ((i ^ 1) < width) {
+                byte[] sibling = siblings[next++];
+                hash = (i & 1) == 0 ? MerkleTree.nodeHash(hash, sibling) : MerkleTree.nodeHash(sibling, hash);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Podpisywany skrót ({@link MerkleTree#digest(long, int, byte[])}) odtworzony z fragmentu.
+     *
+     * @return Skrót lub null, jeśli długość fragmentu nie zgadza się z jego numerem.
+     */
+    public byte[] digest(ByteBuffer data) {
+        byte[] root = computeRoot(data);
+        return (root != null) ? MerkleTree.digest(length, chunkSize, root) : null;
+    }
+
+    /** Postać binarna dowodu. */
+    public byte[] encode() {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + siblings.length * MerkleTree.HASH_LENGTH);
+        out.put((byte) FORMAT_VERSION).putInt(chunkSize).putLong(length).putLong(chunk).put((byte) siblings.length);
+        for (byte[] sibling : siblings) {
+            out.put(sibling);
+        }
+        return out.array();
+    }
+
+    /**
+     * Dekoduje dowód zapisany przez {@link #encode()}.
+     *
+     * @throws IllegalArgumentException Jeśli dane są uszkodzone, ucięte lub w nieobsługiwanej wersji.
+     */
+    public static MerkleProof decode(byte[] encoded) {
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        try {
+            if (in.get() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Nieobsługiwana wersja dowodu przynależności.");
+            }
+            int chunkSize = in.getInt();
+            long length = in.getLong();
+            long chunk = in.getLong();
+            byte[][] siblings = new byte[in.get() & 0xFF][MerkleTree.HASH_LENGTH];
+            for (byte[] sibling : siblings) {
+                in.get(sibling);
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Nadmiarowe dane po dowodzie przynależności.");
+            }
+            return new MerkleProof(chunkSize, length, chunk, siblings);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Ucięty dowód przynależności.", e);
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** Długość całej wiadomości w bajtach. */
+    public long getLength() {
+        return length;
+    }
+
+    /** Numer fragmentu (od 0). */
+    public long getChunk() {
+        return chunk;
+    }
+
+    /** Liczba skrótów rodzeństwa na ścieżce do korzenia. */
+    public int size() {
+        return siblings.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MerkleProof other && chunkSize == other.chunkSize && length == other.length
+                && chunk == other.chunk && Arrays.deepEquals(siblings, other.siblings);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(chunk) + Arrays.deepHashCode(siblings);
+    }
+}
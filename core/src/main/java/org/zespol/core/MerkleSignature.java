@@ -0,0 +1,87 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Niezmienny podpis w trybie drzewa Merkle'a: podpis (r, s) skrótu {@link MerkleTree#digest()} wraz z parametrami
+ * drzewa - rozmiarem fragmentu i długością wiadomości - potrzebnymi weryfikującemu, aby haszował tak samo.
+ * Zapisywany jako rekord {@link KeyCodec.Kind#MERKLE_SIGNATURE}.
+ */
+public final class MerkleSignature {
+    private final ElGamalSignature signature;
+    private final int chunkSize;
+    private final long length;
+
+    /**
+     * @throws IllegalArgumentException Jeśli podpis jest null lub parametry drzewa są nieprawidłowe.
+     */
+    public MerkleSignature(ElGamalSignature signature, int chunkSize, long length) {
+        if (signature == null) {
+            throw new IllegalArgumentException("Nieprawidłowy format podpisu.");
+        }
+        MerkleTree.chunkCount(length, chunkSize);
+        this.signature = signature;
+        this.chunkSize = chunkSize;
+        this.length = length;
+    }
+
+    /**
+     * Podpis z listy [r, s, rozmiar fragmentu, długość wiadomości].
+     *
+     * @throws IllegalArgumentException Jeśli lista ma zły format lub parametry drzewa są nieprawidłowe.
+     */
+    public static MerkleSignature of(List<BigInteger> components) {
+        if (components == null || components.size() != KeyCodec.Kind.MERKLE_SIGNATURE.size()
+                || components.get(2) == null || components.get(3) == null
+                || components.get(2).bitLength() > 31 || components.get(3).bitLength() > 63) {
+            throw new IllegalArgumentException("Nieprawidłowy format podpisu.");
+        }
+        return new MerkleSignature(ElGamalSignature.of(components.subList(0, 2)),
+                components.get(2).intValue(), components.get(3).longValue());
+    }
+
+    /** Lista [r, s, rozmiar fragmentu, długość wiadomości]. */
+    public List<BigInteger> toList() {
+        List<BigInteger> components = new ArrayList<>(signature.toList());
+        components.add(BigInteger.valueOf(chunkSize));
+        components.add(BigInteger.valueOf(length));
+        return components;
+    }
+
+    /** Rekord binarny {@link KeyCodec}. */
+    public byte[] encode() {
+        return KeyCodec.encode(KeyCodec.Kind.MERKLE_SIGNATURE, toList());
+    }
+
+    /** Podpis (r, s) skrótu drzewa. */
+    public ElGamalSignature getSignature() {
+        return signature;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** Długość podpisanej wiadomości w bajtach. */
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MerkleSignature other && signature.equals(other.signature)
+                && chunkSize == other.chunkSize && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * signature.hashCode() + chunkSize) + Long.hashCode(length);
+    }
+
+    @Override
+    public String toString() {
+        return "MerkleSignature[" + signature + ", chunkSize=" + chunkSize + ", length=" + length + "]";
+    }
+}
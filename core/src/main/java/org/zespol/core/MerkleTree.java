@@ -0,0 +1,259 @@
+package org.zespol.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.stream.IntStream;
+
+/**
+ * Drzewo Merkle'a nad fragmentami wiadomości o stałym rozmiarze - skrót dużych plików liczony równolegle.
+ * <p>
+ * Liście i węzły wewnętrzne haszowane są SHA-256 z prefiksem rozróżniającym (jak w RFC 6962):
+ * <pre>
+ *   liść  = H(0x00 || fragment)
+ *   węzeł = H(0x01 || lewy || prawy)
+ * </pre>
+ * Węzeł bez pary przechodzi na wyższy poziom bez zmian. Podpisywany jest skrót {@link #digest()}, który oprócz
+ * korzenia wiąże długość wiadomości i rozmiar fragmentu, więc weryfikujący musi haszować dokładnie tak samo.
+ * Pusta wiadomość ma jeden pusty liść.
+ * <p>
+ * Plik jest mapowany w pamięć regionami po wielokrotności rozmiaru fragmentu, a fragmenty haszowane są równolegle
+ * we wspólnej puli {@link java.util.concurrent.ForkJoinPool}. Drzewo przechowuje wszystkie poziomy
+ * (ok. 64 bajty na fragment), aby wydawać dowody przynależności ({@link #proof(long)}).
+ */
+public final class MerkleTree {
+    /** Domyślny rozmiar fragmentu - 1 MiB. */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    /** Najmniejszy dopuszczalny rozmiar fragmentu. */
+    public static final int MIN_CHUNK_SIZE = 1 << 10;
+    /** Długość skrótu węzła (SHA-256). */
+    public static final int HASH_LENGTH = 32;
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final byte DIGEST_PREFIX = 0x02;
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024; // Docelowy rozmiar jednego mapowanego regionu
+    /** Najwięcej fragmentów w drzewie - poziomy są tablicami indeksowanymi int. */
+    private static final long MAX_CHUNKS = Integer.MAX_VALUE - 8;
+
+    private final int chunkSize;
+    private final long length;
+    private final byte[][][] levels; // levels[0] = liście, levels[levels.length - 1] = [korzeń]
+
+    private MerkleTree(int chunkSize, long length, byte[][] leaves) {
+        this.chunkSize = chunkSize;
+        this.length = length;
+        this.levels = buildLevels(leaves);
+    }
+
+    /**
+     * Buduje drzewo dla wiadomości w pamięci.
+     *
+     * @param message   Wiadomość.
+     * @param chunkSize Rozmiar fragmentu w bajtach.
+     * @throws IllegalArgumentException Jeśli rozmiar fragmentu jest mniejszy niż {@value #MIN_CHUNK_SIZE}.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public static MerkleTree of(byte[] message, int chunkSize) throws NoSuchAlgorithmException {
+        int chunks = chunkCount(message.length, chunkSize);
+        MessageDigest.getInstance(HASH_ALGORITHM);
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        byte[][] leaves = new byte[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(i -> {
+            int start = i * chunkSize;
+            leaves[i] = leafHash(buffer.slice(start, Math.min(chunkSize, message.length - start)));
+        });
+        return new MerkleTree(chunkSize, message.length, leaves);
+    }
+
+    /**
+     * Buduje drzewo dla pliku, haszując fragmenty równolegle z regionów mapowanych w pamięć.
+     *
+     * @param path      Ścieżka do pliku.
+     * @param chunkSize Rozmiar fragmentu w bajtach.
+     * @throws IllegalArgumentException Jeśli rozmiar fragmentu jest mniejszy niż {@value #MIN_CHUNK_SIZE}
+     *                                  lub plik ma zbyt wiele fragmentów.
+     * @throws IOException              Jeśli plik nie może zostać odczytany.
+     * @throws NoSuchAlgorithmException Jeśli algorytm SHA-256 nie jest dostępny.
+     */
+    public static MerkleTree of(Path path, int chunkSize) throws IOException, NoSuchAlgorithmException {
+        MessageDigest.getInstance(HASH_ALGORITHM);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = chunkCount(size, chunkSize);
+
+            // Regiony są wielokrotnością fragmentu, więc żaden fragment nie przekracza granicy regionu
+            long chunksPerRegion = Math.max(1, MAPPED_REGION_SIZE / chunkSize);
+            long regionSize = chunksPerRegion * chunkSize;
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + regionSize - 1) / regionSize)];
+            for (int i = 0; i < regions.length; i++) {
+                long position = i * regionSize;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+            }
+
+            byte[][] leaves = new byte[chunks][];
+            if (size == 0) {
+                leaves[0] = leafHash(ByteBuffer.allocate(0));
+            } else {
+                IntStream.range(0, chunks).parallel().forEach(i -> {
+                    MappedByteBuffer region = regions[(int) (i / chunksPerRegion)];
+                    int offset = (int) ((i % chunksPerRegion) * chunkSize);
+                    leaves[i] = leafHash(region.slice(offset, Math.min(chunkSize, region.capacity() - offset)));
+                });
+            }
+            return new MerkleTree(chunkSize, size, leaves);
+        }
+    }
+
+    /**
+     * Liczba fragmentów wiadomości o podanej długości (co najmniej 1).
+     *
+     * @throws IllegalArgumentException Jeśli rozmiar fragmentu jest zbyt mały lub fragmentów jest zbyt wiele.
+     */
+    public static int chunkCount(long length, int chunkSize) {
+        if (chunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Rozmiar fragmentu musi wynosić co najmniej " + MIN_CHUNK_SIZE + " bajtów.");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Długość wiadomości nie może być ujemna.");
+        }
+        long chunks = Math.max(1, (length + chunkSize - 1) / chunkSize);
+        if (chunks > MAX_CHUNKS) {
+            throw new IllegalArgumentException("Zbyt wiele fragmentów - zwiększ rozmiar fragmentu.");
+        }
+        return (int) chunks;
+    }
+
+    /**
+     * Skrót liścia H(0x00 || fragment). Pozycja bufora zostaje przesunięta na jego koniec.
+     */
+    public static byte[] leafHash(ByteBuffer chunk) {
+        MessageDigest digest = sha256();
+        digest.update(LEAF_PREFIX);
+        digest.update(chunk);
+        return digest.digest();
+    }
+
+    /**
+     * Skrót węzła wewnętrznego H(0x01 || lewy || prawy).
+     */
+    static byte[] nodeHash(byte[] left, byte[] right) {
+        MessageDigest digest = sha256();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    /**
+     * Podpisywany skrót: H(0x02 || długość(8 bajtów) || rozmiar fragmentu(4 bajty) || korzeń).
+     *
+     * @param length    Długość wiadomości w bajtach.
+     * @param chunkSize Rozmiar fragmentu w bajtach.
+     * @param root      Korzeń drzewa.
+     * @return Skrót SHA-256 (32 bajty).
+     */
+    public static byte[] digest(long length, int chunkSize, byte[] root) {
+        if (root == null || root.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Korzeń drzewa musi mieć " + HASH_LENGTH + " bajty.");
+        }
+        MessageDigest digest = sha256();
+        digest.update(ByteBuffer.allocate(13).put(DIGEST_PREFIX).putLong(length).putInt(chunkSize).flip());
+        digest.update(root);
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Dostępność algorytmu sprawdzana jest przed rozpoczęciem haszowania
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[][][] buildLevels(byte[][] leaves) {
+        int height = 1;
+        for (int width = leaves.length; width > 1; width = (width + 1) / 2) {
+            height++;
+        }
+        byte[][][] levels = new byte[height][][];
+        levels[0] = leaves;
+        for (int level = 1; level < height; level++) {
+            byte[][] below = levels[level - 1];
+            byte[][] current = new byte[(below.length + 1) / 2][];
+            IntStream nodes = IntStream.range(0, current.length);
+            // Niższe poziomy mają tysiące węzłów - warto je liczyć równolegle
+            if (current.length >= 1024) {
+                nodes = nodes.parallel();
+            }
+            nodes.forEach(i -> {
+                int left = 2 * i;
+                current[i] = (left + 1 < below.length) ? nodeHash(below[left], below[left + 1]) : below[left];
+            });
+            levels[level] = current;
+        }
+        return levels;
+    }
+
+    /**
+     * Dowód przynależności fragmentu do drzewa: skróty rodzeństwa na ścieżce od liścia do korzenia.
+     *
+     * @param chunk Numer fragmentu (od 0).
+     * @throws IllegalArgumentException Jeśli numer fragmentu jest poza zakresem.
+     */
+    public MerkleProof proof(long chunk) {
+        if (chunk < 0 || chunk >= getChunkCount()) {
+            throw new IllegalArgumentException("Numer fragmentu poza zakresem.");
+        }
+        int index = (int) chunk;
+        int siblings = 0;
+        for (int level = 0, i = index; level < levels.length - 1; level++, i >>>= 1) {
+            if ((i ^ 1) < levels[level].length) {
+                siblings++;
+            }
+        }
+        byte[][] path = new byte[siblings][];
+        int next = 0;
+        for (int level = 0, i = index; level < levels.length - 1; level++, i >>>= 1) {
+            if ((i ^ 1) < levels[level].length) {
+                path[next++] = levels[level][i ^ 1].clone();
+            }
+        }
+        return new MerkleProof(chunkSize, length, chunk, path);
+    }
+
+    /** Korzeń drzewa (kopia). */
+    public byte[] getRoot() {
+        return levels[levels.length - 1][0].clone();
+    }
+
+    /** Podpisywany skrót wiążący korzeń, długość wiadomości i rozmiar fragmentu. */
+    public byte[] digest() {
+        return digest(length, chunkSize, levels[levels.length - 1][0]);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** Długość wiadomości w bajtach. */
+    public long getLength() {
+        return length;
+    }
+
+    public int getChunkCount() {
+        return levels[0].length;
+    }
+
+    /** Liczba poziomów drzewa (1 dla pojedynczego fragmentu). */
+    public int getHeight() {
+        return levels.length;
+    }
+}
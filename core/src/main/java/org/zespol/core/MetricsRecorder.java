@@ -0,0 +1,125 @@
+package org.zespol.core;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Instrumentation} zbierające pomiary w pamięci: liczniki operacji, nieudanych weryfikacji, potęgowań
+ * i powtórzeń dla każdego rodzaju operacji oraz histogram czasów ({@link LatencyHistogram}) dla każdej pary
+ * (operacja, długość bitowa p). Liczniki oparte są na {@link LongAdder}, więc równoległe wątki nie rywalizują
+ * o jedną komórkę pamięci.
+ */
+public final class MetricsRecorder implements Instrumentation {
+    private final int operationCount = Operation.values().length;
+    private final LongAdder[] operations = newAdders(operationCount);
+    private final LongAdder[] failures = newAdders(operationCount);
+    private final LongAdder[] modExps = newAdders(operationCount);
+    private final LongAdder[] retries = newAdders(operationCount);
+    private final Map<Long, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public void recordOperation(Operation operation, int bitLength, long nanos, int modExpCount, boolean success) {
+        int index = operation.ordinal();
+        operations[index].increment();
+        if (!success) {
+            failures[index].increment();
+        }
+        if (modExpCount > 0) {
+            modExps[index].add(modExpCount);
+        }
+        histograms.computeIfAbsent(histogramKey(operation, bitLength), key -> new LatencyHistogram()).record(nanos);
+    }
+
+    @Override
+    public void recordRetries(Operation operation, int bitLength, int count) {
+        retries[operation.ordinal()].add(count);
+    }
+
+    /** Liczba wykonanych operacji danego rodzaju. */
+    public long getCount(Operation operation) {
+        return operations[operation.ordinal()].sum();
+    }
+
+    /** Liczba operacji zakończonych wynikiem negatywnym (np. niepoprawnym podpisem). */
+    public long getFailures(Operation operation) {
+        return failures[operation.ordinal()].sum();
+    }
+
+    /** Liczba potęgowań modularnych wykonanych w ramach operacji danego rodzaju. */
+    public long getModExps(Operation operation) {
+        return modExps[operation.ordinal()].sum();
+    }
+
+    /** Liczba powtórzeń pętli losujących w operacjach danego rodzaju. */
+    public long getRetries(Operation operation) {
+        return retries[operation.ordinal()].sum();
+    }
+
+    /**
+     * Histogram czasów operacji dla podanej długości bitowej p.
+     *
+     * @return Histogram lub null, jeśli nie było takich operacji.
+     */
+    public LatencyHistogram getHistogram(Operation operation, int bitLength) {
+        return histograms.get(histogramKey(operation, bitLength));
+    }
+
+    /** Zeruje wszystkie liczniki i histogramy. */
+    public void reset() {
+        for (int i = 0; i < operationCount; i++) {
+            operations[i].reset();
+            failures[i].reset();
+            modExps[i].reset();
+            retries[i].reset();
+        }
+        histograms.clear();
+    }
+
+    /**
+     * Tekstowe podsumowanie: jedna linia na parę (operacja, długość bitowa) z liczbą operacji i percentylami czasu.
+     */
+    public String summary() {
+        Map<Long, LatencyHistogram> sorted = new TreeMap<>(histograms);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Long, LatencyHistogram> entry : sorted.entrySet()) {
+            Operation operation = Operation.values()[(int) (entry.getKey() >>> 32)];
+            int bitLength = (int) (long) entry.getKey();
+            LatencyHistogram h = entry.getValue();
+            sb.append(String.format("%-22s %5d bitów: n=%d, średnio %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                    operation, bitLength, h.getCount(), h.getMean() / 1e6, millis(h.getPercentile(0.5)),
+                    millis(h.getPercentile(0.99)), millis(h.getMax())));
+        }
+        for (Operation operation : Operation.values()) {
+            long modExpCount = getModExps(operation);
+            long retryCount = getRetries(operation);
+            if (modExpCount > 0 || retryCount > 0) {
+                sb.append(String.format("%-22s potęgowania: %d, powtórzenia: %d%n", operation, modExpCount, retryCount));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static long histogramKey(Operation operation, int bitLength) {
+        return ((long) operation.ordinal() << 32) | (bitLength & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
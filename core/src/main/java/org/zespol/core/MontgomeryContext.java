@@ -0,0 +1,335 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arytmetyka modularna w postaci Montgomery'ego dla stałego, nieparzystego modułu, na tablicach 64-bitowych limbów.
+ * <p>
+ * Element to tablica {@code long[getLimbs()]} (limby little-endian, bez znaku) przechowująca a*R mod n, gdzie
+ * R = 2^(64*limbs). Operacje zapisują wynik do tablicy podanej przez wywołującego, a bufory pośrednie należą
+ * do {@link Workspace}, więc po przygotowaniu obszaru roboczego potęgowanie nie alokuje pamięci.
+ * Kontekst jest niezmienny i może być współdzielony przez wątki; obszar roboczy - nie.
+ * <p>
+ * Wyniki są identyczne z {@link BigInteger#modPow}/{@link BigInteger#multiply}+{@link BigInteger#mod}.
+ * Pojedyncze potęgowanie przez {@link BigInteger#modPow} jest jednak na HotSpot szybsze (wewnętrzne mnożenie
+ * Montgomery'ego w asemblerze), dlatego kontekst służy przede wszystkim do długich serii mnożeń w
+ * {@link FixedBaseTable} i {@link MultiExponentiation}, gdzie modPow nie da się użyć.
+ */
+public final class MontgomeryContext {
+    private final BigInteger modulus;
+    private final int limbs;
+    private final long[] n;
+    private final long n0inv;   // -n^(-1) mod 2^64
+    private final long[] rSquared; // R^2 mod n, w zwykłej postaci - do konwersji
+    private final long[] one;      // R mod n, czyli 1 w postaci Montgomery'ego
+    private final long[] unit;     // 1 w zwykłej postaci - mnożenie przez nią wychodzi z postaci Montgomery'ego
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * @param modulus Nieparzysty moduł większy od 1.
+     */
+    public MontgomeryContext(BigInteger modulus) {
+        if (modulus.signum() <= 0 || !modulus.testBit(0) || modulus.equals(BigInteger.ONE)) {
+            throw new IllegalArgumentException("Moduł musi być nieparzysty i większy od 1.");
+        }
+        this.modulus = modulus;
+        this.limbs = (modulus.bitLength() + 63) >>> 6;
+        this.n = toLimbs(modulus, limbs);
+        BigInteger twoTo64 = BigInteger.ONE.shiftLeft(64);
+        this.n0inv = BigInteger.valueOf(n[0]).mod(twoTo64).modInverse(twoTo64).negate().longValue();
+        BigInteger r = BigInteger.ONE.shiftLeft(64 * limbs);
+        this.rSquared = toLimbs(r.multiply(r).mod(modulus), limbs);
+        this.one = toLimbs(r.mod(modulus), limbs);
+        this.unit = new long[limbs];
+        this.unit[0] = 1;
+    }
+
+    /**
+     * Bufory robocze jednego wątku dla danego kontekstu.
+     */
+    public final class Workspace {
+        private final long[] t = new long[limbs + 2];
+        private final long[] accumulator = new long[limbs];
+        private final long[] square = new long[limbs];
+        private final long[] plain = new long[limbs];
+        private final long[] element = new long[limbs];
+        private long[] exponent = new long[limbs];
+        private long[][] oddPowers = new long[0][];
+
+        private Workspace() {
+        }
+
+        private long[][] oddPowers(int count) {
+            if (oddPowers.length < count) {
+                long[][] grown = new long[count][];
+                for (int i = 0; i < count; i++) {
+                    grown[i] = (i < oddPowers.length) ? oddPowers[i] : new long[limbs];
+                }
+                oddPowers = grown;
+            }
+            return oddPowers;
+        }
+
+        private long[] exponent(BigInteger e, int count) {
+            if (exponent.length < count) {
+                exponent = new long[count];
+            }
+            toLimbs(e, exponent, count);
+            return exponent;
+        }
+    }
+
+    /** Tworzy nowy obszar roboczy (jeden na wątek). */
+    public Workspace newWorkspace() {
+        return new Workspace();
+    }
+
+    /** Tworzy nowy (zerowy) element. */
+    public long[] newElement() {
+        return new long[limbs];
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    public int getLimbs() {
+        return limbs;
+    }
+
+    /**
+     * Zamienia liczbę na postać Montgomery'ego (x*R mod n).
+     */
+    public void toMontgomery(BigInteger x, long[] out, Workspace ws) {
+        if (x.signum() < 0 || x.compareTo(modulus) >= 0) {
+            x = x.mod(modulus);
+        }
+        toLimbs(x, ws.plain, limbs);
+        multiply(ws.plain, rSquared, out, ws);
+    }
+
+    /**
+     * Zamienia element z postaci Montgomery'ego na zwykłą liczbę.
+     */
+    public BigInteger fromMontgomery(long[] a, Workspace ws) {
+        multiply(a, unit, ws.plain, ws);
+        return toBigInteger(ws.plain);
+    }
+
+    /** Kopiuje do out jedynkę w postaci Montgomery'ego. */
+    public void setOne(long[] out) {
+        System.arraycopy(one, 0, out, 0, limbs);
+    }
+
+    /**
+     * Mnożenie Montgomery'ego (CIOS): out = a * b * R^(-1) mod n. Tablica out może być tożsama z a lub b.
+     */
+    public void multiply(long[] a, long[] b, long[] out, Workspace ws) {
+        final int s = limbs;
+        final long[] t = ws.t;
+        final long[] mod = n;
+        for (int j = 0; j < s + 2; j++) {
+            t[j] = 0;
+        }
+        for (int i = 0; i < s; i++) {
+            // t += a[i] * b
+            long ai = a[i];
+            long carry = 0;
+            for (int j = 0; j < s; j++) {
+                long lo = ai * b[j];
+                long hi = Math.unsignedMultiplyHigh(ai, b[j]);
+                long sum = t[j] + lo;
+                hi += Long.compareUnsigned(sum, lo) < 0 ? 1 : 0;
+                long total = sum + carry;
+                hi += Long.compareUnsigned(total, carry) < 0 ? 1 : 0;
+                t[j] = total;
+                carry = hi;
+            }
+            long top = t[s] + carry;
+            t[s + 1] = Long.compareUnsigned(top, carry) < 0 ? 1 : 0;
+            t[s] = top;
+
+            // t = (t + m * n) / 2^64, gdzie m dobrane tak, by najmłodszy limb się wyzerował
+            long m = t[0] * n0inv;
+            long lo = m * mod[0];
+            long hi = Math.unsignedMultiplyHigh(m, mod[0]);
+            long sum = t[0] + lo;
+            carry = hi + (Long.compareUnsigned(sum, lo) < 0 ? 1 : 0);
+            for (int j = 1; j < s; j++) {
+                lo = m * mod[j];
+                hi = Math.unsignedMultiplyHigh(m, mod[j]);
+                sum = t[j] + lo;
+                hi += Long.compareUnsigned(sum, lo) < 0 ? 1 : 0;
+                long total = sum + carry;
+                hi += Long.compareUnsigned(total, carry) < 0 ? 1 : 0;
+                t[j - 1] = total;
+                carry = hi;
+            }
+            top = t[s] + carry;
+            t[s - 1] = top;
+            t[s] = t[s + 1] + (Long.compareUnsigned(top, carry) < 0 ? 1 : 0);
+        }
+        // Wynik jest mniejszy od 2n - wystarczy jedno warunkowe odejmowanie
+        if (t[s] != 0 || compare(t, mod, s) >= 0) {
+            long borrow = 0;
+            for (int j = 0; j < s; j++) {
+                long tj = t[j];
+                long diff = tj - mod[j] - borrow;
+                borrow = (Long.compareUnsigned(tj, mod[j]) < 0 || (borrow != 0 && tj == mod[j])) ? 1 : 0;
+                out[j] = diff;
+            }
+        } else {
+            System.arraycopy(t, 0, out, 0, s);
+        }
+    }
+
+    /**
+     * Potęgowanie metodą okna przesuwnego z rozmiarem okna dobranym do długości wykładnika:
+     * out = base^exponent w postaci Montgomery'ego. Po pierwszym użyciu obszaru roboczego nie alokuje pamięci.
+     *
+     * @param base Podstawa w postaci Montgomery'ego.
+     * @param exponent Wykładnik jako limby little-endian.
+     * @param exponentBits Liczba znaczących bitów wykładnika.
+     * @param out Wynik w postaci Montgomery'ego (może być tożsamy z base).
+     * @param ws Obszar roboczy.
+     */
+    public void pow(long[] base, long[] exponent, int exponentBits, long[] out, Workspace ws) {
+        if (exponentBits == 0) {
+            setOne(out);
+            return;
+        }
+        int window = windowSize(exponentBits);
+        long[][] table = ws.oddPowers(1 << (window - 1));
+        // table[j] = base^(2j+1)
+        System.arraycopy(base, 0, table[0], 0, limbs);
+        if (window > 1) {
+            multiply(base, base, ws.square, ws);
+            for (int j = 1; j < (1 << (window - 1)); j++) {
+                multiply(table[j - 1], ws.square, table[j], ws);
+            }
+        }
+
+        long[] acc = ws.accumulator;
+        boolean started = false;
+        int i = exponentBits - 1;
+        while (i >= 0) {
+            if (!testBit(exponent, i)) {
+                if (started) {
+                    multiply(acc, acc, acc, ws);
+                }
+                i--;
+                continue;
+            }
+            int low = Math.max(i - window + 1, 0);
+            while (!testBit(exponent, low)) {
+                low++;
+            }
+            int digit = 0;
+            for (int b = i; b >= low; b--) {
+                digit = (digit << 1) | (testBit(exponent, b) ? 1 : 0);
+                if (started) {
+                    multiply(acc, acc, acc, ws);
+                }
+            }
+            if (started) {
+                multiply(acc, table[digit >>> 1], acc, ws);
+            } else {
+                System.arraycopy(table[digit >>> 1], 0, acc, 0, limbs);
+                started = true;
+            }
+            i = low - 1;
+        }
+        System.arraycopy(acc, 0, out, 0, limbs);
+    }
+
+    /**
+     * Wygodna wersja potęgowania na liczbach BigInteger: base^exponent mod n.
+     * Korzysta z obszaru roboczego bieżącego wątku, jak {@link FixedBaseTable#pow}.
+     *
+     * @param base Podstawa.
+     * @param exponent Nieujemny wykładnik.
+     * @return base^exponent mod n.
+     */
+    public BigInteger modPow(BigInteger base, BigInteger exponent) {
+        if (exponent.signum() < 0) {
+            throw new IllegalArgumentException("Wykładnik nie może być ujemny.");
+        }
+        Workspace ws = workspaces.get();
+        long[] element = ws.element;
+        toMontgomery(base, element, ws);
+        int bits = exponent.bitLength();
+        pow(element, ws.exponent(exponent, Math.max(1, (bits + 63) >>> 6)), bits, element, ws);
+        return fromMontgomery(element, ws);
+    }
+
+    /**
+     * Rozmiar okna dla potęgowania: koszt tablicy 2^(w-1) mnożeń wobec ok. bits/(w+1) mnożeń w pętli.
+     */
+    static int windowSize(int bits) {
+        if (bits > 3000) {
+            return 6;
+        }
+        if (bits > 768) {
+            return 5;
+        }
+        if (bits > 240) {
+            return 4;
+        }
+        if (bits > 80) {
+            return 3;
+        }
+        return bits > 24 ? 2 : 1;
+    }
+
+    private static boolean testBit(long[] value, int bit) {
+        return ((value[bit >>> 6] >>> (bit & 63)) & 1L) != 0;
+    }
+
+    private static int compare(long[] a, long[] b, int length) {
+        for (int j = length - 1; j >= 0; j--) {
+            if (a[j] != b[j]) {
+                return Long.compareUnsigned(a[j], b[j]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Zamienia nieujemną liczbę na limby little-endian o podanej liczbie limbów.
+     */
+    static long[] toLimbs(BigInteger x, int count) {
+        long[] result = new long[count];
+        toLimbs(x, result, count);
+        return result;
+    }
+
+    /**
+     * Zapisuje nieujemną liczbę do pierwszych count limbów tablicy out (little-endian).
+     */
+    private static void toLimbs(BigInteger x, long[] result, int count) {
+        Arrays.fill(result, 0, count, 0L);
+        byte[] bytes = x.toByteArray(); // big-endian, może mieć wiodący bajt znaku
+        for (int i = 0; i < bytes.length; i++) {
+            int bytePosition = bytes.length - 1 - i; // pozycja bajtu licząc od najmłodszego
+            int limb = bytePosition >>> 3;
+            if (limb < count) {
+                result[limb] |= (bytes[i] & 0xFFL) << ((bytePosition & 7) << 3);
+            }
+        }
+    }
+
+    /**
+     * Zamienia limby little-endian na nieujemny BigInteger.
+     */
+    static BigInteger toBigInteger(long[] value) {
+        byte[] bytes = new byte[value.length * 8 + 1]; // wiodące zero - liczba dodatnia
+        for (int limb = 0; limb < value.length; limb++) {
+            long v = value[limb];
+            for (int k = 0; k < 8; k++) {
+                bytes[bytes.length - 1 - (limb * 8 + k)] = (byte) (v >>> (k << 3));
+            }
+        }
+        return new BigInteger(bytes);
+    }
+}
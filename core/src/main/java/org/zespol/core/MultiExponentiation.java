@@ -0,0 +1,200 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+
+/**
+ * Jednoczesne potęgowanie wielu podstaw: oblicza b_1^e_1 * b_2^e_2 * ... * b_n^e_n mod p w jednym przebiegu.
+ * <p>
+ * Wykładniki są przeglądane od najstarszego bitu (metoda przeplatanych okien przesuwnych), więc wszystkie
+ * podstawy dzielą jedną sekwencję podnoszeń do kwadratu, a każda dokłada tylko ok. bits/(w+1) mnożeń
+ * przez nieparzyste potęgi z własnej małej tablicy.
+ * <p>
+ * Mnożenia w pętli wykonywane są w postaci Montgomery'ego w Javie ({@link MontgomeryContext}),
+ * a {@link BigInteger#modPow} korzysta z wewnętrznego
+ * (intrinsic) mnożenia Montgomery'ego, które jest ok. dwa razy szybsze. Wspólne kwadraty opłacają się więc dopiero
+ * przy co najmniej {@value #MIN_INTERLEAVED_BASES} podstawach - dla mniejszej liczby każda potęga liczona jest
+ * osobno przez {@code modPow}, co daje ten sam wynik w krótszym czasie.
+ */
+public final class MultiExponentiation {
+    /** Minimalna liczba niezerowych wykładników, od której potęgowanie przeplatane jest szybsze niż osobne modPow. */
+    public static final int MIN_INTERLEAVED_BASES = 4;
+
+    private MultiExponentiation() {
+    }
+
+    /**
+     * Oblicza base1^exponent1 * base2^exponent2 mod modulus. Przy dwóch podstawach zawsze są to dwa wywołania
+     * {@link BigInteger#modPow} (zob. {@link #MIN_INTERLEAVED_BASES}) - metoda jest tylko skrótem dla wywołujących.
+     *
+     * @param base1 Pierwsza podstawa.
+     * @param exponent1 Nieujemny wykładnik pierwszej podstawy.
+     * @param base2 Druga podstawa.
+     * @param exponent2 Nieujemny wykładnik drugiej podstawy.
+     * @param modulus Dodatni moduł.
+     * @return Iloczyn potęg modulo modulus.
+     */
+    public static BigInteger product(BigInteger base1, BigInteger exponent1, BigInteger base2, BigInteger exponent2, BigInteger modulus) {
+        return product(new BigInteger[]{base1, base2}, new BigInteger[]{exponent1, exponent2}, modulus);
+    }
+
+    /**
+     * Oblicza iloczyn bases[i]^exponents[i] mod modulus.
+     *
+     * @param bases Podstawy.
+     * @param exponents Nieujemne wykładniki (ta sama liczba co podstaw).
+     * @param modulus Dodatni moduł.
+     * @return Iloczyn potęg modulo modulus.
+     */
+    public static BigInteger product(BigInteger[] bases, BigInteger[] exponents, BigInteger modulus) {
+        if (modulus.signum() <= 0) {
+            throw new IllegalArgumentException("Moduł musi być dodatni.");
+        }
+        return countNonZero(bases, exponents) >= MIN_INTERLEAVED_BASES
+                ? interleaved(bases, exponents, modulus)
+                : separately(bases, exponents, modulus);
+    }
+
+    /**
+     * Jak {@link #product(BigInteger[], BigInteger[], BigInteger)}, ale z gotowym kontekstem Montgomery'ego
+     * (np. przechowywanym w {@link ElGamalParameters}), więc stałe modułu nie są liczone przy każdym wywołaniu.
+     */
+    static BigInteger product(BigInteger[] bases, BigInteger[] exponents, MontgomeryContext context) {
+        return countNonZero(bases, exponents) >= MIN_INTERLEAVED_BASES
+                ? interleaved(bases, exponents, context)
+                : separately(bases, exponents, context.getModulus());
+    }
+
+    /**
+     * Sprawdza argumenty i zwraca liczbę niezerowych wykładników.
+     */
+    private static int countNonZero(BigInteger[] bases, BigInteger[] exponents) {
+        if (bases.length != exponents.length) {
+            throw new IllegalArgumentException("Liczba podstaw i wykładników musi być równa.");
+        }
+        int nonZero = 0;
+        for (BigInteger e : exponents) {
+            if (e.signum() < 0) {
+                throw new IllegalArgumentException("Wykładnik nie może być ujemny.");
+            }
+            if (e.signum() != 0) {
+                nonZero++;
+            }
+        }
+        return nonZero;
+    }
+
+    /**
+     * Liczy każdą potęgę osobno przez {@link BigInteger#modPow} i mnoży wyniki.
+     */
+    private static BigInteger separately(BigInteger[] bases, BigInteger[] exponents, BigInteger modulus) {
+        BigInteger result = BigInteger.ONE.mod(modulus);
+        for (int i = 0; i < bases.length; i++) {
+            if (exponents[i].signum() != 0) {
+                result = result.multiply(bases[i].modPow(exponents[i], modulus)).mod(modulus);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Potęgowanie przeplatane: jedna sekwencja kwadratów wspólna dla wszystkich podstaw.
+     */
+    static BigInteger interleaved(BigInteger[] bases, BigInteger[] exponents, BigInteger modulus) {
+        if (!modulus.testBit(0) || modulus.equals(BigInteger.ONE)) {
+            return separately(bases, exponents, modulus); // Montgomery wymaga nieparzystego modułu
+        }
+        return interleaved(bases, exponents, new MontgomeryContext(modulus));
+    }
+
+    /**
+     * Potęgowanie przeplatane w podanym kontekście Montgomery'ego.
+     */
+    static BigInteger interleaved(BigInteger[] bases, BigInteger[] exponents, MontgomeryContext context) {
+        BigInteger modulus = context.getModulus();
+        MontgomeryContext.Workspace ws = context.newWorkspace();
+        int n = bases.length;
+        int maxBits = 0;
+        for (BigInteger e : exponents) {
+            maxBits = Math.max(maxBits, e.bitLength());
+        }
+
+        // Dla każdej podstawy: nieparzyste potęgi b^1, b^3, ..., b^(2^w - 1) oraz rekodowanie wykładnika
+        // na okna przesuwne - digits[i][pos] to nieparzysta cyfra okna kończącego się na bicie pos (0 = brak)
+        long[][][] oddPowers = new long[n][][];
+        int[][] digits = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int bits = exponents[i].bitLength();
+            if (bits == 0) {
+                continue;
+            }
+            int window = MontgomeryContext.windowSize(bits);
+            oddPowers[i] = oddPowers(bases[i], window, context, ws);
+            digits[i] = recode(exponents[i], window);
+        }
+
+        long[] result = context.newElement();
+        boolean started = false; // przed pierwszym mnożeniem wynik to 1 - kwadraty są pomijane
+        for (int pos = maxBits - 1; pos >= 0; pos--) {
+            if (started) {
+                context.multiply(result, result, result, ws);
+            }
+            for (int i = 0; i < n; i++) {
+                int[] d = digits[i];
+                if (d != null && pos < d.length && d[pos] != 0) {
+                    long[] factor = oddPowers[i][d[pos] >>> 1];
+                    if (started) {
+                        context.multiply(result, factor, result, ws);
+                    } else {
+                        System.arraycopy(factor, 0, result, 0, result.length);
+                        started = true;
+                    }
+                }
+            }
+        }
+        return started ? context.fromMontgomery(result, ws) : BigInteger.ONE.mod(modulus);
+    }
+
+    /**
+     * Zwraca tablicę [b^1, b^3, b^5, ..., b^(2^w - 1)] w postaci Montgomery'ego.
+     */
+    private static long[][] oddPowers(BigInteger base, int window, MontgomeryContext context, MontgomeryContext.Workspace ws) {
+        long[][] powers = new long[1 << (window - 1)][];
+        powers[0] = context.newElement();
+        context.toMontgomery(base, powers[0], ws);
+        if (powers.length > 1) {
+            long[] square = context.newElement();
+            context.multiply(powers[0], powers[0], square, ws);
+            for (int j = 1; j < powers.length; j++) {
+                powers[j] = context.newElement();
+                context.multiply(powers[j - 1], square, powers[j], ws);
+            }
+        }
+        return powers;
+    }
+
+    /**
+     * Rekoduje wykładnik na okna przesuwne o szerokości co najwyżej w, zaczynające i kończące się bitem 1.
+     */
+    private static int[] recode(BigInteger exponent, int window) {
+        int bits = exponent.bitLength();
+        int[] digits = new int[bits];
+        int i = bits - 1;
+        while (i >= 0) {
+            if (!exponent.testBit(i)) {
+                i--;
+                continue;
+            }
+            int low = Math.max(i - window + 1, 0);
+            while (!exponent.testBit(low)) {
+                low++;
+            }
+            int digit = 0;
+            for (int b = i; b >= low; b--) {
+                digit = (digit << 1) | (exponent.testBit(b) ? 1 : 0);
+            }
+            digits[low] = digit;
+            i = low - 1;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,133 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Pula jednorazowych trójek (k, r = g^k mod p, k^(-1) mod (p-1)) dla podpisów ElGamal, wypełniana w tle.
+ * <p>
+ * Trójki nie zależą od wiadomości, więc można je przygotować zawczasu - wtedy podpisanie to już tylko
+ * haszowanie, jedno mnożenie i jedna redukcja modularna. Każda trójka jest wyjmowana z kolejki dokładnie raz
+ * ({@link #poll()}), więc żadne k nie zostanie użyte dwukrotnie (powtórzenie k ujawnia klucz prywatny).
+ * <p>
+ * Gdy liczba trójek spadnie poniżej progu, jeden wątek w tle uzupełnia pulę do maksymalnego rozmiaru.
+ * Pulę tworzy {@link ElGamal#enableNoncePool(java.util.List, int, int)}.
+ */
+public final class NoncePool implements AutoCloseable {
+
+    /**
+     * Jednorazowa trójka dla podpisu.
+     *
+     * @param k Losowe k, 1 <= k <= p-2, NWD(k, p-1) = 1.
+     * @param r r = g^k mod p.
+     * @param kInv k^(-1) mod (p-1).
+     */
+    record Nonce(BigInteger k, BigInteger r, BigInteger kInv) {
+    }
+
+    private final Supplier<Nonce> generator;
+    private final ArrayBlockingQueue<Nonce> nonces;
+    private final int maxSize;
+    private final int refillThreshold;
+    private final Consumer<NoncePool> onClose;
+    private final ExecutorService filler;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private volatile boolean closed;
+
+    NoncePool(Supplier<Nonce> generator, int maxSize, int refillThreshold, Consumer<NoncePool> onClose) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maksymalny rozmiar puli musi być dodatni.");
+        }
+        if (refillThreshold < 0 || refillThreshold >= maxSize) {
+            throw new IllegalArgumentException("Próg uzupełniania musi być z zakresu 0.." + (maxSize - 1) + ".");
+        }
+        this.generator = generator;
+        this.maxSize = maxSize;
+        this.refillThreshold = refillThreshold;
+        this.onClose = onClose;
+        this.nonces = new ArrayBlockingQueue<>(maxSize);
+        this.filler = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "elgamal-nonce-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Wyjmuje trójkę z puli. Zwrócona trójka nie zostanie już nikomu wydana.
+     *
+     * @return Trójka lub null, jeśli pula jest pusta albo zamknięta.
+     */
+    Nonce poll() {
+        if (closed) {
+            return null;
+        }
+        Nonce nonce = nonces.poll();
+        if (nonces.size() < refillThreshold) {
+            refill();
+        }
+        return nonce;
+    }
+
+    /**
+     * Zleca uzupełnienie puli w tle, jeśli nie trwa już uzupełnianie.
+     */
+    void refill() {
+        if (closed || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            filler.execute(() -> {
+                try {
+                    while (!closed && nonces.size() < maxSize) {
+                        if (!nonces.offer(generator.get())) {
+                            break;
+                        }
+                    }
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+        }
+    }
+
+    /** Zwraca liczbę trójek gotowych do użycia. */
+    public int available() {
+        return nonces.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getRefillThreshold() {
+        return refillThreshold;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Zatrzymuje wątek uzupełniający, usuwa niewykorzystane trójki i odłącza pulę od {@link ElGamal}.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        filler.shutdownNow();
+        nonces.clear();
+        onClose.accept(this);
+    }
+}
@@ -0,0 +1,267 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+
+/**
+ * Arytmetyka krzywej NIST P-256 (secp256r1, FIPS 186-4): y^2 = x^3 - 3x + b nad ciałem F_p, rząd grupy n
+ * (kofaktor 1).
+ * <p>
+ * Punkty w trakcie obliczeń trzymane są we współrzędnych Jacobiego [X, Y, Z] odpowiadających punktowi
+ * (X/Z^2, Y/Z^3), więc dodawanie i podwajanie nie wymagają odwracania modulo p - jedno odwrócenie przypada
+ * dopiero na wynik. Punkt w nieskończoności to Z = 0, a w postaci afinicznej [x, y] - null.
+ * <p>
+ * Wielokrotności G liczone są z tablicy j * 16^i * G (64 okna po 4 bity, punkty afiniczne), więc kG kosztuje
+ * najwyżej 64 dodawania mieszane i żadnego podwajania. Tablica (960 punktów, ok. 150 KB) budowana jest przy
+ * pierwszym użyciu; taką samą tablicę budują dla siebie często używane klucze publiczne ({@link EcPublicKey}). Jak cała biblioteka, arytmetyka na {@link BigInteger} nie działa w stałym czasie.
+ */
+final class P256 {
+    static final BigInteger P = new BigInteger("ffffffff00000001000000000000000000000000ffffffffffffffffffffffff", 16);
+    static final BigInteger N = new BigInteger("ffffffff00000000ffffffffffffffffbce6faada7179e84f3b9cac2fc632551", 16);
+    static final BigInteger B = new BigInteger("5ac635d8aa3a93e7b3ebbd55769886bc651d06b0cc53b0f63bce3c3e27d2604b", 16);
+    static final BigInteger GX = new BigInteger("6b17d1f2e12c4247f8bce6e563a440f277037d812deb33a0f4a13945d898c296", 16);
+    static final BigInteger GY = new BigInteger("4fe342e2fe1a7f9b8ee7eb4a7c0f9e162bce33576b315ececbb6406837bf51f5", 16);
+
+    /** Długość współrzędnej i skalara w bajtach. */
+    static final int FIELD_BYTES = 32;
+    /** Długość punktu w postaci skompresowanej SEC 1 (prefiks 0x02/0x03 i x). */
+    static final int COMPRESSED_LENGTH = FIELD_BYTES + 1;
+
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+    private static final BigInteger SQRT_EXPONENT = P.add(BigInteger.ONE).shiftRight(2); // p = 3 (mod 4)
+    private static final int WINDOW = 4;
+    private static final int WINDOWS = FIELD_BYTES * 8 / WINDOW;
+
+    private P256() {
+    }
+
+    /** Tablica dla G - klasa ładowana dopiero przy pierwszym mnożeniu przez G. */
+    private static final class GeneratorTable {
+        static final BigInteger[][][] TABLE = buildTable(new BigInteger[]{GX, GY});
+    }
+
+    /**
+     * Tablica j * 16^i * Q punktu afinicznego Q dla {@link #multiply(BigInteger[][][], BigInteger)}.
+     */
+    static BigInteger[][][] buildTable(BigInteger[] point) {
+        BigInteger[][][] table = new BigInteger[WINDOWS][1 << WINDOW][];
+        BigInteger[] base = {point[0], point[1], BigInteger.ONE};
+        for (int i = 0; i < WINDOWS; i++) {
+            BigInteger[] multiple = base;
+            for (int j = 1; j < (1 << WINDOW); j++) {
+                table[i][j] = toAffine(multiple);
+                multiple = add(multiple, base);
+            }
+            base = multiple; // 16 * base
+        }
+        return table;
+    }
+
+    /**
+     * kG dla 0 &lt;= k &lt; 2^256 we współrzędnych Jacobiego.
+     */
+    static BigInteger[] multiplyGenerator(BigInteger k) {
+        return multiply(GeneratorTable.TABLE, k);
+    }
+
+    /**
+     * kQ z tablicy {@link #buildTable} punktu Q we współrzędnych Jacobiego.
+     */
+    static BigInteger[] multiply(BigInteger[][][] table, BigInteger k) {
+        byte[] scalar = toBytes(k);
+        BigInteger[] result = infinity();
+        for (int i = 0; i < WINDOWS; i++) {
+            int digit = (scalar[FIELD_BYTES - 1 - i / 2] >> ((i & 1) * WINDOW)) & 0x0F;
+            if (digit != 0) {
+                result = addAffine(result, table[i][digit]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * kQ dla punktu afinicznego Q (okno 4-bitowe od najstarszych bitów) we współrzędnych Jacobiego.
+     */
+    static BigInteger[] multiply(BigInteger[] point, BigInteger k) {
+        BigInteger[][] multiples = new BigInteger[1 << WINDOW][];
+        multiples[1] = new BigInteger[]{point[0], point[1], BigInteger.ONE};
+        for (int j = 2; j < multiples.length; j++) {
+            multiples[j] = addAffine(multiples[j - 1], point);
+        }
+        byte[] scalar = toBytes(k);
+        BigInteger[] result = infinity();
+        for (int i = WINDOWS - 1; i >= 0; i--) {
+            for (int d = 0; d < WINDOW; d++) {
+                result = twice(result);
+            }
+            int digit = (scalar[FIELD_BYTES - 1 - i / 2] >> ((i & 1) * WINDOW)) & 0x0F;
+            if (digit != 0) {
+                result = add(result, multiples[digit]);
+            }
+        }
+        return result;
+    }
+
+    // --- Działania na punktach ---
+
+    static BigInteger[] infinity() {
+        return new BigInteger[]{BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO};
+    }
+
+    /**
+     * Podwajanie dla a = -3 (dbl-2001-b): 3M + 5S.
+     */
+    static BigInteger[] twice(BigInteger[] point) {
+        BigInteger x = point[0], y = point[1], z = point[2];
+        if (z.signum() == 0 || y.signum() == 0) {
+            return infinity();
+        }
+        BigInteger delta = square(z);
+        BigInteger gamma = square(y);
+        BigInteger beta = mul(x, gamma);
+        BigInteger alpha = mul(THREE, mul(sub(x, delta), add(x, delta)));
+        BigInteger beta4 = beta.shiftLeft(2).mod(P);
+        BigInteger x3 = sub(square(alpha), beta4.shiftLeft(1).mod(P));
+        BigInteger z3 = sub(sub(square(add(y, z)), gamma), delta);
+        BigInteger y3 = sub(mul(alpha, sub(beta4, x3)), square(gamma).shiftLeft(3).mod(P));
+        return new BigInteger[]{x3, y3, z3};
+    }
+
+    /**
+     * Dodawanie mieszane punktu Jacobiego i afinicznego (madd-2007-bl): 7M + 4S.
+     */
+    static BigInteger[] addAffine(BigInteger[] a, BigInteger[] b) {
+        if (a[2].signum() == 0) {
+            return new BigInteger[]{b[0], b[1], BigInteger.ONE};
+        }
+        BigInteger z1z1 = square(a[2]);
+        BigInteger u2 = mul(b[0], z1z1);
+        BigInteger s2 = mul(b[1], mul(a[2], z1z1));
+        BigInteger h = sub(u2, a[0]);
+        BigInteger r = sub(s2, a[1]).shiftLeft(1).mod(P);
+        if (h.signum() == 0) {
+            return r.signum() == 0 ? twice(a) : infinity();
+        }
+        BigInteger hh = square(h);
+        BigInteger i = hh.shiftLeft(2).mod(P);
+        BigInteger j = mul(h, i);
+        BigInteger v = mul(a[0], i);
+        BigInteger x3 = sub(sub(square(r), j), v.shiftLeft(1).mod(P));
+        BigInteger y3 = sub(mul(r, sub(v, x3)), mul(a[1], j).shiftLeft(1).mod(P));
+        BigInteger z3 = sub(sub(square(add(a[2], h)), z1z1), hh);
+        return new BigInteger[]{x3, y3, z3};
+    }
+
+    /**
+     * Dodawanie dwóch punktów Jacobiego (add-2007-bl): 11M + 5S.
+     */
+    static BigInteger[] add(BigInteger[] a, BigInteger[] b) {
+        if (a[2].signum() == 0) {
+            return b;
+        }
+        if (b[2].signum() == 0) {
+            return a;
+        }
+        BigInteger z1z1 = square(a[2]);
+        BigInteger z2z2 = square(b[2]);
+        BigInteger u1 = mul(a[0], z2z2);
+        BigInteger u2 = mul(b[0], z1z1);
+        BigInteger s1 = mul(a[1], mul(b[2], z2z2));
+        BigInteger s2 = mul(b[1], mul(a[2], z1z1));
+        BigInteger h = sub(u2, u1);
+        BigInteger r = sub(s2, s1).shiftLeft(1).mod(P);
+        if (h.signum() == 0) {
+            return r.signum() == 0 ? twice(a) : infinity();
+        }
+        BigInteger i = square(h.shiftLeft(1).mod(P));
+        BigInteger j = mul(h, i);
+        BigInteger v = mul(u1, i);
+        BigInteger x3 = sub(sub(square(r), j), v.shiftLeft(1).mod(P));
+        BigInteger y3 = sub(mul(r, sub(v, x3)), mul(s1, j).shiftLeft(1).mod(P));
+        BigInteger z3 = mul(sub(sub(square(add(a[2], b[2])), z1z1), z2z2), h);
+        return new BigInteger[]{x3, y3, z3};
+    }
+
+    /**
+     * Punkt afiniczny [x, y] albo null dla punktu w nieskończoności (jedno odwrócenie modulo p).
+     */
+    static BigInteger[] toAffine(BigInteger[] point) {
+        if (point[2].signum() == 0) {
+            return null;
+        }
+        BigInteger zInv = point[2].modInverse(P);
+        BigInteger zInv2 = square(zInv);
+        return new BigInteger[]{mul(point[0], zInv2), mul(point[1], mul(zInv2, zInv))};
+    }
+
+    static boolean isOnCurve(BigInteger x, BigInteger y) {
+        return x.signum() >= 0 && x.compareTo(P) < 0 && y.signum() >= 0 && y.compareTo(P) < 0
+                && square(y).equals(rightHandSide(x));
+    }
+
+    // --- Kodowanie SEC 1 ---
+
+    /** Punkt afiniczny w postaci skompresowanej: 0x02/0x03 (parzystość y) i x. */
+    static byte[] compress(BigInteger[] point) {
+        byte[] encoded = new byte[COMPRESSED_LENGTH];
+        encoded[0] = (byte) (point[1].testBit(0) ? 0x03 : 0x02);
+        System.arraycopy(toBytes(point[0]), 0, encoded, 1, FIELD_BYTES);
+        return encoded;
+    }
+
+    /**
+     * Odtwarza punkt z postaci skompresowanej (y = sqrt(x^3 - 3x + b), bo p = 3 mod 4).
+     *
+     * @throws IllegalArgumentException Jeśli dane nie są punktem krzywej.
+     */
+    static BigInteger[] decompress(byte[] encoded) {
+        if (encoded == null || encoded.length != COMPRESSED_LENGTH || (encoded[0] != 0x02 && encoded[0] != 0x03)) {
+            throw new IllegalArgumentException("Punkt P-256 musi mieć postać skompresowaną (" + COMPRESSED_LENGTH + " bajty).");
+        }
+        BigInteger x = new BigInteger(1, encoded, 1, FIELD_BYTES);
+        if (x.compareTo(P) >= 0) {
+            throw new IllegalArgumentException("Współrzędna x spoza ciała.");
+        }
+        BigInteger rhs = rightHandSide(x);
+        BigInteger y = rhs.modPow(SQRT_EXPONENT, P);
+        if (!square(y).equals(rhs)) {
+            throw new IllegalArgumentException("Punkt nie leży na krzywej P-256.");
+        }
+        if (y.testBit(0) != (encoded[0] == 0x03)) {
+            y = P.subtract(y).mod(P);
+        }
+        return new BigInteger[]{x, y};
+    }
+
+    /** Liczba nieujemna &lt; 2^256 jako 32 bajty big-endian. */
+    static byte[] toBytes(BigInteger value) {
+        byte[] magnitude = value.toByteArray();
+        byte[] bytes = new byte[FIELD_BYTES];
+        int length = Math.min(magnitude.length, FIELD_BYTES);
+        System.arraycopy(magnitude, magnitude.length - length, bytes, FIELD_BYTES - length, length);
+        return bytes;
+    }
+
+    // --- Ciało F_p ---
+
+    private static BigInteger rightHandSide(BigInteger x) {
+        return sub(mul(square(x), x), mul(THREE, x)).add(B).mod(P);
+    }
+
+    private static BigInteger mul(BigInteger a, BigInteger b) {
+        return a.multiply(b).mod(P);
+    }
+
+    private static BigInteger square(BigInteger a) {
+        return a.multiply(a).mod(P);
+    }
+
+    private static BigInteger add(BigInteger a, BigInteger b) {
+        BigInteger sum = a.add(b);
+        return sum.compareTo(P) >= 0 ? sum.subtract(P) : sum;
+    }
+
+    private static BigInteger sub(BigInteger a, BigInteger b) {
+        BigInteger difference = a.subtract(b);
+        return difference.signum() < 0 ? difference.add(P) : difference;
+    }
+}
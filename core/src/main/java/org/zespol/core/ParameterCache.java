@@ -0,0 +1,124 @@
+package org.zespol.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Trwała pamięć podręczna parametrów [p, g] na dysku, indeksowana długością bitową p.
+ * <p>
+ * Każda grupa zapisywana jest w osobnym pliku {@code <bity>.params} w podkatalogu wersji formatu
+ * (np. {@code ~/.elgamal/parameters/v1/2048.params}), w tym samym formacie Properties z liczbami hex,
+ * co pliki kluczy. Zmiana formatu oznacza nowy podkatalog wersji, więc stare pliki są po prostu ignorowane.
+ * Zapis jest atomowy (plik tymczasowy i przeniesienie), więc równoległe procesy nie odczytają połowy pliku.
+ */
+public final class ParameterCache {
+    /** Wersja formatu plików pamięci podręcznej. */
+    public static final int FORMAT_VERSION = 1;
+    /** Właściwość systemowa pozwalająca zmienić domyślny katalog. */
+    public static final String DIRECTORY_PROPERTY = "elgamal.parameters.dir";
+
+    private final Path directory;
+
+    /**
+     * @param root Katalog główny pamięci podręcznej (podkatalog wersji tworzony jest przy pierwszym zapisie).
+     */
+    public ParameterCache(Path root) {
+        this.directory = root.resolve("v" + FORMAT_VERSION);
+    }
+
+    /**
+     * Zwraca pamięć podręczną w katalogu z właściwości {@value #DIRECTORY_PROPERTY}
+     * lub w {@code ~/.elgamal/parameters}.
+     */
+    public static ParameterCache defaultCache() {
+        String configured = System.getProperty(DIRECTORY_PROPERTY);
+        Path root = (configured != null)
+                ? Path.of(configured)
+                : Path.of(System.getProperty("user.home"), ".elgamal", "parameters");
+        return new ParameterCache(root);
+    }
+
+    /**
+     * Wczytuje zapisane parametry dla podanej długości bitowej.
+     *
+     * @param bitLength Długość bitowa p.
+     * @return Lista [p, g] lub null, jeśli brak wpisu albo plik jest uszkodzony.
+     */
+    public List<BigInteger> load(int bitLength) {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(fileFor(bitLength))) {
+            props.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            if (!String.valueOf(FORMAT_VERSION).equals(props.getProperty("version"))) {
+                return null;
+            }
+            BigInteger p = new BigInteger(props.getProperty("p"), 16);
+            BigInteger g = new BigInteger(props.getProperty("g"), 16);
+            // Podstawowa walidacja - pełny test pierwszości zniweczyłby zysk z pamięci podręcznej
+            if (p.bitLength() != bitLength || !p.testBit(0) || g.compareTo(BigInteger.ONE) <= 0 || g.compareTo(p) >= 0) {
+                return null;
+            }
+            List<BigInteger> pg = new ArrayList<>();
+            pg.add(p);
+            pg.add(g);
+            return pg;
+        } catch (NumberFormatException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Zapisuje parametry, zastępując ewentualny poprzedni wpis dla tej samej długości bitowej.
+     *
+     * @param pg - lista [p, g]
+     * @throws IOException Jeśli zapis się nie powiedzie.
+     */
+    public void store(List<BigInteger> pg) throws IOException {
+        BigInteger p = pg.get(0);
+        BigInteger g = pg.get(1);
+        Properties props = new Properties();
+        props.setProperty("version", String.valueOf(FORMAT_VERSION));
+        props.setProperty("p", p.toString(16));
+        props.setProperty("g", g.toString(16));
+
+        Files.createDirectories(directory);
+        Path target = fileFor(p.bitLength());
+        Path temporary = Files.createTempFile(directory, p.bitLength() + "-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                props.store(out, "ElGamal Parameters");
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Katalog z plikami bieżącej wersji formatu. */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path fileFor(int bitLength) {
+        return directory.resolve(bitLength + ".params");
+    }
+}
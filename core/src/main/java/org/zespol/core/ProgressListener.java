@@ -0,0 +1,19 @@
+package org.zespol.core;
+
+/**
+ * Odbiorca informacji o postępie długotrwałych operacji (generowanie parametrów, haszowanie dużych plików).
+ * Może być wywoływany z wątków roboczych, więc implementacja musi być bezpieczna wątkowo.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /** Odbiorca, który ignoruje wszystkie powiadomienia. */
+    ProgressListener NONE = (done, total) -> { };
+
+    /**
+     * Informuje o postępie.
+     *
+     * @param done Liczba wykonanych jednostek pracy (np. sprawdzonych kandydatów, przetworzonych bajtów).
+     * @param total Całkowita liczba jednostek lub -1, jeśli nie jest znana z góry.
+     */
+    void onProgress(long done, long total);
+}
@@ -0,0 +1,384 @@
+package org.zespol.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Magazyn kluczy publicznych w plikach mapowanych w pamięć, indeksowany odciskiem {@link KeyFingerprint}.
+ * <p>
+ * Katalog magazynu zawiera dwa pliki:
+ * <ul>
+ *   <li>{@code keys.dat} - dopisywane jeden za drugim rekordy binarne {@link KeyCodec} [p, g, y] lub [p, g, y, q],</li>
+ *   <li>{@code keys.idx} - tablica mieszająca z adresowaniem otwartym ({@link HashIndex}), w której każde
+ *       gniazdo to 32-bajtowy odcisk i 8-bajtowe położenie rekordu w {@code keys.dat}.</li>
+ * </ul>
+ * Otwarcie magazynu tylko mapuje pliki, więc trwa tyle samo niezależnie od liczby kluczy, a na stercie nie
+ * są trzymane żadne klucze - wyszukiwanie czyta gniazda indeksu i jeden rekord wprost ze zmapowanych stron.
+ * Plik danych mapowany jest w regionach po 1 GiB (rekord nigdy nie przekracza granicy regionu), a ostatni region
+ * rośnie geometrycznie, więc dopisywanie nie wymaga ponownego mapowania przy każdym kluczu.
+ * <p>
+ * Źródłem prawdy jest {@code keys.dat}: przy otwarciu rekordy zapisane za położeniem, do którego indeks jest
+ * kompletny ({@link HashIndex#getIndexedTo()}), są dopisywane do indeksu, a brakujący {@code keys.idx} jest
+ * odtwarzany w całości z pliku danych.
+ * <p>
+ * Wyszukiwania mogą odbywać się równolegle; zapisy są wzajemnie wykluczające się. Zmiany trafiają na dysk
+ * przy {@link #flush()} i {@link #close()}.
+ */
+public final class PublicKeyStore implements Closeable {
+    /** Wersja formatu plików magazynu. */
+    public static final int FORMAT_VERSION = 1;
+
+    static final String DATA_FILE = "keys.dat";
+    static final String INDEX_FILE = "keys.idx";
+
+    private static final int DATA_MAGIC = 0x45474B44;   // "EGKD"
+    private static final int INDEX_MAGIC = 0x45474B49;  // "EGKI"
+    private static final int DATA_HEADER_SIZE = 16;
+    private static final long REGION_SIZE = 1L << 30;
+    private static final int INITIAL_REGION_MAPPING = 1 << 16;
+
+    private final Path directory;
+    private final FileChannel dataChannel;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private HashIndex index;
+    private long dataEnd;      // koniec danych objętych indeksem - przechowywany w nagłówku indeksu
+    private boolean closed;
+
+    private PublicKeyStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path indexFile = directory.resolve(INDEX_FILE);
+
+        dataChannel = FileChannel.open(directory.resolve(DATA_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (dataChannel.size() == 0) {
+                // Nowy magazyn - ewentualny indeks bez pliku danych wskazywałby na nieistniejące rekordy
+                Files.deleteIfExists(indexFile);
+                ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE).putInt(DATA_MAGIC).putInt(FORMAT_VERSION);
+                dataChannel.write(header.clear(), 0);
+            }
+            index = HashIndex.open(indexFile, INDEX_MAGIC, DATA_HEADER_SIZE);
+            dataEnd = index.getIndexedTo();
+
+            ByteBuffer header = ByteBuffer.allocate(8);
+            dataChannel.read(header, 0);
+            if (header.getInt(0) != DATA_MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Plik " + DATA_FILE + " nie jest magazynem kluczy w wersji " + FORMAT_VERSION + ".");
+            }
+            long size = dataChannel.size();
+            if (size < dataEnd) {
+                throw new IOException("Plik " + DATA_FILE + " jest krótszy niż wskazuje indeks.");
+            }
+            for (long start = 0; start < size; start += REGION_SIZE) {
+                regions.add(dataChannel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(REGION_SIZE, size - start)));
+            }
+            recover(size);
+        } catch (IOException | RuntimeException e) {
+            closeChannels();
+            throw e;
+        }
+    }
+
+    /**
+     * Otwiera magazyn w podanym katalogu, tworząc go, jeśli nie istnieje.
+     *
+     * @param directory Katalog magazynu.
+     * @throws IOException Jeśli pliki są uszkodzone lub niedostępne.
+     */
+    public static PublicKeyStore open(Path directory) throws IOException {
+        return new PublicKeyStore(directory);
+    }
+
+    /**
+     * Dodaje klucz publiczny. Klucz już obecny w magazynie nie jest zapisywany ponownie.
+     *
+     * @param publicKey - lista [p, g, y]
+     * @return Odcisk klucza.
+     */
+    public byte[] put(List<BigInteger> publicKey) throws IOException, NoSuchAlgorithmException {
+        byte[] fingerprint = KeyFingerprint.of(publicKey);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ensureIndexCapacity(1);
+            try {
+                insert(fingerprint, publicKey);
+            } finally {
+                writeHeader();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Import hurtowy: odciski liczone są przed zajęciem blokady, indeks powiększany najwyżej raz,
+     * a nagłówek zapisywany raz na całą partię.
+     *
+     * @param publicKeys Klucze [p, g, y].
+     * @return Liczba faktycznie dodanych (wcześniej nieobecnych) kluczy.
+     */
+    public int putAll(List<List<BigInteger>> publicKeys) throws IOException, NoSuchAlgorithmException {
+        byte[][] fingerprints = new byte[publicKeys.size()][];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = KeyFingerprint.of(publicKeys.get(i));
+        }
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ensureIndexCapacity(fingerprints.length);
+            int before = index.size();
+            try {
+                for (int i = 0; i < fingerprints.length; i++) {
+                    insert(fingerprints[i], publicKeys.get(i));
+                }
+            } finally {
+                writeHeader();
+            }
+            return index.size() - before;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Importuje pliki kluczy publicznych w dowolnym formacie obsługiwanym przez {@link KeyCodec#readPublicKey}.
+     *
+     * @return Liczba faktycznie dodanych kluczy.
+     */
+    public int importFiles(List<Path> files) throws IOException, NoSuchAlgorithmException {
+        List<List<BigInteger>> keys = new ArrayList<>(files.size());
+        for (Path file : files) {
+            keys.add(KeyCodec.readPublicKey(file));
+        }
+        return putAll(keys);
+    }
+
+    /**
+     * Wyszukuje klucz po odcisku.
+     *
+     * @param fingerprint 32-bajtowy odcisk {@link KeyFingerprint}.
+     * @return Lista [p, g, y] lub null, jeśli klucza nie ma w magazynie.
+     */
+    public List<BigInteger> get(byte[] fingerprint) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            long offset = find(fingerprint);
+            if (offset == 0) {
+                return null;
+            }
+            ByteBuffer region = regions.get((int) (offset / REGION_SIZE));
+            return KeyCodec.decodePublicKey(region.duplicate().position((int) (offset % REGION_SIZE)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Sprawdza, czy klucz o podanym odcisku jest w magazynie. */
+    public boolean contains(byte[] fingerprint) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return find(fingerprint) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Liczba kluczy w magazynie. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Katalog magazynu. */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Zapisuje zmienione strony danych i indeksu na dysk. */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for (MappedByteBuffer region : regions) {
+                region.force();
+            }
+            index.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            flush();
+            closed = true;
+            regions.clear();
+            closeChannels();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Indeks ---
+
+    /** Zwraca położenie rekordu lub 0 (położenie 0 jest zajęte przez nagłówek pliku danych). */
+    private long find(byte[] fingerprint) {
+        if (fingerprint.length != KeyFingerprint.LENGTH) {
+            throw new IllegalArgumentException("Odcisk musi mieć " + KeyFingerprint.LENGTH + " bajty.");
+        }
+        return index.get(fingerprint);
+    }
+
+    private void insert(byte[] fingerprint, List<BigInteger> publicKey) throws IOException {
+        if (find(fingerprint) != 0) {
+            return;
+        }
+        index.put(fingerprint, append(publicKey));
+    }
+
+    private void ensureIndexCapacity(int additional) throws IOException {
+        if (!index.needsGrowth(additional)) {
+            return;
+        }
+        // Przebudowany indeks trafia na dysk od razu - dane, na które wskazuje, muszą tam być wcześniej
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+        index.reserve(additional);
+    }
+
+    private void writeHeader() {
+        index.setIndexedTo(dataEnd);
+    }
+
+    /**
+     * Dopisuje do indeksu rekordy z {@code keys.dat} zapisane za {@link #dataEnd} (np. przed awarią, której
+     * nagłówek indeksu już nie zarejestrował, albo wszystkie - gdy indeks utworzono od nowa). Plik danych za
+     * ostatnim rekordem jest wypełniony zerami (mapowania rozszerzają go z wyprzedzeniem), a rekord, który nie
+     * mieścił się w regionie, zaczyna następny - tam też trzeba go szukać.
+     */
+    private void recover(long size) throws IOException {
+        long offset = dataEnd;
+        boolean recovered = false;
+        while (offset < size) {
+            ByteBuffer record = regions.get((int) (offset / REGION_SIZE)).duplicate().position((int) (offset % REGION_SIZE));
+            KeyCodec.Kind kind = KeyCodec.peekKind(record);
+            if (kind != KeyCodec.Kind.PUBLIC_KEY && kind != KeyCodec.Kind.SUBGROUP_PUBLIC_KEY) {
+                long nextRegion = (offset / REGION_SIZE + 1) * REGION_SIZE;
+                if (offset % REGION_SIZE == 0 || nextRegion >= size) {
+                    break;
+                }
+                offset = nextRegion;
+                continue;
+            }
+            List<BigInteger> publicKey;
+            try {
+                publicKey = KeyCodec.decode(kind, record);
+            } catch (IllegalArgumentException e) {
+                break; // rekord ucięty przez awarię - kolejny zapis go nadpisze
+            }
+            byte[] fingerprint;
+            try {
+                fingerprint = KeyFingerprint.of(publicKey);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorytm SHA-256 nie jest dostępny.", e);
+            }
+            if (index.get(fingerprint) == 0) {
+                index.put(fingerprint, offset);
+            }
+            offset += record.position() - offset % REGION_SIZE;
+            dataEnd = offset;
+            recovered = true;
+        }
+        if (recovered) {
+            writeHeader();
+            index.force();
+        }
+    }
+
+    // --- Dane ---
+
+    /** Dopisuje rekord klucza i zwraca jego położenie w pliku danych. */
+    private long append(List<BigInteger> publicKey) throws IOException {
+        KeyCodec.Kind kind = KeyCodec.publicKeyKind(publicKey);
+        int length = KeyCodec.encodedLength(kind, publicKey);
+        long offset = dataEnd;
+        if (offset % REGION_SIZE + length > REGION_SIZE) {
+            // Rekord nie mieści się w bieżącym regionie - zaczyna następny
+            offset = (offset / REGION_SIZE + 1) * REGION_SIZE;
+        }
+        int region = (int) (offset / REGION_SIZE);
+        int within = (int) (offset % REGION_SIZE);
+        MappedByteBuffer mapping = mapRegion(region, within + length);
+        KeyCodec.encode(kind, publicKey, mapping.duplicate().position(within));
+        dataEnd = offset + length;
+        return offset;
+    }
+
+    /** Zwraca mapowanie regionu o rozmiarze co najmniej {@code required}, powiększając je w razie potrzeby. */
+    private MappedByteBuffer mapRegion(int region, int required) throws IOException {
+        MappedByteBuffer mapping = region < regions.size() ? regions.get(region) : null;
+        if (mapping != null && mapping.capacity() >= required) {
+            return mapping;
+        }
+        long size = Math.max(INITIAL_REGION_MAPPING, mapping != null ? (long) mapping.capacity() * 2 : 0);
+        while (size < required) {
+            size <<= 1;
+        }
+        size = Math.min(size, REGION_SIZE);
+        if (mapping != null) {
+            mapping.force();
+        }
+        // Mapowanie READ_WRITE poza końcem pliku rozszerza plik
+        mapping = dataChannel.map(FileChannel.MapMode.READ_WRITE, region * REGION_SIZE, size);
+        while (regions.size() <= region) {
+            regions.add(null);
+        }
+        regions.set(region, mapping);
+        return mapping;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Magazyn kluczy został zamknięty.");
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        try {
+            if (index != null) {
+                index.close();
+            }
+        } finally {
+            dataChannel.close();
+        }
+    }
+}
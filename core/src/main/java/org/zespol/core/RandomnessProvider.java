@@ -0,0 +1,54 @@
+package org.zespol.core;
+
+import java.nio.ByteBuffer;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Źródło losowości dla kluczy, wartości k i wykładników weryfikacji wsadowej ({@link ElGamal#setRandomnessProvider}).
+ * <p>
+ * {@link #shared(SecureRandom)} to jeden generator dla wszystkich wątków - dotychczasowe zachowanie, przy wielu
+ * wątkach podpisujących rywalizujących o jego blokadę. {@link #perThread()} daje każdemu wątkowi własny
+ * generator DRBG (NIST SP 800-90A, Hash_DRBG z SHA-256), zasilany entropią systemu raz, przy pierwszym użyciu
+ * w wątku, więc podpisywanie skaluje się z liczbą rdzeni.
+ */
+@FunctionalInterface
+public interface RandomnessProvider {
+
+    /**
+     * Generator dla bieżącego wątku. Wywołujący nie przekazuje go innym wątkom na dłużej niż jedną operację.
+     */
+    SecureRandom current();
+
+    /**
+     * Jeden wspólny generator dla wszystkich wątków.
+     */
+    static RandomnessProvider shared(SecureRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException("Źródło losowości nie może być null.");
+        }
+        return () -> random;
+    }
+
+    /**
+     * Osobny generator DRBG dla każdego wątku. Przeznaczony dla wątków z puli (robotników, wątków podpisujących) -
+     * w krótkotrwałych wątkach wirtualnych każde zadanie tworzyłoby i zasilało nowy generator.
+     */
+    static RandomnessProvider perThread() {
+        ThreadLocal<SecureRandom> generators = ThreadLocal.withInitial(RandomnessProvider::newDrbg);
+        return generators::get;
+    }
+
+    private static SecureRandom newDrbg() {
+        // Identyfikator wątku jako ciąg personalizacji rozróżnia generatory nawet przy tym samym ziarnie
+        byte[] personalization = ByteBuffer.allocate(2 * Long.BYTES)
+                .putLong(Thread.currentThread().threadId()).putLong(System.nanoTime()).array();
+        try {
+            return SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, personalization));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak generatora DRBG.", e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Równoległy generator bezpiecznych liczb pierwszych p = 2q + 1 (q też pierwsze) wraz ze sprawdzonym generatorem g.
+ * <p>
+ * Każdy wątek zaczyna od losowego nieparzystego q i przesuwa się o 2, aktualizując przyrostowo reszty q i 2q+1
+ * modulo małe liczby pierwsze (wspólne sito dla wszystkich wątków). Testy pierwszości uruchamiane są tylko dla
+ * kandydatów, którzy przeszli sito: najpierw tani test Fermata przy podstawie 2 dla q i p, a na końcu pełny
+ * test Millera-Rabina. Pierwsza znaleziona liczba kończy wyszukiwanie, a pozostałe wątki są przerywane.
+ */
+public final class SafePrimeGenerator {
+    private static final int SIEVE_LIMIT = 1 << 16;          // Zakres małych liczb pierwszych w sicie
+    static final int[] SMALL_PRIMES = smallPrimes(SIEVE_LIMIT); // Wspólne z SubgroupParameterGenerator
+    private static final int STEPS_PER_START = 1 << 16;      // Po tylu krokach wątek losuje nowy punkt startowy
+    private static final int PROGRESS_INTERVAL = 256;        // Co ilu kandydatów raportowany jest postęp
+
+    private final int threads;
+    private final int certainty;
+    private final SecureRandom random;
+
+    /**
+     * Tworzy generator używający wszystkich dostępnych rdzeni.
+     *
+     * @param certainty Pewność testu pierwszości Millera-Rabina (jak w {@link BigInteger#isProbablePrime(int)}).
+     * @param random Źródło losowości.
+     */
+    public SafePrimeGenerator(int certainty, SecureRandom random) {
+        this(Runtime.getRuntime().availableProcessors(), certainty, random);
+    }
+
+    /**
+     * @param threads Liczba wątków wyszukiwania.
+     * @param certainty Pewność testu pierwszości Millera-Rabina (jak w {@link BigInteger#isProbablePrime(int)}).
+     * @param random Źródło losowości.
+     */
+    public SafePrimeGenerator(int threads, int certainty, SecureRandom random) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Liczba wątków musi być dodatnia.");
+        }
+        this.threads = threads;
+        this.certainty = certainty;
+        this.random = random;
+    }
+
+    /**
+     * Generuje parametry [p, g], gdzie p jest bezpieczną liczbą pierwszą o dokładnie podanej długości,
+     * a g generatorem całej grupy Z_p^*.
+     *
+     * @param bitLength Długość bitowa p (co najmniej 3).
+     * @param listener Odbiorca postępu (liczba sprawdzonych kandydatów; całkowita liczba nieznana).
+     * @return Lista [p, g].
+     * @throws CancellationException Jeśli wątek wywołujący został przerwany.
+     */
+    public List<BigInteger> generate(int bitLength, ProgressListener listener) {
+        BigInteger p = generateSafePrime(bitLength, listener);
+        List<BigInteger> pg = new ArrayList<>();
+        pg.add(p);
+        pg.add(findGenerator(p));
+        return pg;
+    }
+
+    /**
+     * Znajduje bezpieczną liczbę pierwszą o dokładnie podanej długości bitowej.
+     *
+     * @param bitLength Długość bitowa p (co najmniej 3).
+     * @param listener Odbiorca postępu (liczba sprawdzonych kandydatów; całkowita liczba nieznana).
+     * @return Bezpieczna liczba pierwsza p.
+     * @throws CancellationException Jeśli wątek wywołujący został przerwany.
+     */
+    public BigInteger generateSafePrime(int bitLength, ProgressListener listener) {
+        if (bitLength < 3) {
+            throw new IllegalArgumentException("Długość bitowa musi wynosić co najmniej 3.");
+        }
+        ProgressListener progress = (listener != null) ? listener : ProgressListener.NONE;
+        AtomicLong tested = new AtomicLong();
+
+        List<Callable<BigInteger>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> search(bitLength, tested, progress));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "elgamal-safe-prime");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // invokeAny zwraca pierwszy wynik i przerywa pozostałe wątki
+            return executor.invokeAny(workers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Generowanie liczby pierwszej zostało przerwane.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancellation) {
+                throw cancellation;
+            }
+            throw new IllegalStateException("Błąd podczas generowania liczby pierwszej.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Pętla jednego wątku: przesuwa kandydata q o 2 z przyrostową aktualizacją reszt sita.
+     */
+    private BigInteger search(int bitLength, AtomicLong tested, ProgressListener progress) {
+        int qBits = bitLength - 1;
+        // Sito używa tylko liczb pierwszych mniejszych od najmniejszego możliwego q, żeby nie odrzucić q = małej liczby pierwszej
+        int sieveSize = sieveSize(qBits);
+        int[] qResidues = new int[sieveSize];
+        int[] pResidues = new int[sieveSize];
+
+        while (true) {
+            BigInteger q = randomStart(qBits);
+            for (int i = 0; i < sieveSize; i++) {
+                int prime = SMALL_PRIMES[i];
+                qResidues[i] = q.mod(BigInteger.valueOf(prime)).intValue();
+                pResidues[i] = (2 * qResidues[i] + 1) % prime;
+            }
+
+            int offset = 0; // q aktualne = q + offset
+            for (int step = 0; step < STEPS_PER_START; step++, offset += 2) {
+                if (step > 0) {
+                    for (int i = 0; i < sieveSize; i++) {
+                        int prime = SMALL_PRIMES[i];
+                        int rq = qResidues[i] + 2;
+                        qResidues[i] = rq >= prime ? rq - prime : rq;
+                        int rp = pResidues[i] + 4;
+                        while (rp >= prime) {
+                            rp -= prime;
+                        }
+                        pResidues[i] = rp;
+                    }
+                }
+                if (!passesSieve(qResidues, pResidues, sieveSize)) {
+                    continue;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Wyszukiwanie przerwane.");
+                }
+
+                BigInteger candidate = q.add(BigInteger.valueOf(offset));
+                if (candidate.bitLength() != qBits) {
+                    break; // Wyszliśmy poza zakres długości - losuj nowy start
+                }
+                long count = tested.incrementAndGet();
+                if (count % PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(count, -1);
+                }
+                BigInteger p = candidate.shiftLeft(1).add(BigInteger.ONE);
+                if (isSafePrime(candidate, p)) {
+                    progress.onProgress(tested.get(), -1);
+                    return p;
+                }
+            }
+        }
+    }
+
+    /**
+     * Testy pierwszości od najtańszego: Fermat przy podstawie 2 dla q i p, potem pełny Miller-Rabin.
+     */
+    private boolean isSafePrime(BigInteger q, BigInteger p) {
+        if (q.bitLength() > 4) {
+            if (!BigInteger.TWO.modPow(q.subtract(BigInteger.ONE), q).equals(BigInteger.ONE)) {
+                return false;
+            }
+            if (!BigInteger.TWO.modPow(p.subtract(BigInteger.ONE), p).equals(BigInteger.ONE)) {
+                return false;
+            }
+        }
+        return q.isProbablePrime(certainty) && p.isProbablePrime(certainty);
+    }
+
+    private static boolean passesSieve(int[] qResidues, int[] pResidues, int size) {
+        for (int i = 0; i < size; i++) {
+            if (qResidues[i] == 0 || pResidues[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Losuje nieparzyste q o dokładnie podanej długości bitowej.
+     */
+    private BigInteger randomStart(int qBits) {
+        BigInteger q = new BigInteger(qBits, random).setBit(qBits - 1);
+        return qBits > 1 ? q.setBit(0) : q;
+    }
+
+    /**
+     * Liczba małych liczb pierwszych mniejszych od 2^(qBits-1), czyli od każdego q tej długości.
+     */
+    private static int sieveSize(int qBits) {
+        if (qBits - 1 >= 31) {
+            return SMALL_PRIMES.length;
+        }
+        long bound = 1L << (qBits - 1);
+        int size = 0;
+        while (size < SMALL_PRIMES.length && SMALL_PRIMES[size] < bound) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Znajduje najmniejszy generator grupy Z_p^* dla bezpiecznej liczby pierwszej p = 2q + 1.
+     * Rząd elementu dzieli p-1 = 2q, więc g jest generatorem wtedy i tylko wtedy, gdy g^2 != 1 oraz g^q != 1 (mod p).
+     *
+     * @param p Bezpieczna liczba pierwsza.
+     * @return Generator g.
+     */
+    public static BigInteger findGenerator(BigInteger p) {
+        BigInteger q = p.shiftRight(1);
+        for (BigInteger g = BigInteger.TWO; g.compareTo(p) < 0; g = g.add(BigInteger.ONE)) {
+            if (!g.modPow(BigInteger.TWO, p).equals(BigInteger.ONE) && !g.modPow(q, p).equals(BigInteger.ONE)) {
+                return g;
+            }
+        }
+        throw new IllegalArgumentException("Nie znaleziono generatora - p nie jest bezpieczną liczbą pierwszą.");
+    }
+
+    /**
+     * Sprawdza parametry [p, g] pochodzące z zewnątrz (np. z {@link ParameterCache}): czy p i q = (p-1)/2 są
+     * pierwsze oraz czy g generuje całą grupę Z_p^*.
+     *
+     * @param certainty Pewność testów pierwszości.
+     */
+    static boolean isSafePrimeGroup(List<BigInteger> pg, int certainty) {
+        BigInteger p = pg.get(0);
+        BigInteger g = pg.get(1);
+        BigInteger q = p.shiftRight(1);
+        if (p.bitLength() < 3 || !p.testBit(0) || g.compareTo(BigInteger.ONE) <= 0 || g.compareTo(p) >= 0) {
+            return false;
+        }
+        return q.isProbablePrime(certainty) && p.isProbablePrime(certainty)
+                && !g.modPow(BigInteger.TWO, p).equals(BigInteger.ONE) && !g.modPow(q, p).equals(BigInteger.ONE);
+    }
+
+    /**
+     * Sito Eratostenesa: nieparzyste liczby pierwsze mniejsze od limitu.
+     */
+    private static int[] smallPrimes(int limit) {
+        boolean[] composite = new boolean[limit];
+        List<Integer> primes = new ArrayList<>();
+        for (int i = 3; i < limit; i += 2) {
+            if (!composite[i]) {
+                primes.add(i);
+                for (long j = (long) i * i; j < limit; j += 2L * i) {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+        int[] result = new int[primes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = primes.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package org.zespol.core;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Wymienny schemat podpisu: generowanie kluczy, podpisywanie i weryfikacja skrótów SHA-256 oraz kodowanie kluczy
+ * i podpisów. Wywołujący operuje na kluczach przez {@link PrivateKey} i {@link PublicKey}, a podpisy są tablicami
+ * bajtów, więc zmiana schematu nie wymaga zmian w kodzie podpisującym.
+ * <p>
+ * Implementacje: {@link ElGamalScheme} (ElGamal w grupie multiplikatywnej, dotychczasowe klucze i podpisy) oraz
+ * {@link EcSchnorrScheme} (podpis Schnorra na krzywej P-256 - przy tym samym poziomie bezpieczeństwa co grupa
+ * 3072-bitowa klucz publiczny ma 33 bajty, a podpis 64). Implementacje są bezpieczne wątkowo.
+ */
+public interface SignatureScheme {
+
+    /** Klucz prywatny schematu. */
+    interface PrivateKey {
+        /** Odpowiadający klucz publiczny. */
+        PublicKey getPublicKey();
+
+        /** Postać binarna, którą odczytuje {@link SignatureScheme#decodePrivateKey}. */
+        byte[] encode();
+    }
+
+    /** Klucz publiczny schematu. */
+    interface PublicKey {
+        /** Postać binarna, którą odczytuje {@link SignatureScheme#decodePublicKey}. */
+        byte[] encode();
+    }
+
+    /**
+     * Schemat o podanej nazwie: {@value EcSchnorrScheme#NAME} albo {@code elgamal-<grupa>} dla grupy
+     * {@link StandardGroup}, np. {@code elgamal-ffdhe3072}.
+     *
+     * @throws IllegalArgumentException Jeśli nazwa jest nieznana.
+     */
+    static SignatureScheme forName(String name) {
+        if (name != null) {
+            String normalized = name.trim().toLowerCase(Locale.ROOT);
+            if (normalized.equals(EcSchnorrScheme.NAME)) {
+                return new EcSchnorrScheme();
+            }
+            if (normalized.startsWith(ElGamalScheme.NAME_PREFIX)) {
+                return ElGamalScheme.of(StandardGroup.forName(normalized.substring(ElGamalScheme.NAME_PREFIX.length())));
+            }
+        }
+        throw new IllegalArgumentException("Nieznany schemat podpisu: " + name);
+    }
+
+    /**
+     * Nazwa schematu (i parametrów), którą przyjmuje {@link #forName} - z wyjątkiem ElGamala w grupie
+     * niestandardowej ({@link ElGamalScheme#CUSTOM_NAME_PREFIX}), której parametrów nazwa nie przenosi.
+     */
+    String getName();
+
+    /** Generuje nowy klucz prywatny (klucz publiczny dostępny przez {@link PrivateKey#getPublicKey()}). */
+    PrivateKey generatePrivateKey();
+
+    /**
+     * Podpisuje skrót SHA-256 obliczony wcześniej przez wywołującego.
+     *
+     * @param digest     Skrót SHA-256 wiadomości (32 bajty).
+     * @param privateKey Klucz prywatny tego schematu.
+     * @return Zakodowany podpis.
+     * @throws IllegalArgumentException Jeśli skrót ma nieprawidłową długość lub klucz należy do innego schematu.
+     */
+    byte[] signDigest(byte[] digest, PrivateKey privateKey);
+
+    /**
+     * Weryfikuje podpis skrótu SHA-256.
+     *
+     * @param digest    Skrót SHA-256 wiadomości (32 bajty).
+     * @param signature Zakodowany podpis; podpis uszkodzony lub w złym formacie jest po prostu niepoprawny.
+     * @param publicKey Klucz publiczny tego schematu.
+     * @return true jeśli podpis jest poprawny, false w przeciwnym razie.
+     * @throws IllegalArgumentException Jeśli skrót ma nieprawidłową długość lub klucz należy do innego schematu.
+     */
+    boolean verifyDigest(byte[] digest, byte[] signature, PublicKey publicKey);
+
+    /**
+     * Odczytuje klucz prywatny zapisany przez {@link PrivateKey#encode()}.
+     *
+     * @throws IllegalArgumentException Jeśli dane nie są kluczem prywatnym tego schematu.
+     */
+    PrivateKey decodePrivateKey(byte[] encoded);
+
+    /**
+     * Odczytuje klucz publiczny zapisany przez {@link PublicKey#encode()}.
+     *
+     * @throws IllegalArgumentException Jeśli dane nie są kluczem publicznym tego schematu.
+     */
+    PublicKey decodePublicKey(byte[] encoded);
+
+    /**
+     * Podpisuje wiadomość (skrót SHA-256 całej wiadomości).
+     */
+    default byte[] sign(byte[] message, PrivateKey privateKey) throws NoSuchAlgorithmException {
+        return signDigest(MessageDigest.getInstance("SHA-256").digest(message), privateKey);
+    }
+
+    /**
+     * Weryfikuje podpis wiadomości (skrót SHA-256 całej wiadomości).
+     */
+    default boolean verify(byte[] message, byte[] signature, PublicKey publicKey) throws NoSuchAlgorithmException {
+        return verifyDigest(MessageDigest.getInstance("SHA-256").digest(message), signature, publicKey);
+    }
+}
@@ -0,0 +1,733 @@
+package org.zespol.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Dziennik podpisów tylko do dopisywania, w segmentach mapowanych w pamięć, z indeksami po odcisku klucza
+ * i po skrócie wiadomości.
+ * <p>
+ * Katalog magazynu zawiera:
+ * <ul>
+ *   <li>{@code signatures-NNNNNNNN.seg} - segmenty o stałym rozmiarze (domyślnie {@value #DEFAULT_SEGMENT_SIZE}
+ *       bajtów) z rekordami binarnymi: długość, CRC32C, znacznik czasu, położenia poprzednich rekordów tego
+ *       samego klucza i tego samego skrótu, 32-bajtowy odcisk {@link KeyFingerprint}, 32-bajtowy skrót SHA-256,
+ *       r i s. Rekord o długości 0 oznacza koniec danych w segmencie.</li>
+ *   <li>{@code by-key.idx} i {@code by-digest.idx} - tablice mieszające ({@link HashIndex}) wskazujące najnowszy
+ *       rekord danego klucza lub skrótu; starsze rekordy osiąga się po wskaźnikach zapisanych w rekordach.</li>
+ * </ul>
+ * Położenie rekordu to numer segmentu w starszych 32 bitach i przesunięcie w młodszych, więc położenia rosną
+ * w kolejności zapisu.
+ * <p>
+ * Dopisywanie korzysta z grupowego zatwierdzania: wątki wstawiają rekordy do kolejki, a pierwszy z nich, który
+ * zajmie blokadę zapisu, zapisuje wszystkie oczekujące rekordy naraz i wykonuje dla nich jedno
+ * {@link MappedByteBuffer#force(int, int)}. Po powrocie z {@link #append} rekord jest na dysku. Indeksy zapisywane
+ * są na dysk przy {@link #flush()} i {@link #close()}, a po awarii brakujący koniec odtwarzany jest z segmentów
+ * przy otwarciu (uszkodzony ostatni rekord jest odrzucany).
+ * <p>
+ * Wyszukiwania i {@link #scan} mogą odbywać się równolegle z dopisywaniem.
+ */
+public final class SignatureStore implements Closeable {
+    /** Wersja formatu plików magazynu. */
+    public static final int FORMAT_VERSION = 1;
+    /** Domyślny rozmiar segmentu w bajtach (64 MiB). */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    /** Najmniejszy dopuszczalny rozmiar segmentu w bajtach. */
+    public static final int MIN_SEGMENT_SIZE = 4096;
+
+    static final String KEY_INDEX_FILE = "by-key.idx";
+    static final String DIGEST_INDEX_FILE = "by-digest.idx";
+
+    private static final String SEGMENT_PREFIX = "signatures-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int SEGMENT_MAGIC = 0x45475353;  // "EGSS"
+    private static final int SEGMENT_HEADER_SIZE = 16;
+    private static final int DIGEST_LENGTH = 32;
+
+    // Układ rekordu: długość (4), CRC32C pozostałych bajtów (4), znacznik czasu (8), poprzedni rekord klucza (8),
+    // poprzedni rekord skrótu (8), odcisk (32), skrót (32), długość r (2), r, długość s (2), s
+    private static final int CRC_POSITION = 4;
+    private static final int TIMESTAMP_POSITION = 8;
+    private static final int PREVIOUS_BY_KEY_POSITION = 16;
+    private static final int PREVIOUS_BY_DIGEST_POSITION = 24;
+    private static final int FINGERPRINT_POSITION = 32;
+    private static final int DIGEST_POSITION = FINGERPRINT_POSITION + KeyFingerprint.LENGTH;
+    private static final int SIGNATURE_POSITION = DIGEST_POSITION + DIGEST_LENGTH;
+    private static final int MIN_RECORD_LENGTH = SIGNATURE_POSITION + 4;
+
+    /**
+     * Podpis odczytany z magazynu.
+     *
+     * @param position    Położenie rekordu (dla {@link #read} i {@link #scan}).
+     * @param fingerprint Odcisk klucza publicznego.
+     * @param digest      Skrót SHA-256 podpisanej wiadomości.
+     * @param signature   Podpis.
+     * @param timestamp   Czas dopisania w milisekundach od epoki.
+     */
+    public record Entry(long position, byte[] fingerprint, byte[] digest, ElGamalSignature signature, long timestamp) {
+    }
+
+    /** Rekord czekający w kolejce grupowego zatwierdzania. */
+    private static final class Pending {
+        final byte[] fingerprint;
+        final byte[] digest;
+        final byte[] r;
+        final byte[] s;
+        final long timestamp;
+        long position;
+        IOException failure;
+        boolean done;
+
+        Pending(byte[] fingerprint, byte[] digest, byte[] r, byte[] s, long timestamp) {
+            this.fingerprint = fingerprint;
+            this.digest = digest;
+            this.r = r;
+            this.s = s;
+            this.timestamp = timestamp;
+        }
+
+        int length() {
+            return MIN_RECORD_LENGTH + r.length + s.length;
+        }
+    }
+
+    private record Segment(FileChannel channel, MappedByteBuffer buffer) {
+        int size() {
+            return buffer.capacity();
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashIndex keyIndex;
+    private final HashIndex digestIndex;
+
+    // Koniec zatwierdzonych danych - rekordy przed nim są kompletne i w indeksach
+    private volatile long end;
+    // Miejsce zapisu następnego rekordu (tylko pod commitLock)
+    private int writeSegment;
+    private int writeOffset;
+    private volatile boolean closed;
+
+    private SignatureStore(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        HashIndex byKey = null;
+        HashIndex byDigest = null;
+        try {
+            openSegments();
+            byKey = HashIndex.open(directory.resolve(KEY_INDEX_FILE));
+            byDigest = HashIndex.open(directory.resolve(DIGEST_INDEX_FILE));
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(byKey, byDigest);
+            closeSegments();
+            throw e;
+        }
+        keyIndex = byKey;
+        digestIndex = byDigest;
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(keyIndex, digestIndex);
+            closeSegments();
+            throw e;
+        }
+    }
+
+    /**
+     * Otwiera magazyn w podanym katalogu z domyślnym rozmiarem segmentu, tworząc go, jeśli nie istnieje.
+     *
+     * @throws IOException Jeśli pliki są uszkodzone lub niedostępne.
+     */
+    public static SignatureStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Otwiera magazyn w podanym katalogu, tworząc go, jeśli nie istnieje.
+     *
+     * @param segmentSize Rozmiar nowo tworzonych segmentów w bajtach (istniejące zachowują swój rozmiar).
+     * @throws IOException Jeśli pliki są uszkodzone lub niedostępne.
+     */
+    public static SignatureStore open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Rozmiar segmentu musi wynosić co najmniej " + MIN_SEGMENT_SIZE + " bajtów.");
+        }
+        return new SignatureStore(directory, segmentSize);
+    }
+
+    /**
+     * Dopisuje podpis z bieżącym czasem.
+     *
+     * @see #append(byte[], byte[], ElGamalSignature, long)
+     */
+    public long append(byte[] fingerprint, byte[] digest, ElGamalSignature signature) throws IOException {
+        return append(fingerprint, digest, signature, System.currentTimeMillis());
+    }
+
+    /**
+     * Dopisuje podpis złożony kluczem publicznym {@code publicKey}, z bieżącym czasem.
+     */
+    public long append(ElGamalPublicKey publicKey, byte[] digest, ElGamalSignature signature) throws IOException {
+        return append(publicKey.fingerprintBytes(), digest, signature, System.currentTimeMillis());
+    }
+
+    /**
+     * Dopisuje podpis i czeka, aż zostanie zapisany na dysk (razem z rekordami innych wątków dopisujących
+     * w tym samym czasie).
+     *
+     * @param fingerprint 32-bajtowy odcisk klucza publicznego.
+     * @param digest      32-bajtowy skrót SHA-256 podpisanej wiadomości.
+     * @param signature   Podpis.
+     * @param timestamp   Czas w milisekundach od epoki.
+     * @return Położenie rekordu.
+     * @throws IllegalArgumentException Jeśli odcisk lub skrót ma złą długość, albo r lub s jest ujemne lub za duże.
+     * @throws IllegalStateException    Jeśli magazyn został zamknięty.
+     * @throws IOException              Jeśli zapis się nie udał lub magazyn zamknięto, zanim rekord został zapisany.
+     */
+    public long append(byte[] fingerprint, byte[] digest, ElGamalSignature signature, long timestamp) throws IOException {
+        checkKey(fingerprint, "Odcisk");
+        checkKey(digest, "Skrót");
+        Pending entry = new Pending(fingerprint.clone(), digest.clone(),
+                component(signature.getR()), component(signature.getS()), timestamp);
+        if (SEGMENT_HEADER_SIZE + entry.length() > segmentSize) {
+            throw new IllegalArgumentException("Podpis nie mieści się w segmencie o rozmiarze " + segmentSize + " bajtów.");
+        }
+        ensureOpen();
+        pending.add(entry);
+        commitLock.lock();
+        try {
+            if (!entry.done) {
+                if (closed) {
+                    // Magazyn zamknięto między sprawdzeniem a dodaniem rekordu do kolejki
+                    pending.remove(entry);
+                    ensureOpen();
+                }
+                // Nikt nie zatwierdził jeszcze tego rekordu - ten wątek zatwierdza całą kolejkę
+                commit();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        if (entry.failure != null) {
+            throw new IOException("Nie udało się zapisać podpisu.", entry.failure);
+        }
+        return entry.position;
+    }
+
+    /**
+     * Podpisy złożone kluczem o podanym odcisku, od najnowszego.
+     *
+     * @param limit Największa liczba zwracanych podpisów.
+     */
+    public List<Entry> findByKey(byte[] fingerprint, int limit) {
+        checkKey(fingerprint, "Odcisk");
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Entry> result = new ArrayList<>();
+            for (long position = keyIndex.get(fingerprint); position != 0 && result.size() < limit;
+                 position = link(position, PREVIOUS_BY_KEY_POSITION)) {
+                result.add(decode(position));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Wszystkie podpisy skrótu wiadomości (dowolnymi kluczami), od najnowszego. */
+    public List<Entry> findByDigest(byte[] digest) {
+        checkKey(digest, "Skrót");
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Entry> result = new ArrayList<>();
+            for (long position = digestIndex.get(digest); position != 0;
+                 position = link(position, PREVIOUS_BY_DIGEST_POSITION)) {
+                result.add(decode(position));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Odczytuje rekord z podanego położenia.
+     *
+     * @throws IllegalArgumentException Jeśli pod tym położeniem nie zaczyna się zatwierdzony rekord.
+     */
+    public Entry read(long position) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int number = (int) (position >>> 32);
+            int offset = (int) position;
+            if (position >= end || number >= segments.size() || offset < SEGMENT_HEADER_SIZE
+                    || !isValid(segments.get(number).buffer(), offset)) {
+                throw new IllegalArgumentException("Pod położeniem " + position + " nie ma rekordu.");
+            }
+            return decode(position);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Przechodzi sekwencyjnie przez rekordy zatwierdzone do chwili wywołania, np. do ponownej weryfikacji
+     * wszystkich podpisów. Rekordy dopisane w trakcie przeglądu nie są odwiedzane. Blokada odczytu trzymana jest
+     * tylko na czas dekodowania rekordu, więc odbiorca może dopisywać do magazynu, a zamknięcie magazynu
+     * w trakcie przeglądu kończy go wyjątkiem {@link IllegalStateException}.
+     *
+     * @param fromPosition Położenie pierwszego rekordu albo 0, żeby zacząć od początku.
+     * @param consumer     Odbiorca kolejnych rekordów.
+     * @return Położenie, od którego należy wznowić przegląd, żeby odwiedzić tylko nowsze rekordy.
+     * @throws IOException Jeśli suma kontrolna rekordu się nie zgadza.
+     */
+    public long scan(long fromPosition, Consumer<Entry> consumer) throws IOException {
+        long limit;
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            limit = end;
+        } finally {
+            lock.readLock().unlock();
+        }
+        int number = fromPosition == 0 ? 0 : (int) (fromPosition >>> 32);
+        int offset = fromPosition == 0 ? SEGMENT_HEADER_SIZE : (int) fromPosition;
+        while (position(number, offset) < limit) {
+            Entry entry;
+            int length;
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                ByteBuffer buffer = segments.get(number).buffer();
+                length = offset + 4 <= buffer.capacity() ? buffer.getInt(offset) : 0;
+                if (length == 0) {
+                    number++;
+                    offset = SEGMENT_HEADER_SIZE;
+                    continue;
+                }
+                if (!isValid(buffer, offset)) {
+                    throw new IOException("Uszkodzony rekord w segmencie " + segmentName(number) + " pod przesunięciem " + offset + ".");
+                }
+                entry = decode(position(number, offset));
+            } finally {
+                lock.readLock().unlock();
+            }
+            consumer.accept(entry);
+            offset += length;
+        }
+        return position(number, offset);
+    }
+
+    /** Położenie końca zatwierdzonych danych (rośnie z każdym dopisaniem). */
+    public long getEndPosition() {
+        return end;
+    }
+
+    /** Liczba segmentów. */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /** Katalog magazynu. */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Zapisuje indeksy na dysk, tak żeby kolejne otwarcie nie musiało ich odtwarzać z segmentów.
+     */
+    public void flush() {
+        commitLock.lock();
+        try {
+            ensureOpen();
+            checkpoint();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        commitLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            checkpoint();
+            // Od tej chwili żaden odczyt nie trzyma blokady ani nie zacznie nowego przejścia przez segmenty
+            lock.writeLock().lock();
+            try {
+                closed = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Rekordy dodane do kolejki, których nikt nie zdążył zatwierdzić - ich wątki czekają na commitLock
+            IOException failure = new IOException("Magazyn podpisów zamknięto przed zapisaniem rekordu.");
+            for (Pending entry; (entry = pending.poll()) != null; ) {
+                entry.failure = failure;
+                entry.done = true;
+            }
+            closeQuietly(keyIndex, digestIndex);
+            closeSegments();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // --- Zapis ---
+
+    /** Zatwierdza wszystkie rekordy z kolejki (pod commitLock). */
+    private void commit() {
+        List<Pending> batch = new ArrayList<>();
+        for (Pending entry; (entry = pending.poll()) != null; ) {
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        int number = writeSegment;
+        int offset = writeOffset;
+        int forceFrom = offset;
+        try {
+            lock.writeLock().lock();
+            try {
+                // Po tym wstawienia do indeksów nie wykonują operacji na plikach, więc nie mogą się nie udać
+                keyIndex.reserve(batch.size());
+                digestIndex.reserve(batch.size());
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Map<ByteBuffer, Long> latestByKey = new HashMap<>();
+            Map<ByteBuffer, Long> latestByDigest = new HashMap<>();
+            for (Pending entry : batch) {
+                Segment segment = segments.get(number);
+                if (offset + entry.length() > segment.size()) {
+                    segment.buffer().force(forceFrom, offset - forceFrom);
+                    segment = segment(++number);
+                    offset = SEGMENT_HEADER_SIZE;
+                    forceFrom = offset;
+                }
+                entry.position = position(number, offset);
+                ByteBuffer key = ByteBuffer.wrap(entry.fingerprint);
+                ByteBuffer digest = ByteBuffer.wrap(entry.digest);
+                Long previousByKey = latestByKey.put(key, entry.position);
+                Long previousByDigest = latestByDigest.put(digest, entry.position);
+                write(segment.buffer(), offset, entry,
+                        previousByKey != null ? previousByKey : keyIndex.get(entry.fingerprint),
+                        previousByDigest != null ? previousByDigest : digestIndex.get(entry.digest));
+                offset += entry.length();
+            }
+            segments.get(number).buffer().force(forceFrom, offset - forceFrom);
+        } catch (IOException | RuntimeException e) {
+            // Częściowo zapisane rekordy są zerowane, żeby odtwarzanie ich nie przyjęło
+            for (int i = writeSegment; i <= number && i < segments.size(); i++) {
+                ByteBuffer buffer = segments.get(i).buffer();
+                zero(buffer, i == writeSegment ? writeOffset : SEGMENT_HEADER_SIZE, i == number ? offset : buffer.capacity());
+            }
+            IOException failure = e instanceof IOException io ? io : new IOException(e);
+            for (Pending entry : batch) {
+                entry.failure = failure;
+                entry.done = true;
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Pending entry : batch) {
+                keyIndex.put(entry.fingerprint, entry.position);
+                digestIndex.put(entry.digest, entry.position);
+            }
+            end = position(number, offset);
+        } catch (IOException e) {
+            throw new IllegalStateException("Indeks nie został powiększony z wyprzedzeniem.", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        writeSegment = number;
+        writeOffset = offset;
+        for (Pending entry : batch) {
+            entry.done = true;
+        }
+    }
+
+    private static void write(ByteBuffer buffer, int offset, Pending entry, long previousByKey, long previousByDigest) {
+        int length = entry.length();
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length).putInt(0).putLong(entry.timestamp).putLong(previousByKey).putLong(previousByDigest)
+                .put(entry.fingerprint).put(entry.digest)
+                .putShort((short) entry.r.length).put(entry.r)
+                .putShort((short) entry.s.length).put(entry.s);
+        record.putInt(CRC_POSITION, crc(record));
+        buffer.put(offset, record.array());
+    }
+
+    /** Numer segmentu do dopisywania - istniejący albo nowo utworzony. */
+    private Segment segment(int number) throws IOException {
+        if (number < segments.size()) {
+            return segments.get(number);
+        }
+        Path file = directory.resolve(segmentName(number));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(0, SEGMENT_MAGIC).putInt(4, FORMAT_VERSION).putInt(8, number);
+            buffer.force(0, SEGMENT_HEADER_SIZE);
+            Segment segment = new Segment(channel, buffer);
+            segments.add(segment);
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /** Zapisuje indeksy i położenie, do którego są kompletne (pod commitLock). */
+    private void checkpoint() {
+        lock.writeLock().lock();
+        try {
+            // Najpierw gniazda, potem położenie - inaczej po awarii nagłówek mógłby obiecywać brakujące wpisy
+            keyIndex.force();
+            digestIndex.force();
+            keyIndex.setIndexedTo(end);
+            digestIndex.setIndexedTo(end);
+            keyIndex.force();
+            digestIndex.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Odczyt ---
+
+    /** Pole łańcucha rekordu (pod blokadą odczytu). */
+    private long link(long position, int field) {
+        return segments.get((int) (position >>> 32)).buffer().getLong((int) position + field);
+    }
+
+    /** Dekoduje rekord (pod blokadą odczytu). */
+    private Entry decode(long position) {
+        ByteBuffer buffer = segments.get((int) (position >>> 32)).buffer();
+        int offset = (int) position;
+        byte[] fingerprint = new byte[KeyFingerprint.LENGTH];
+        byte[] digest = new byte[DIGEST_LENGTH];
+        buffer.get(offset + FINGERPRINT_POSITION, fingerprint);
+        buffer.get(offset + DIGEST_POSITION, digest);
+        int at = offset + SIGNATURE_POSITION;
+        byte[] r = new byte[buffer.getShort(at) & 0xFFFF];
+        buffer.get(at + 2, r);
+        at += 2 + r.length;
+        byte[] s = new byte[buffer.getShort(at) & 0xFFFF];
+        buffer.get(at + 2, s);
+        return new Entry(position, fingerprint, digest, new ElGamalSignature(new BigInteger(1, r), new BigInteger(1, s)),
+                buffer.getLong(offset + TIMESTAMP_POSITION));
+    }
+
+    /** Czy pod przesunięciem zaczyna się kompletny rekord z poprawną sumą kontrolną. */
+    private static boolean isValid(ByteBuffer buffer, int offset) {
+        if (offset + MIN_RECORD_LENGTH > buffer.capacity()) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length < MIN_RECORD_LENGTH || length > buffer.capacity() - offset) {
+            return false;
+        }
+        int rLength = buffer.getShort(offset + SIGNATURE_POSITION) & 0xFFFF;
+        if (MIN_RECORD_LENGTH + rLength > length
+                || MIN_RECORD_LENGTH + rLength + (buffer.getShort(offset + SIGNATURE_POSITION + 2 + rLength) & 0xFFFF) != length) {
+            return false;
+        }
+        return crc(buffer.slice(offset, length)) == buffer.getInt(offset + CRC_POSITION);
+    }
+
+    /** CRC32C bajtów rekordu po polu sumy kontrolnej; {@code record} zaczyna się od pola długości. */
+    private static int crc(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.duplicate().position(TIMESTAMP_POSITION).limit(record.getInt(0)));
+        return (int) crc.getValue();
+    }
+
+    // --- Otwieranie i odtwarzanie ---
+
+    private void openSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(f -> {
+                String name = f.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().forEach(files::add);
+        }
+        try {
+            for (int number = 0; number < files.size(); number++) {
+                Path file = files.get(number);
+                if (!file.getFileName().toString().equals(segmentName(number))) {
+                    throw new IOException("Brak segmentu " + segmentName(number) + ".");
+                }
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                try {
+                    long size = channel.size();
+                    if (size < MIN_SEGMENT_SIZE || size > Integer.MAX_VALUE) {
+                        throw new IOException("Segment " + file.getFileName() + " ma nieprawidłowy rozmiar.");
+                    }
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                    if (buffer.getInt(0) != SEGMENT_MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != number) {
+                        throw new IOException("Plik " + file.getFileName() + " nie jest segmentem w wersji " + FORMAT_VERSION + ".");
+                    }
+                    segments.add(new Segment(channel, buffer));
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+            }
+            if (segments.isEmpty()) {
+                segment(0);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+    }
+
+    /**
+     * Dodaje do indeksów rekordy zapisane po ostatnim {@link #checkpoint()} i ustala koniec danych. Uszkodzony
+     * rekord w ostatnim używanym segmencie (przerwany zapis) jest zerowany razem z resztą segmentu.
+     */
+    private void recover() throws IOException {
+        long start = Math.min(keyIndex.getIndexedTo(), digestIndex.getIndexedTo());
+        int number = start == 0 ? 0 : (int) (start >>> 32);
+        int offset = start == 0 ? SEGMENT_HEADER_SIZE : (int) start;
+        if (number >= segments.size()) {
+            throw new IOException("Indeks wskazuje na brakujący segment " + segmentName(number) + ".");
+        }
+        while (true) {
+            MappedByteBuffer buffer = segments.get(number).buffer();
+            int length = offset + 4 <= buffer.capacity() ? buffer.getInt(offset) : 0;
+            if (length != 0 && isValid(buffer, offset)) {
+                long position = position(number, offset);
+                byte[] key = new byte[KeyFingerprint.LENGTH];
+                byte[] digest = new byte[DIGEST_LENGTH];
+                buffer.get(offset + FINGERPRINT_POSITION, key);
+                buffer.get(offset + DIGEST_POSITION, digest);
+                keyIndex.put(key, position);
+                digestIndex.put(digest, position);
+                offset += length;
+                continue;
+            }
+            // Segment jest końcem danych, jeśli jest ostatni albo następny jest pusty
+            boolean tail = number == segments.size() - 1 || isEmpty(segments.get(number + 1).buffer());
+            if (!tail && length != 0) {
+                throw new IOException("Uszkodzony rekord w segmencie " + segmentName(number) + " pod przesunięciem " + offset + ".");
+            }
+            if (tail) {
+                if (length != 0) {
+                    zero(buffer, offset, buffer.capacity());
+                    buffer.force();
+                }
+                break;
+            }
+            number++;
+            offset = SEGMENT_HEADER_SIZE;
+        }
+        // Kolejne segmenty mogą być puste (utworzone przed nieudanym zapisem) - będą użyte ponownie
+        writeSegment = number;
+        writeOffset = offset;
+        end = position(number, offset);
+    }
+
+    private static boolean isEmpty(ByteBuffer segment) {
+        return segment.getInt(SEGMENT_HEADER_SIZE) == 0;
+    }
+
+    private static void zero(ByteBuffer buffer, int from, int to) {
+        byte[] zeros = new byte[Math.min(to - from, 1 << 16)];
+        for (int at = from; at < to; at += zeros.length) {
+            buffer.put(at, zeros, 0, Math.min(zeros.length, to - at));
+        }
+    }
+
+    // --- Pomocnicze ---
+
+    private static long position(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static String segmentName(int number) {
+        return String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+
+    private static byte[] component(BigInteger value) {
+        if (value.signum() < 0 || value.bitLength() > 8 * 0xFFFF) {
+            throw new IllegalArgumentException("Składowa podpisu musi być nieujemna i mieć najwyżej " + 0xFFFF + " bajtów.");
+        }
+        byte[] bytes = value.toByteArray();
+        // Bez wiodącego bajtu znaku - odczyt traktuje bajty jako liczbę bez znaku
+        return bytes.length > 1 && bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private static void checkKey(byte[] key, String what) {
+        if (key == null || key.length != HashIndex.KEY_LENGTH) {
+            throw new IllegalArgumentException(what + " musi mieć " + HashIndex.KEY_LENGTH + " bajty.");
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Magazyn podpisów został zamknięty.");
+        }
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments) {
+            try {
+                segment.channel().close();
+            } catch (IOException ignored) {
+                // Dane segmentów są już zapisane przez force() przy zatwierdzaniu
+            }
+        }
+        segments.clear();
+    }
+
+    private static void closeQuietly(HashIndex... indexes) {
+        for (HashIndex index : indexes) {
+            if (index != null) {
+                try {
+                    index.close();
+                } catch (IOException ignored) {
+                    // Zamykanie po błędzie - pierwotny wyjątek jest ważniejszy
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Równoległy generator parametrów podgrupy (p, q, g) w stylu DSA: q jest liczbą pierwszą o długości
+ * {@code subgroupBitLength}, p = 2qm + 1 liczbą pierwszą o długości {@code bitLength}, a g elementem rzędu q.
+ * <p>
+ * Najpierw losowane jest q, potem każdy wątek zaczyna od losowego p ≡ 1 (mod 2q) i przesuwa się o 2q,
+ * aktualizując przyrostowo reszty p modulo małe liczby pierwsze (to samo sito co {@link SafePrimeGenerator}).
+ * Szukana jest tylko jedna liczba pierwsza, a nie para, więc wyszukiwanie jest o rzędy wielkości szybsze niż
+ * dla bezpiecznej liczby pierwszej tej samej długości.
+ */
+public final class SubgroupParameterGenerator {
+    /** Domyślna długość bitowa q - poziom bezpieczeństwa 128 bitów, jak SHA-256. */
+    public static final int DEFAULT_SUBGROUP_BIT_LENGTH = 256;
+
+    private static final int MIN_BIT_LENGTH = 32;            // p musi być większe od liczb pierwszych sita
+    private static final int STEPS_PER_START = 1 << 14;      // Po tylu krokach wątek losuje nowy punkt startowy
+    private static final int PROGRESS_INTERVAL = 256;        // Co ilu kandydatów raportowany jest postęp
+
+    private final int threads;
+    private final int certainty;
+    private final SecureRandom random;
+
+    /**
+     * Tworzy generator używający wszystkich dostępnych rdzeni.
+     *
+     * @param certainty Pewność testu pierwszości Millera-Rabina (jak w {@link BigInteger#isProbablePrime(int)}).
+     * @param random Źródło losowości.
+     */
+    public SubgroupParameterGenerator(int certainty, SecureRandom random) {
+        this(Runtime.getRuntime().availableProcessors(), certainty, random);
+    }
+
+    /**
+     * @param threads Liczba wątków wyszukiwania.
+     * @param certainty Pewność testu pierwszości Millera-Rabina (jak w {@link BigInteger#isProbablePrime(int)}).
+     * @param random Źródło losowości.
+     */
+    public SubgroupParameterGenerator(int threads, int certainty, SecureRandom random) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Liczba wątków musi być dodatnia.");
+        }
+        this.threads = threads;
+        this.certainty = certainty;
+        this.random = random;
+    }
+
+    /**
+     * Generuje parametry [p, g, q].
+     *
+     * @param bitLength Długość bitowa p (co najmniej {@value #MIN_BIT_LENGTH}).
+     * @param subgroupBitLength Długość bitowa q (co najmniej 3, o co najmniej 8 mniej niż p).
+     * @param listener Odbiorca postępu (liczba sprawdzonych kandydatów na p; całkowita liczba nieznana).
+     * @return Lista [p, g, q].
+     * @throws IllegalArgumentException Jeśli długości są spoza zakresu.
+     * @throws CancellationException Jeśli wątek wywołujący został przerwany.
+     */
+    public List<BigInteger> generate(int bitLength, int subgroupBitLength, ProgressListener listener) {
+        if (bitLength < MIN_BIT_LENGTH || subgroupBitLength < 3 || subgroupBitLength > bitLength - 8) {
+            throw new IllegalArgumentException("Długość p musi wynosić co najmniej " + MIN_BIT_LENGTH
+                    + ", a długość q od 3 do " + (bitLength - 8) + " bitów.");
+        }
+        ProgressListener progress = (listener != null) ? listener : ProgressListener.NONE;
+        BigInteger q = BigInteger.probablePrime(subgroupBitLength, random);
+        while (!q.isProbablePrime(certainty)) {
+            q = BigInteger.probablePrime(subgroupBitLength, random);
+        }
+        BigInteger p = generatePrime(bitLength, q, progress);
+        List<BigInteger> pgq = new ArrayList<>();
+        pgq.add(p);
+        pgq.add(findGenerator(p, q));
+        pgq.add(q);
+        return pgq;
+    }
+
+    private BigInteger generatePrime(int bitLength, BigInteger q, ProgressListener progress) {
+        AtomicLong tested = new AtomicLong();
+        List<Callable<BigInteger>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> search(bitLength, q, tested, progress));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "elgamal-subgroup-prime");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // invokeAny zwraca pierwszy wynik i przerywa pozostałe wątki
+            return executor.invokeAny(workers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Generowanie liczby pierwszej zostało przerwane.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancellation) {
+                throw cancellation;
+            }
+            throw new IllegalStateException("Błąd podczas generowania liczby pierwszej.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Pętla jednego wątku: przesuwa kandydata p ≡ 1 (mod 2q) o 2q z przyrostową aktualizacją reszt sita.
+     */
+    private BigInteger search(int bitLength, BigInteger q, AtomicLong tested, ProgressListener progress) {
+        int[] primes = SafePrimeGenerator.SMALL_PRIMES;
+        BigInteger step = q.shiftLeft(1);
+        int[] residues = new int[primes.length];
+        int[] increments = new int[primes.length];
+        for (int i = 0; i < primes.length; i++) {
+            increments[i] = step.mod(BigInteger.valueOf(primes[i])).intValue();
+        }
+
+        while (true) {
+            BigInteger start = randomStart(bitLength, step);
+            for (int i = 0; i < primes.length; i++) {
+                residues[i] = start.mod(BigInteger.valueOf(primes[i])).intValue();
+            }
+
+            BigInteger candidate = start;
+            for (int s = 0; s < STEPS_PER_START; s++) {
+                if (s > 0) {
+                    candidate = candidate.add(step);
+                    for (int i = 0; i < primes.length; i++) {
+                        int r = residues[i] + increments[i];
+                        residues[i] = r >= primes[i] ? r - primes[i] : r;
+                    }
+                }
+                if (!passesSieve(residues)) {
+                    continue;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Wyszukiwanie przerwane.");
+                }
+                if (candidate.bitLength() != bitLength) {
+                    break; // Wyszliśmy poza zakres długości - losuj nowy start
+                }
+                long count = tested.incrementAndGet();
+                if (count % PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(count, -1);
+                }
+                // Najpierw tani test Fermata przy podstawie 2, potem pełny Miller-Rabin
+                if (BigInteger.TWO.modPow(candidate.subtract(BigInteger.ONE), candidate).equals(BigInteger.ONE)
+                        && candidate.isProbablePrime(certainty)) {
+                    progress.onProgress(tested.get(), -1);
+                    return candidate;
+                }
+            }
+        }
+    }
+
+    private static boolean passesSieve(int[] residues) {
+        for (int residue : residues) {
+            if (residue == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Losuje p ≡ 1 (mod 2q) o dokładnie podanej długości bitowej.
+     */
+    private BigInteger randomStart(int bitLength, BigInteger step) {
+        BigInteger x = new BigInteger(bitLength, random).setBit(bitLength - 1);
+        BigInteger p = x.subtract(x.mod(step)).add(BigInteger.ONE);
+        return p.bitLength() == bitLength ? p : p.add(step);
+    }
+
+    /**
+     * Znajduje element rzędu q: g = h^((p-1)/q) mod p dla kolejnych h = 2, 3, ..., aż g != 1.
+     *
+     * @param p Liczba pierwsza, p ≡ 1 (mod q).
+     * @param q Pierwszy dzielnik p-1.
+     * @return Generator podgrupy rzędu q.
+     */
+    public static BigInteger findGenerator(BigInteger p, BigInteger q) {
+        BigInteger exponent = p.subtract(BigInteger.ONE).divide(q);
+        for (BigInteger h = BigInteger.TWO; h.compareTo(p) < 0; h = h.add(BigInteger.ONE)) {
+            BigInteger g = h.modPow(exponent, p);
+            if (!g.equals(BigInteger.ONE)) {
+                return g;
+            }
+        }
+        throw new IllegalArgumentException("Nie znaleziono generatora - q nie dzieli p-1 lub p nie jest pierwsze.");
+    }
+}
@@ -0,0 +1,261 @@
+package org.zespol.core;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.math.BigInteger;
+
+/**
+ * Mnożenie i potęgowanie Montgomery'ego dla wielu niezależnych argumentów naraz, po jednym argumencie na tor
+ * wektora {@link LongVector} (4 tory dla AVX2, 8 dla AVX-512).
+ * <p>
+ * Liczby zapisane są w limbach co najwyżej 28-bitowych trzymanych w 64-bitowych torach, bo Vector API nie ma
+ * mnożenia 64x64 -&gt; 128 bitów - iloczyn dwóch limbów ma najwyżej 56 bitów, a nadmiar akumulatora pozwala
+ * odłożyć przeniesienia (zob. {@link #multiply}).
+ * Element to tablica {@code long[limbs * lanes]}, w której limb j toru l leży pod indeksem {@code j * lanes + l},
+ * więc każdy krok algorytmu to jedno załadowanie i jedna operacja wektorowa dla wszystkich torów.
+ * Ostatnie warunkowe odejmowanie wybiera wynik maską, bez rozgałęzień.
+ * <p>
+ * Klasa odwołuje się do modułu inkubacyjnego {@code jdk.incubator.vector}, dlatego ładuje ją wyłącznie
+ * {@link BatchModPow} po sprawdzeniu, że moduł jest dostępny. Nie jest bezpieczna wątkowo.
+ */
+final class VectorMontgomery {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int MAX_RADIX = 28;
+
+    private final BigInteger modulus;
+    private final int radix;       // liczba bitów limbu
+    private final long limbMask;
+    private final int limbs;
+    private final int lanes;
+    private final long[] n;        // limby modułu
+    private final long n0inv;      // -n^(-1) mod 2^radix
+    private final BigInteger r;    // R = 2^(radix*limbs) mod n
+    private final BigInteger rInverse;
+    private final long[] one;      // R mod n w układzie torów
+
+    // Bufory robocze
+    private final long[] t;
+    private long[][] table = new long[0][];
+    private final long[] accumulator;
+    private final long[] selected;
+
+    VectorMontgomery(BigInteger modulus) {
+        this.modulus = modulus;
+        int bits = modulus.bitLength();
+        // Największy limb, przy którym 2*limbs iloczynów i przeniesienie mieszczą się w akumulatorze 64-bitowym
+        int k = MAX_RADIX;
+        while (2 * k + 64 - Long.numberOfLeadingZeros(2L * ((bits + k - 1) / k)) > 64) {
+            k--;
+        }
+        this.radix = k;
+        this.limbMask = (1L << k) - 1;
+        this.limbs = (bits + k - 1) / k;
+        this.lanes = SPECIES.length();
+        this.n = new long[limbs];
+        for (int j = 0; j < limbs; j++) {
+            n[j] = modulus.shiftRight(k * j).longValue() & limbMask;
+        }
+        BigInteger twoToK = BigInteger.ONE.shiftLeft(k);
+        this.n0inv = BigInteger.valueOf(n[0]).modInverse(twoToK).negate().mod(twoToK).longValue();
+        this.r = BigInteger.ONE.shiftLeft(k * limbs).mod(modulus);
+        this.rInverse = r.modInverse(modulus);
+
+        int size = limbs * lanes;
+        this.t = new long[2 * limbs * lanes];
+        this.accumulator = new long[size];
+        this.selected = new long[size];
+        this.one = new long[size];
+        for (int l = 0; l < lanes; l++) {
+            store(r, one, l);
+        }
+    }
+
+    /** Liczba argumentów przetwarzanych naraz. */
+    int lanes() {
+        return lanes;
+    }
+
+    /** Liczba torów preferowanego rozmiaru wektora na tym procesorze. */
+    static int preferredLanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Liczy bases[from + l]^exponents[from + l] mod n dla l &lt; count (count &lt;= lanes) i zapisuje wyniki
+     * do results.
+     */
+    void modPow(BigInteger[] bases, BigInteger[] exponents, BigInteger[] results, int from, int count) {
+        int bits = 0;
+        for (int l = 0; l < count; l++) {
+            bits = Math.max(bits, exponents[from + l].bitLength());
+        }
+        int window = Math.max(1, Math.min(MontgomeryContext.windowSize(bits), 6));
+        if (table.length < 1 << window) {
+            table = new long[1 << window][limbs * lanes];
+        }
+        // table[d] = base^d w postaci Montgomery'ego; tory bez argumentu liczą 1^0
+        System.arraycopy(one, 0, table[0], 0, one.length);
+        for (int l = 0; l < lanes; l++) {
+            BigInteger base = l < count ? bases[from + l].mod(modulus) : BigInteger.ONE;
+            store(base.multiply(r).mod(modulus), table[1], l);
+        }
+        for (int d = 2; d < 1 << window; d++) {
+            multiply(table[d - 1], table[1], table[d]);
+        }
+
+        // Okno stałej szerokości: wszystkie tory podnoszą do kwadratu jednocześnie, a mnożą przez wpis
+        // tablicy wybrany osobno dla każdego toru
+        long[] acc = accumulator;
+        System.arraycopy(one, 0, acc, 0, acc.length);
+        int windows = (bits + window - 1) / window;
+        for (int w = windows - 1; w >= 0; w--) {
+            if (w != windows - 1) {
+                for (int k = 0; k < window; k++) {
+                    multiply(acc, acc, acc);
+                }
+            }
+            for (int l = 0; l < lanes; l++) {
+                int digit = l < count ? digit(exponents[from + l], w * window, window) : 0;
+                long[] entry = table[digit];
+                for (int j = 0; j < limbs; j++) {
+                    selected[j * lanes + l] = entry[j * lanes + l];
+                }
+            }
+            multiply(acc, selected, acc);
+        }
+
+        for (int l = 0; l < count; l++) {
+            results[from + l] = load(acc, l).multiply(rInverse).mod(modulus);
+        }
+    }
+
+    /**
+     * Mnożenie Montgomery'ego na wszystkich torach: out = a * b * R^(-1) mod n. Tablica out może być tożsama
+     * z a lub b.
+     * <p>
+     * Kolejność iloczynów jest kolumnowa: kolumna p sumuje wszystkie a[i]*b[p-i] i m[i]*n[p-i] w jednym
+     * akumulatorze bez przenoszenia (limby mają najwyżej {@code radix} bitów, więc 2*limbs iloczynów
+     * z przeniesieniem mieści się w 64 bitach), a przeniesienie do następnej kolumny jest jedno. Kolejne mnożenia
+     * są więc od siebie niezależne i nie czekają na łańcuch przeniesień, a akumulator nie wraca do pamięci.
+     */
+    void multiply(long[] a, long[] b, long[] out) {
+        if (a == b) {
+            square(a, out);
+            return;
+        }
+        final int s = limbs;
+        final int step = lanes;
+        final int k = radix;
+        final long mask = limbMask;
+        final long[] t = this.t;  // t[0..s) - współczynniki redukcji m, t[s..2s) - wynik
+        LongVector carry = LongVector.zero(SPECIES);
+        for (int p = 0; p < s; p++) {
+            LongVector sum = carry;
+            for (int i = 0; i < p; i++) {
+                sum = sum.add(LongVector.fromArray(SPECIES, a, i * step).mul(LongVector.fromArray(SPECIES, b, (p - i) * step)))
+                        .add(LongVector.fromArray(SPECIES, t, i * step).mul(n[p - i]));
+            }
+            sum = sum.add(LongVector.fromArray(SPECIES, a, p * step).mul(LongVector.fromArray(SPECIES, b, 0)));
+            // m dobrane tak, by kolumna po dodaniu m * n[0] była podzielna przez 2^radix
+            LongVector m = sum.mul(n0inv).and(mask);
+            m.intoArray(t, p * step);
+            carry = sum.add(m.mul(n[0])).lanewise(VectorOperators.LSHR, k);
+        }
+        for (int p = s; p < 2 * s; p++) {
+            LongVector sum = carry;
+            for (int i = p - s + 1; i < s; i++) {
+                sum = sum.add(LongVector.fromArray(SPECIES, a, i * step).mul(LongVector.fromArray(SPECIES, b, (p - i) * step)))
+                        .add(LongVector.fromArray(SPECIES, t, i * step).mul(n[p - i]));
+            }
+            sum.and(mask).intoArray(t, p * step);
+            carry = sum.lanewise(VectorOperators.LSHR, k);
+        }
+        reduce(carry, out);
+    }
+
+    /**
+     * Kwadrat Montgomery'ego: jak {@link #multiply}, ale iloczyny a[i]*a[p-i] i a[p-i]*a[i] liczone są raz
+     * i podwajane, co oszczędza prawie jedną czwartą mnożeń. Podwojony iloczyn liczy się w ograniczeniu
+     * akumulatora jako dwa iloczyny, więc ograniczenie się nie zmienia.
+     */
+    void square(long[] a, long[] out) {
+        final int s = limbs;
+        final int step = lanes;
+        final int k = radix;
+        final long mask = limbMask;
+        final long[] t = this.t;
+        LongVector carry = LongVector.zero(SPECIES);
+        for (int p = 0; p < 2 * s; p++) {
+            int low = Math.max(0, p - s + 1);
+            LongVector cross = LongVector.zero(SPECIES);
+            for (int i = low; i < p - i; i++) {
+                cross = cross.add(LongVector.fromArray(SPECIES, a, i * step).mul(LongVector.fromArray(SPECIES, a, (p - i) * step)));
+            }
+            LongVector sum = carry.add(cross.lanewise(VectorOperators.LSHL, 1));
+            if ((p & 1) == 0) {
+                LongVector middle = LongVector.fromArray(SPECIES, a, (p >>> 1) * step);
+                sum = sum.add(middle.mul(middle));
+            }
+            for (int i = low; i < Math.min(p, s); i++) {
+                sum = sum.add(LongVector.fromArray(SPECIES, t, i * step).mul(n[p - i]));
+            }
+            if (p < s) {
+                LongVector m = sum.mul(n0inv).and(mask);
+                m.intoArray(t, p * step);
+                carry = sum.add(m.mul(n[0])).lanewise(VectorOperators.LSHR, k);
+            } else {
+                sum.and(mask).intoArray(t, p * step);
+                carry = sum.lanewise(VectorOperators.LSHR, k);
+            }
+        }
+        reduce(carry, out);
+    }
+
+    /**
+     * Ostatni krok mnożenia: wynik t[s..2s) z przeniesieniem carry jest mniejszy od 2n, więc out = t - n tam,
+     * gdzie t &gt;= n, a w pozostałych torach out = t.
+     */
+    private void reduce(LongVector carry, long[] out) {
+        final int s = limbs;
+        final int step = lanes;
+        final long mask = limbMask;
+        final long[] t = this.t;
+        LongVector borrow = LongVector.zero(SPECIES);
+        for (int j = 0; j < s; j++) {
+            LongVector x = LongVector.fromArray(SPECIES, t, (s + j) * step).sub(n[j]).sub(borrow);
+            x.and(mask).intoArray(out, j * step);
+            borrow = x.lanewise(VectorOperators.LSHR, 63);
+        }
+        VectorMask<Long> keep = carry.compare(VectorOperators.EQ, 0).and(borrow.compare(VectorOperators.NE, 0));
+        for (int j = 0; j < s; j++) {
+            LongVector.fromArray(SPECIES, out, j * step)
+                    .blend(LongVector.fromArray(SPECIES, t, (s + j) * step), keep)
+                    .intoArray(out, j * step);
+        }
+    }
+
+    private static int digit(BigInteger exponent, int bit, int window) {
+        int digit = 0;
+        for (int k = window - 1; k >= 0; k--) {
+            digit = (digit << 1) | (exponent.testBit(bit + k) ? 1 : 0);
+        }
+        return digit;
+    }
+
+    private void store(BigInteger x, long[] element, int lane) {
+        for (int j = 0; j < limbs; j++) {
+            element[j * lanes + lane] = x.shiftRight(radix * j).longValue() & limbMask;
+        }
+    }
+
+    private BigInteger load(long[] element, int lane) {
+        BigInteger x = BigInteger.ZERO;
+        for (int j = limbs - 1; j >= 0; j--) {
+            x = x.shiftLeft(radix).or(BigInteger.valueOf(element[j * lanes + lane]));
+        }
+        return x;
+    }
+}
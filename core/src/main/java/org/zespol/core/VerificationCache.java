@@ -0,0 +1,215 @@
+package org.zespol.core;
+
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ograniczona pamięć podręczna wyników weryfikacji, indeksowana odciskiem klucza, skrótem wiadomości i (r, s).
+ * <p>
+ * Wpisy rozłożone są na {@value #STRIPES} niezależnych map LRU ({@link LinkedHashMap} w porządku dostępu),
+ * z osobnymi blokadami, więc równoległe wątki rzadko na siebie czekają, a każda mapa usuwa najdawniej
+ * używany wpis po przekroczeniu swojej części limitu. Powtórna weryfikacja tej samej trójki
+ * (klucz, wiadomość, podpis) kosztuje wtedy jedno haszowanie wiadomości i jedno wyszukanie.
+ * <p>
+ * Wyniki negatywne zapamiętywane są tylko na życzenie - przy ponawianiu żądań z celowo zmienianymi podpisami
+ * mogłyby wypierać wyniki pozytywne.
+ */
+public final class VerificationCache {
+    /** Liczba niezależnie blokowanych części pamięci podręcznej. */
+    public static final int STRIPES = 16;
+
+    private static final int FINGERPRINT_MEMO_SIZE = 1024;
+
+    private final int maxSize;
+    private final boolean cacheNegative;
+    private final Map<Key, Boolean>[] stripes;
+    private final Map<List<BigInteger>, byte[]> fingerprints = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize       Maksymalna liczba wpisów (co najmniej {@value #STRIPES}).
+     * @param cacheNegative Czy zapamiętywać również podpisy niepoprawne.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public VerificationCache(int maxSize, boolean cacheNegative) {
+        if (maxSize < STRIPES) {
+            throw new IllegalArgumentException("Rozmiar pamięci podręcznej musi wynosić co najmniej " + STRIPES + ".");
+        }
+        this.maxSize = maxSize;
+        this.cacheNegative = cacheNegative;
+        int stripeSize = maxSize / STRIPES;
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                    return size() > stripeSize;
+                }
+            };
+        }
+    }
+
+    /**
+     * Zwraca zapamiętany wynik weryfikacji.
+     *
+     * @param publicKey Klucz publiczny [p, g, y].
+     * @param digest    Skrót wiadomości.
+     * @param signature Podpis [r, s].
+     * @return Wynik lub null, jeśli go nie zapamiętano.
+     */
+    public Boolean get(List<BigInteger> publicKey, byte[] digest, List<BigInteger> signature) {
+        return lookup(new Key(fingerprint(publicKey), digest, signature.get(0), signature.get(1)));
+    }
+
+    /**
+     * Zwraca zapamiętany wynik weryfikacji; odcisk klucza jest pamiętany w obiekcie klucza.
+     *
+     * @return Wynik lub null, jeśli go nie zapamiętano.
+     */
+    public Boolean get(ElGamalPublicKey publicKey, byte[] digest, ElGamalSignature signature) {
+        return lookup(new Key(publicKey.fingerprintBytes(), digest, signature.getR(), signature.getS()));
+    }
+
+    private Boolean lookup(Key key) {
+        Map<Key, Boolean> stripe = stripeFor(key);
+        Boolean result;
+        synchronized (stripe) {
+            result = stripe.get(key);
+        }
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Zapamiętuje wynik weryfikacji (negatywny tylko, jeśli włączono zapamiętywanie wyników negatywnych).
+     */
+    public void put(List<BigInteger> publicKey, byte[] digest, List<BigInteger> signature, boolean valid) {
+        if (!valid && !cacheNegative) {
+            return;
+        }
+        store(new Key(fingerprint(publicKey), digest.clone(), signature.get(0), signature.get(1)), valid);
+    }
+
+    /**
+     * Zapamiętuje wynik weryfikacji (negatywny tylko, jeśli włączono zapamiętywanie wyników negatywnych).
+     */
+    public void put(ElGamalPublicKey publicKey, byte[] digest, ElGamalSignature signature, boolean valid) {
+        if (!valid && !cacheNegative) {
+            return;
+        }
+        store(new Key(publicKey.fingerprintBytes(), digest.clone(), signature.getR(), signature.getS()), valid);
+    }
+
+    private void store(Key key, boolean valid) {
+        Map<Key, Boolean> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, valid);
+        }
+    }
+
+    /** Liczba trafień od utworzenia lub ostatniego {@link #clear()}. */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** Liczba chybień od utworzenia lub ostatniego {@link #clear()}. */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** Bieżąca liczba wpisów. */
+    public int size() {
+        int size = 0;
+        for (Map<Key, Boolean> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /** Maksymalna liczba wpisów. */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Czy zapamiętywane są wyniki negatywne. */
+    public boolean isCachingNegative() {
+        return cacheNegative;
+    }
+
+    /** Usuwa wszystkie wpisy i zeruje liczniki. */
+    public void clear() {
+        for (Map<Key, Boolean> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        fingerprints.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    private Map<Key, Boolean> stripeFor(Key key) {
+        int h = key.hash;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /** Odcisk klucza, zapamiętywany dla ostatnio używanych kluczy, żeby nie haszować (p, g, y) przy każdym wywołaniu. */
+    private byte[] fingerprint(List<BigInteger> publicKey) {
+        byte[] fingerprint = fingerprints.get(publicKey);
+        if (fingerprint == null) {
+            try {
+                fingerprint = KeyFingerprint.of(publicKey);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorytm SHA-256 nie jest dostępny.", e);
+            }
+            if (fingerprints.size() >= FINGERPRINT_MEMO_SIZE) {
+                fingerprints.clear();
+            }
+            fingerprints.put(List.copyOf(publicKey), fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static final class Key {
+        private final byte[] fingerprint;
+        private final byte[] digest;
+        private final BigInteger r;
+        private final BigInteger s;
+        private final int hash;
+
+        Key(byte[] fingerprint, byte[] digest, BigInteger r, BigInteger s) {
+            this.fingerprint = fingerprint;
+            this.digest = digest;
+            this.r = r;
+            this.s = s;
+            this.hash = 31 * (31 * Arrays.hashCode(digest) + r.hashCode()) + s.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return hash == other.hash && r.equals(other.r) && s.equals(other.s)
+                    && Arrays.equals(digest, other.digest) && Arrays.equals(fingerprint, other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
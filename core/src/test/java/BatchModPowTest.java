@@ -0,0 +1,79 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.BatchModPow;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.StandardGroup;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchModPowTest {
+    @Test
+    public void matchesBigIntegerModPow() {
+        SecureRandom random = new SecureRandom();
+        // Ścieżka wektorowa działa tylko z --add-modules jdk.incubator.vector; bez niego test sprawdza ścieżkę skalarną
+        for (BigInteger modulus : new BigInteger[]{StandardGroup.FFDHE_2048.getP(),
+                BigInteger.probablePrime(1031, random), BigInteger.probablePrime(61, random)}) {
+            BatchModPow batch = new BatchModPow(modulus);
+            int count = 3 * batch.getLanes() + 5; // pełne grupy torów i reszta liczona skalarnie
+            BigInteger[] bases = new BigInteger[count];
+            BigInteger[] exponents = new BigInteger[count];
+            for (int i = 0; i < count; i++) {
+                bases[i] = new BigInteger(modulus.bitLength() + 8, random); // także podstawy większe od modułu
+                exponents[i] = new BigInteger(1 + random.nextInt(modulus.bitLength()), random);
+            }
+            bases[1] = BigInteger.ZERO;
+            bases[2] = modulus.subtract(BigInteger.ONE);
+            exponents[3] = BigInteger.ZERO;
+            exponents[4] = BigInteger.valueOf(-3); // ujemny wykładnik - odwrotność, jak w BigInteger
+            bases[4] = BigInteger.TWO;
+
+            BigInteger[] results = batch.modPow(bases, exponents);
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(bases[i].modPow(exponents[i], modulus), results[i]);
+            }
+        }
+        // Parzysty moduł zawsze liczony skalarnie
+        BatchModPow even = new BatchModPow(BigInteger.valueOf(1L << 40));
+        Assert.assertFalse(even.isVectorized());
+        Assert.assertArrayEquals(new BigInteger[]{BigInteger.valueOf(3).modPow(BigInteger.TEN, BigInteger.valueOf(1L << 40))},
+                even.modPow(new BigInteger[]{BigInteger.valueOf(3)}, new BigInteger[]{BigInteger.TEN}));
+    }
+
+    @Test
+    public void vectorizedBatchVerificationGivesSameResults() throws NoSuchAlgorithmException {
+        // p, które nie jest bezpieczną liczbą pierwszą - partia weryfikowana pojedynczo, r^s liczone razem
+        ElGamalParameters parameters = ElGamalParameters.of(BigInteger.probablePrime(512, new SecureRandom()), BigInteger.TWO);
+        ElGamal gamal = new ElGamal();
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(parameters);
+
+        List<byte[]> messages = new ArrayList<>();
+        List<ElGamalSignature> signatures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            byte[] message = ("wiadomość " + i).getBytes(StandardCharsets.UTF_8);
+            messages.add(message);
+            signatures.add(gamal.sign(message, privateKey));
+        }
+        ElGamalSignature valid = signatures.get(7);
+        signatures.set(7, new ElGamalSignature(valid.getR(), valid.getS().add(BigInteger.ONE)));
+        // Podpisy poza zakresem: r = p oraz s = p-1 - odrzucane przed potęgowaniem partii
+        BigInteger p = parameters.getP();
+        signatures.set(3, new ElGamalSignature(p, signatures.get(3).getS()));
+        signatures.set(12, new ElGamalSignature(signatures.get(12).getR(), p.subtract(BigInteger.ONE)));
+
+        boolean[] scalar = gamal.verifyBatch(messages, signatures, privateKey.getPublicKey());
+        gamal.setVectorizedBatches(true);
+        boolean[] vectorized = gamal.verifyBatch(messages, signatures, privateKey.getPublicKey());
+        Assert.assertArrayEquals(scalar, vectorized);
+        for (int i = 0; i < scalar.length; i++) {
+            Assert.assertEquals(i != 3 && i != 7 && i != 12, scalar[i]);
+        }
+    }
+}
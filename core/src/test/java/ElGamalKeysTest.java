@@ -0,0 +1,133 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.StandardGroup;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ElGamalKeysTest {
+    @Test
+    public void typedAndListApisInteroperate() throws NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        ElGamalParameters parameters = ElGamalParameters.of(StandardGroup.FFDHE_2048);
+        Assert.assertEquals(parameters.getP().subtract(BigInteger.ONE), parameters.getPMinusOne());
+        Assert.assertEquals(2048, parameters.getBitLength());
+
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(parameters);
+        ElGamalPublicKey publicKey = privateKey.getPublicKey();
+        byte[] message = "wiadomość".getBytes(StandardCharsets.UTF_8);
+
+        // Podpis z API typów, weryfikacja przez API list - i odwrotnie
+        ElGamalSignature signature = gamal.sign(message, privateKey);
+        Assert.assertTrue(gamal.verify(message, signature.toList(), publicKey.toList()));
+        List<BigInteger> listSignature = gamal.sign(message, privateKey.getX(), parameters.toList());
+        Assert.assertTrue(gamal.verify(message, ElGamalSignature.of(listSignature), publicKey));
+        Assert.assertEquals(publicKey.toList(), gamal.generatePublicKey(parameters.toList(), privateKey.getX()));
+
+        // Po kilkunastu weryfikacjach klucz buduje tablicę dla y - wyniki muszą pozostać te same
+        ElGamalSignature forged = new ElGamalSignature(signature.getR(), signature.getS().add(BigInteger.ONE));
+        for (int i = 0; i < ElGamalPublicKey.TABLE_THRESHOLD + 2; i++) {
+            Assert.assertTrue(gamal.verify(message, signature, publicKey));
+            Assert.assertFalse(gamal.verify(message, forged, publicKey));
+        }
+
+        List<byte[]> messages = new ArrayList<>();
+        List<ElGamalSignature> signatures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            byte[] m = ("wiadomość " + i).getBytes(StandardCharsets.UTF_8);
+            messages.add(m);
+            signatures.add(gamal.sign(m, privateKey));
+        }
+        signatures.set(5, forged);
+        boolean[] results = gamal.verifyBatch(messages, signatures, publicKey);
+        for (int i = 0; i < results.length; i++) {
+            Assert.assertEquals(i != 5, results[i]);
+        }
+    }
+
+    @Test
+    public void keyTablesShareMemoryLimit() throws NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        ElGamalParameters parameters = ElGamalParameters.of(BigInteger.probablePrime(512, new SecureRandom()), BigInteger.TWO);
+        byte[] message = "wiadomość".getBytes(StandardCharsets.UTF_8);
+        List<ElGamalPrivateKey> keys = new ArrayList<>();
+        List<ElGamalSignature> signatures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(gamal.generatePrivateKey(parameters));
+            signatures.add(gamal.sign(message, keys.get(i)));
+        }
+        try {
+            ElGamalPublicKey.setTableMemoryLimit(0); // zwalnia tablice kluczy z innych testów
+            Assert.assertEquals(0, ElGamalPublicKey.getTableMemoryUsed());
+            ElGamalPublicKey.setTableMemoryLimit(ElGamalPublicKey.DEFAULT_TABLE_MEMORY_LIMIT);
+            verifyRepeatedly(gamal, message, signatures.get(0), keys.get(0).getPublicKey());
+            long tableSize = ElGamalPublicKey.getTableMemoryUsed();
+            Assert.assertTrue(tableSize > 0);
+
+            // Miejsce na dwie tablice - trzecia zwalnia tablicę najdawniej używanego klucza
+            ElGamalPublicKey.setTableMemoryLimit(2 * tableSize);
+            for (int i = 1; i < 3; i++) {
+                verifyRepeatedly(gamal, message, signatures.get(i), keys.get(i).getPublicKey());
+                Assert.assertTrue(ElGamalPublicKey.getTableMemoryUsed() <= 2 * tableSize);
+            }
+            Assert.assertEquals(2 * tableSize, ElGamalPublicKey.getTableMemoryUsed());
+            // Klucz bez tablicy nadal weryfikuje poprawnie
+            verifyRepeatedly(gamal, message, signatures.get(0), keys.get(0).getPublicKey());
+            Assert.assertEquals(2 * tableSize, ElGamalPublicKey.getTableMemoryUsed());
+
+            // Tablica z precompute() nie wlicza się do limitu
+            keys.get(3).getPublicKey().precompute();
+            Assert.assertEquals(2 * tableSize, ElGamalPublicKey.getTableMemoryUsed());
+            verifyRepeatedly(gamal, message, signatures.get(3), keys.get(3).getPublicKey());
+
+            ElGamalPublicKey.setTableMemoryLimit(0);
+            Assert.assertEquals(0, ElGamalPublicKey.getTableMemoryUsed());
+            verifyRepeatedly(gamal, message, signatures.get(1), keys.get(1).getPublicKey());
+            Assert.assertEquals(0, ElGamalPublicKey.getTableMemoryUsed());
+            Assert.assertThrows(IllegalArgumentException.class, () -> ElGamalPublicKey.setTableMemoryLimit(-1));
+        } finally {
+            ElGamalPublicKey.setTableMemoryLimit(ElGamalPublicKey.DEFAULT_TABLE_MEMORY_LIMIT);
+        }
+    }
+
+    private static void verifyRepeatedly(ElGamal gamal, byte[] message, ElGamalSignature signature, ElGamalPublicKey publicKey)
+            throws NoSuchAlgorithmException {
+        ElGamalSignature forged = new ElGamalSignature(signature.getR(), signature.getS().add(BigInteger.ONE));
+        for (int i = 0; i < ElGamalPublicKey.TABLE_THRESHOLD + 2; i++) {
+            Assert.assertTrue(gamal.verify(message, signature, publicKey));
+            Assert.assertFalse(gamal.verify(message, forged, publicKey));
+        }
+    }
+
+    @Test
+    public void rejectsOutOfRangeValues() {
+        ElGamalParameters parameters = ElGamalParameters.of(BigInteger.valueOf(23), BigInteger.valueOf(5));
+        try {
+            new ElGamalPrivateKey(parameters, BigInteger.valueOf(22));
+            Assert.fail("x = p-1 powinno zostać odrzucone");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new ElGamalPublicKey(parameters, BigInteger.valueOf(23));
+            Assert.fail("y = p powinno zostać odrzucone");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            ElGamalParameters.of(BigInteger.valueOf(23), BigInteger.ONE);
+            Assert.fail("g = 1 powinno zostać odrzucone");
+        } catch (IllegalArgumentException expected) {
+        }
+        // toString() nie ujawnia x (17 = 0x11)
+        String description = new ElGamalPrivateKey(parameters, BigInteger.valueOf(17)).toString();
+        Assert.assertFalse(description.contains("17") || description.contains("11"));
+    }
+}
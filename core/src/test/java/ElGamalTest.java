@@ -1,13 +1,31 @@
 import org.junit.Assert;
 import org.junit.Test;
 import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.ProgressListener;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ElGamalTest {
     @Test
@@ -31,6 +49,18 @@ public class ElGamalTest {
         }
     }
 
+    /** Tworzy tymczasowy plik plik.pdf (ok. 1 MB losowych danych z nagłówkiem PDF). */
+    private static Path samplePdf() throws IOException {
+        Path file = Files.createTempDirectory("elgamal-test").resolve("plik.pdf");
+        byte[] content = new byte[1 << 20];
+        new SecureRandom().nextBytes(content);
+        byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, content, 0, header.length);
+        Files.write(file, content);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
     @Test
     public void pdfTest() {
         ElGamal gamal = new ElGamal();
@@ -39,7 +69,7 @@ public class ElGamalTest {
         List<BigInteger> publicKey = gamal.generatePublicKey(params, privateKey);
         List<BigInteger> signature;
         boolean result1, result2;
-        try (FileInputStream inputStream = new FileInputStream("./plik.pdf")) {
+        try (FileInputStream inputStream = new FileInputStream(samplePdf().toFile())) {
             byte[] message = inputStream.readAllBytes();
             signature = gamal.sign(message, privateKey, params);
             result1 = gamal.verify(message, signature, publicKey);
@@ -51,4 +81,151 @@ public class ElGamalTest {
             throw new RuntimeException(e);
         }
     }
+
+    @Test
+    public void fileDigestReportsProgressAndCancels() throws IOException, NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        Path file = samplePdf();
+        long size = Files.size(file);
+        AtomicLong done = new AtomicLong();
+        byte[] digest = gamal.digest(file, (processed, total) -> {
+            Assert.assertEquals(size, total);
+            done.set(processed);
+        });
+        Assert.assertArrayEquals(gamal.digest(Files.readAllBytes(file)), digest);
+        Assert.assertEquals(size, done.get());
+
+        Thread.currentThread().interrupt();
+        try {
+            gamal.digest(file, ProgressListener.NONE);
+            Assert.fail("Przerwany wątek powinien zakończyć haszowanie");
+        } catch (CancellationException expected) {
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void overloadsMatchByteArray() throws IOException, NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(
+                ElGamalParameters.of(BigInteger.probablePrime(512, new SecureRandom()), BigInteger.TWO));
+        ElGamalPublicKey publicKey = privateKey.getPublicKey();
+        // Granice odczytu zwykłego (64 KiB) i mapowanego; ostatni plik zajmuje więcej niż jeden fragment (64 MiB)
+        long[] sizes = {0, 1000, 64 * 1024, 64 * 1024 + 1, (64L << 20) + 12345};
+        Path directory = Files.createTempDirectory("elgamal-test");
+        for (long size : sizes) {
+            Path file = directory.resolve("dane" + size);
+            try {
+                writePattern(file, size);
+                byte[] message = Files.readAllBytes(file);
+                byte[] expected = gamal.digest(message);
+                String label = "rozmiar " + size;
+
+                try (InputStream in = Files.newInputStream(file)) {
+                    Assert.assertArrayEquals(label, expected, gamal.digest(in));
+                }
+                try (FileChannel channel = FileChannel.open(file)) {
+                    Assert.assertArrayEquals(label, expected, gamal.digest(channel));
+                }
+                Assert.assertArrayEquals(label, expected, gamal.digest(file));
+                Assert.assertArrayEquals(label, expected, gamal.digest(file, (processed, total) -> { }));
+
+                // Podpis z każdej przeciążonej wersji przechodzi weryfikację na tablicy bajtów i odwrotnie
+                List<ElGamalSignature> signatures = new ArrayList<>();
+                signatures.add(gamal.sign(message, privateKey));
+                try (InputStream in = Files.newInputStream(file)) {
+                    signatures.add(gamal.sign(in, privateKey));
+                }
+                try (ReadableByteChannel channel = Channels.newChannel(Files.newInputStream(file))) {
+                    signatures.add(gamal.sign(channel, privateKey));
+                }
+                signatures.add(gamal.sign(file, privateKey));
+                signatures.add(gamal.signDigest(expected, privateKey));
+                for (ElGamalSignature signature : signatures) {
+                    Assert.assertTrue(label, gamal.verify(message, signature, publicKey));
+                    Assert.assertTrue(label, gamal.verifyDigest(expected, signature, publicKey));
+                }
+                ElGamalSignature signature = signatures.get(0);
+                try (InputStream in = Files.newInputStream(file)) {
+                    Assert.assertTrue(label, gamal.verify(in, signature, publicKey));
+                }
+                try (FileChannel channel = FileChannel.open(file)) {
+                    Assert.assertTrue(label, gamal.verify(channel, signature, publicKey));
+                }
+                Assert.assertTrue(label, gamal.verify(file, signature, publicKey));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        // Zmiana ostatniego bajtu za granicą pierwszego fragmentu musi zmienić skrót
+        Path file = directory.resolve("zmieniony");
+        try {
+            writePattern(file, (64L << 20) + 1);
+            byte[] before = gamal.digest(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[]{42}), 64L << 20);
+            }
+            Assert.assertFalse(Arrays.equals(before, gamal.digest(file)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Zapisuje plik o podanym rozmiarze z powtarzalną, niejednorodną zawartością. */
+    private static void writePattern(Path file, long size) throws IOException {
+        byte[] block = new byte[1 << 20];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) (i * 31 + (i >>> 8));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = 0;
+            while (written < size) {
+                block[0] = (byte) (written >>> 20); // kolejne bloki różnią się od siebie
+                ByteBuffer buffer = ByteBuffer.wrap(block, 0, (int) Math.min(block.length, size - written));
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void batchTest() throws NoSuchAlgorithmException {
+        SecureRandom random = new SecureRandom();
+        BigInteger q, p;
+        do {
+            q = BigInteger.probablePrime(255, random);
+            p = q.shiftLeft(1).add(BigInteger.ONE);
+        } while (!p.isProbablePrime(50));
+        List<BigInteger> params = List.of(p, BigInteger.TWO);
+
+        ElGamal gamal = new ElGamal();
+        BigInteger privateKey = gamal.generatePrivateKey(params);
+        List<BigInteger> publicKey = gamal.generatePublicKey(params, privateKey);
+
+        List<byte[]> messages = new ArrayList<>();
+        List<List<BigInteger>> signatures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            byte[] message = ("Wiadomość " + i).getBytes(StandardCharsets.UTF_8);
+            messages.add(message);
+            signatures.add(gamal.sign(message, privateKey, params));
+        }
+        boolean[] expected = new boolean[messages.size()];
+        Arrays.fill(expected, true);
+
+        // Zmieniona wiadomość
+        messages.set(5, "Inna wiadomość".getBytes(StandardCharsets.UTF_8));
+        expected[5] = false;
+        // s przesunięte o (p-1)/2 - błąd rzędu 2, który sam test kombinacji liniowej mógłby przepuścić
+        for (int i : new int[]{12, 13}) {
+            BigInteger r = signatures.get(i).get(0);
+            BigInteger s = signatures.get(i).get(1).add(q).mod(p.subtract(BigInteger.ONE));
+            signatures.set(i, List.of(r, s));
+            expected[i] = gamal.verify(messages.get(i), signatures.get(i), publicKey);
+        }
+
+        Assert.assertArrayEquals(expected, gamal.verifyBatch(messages, signatures, publicKey));
+    }
 }
@@ -0,0 +1,26 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.FixedBaseTable;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+public class FixedBaseTableTest {
+    @Test
+    public void matchesModPow() {
+        SecureRandom random = new SecureRandom();
+        BigInteger p = BigInteger.probablePrime(512, random);
+        BigInteger g = BigInteger.TWO;
+        for (int window = 1; window <= 8; window++) {
+            FixedBaseTable table = new FixedBaseTable(g, p, window);
+            Assert.assertEquals(BigInteger.ONE, table.pow(BigInteger.ZERO));
+            for (int i = 0; i < 20; i++) {
+                BigInteger e = new BigInteger(511, random);
+                Assert.assertEquals(g.modPow(e, p), table.pow(e));
+            }
+            // Wykładnik dłuższy niż tablica jest redukowany modulo p-1
+            BigInteger big = new BigInteger(1500, random);
+            Assert.assertEquals(g.modPow(big, p), table.pow(big));
+        }
+    }
+}
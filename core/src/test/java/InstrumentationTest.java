@@ -0,0 +1,97 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.Instrumentation;
+import org.zespol.core.Instrumentation.Operation;
+import org.zespol.core.JfrInstrumentation;
+import org.zespol.core.LatencyHistogram;
+import org.zespol.core.MetricsRecorder;
+import org.zespol.core.StandardGroup;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+public class InstrumentationTest {
+    @Test
+    public void metricsRecorderCountsOperations() throws NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        MetricsRecorder metrics = new MetricsRecorder();
+        gamal.setInstrumentation(metrics);
+
+        ElGamalParameters parameters = ElGamalParameters.of(StandardGroup.FFDHE_2048);
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(parameters);
+        byte[] message = "wiadomość".getBytes(StandardCharsets.UTF_8);
+        ElGamalSignature signature = gamal.sign(message, privateKey);
+        ElGamalSignature forged = new ElGamalSignature(signature.getR(), signature.getS().add(BigInteger.ONE));
+        Assert.assertTrue(gamal.verify(message, signature, privateKey.getPublicKey()));
+        Assert.assertFalse(gamal.verify(message, forged, privateKey.getPublicKey()));
+
+        Assert.assertEquals(1, metrics.getCount(Operation.PRIVATE_KEY_GENERATION));
+        Assert.assertEquals(1, metrics.getCount(Operation.SIGN));
+        Assert.assertEquals(1, metrics.getModExps(Operation.SIGN));
+        Assert.assertEquals(2, metrics.getCount(Operation.VERIFY));
+        Assert.assertEquals(1, metrics.getFailures(Operation.VERIFY));
+        Assert.assertEquals(6, metrics.getModExps(Operation.VERIFY));
+        LatencyHistogram histogram = metrics.getHistogram(Operation.VERIFY, 2048);
+        Assert.assertEquals(2, histogram.getCount());
+        Assert.assertTrue(histogram.getPercentile(0.5) > 0);
+        Assert.assertTrue(histogram.getPercentile(1.0) <= histogram.getMax());
+        Assert.assertNull(metrics.getHistogram(Operation.VERIFY, 3072));
+        Assert.assertTrue(metrics.summary().contains("VERIFY"));
+
+        // Po wyłączeniu pomiarów liczniki nie rosną
+        gamal.setInstrumentation(null);
+        gamal.verify(message, signature, privateKey.getPublicKey());
+        Assert.assertEquals(2, metrics.getCount(Operation.VERIFY));
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getCount(Operation.SIGN));
+    }
+
+    @Test
+    public void histogramPercentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        long median = histogram.getPercentile(0.5);
+        Assert.assertTrue(median >= 500_000 && median <= 500_000 * 9 / 8);
+        Assert.assertEquals(1_000_000, histogram.getPercentile(1.0));
+        Assert.assertEquals(500_500, histogram.getMean(), 1e-6);
+    }
+
+    @Test
+    public void jfrEventsAreRecorded() throws IOException, NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        MetricsRecorder metrics = new MetricsRecorder();
+        gamal.setInstrumentation(Instrumentation.of(metrics, new JfrInstrumentation()));
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+
+        Path file = Files.createTempFile("elgamal", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrInstrumentation.OPERATION_EVENT);
+            recording.start();
+            gamal.sign("wiadomość".getBytes(StandardCharsets.UTF_8), privateKey);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        long signEvents = events.stream()
+                .filter(e -> e.getEventType().getName().equals(JfrInstrumentation.OPERATION_EVENT))
+                .filter(e -> e.getString("operation").equals("SIGN"))
+                .count();
+        Assert.assertEquals(1, signEvents);
+        Assert.assertEquals(1, metrics.getCount(Operation.SIGN));
+    }
+}
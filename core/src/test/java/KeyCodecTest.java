@@ -0,0 +1,79 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.KeyCodec;
+import org.zespol.core.StandardGroup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class KeyCodecTest {
+    @Test
+    public void binaryRoundTrip() {
+        BigInteger p = StandardGroup.MODP_2048.getP();
+        List<BigInteger> publicKey = List.of(p, BigInteger.TWO, p.subtract(BigInteger.TEN));
+        List<BigInteger> signature = List.of(BigInteger.ZERO, p.shiftRight(1));
+
+        // Kilka rekordów jeden za drugim w buforze bezpośrednim (jak w pliku mapowanym)
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        KeyCodec.encode(KeyCodec.Kind.PUBLIC_KEY, publicKey, buffer);
+        KeyCodec.encode(KeyCodec.Kind.SIGNATURE, signature, buffer);
+        Assert.assertEquals(KeyCodec.encodedLength(KeyCodec.Kind.PUBLIC_KEY, publicKey)
+                + KeyCodec.encodedLength(KeyCodec.Kind.SIGNATURE, signature), buffer.position());
+        buffer.flip();
+
+        Assert.assertEquals(KeyCodec.Kind.PUBLIC_KEY, KeyCodec.peekKind(buffer));
+        Assert.assertEquals(publicKey, KeyCodec.decode(KeyCodec.Kind.PUBLIC_KEY, buffer));
+        Assert.assertEquals(signature, KeyCodec.decode(KeyCodec.Kind.SIGNATURE, buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+
+        byte[] encoded = KeyCodec.encode(KeyCodec.Kind.SIGNATURE, signature);
+        Assert.assertEquals(signature, KeyCodec.decode(KeyCodec.Kind.SIGNATURE, ByteBuffer.wrap(encoded)));
+    }
+
+    @Test
+    public void rejectsMalformedRecords() {
+        List<BigInteger> signature = List.of(BigInteger.valueOf(12345), BigInteger.valueOf(678));
+        byte[] encoded = KeyCodec.encode(KeyCodec.Kind.SIGNATURE, signature);
+
+        ByteBuffer truncated = ByteBuffer.wrap(encoded, 0, encoded.length - 1);
+        try {
+            KeyCodec.decode(KeyCodec.Kind.SIGNATURE, truncated);
+            Assert.fail("Ucięty rekord powinien zostać odrzucony");
+        } catch (IllegalArgumentException expected) {
+            Assert.assertEquals(0, truncated.position());
+        }
+        try {
+            KeyCodec.decode(KeyCodec.Kind.PUBLIC_KEY, ByteBuffer.wrap(encoded));
+            Assert.fail("Rekord innego rodzaju powinien zostać odrzucony");
+        } catch (IllegalArgumentException expected) {
+        }
+        Assert.assertNull(KeyCodec.peekKind(ByteBuffer.wrap("r=ff".getBytes())));
+    }
+
+    @Test
+    public void hexImportExport() throws IOException {
+        List<BigInteger> privateKey = List.of(BigInteger.valueOf(23), BigInteger.valueOf(5), BigInteger.valueOf(7));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        KeyCodec.writeHex(KeyCodec.Kind.PRIVATE_KEY, privateKey, out);
+        Assert.assertEquals(privateKey, KeyCodec.readHex(KeyCodec.Kind.PRIVATE_KEY, new ByteArrayInputStream(out.toByteArray())));
+
+        // read() rozpoznaje format po nagłówku
+        Path hex = Files.createTempFile("key", ".txt");
+        Path binary = Files.createTempFile("key", ".key");
+        try {
+            KeyCodec.write(KeyCodec.Kind.PRIVATE_KEY, privateKey, hex, true);
+            KeyCodec.write(KeyCodec.Kind.PRIVATE_KEY, privateKey, binary, false);
+            Assert.assertEquals(privateKey, KeyCodec.read(KeyCodec.Kind.PRIVATE_KEY, hex));
+            Assert.assertEquals(privateKey, KeyCodec.read(KeyCodec.Kind.PRIVATE_KEY, binary));
+        } finally {
+            Files.deleteIfExists(hex);
+            Files.deleteIfExists(binary);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.KeyCodec;
+import org.zespol.core.LogCheckpoint;
+import org.zespol.core.LogSigner;
+import org.zespol.core.LogVerifier;
+import org.zespol.core.StandardGroup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogSignerTest {
+    @Test
+    public void checkpointsChainAndVerifyIncrementally() throws IOException, NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+        Path log = Files.createTempFile("audit", ".log");
+        try {
+            LogSigner signer = new LogSigner(gamal, privateKey);
+            List<LogCheckpoint> checkpoints = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                append(log, "wpis " + i + "\n");
+                checkpoints.add(signer.checkpoint(log));
+            }
+            Assert.assertEquals(3, checkpoints.get(2).getSequence());
+            Assert.assertEquals(Files.size(log), checkpoints.get(2).getOffset());
+            // Punkt zapisany w pliku odczytuje się bez zmian
+            Assert.assertEquals(checkpoints.get(1), LogCheckpoint.of(KeyCodec.decode(KeyCodec.Kind.LOG_CHECKPOINT,
+                    ByteBuffer.wrap(checkpoints.get(1).encode()))));
+
+            LogVerifier verifier = new LogVerifier(gamal, privateKey.getPublicKey(), LogCheckpoint.GENESIS);
+            Assert.assertEquals(3, verifier.advanceAll(log, checkpoints));
+
+            // Wznowienie po restarcie: nowy podpisujący i weryfikujący startują od ostatniego punktu
+            LogSigner resumed = new LogSigner(gamal, privateKey, checkpoints.get(2));
+            byte[] entry = "wpis 3\n".getBytes(StandardCharsets.UTF_8);
+            append(log, "wpis 3\n");
+            resumed.update(entry, 0, entry.length);
+            LogCheckpoint fourth = resumed.checkpoint();
+            Assert.assertEquals(checkpoints.get(2).getOffset() + entry.length, fourth.getOffset());
+
+            LogVerifier resumedVerifier = new LogVerifier(gamal, privateKey.getPublicKey(), checkpoints.get(2));
+            Assert.assertFalse(resumedVerifier.advance(ByteBuffer.wrap("wpis X\n".getBytes(StandardCharsets.UTF_8)), fourth));
+            Assert.assertTrue(resumedVerifier.advance(log, fourth));
+            Assert.assertEquals(fourth, resumedVerifier.getTrusted());
+        } finally {
+            Files.delete(log);
+        }
+    }
+
+    @Test
+    public void rejectsRewrittenHistory() throws IOException, NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+        Path log = Files.createTempFile("audit", ".log");
+        try {
+            LogSigner signer = new LogSigner(gamal, privateKey);
+            append(log, "pierwszy\n");
+            LogCheckpoint first = signer.checkpoint(log);
+            append(log, "drugi\n");
+            LogCheckpoint second = signer.checkpoint(log);
+
+            // Podmiana bajtu w pierwszym segmencie psuje pierwszy punkt, a bez niego nie da się sprawdzić drugiego
+            byte[] content = Files.readAllBytes(log);
+            content[0] = 'P';
+            Files.write(log, content);
+            LogVerifier verifier = new LogVerifier(gamal, privateKey.getPublicKey(), LogCheckpoint.GENESIS);
+            Assert.assertEquals(0, verifier.advanceAll(log, List.of(first, second)));
+            Assert.assertFalse(verifier.advance(log, second));
+
+            Files.write(log, new byte[3]);
+            try {
+                signer.checkpoint(log);
+                Assert.fail("Skrócony dziennik powinien zostać odrzucony");
+            } catch (IllegalStateException expected) {
+            }
+        } finally {
+            Files.delete(log);
+        }
+    }
+
+    private static void append(Path log, String entry) throws IOException {
+        Files.writeString(log, entry, StandardOpenOption.APPEND);
+    }
+}
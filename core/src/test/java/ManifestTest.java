@@ -0,0 +1,109 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.Manifest;
+import org.zespol.core.ManifestIndex;
+import org.zespol.core.StandardGroup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ManifestTest {
+    @Test
+    public void signsDirectoryAndRehashesOnlyChangedFiles() throws IOException, NoSuchAlgorithmException {
+        Path root = Files.createTempDirectory("manifest");
+        Path indexFile = Files.createTempFile("manifest", ".idx");
+        try {
+            Files.createDirectories(root.resolve("a/b"));
+            for (int i = 0; i < 20; i++) {
+                write(root.resolve(i % 2 == 0 ? "a/plik" + i : "a/b/plik" + i), "zawartość " + i);
+            }
+            write(root.resolve("duzy.bin"), "x".repeat(200_000));
+
+            ManifestIndex index = new ManifestIndex();
+            Manifest manifest = Manifest.build(root, index);
+            Assert.assertEquals(21, manifest.size());
+            Assert.assertEquals(21, index.getMisses());
+            Assert.assertEquals(manifest, Manifest.decode(manifest.encode()));
+            Assert.assertEquals(Manifest.build(root), manifest);
+            index.save(indexFile);
+
+            ElGamal gamal = new ElGamal();
+            ElGamalPrivateKey privateKey = gamal.generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+            ElGamalSignature signature = gamal.signManifest(manifest, privateKey);
+            Assert.assertTrue(gamal.verifyManifest(manifest, signature, privateKey.getPublicKey()));
+
+            // Zmiana jednego pliku: ponownie haszowany jest tylko on
+            write(root.resolve("a/b/plik3"), "zmieniona zawartość");
+            ManifestIndex loaded = ManifestIndex.load(indexFile);
+            Manifest changed = Manifest.build(root, loaded);
+            Assert.assertEquals(20, loaded.getHits());
+            Assert.assertEquals(1, loaded.getMisses());
+            Assert.assertEquals(List.of("a/b/plik3"), changed.differences(manifest));
+            Assert.assertFalse(gamal.verifyManifest(changed, signature, privateKey.getPublicKey()));
+        } finally {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @Test
+    public void damagedIndexIsDiscarded() throws IOException, NoSuchAlgorithmException {
+        Path root = Files.createTempDirectory("manifest");
+        Path indexFile = Files.createTempFile("manifest", ".idx");
+        try {
+            write(root.resolve("plik"), "zawartość");
+            ManifestIndex index = new ManifestIndex();
+            Manifest manifest = Manifest.build(root, index);
+            index.save(indexFile);
+            byte[] saved = Files.readAllBytes(indexFile);
+
+            Files.write(indexFile, Arrays.copyOf(saved, saved.length - 5));
+            Assert.assertEquals(0, ManifestIndex.load(indexFile).size());
+            Files.write(indexFile, "to nie jest indeks".getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(0, ManifestIndex.load(indexFile).size());
+            Files.write(indexFile, new byte[0]);
+            ManifestIndex empty = ManifestIndex.load(indexFile);
+            Assert.assertEquals(manifest, Manifest.build(root, empty));
+            Assert.assertEquals(1, empty.getMisses());
+
+            // Zapis nadpisuje uszkodzony plik
+            empty.save(indexFile);
+            Assert.assertEquals(1, ManifestIndex.load(indexFile).size());
+        } finally {
+            Files.deleteIfExists(root.resolve("plik"));
+            Files.deleteIfExists(root);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @Test
+    public void escapesSpecialCharactersInPaths() {
+        Manifest manifest = Manifest.of(Map.of("a\\b\nc", new byte[32], "zwykły", new byte[32]));
+        Assert.assertEquals(manifest, Manifest.decode(manifest.encode()));
+        Assert.assertEquals(List.of("a\\b\nc", "zwykły"), Manifest.decode(manifest.encode()).paths());
+    }
+
+    // Czas modyfikacji cofnięty o minutę - indeks nie odrzuca wpisów jako zmienionych "w tym samym takcie zegara"
+    private static void write(Path file, String content) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.MINUTES)
+                .plusNanos(content.length() * 1000L)));
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.KeyCodec;
+import org.zespol.core.MerkleProof;
+import org.zespol.core.MerkleSignature;
+import org.zespol.core.MerkleTree;
+import org.zespol.core.StandardGroup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MerkleTreeTest {
+    private static final int CHUNK_SIZE = MerkleTree.MIN_CHUNK_SIZE;
+
+    @Test
+    public void fileAndMemoryTreesAgreeAndProofsVerify() throws IOException, NoSuchAlgorithmException {
+        // 13 fragmentów, ostatni niepełny - na kolejnych poziomach zostają węzły bez pary
+        byte[] message = new byte[12 * CHUNK_SIZE + 100];
+        new Random(1).nextBytes(message);
+        Path file = Files.createTempFile("merkle", ".bin");
+        try {
+            Files.write(file, message);
+            MerkleTree tree = MerkleTree.of(file, CHUNK_SIZE);
+            Assert.assertEquals(13, tree.getChunkCount());
+            Assert.assertEquals(5, tree.getHeight());
+            Assert.assertArrayEquals(tree.getRoot(), MerkleTree.of(message, CHUNK_SIZE).getRoot());
+
+            for (int chunk = 0; chunk < tree.getChunkCount(); chunk++) {
+                MerkleProof proof = MerkleProof.decode(tree.proof(chunk).encode());
+                int start = chunk * CHUNK_SIZE;
+                ByteBuffer data = ByteBuffer.wrap(message, start, Math.min(CHUNK_SIZE, message.length - start));
+                Assert.assertArrayEquals(tree.getRoot(), proof.computeRoot(data));
+            }
+
+            // Zmiana jednego bajtu zmienia korzeń, a zmiana rozmiaru fragmentu - podpisywany skrót
+            byte[] tampered = message.clone();
+            tampered[5 * CHUNK_SIZE] ^= 1;
+            Assert.assertFalse(Arrays.equals(tree.getRoot(), MerkleTree.of(tampered, CHUNK_SIZE).getRoot()));
+            Assert.assertFalse(Arrays.equals(tree.digest(), MerkleTree.of(message, 2 * CHUNK_SIZE).digest()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void signsAndVerifiesFilesAndSingleChunks() throws IOException, NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+        ElGamalPublicKey publicKey = privateKey.getPublicKey();
+        byte[] message = new byte[3 * CHUNK_SIZE + 7];
+        new Random(2).nextBytes(message);
+        Path file = Files.createTempFile("merkle", ".bin");
+        try {
+            Files.write(file, message);
+            MerkleSignature signature = gamal.signMerkle(file, privateKey, CHUNK_SIZE);
+            Assert.assertEquals(message.length, signature.getLength());
+            Assert.assertEquals(signature, MerkleSignature.of(KeyCodec.decode(KeyCodec.Kind.MERKLE_SIGNATURE,
+                    ByteBuffer.wrap(signature.encode()))));
+            Assert.assertTrue(gamal.verifyMerkle(file, signature, publicKey));
+
+            MerkleProof proof = MerkleTree.of(file, CHUNK_SIZE).proof(3);
+            Assert.assertTrue(gamal.verifyChunk(ByteBuffer.wrap(message, 3 * CHUNK_SIZE, 7), proof, signature, publicKey));
+            Assert.assertFalse(gamal.verifyChunk(ByteBuffer.wrap(message, 3 * CHUNK_SIZE, 6), proof, signature, publicKey));
+            message[3 * CHUNK_SIZE] ^= 1;
+            Assert.assertFalse(gamal.verifyChunk(ByteBuffer.wrap(message, 3 * CHUNK_SIZE, 7), proof, signature, publicKey));
+
+            Files.write(file, message);
+            Assert.assertFalse(gamal.verifyMerkle(file, signature, publicKey));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
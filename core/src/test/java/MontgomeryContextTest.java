@@ -0,0 +1,33 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.MontgomeryContext;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+public class MontgomeryContextTest {
+    @Test
+    public void matchesBigInteger() {
+        SecureRandom random = new SecureRandom();
+        for (int bits : new int[]{64, 65, 127, 512, 1031, 2048}) {
+            BigInteger p = BigInteger.probablePrime(bits, random);
+            MontgomeryContext context = new MontgomeryContext(p);
+            MontgomeryContext.Workspace ws = context.newWorkspace();
+            for (int i = 0; i < 20; i++) {
+                BigInteger a = new BigInteger(bits + 7, random);
+                BigInteger b = new BigInteger(bits - 1, random);
+                BigInteger e = new BigInteger(1 + random.nextInt(2 * bits), random);
+                Assert.assertEquals(a.modPow(e, p), context.modPow(a, e));
+
+                long[] am = context.newElement();
+                long[] bm = context.newElement();
+                context.toMontgomery(a, am, ws);
+                context.toMontgomery(b, bm, ws);
+                context.multiply(am, bm, am, ws);
+                Assert.assertEquals(a.multiply(b).mod(p), context.fromMontgomery(am, ws));
+            }
+            Assert.assertEquals(BigInteger.ONE, context.modPow(BigInteger.TEN, BigInteger.ZERO));
+            Assert.assertEquals(BigInteger.ZERO, context.modPow(p, BigInteger.TWO));
+        }
+    }
+}
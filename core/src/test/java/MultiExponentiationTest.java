@@ -0,0 +1,31 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.MultiExponentiation;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+public class MultiExponentiationTest {
+    @Test
+    public void matchesSeparateModPow() {
+        SecureRandom random = new SecureRandom();
+        BigInteger p = BigInteger.probablePrime(512, random);
+        for (int n = 1; n <= 8; n++) {
+            BigInteger[] bases = new BigInteger[n];
+            BigInteger[] exponents = new BigInteger[n];
+            BigInteger expected = BigInteger.ONE;
+            for (int i = 0; i < n; i++) {
+                bases[i] = new BigInteger(511, random);
+                // Różne długości wykładników, w tym zero
+                exponents[i] = (i == 2) ? BigInteger.ZERO : new BigInteger(16 + 70 * i, random);
+                expected = expected.multiply(bases[i].modPow(exponents[i], p)).mod(p);
+            }
+            Assert.assertEquals(expected, MultiExponentiation.product(bases, exponents, p));
+        }
+
+        BigInteger y = new BigInteger(511, random);
+        BigInteger r = new BigInteger(511, random);
+        BigInteger s = new BigInteger(511, random);
+        Assert.assertEquals(y.modPow(r, p).multiply(r.modPow(s, p)).mod(p), MultiExponentiation.product(y, r, r, s, p));
+    }
+}
@@ -0,0 +1,152 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.Instrumentation;
+import org.zespol.core.NoncePool;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+public class NoncePoolTest {
+    // Mała grupa, żeby uzupełnianie puli trwało krótko
+    private static final ElGamalParameters PARAMETERS =
+            ElGamalParameters.of(BigInteger.probablePrime(512, new SecureRandom()), BigInteger.TWO);
+
+    /** Liczba potęgowań w kolejnych podpisach - 0 oznacza trójkę wziętą z puli. */
+    private final Queue<Integer> signModExps = new ConcurrentLinkedQueue<>();
+    private final ElGamal gamal = new ElGamal();
+    private final ElGamalPrivateKey privateKey = gamal.generatePrivateKey(PARAMETERS);
+
+    public NoncePoolTest() {
+        gamal.setInstrumentation(new Instrumentation() {
+            @Override
+            public void recordOperation(Operation operation, int bitLength, long nanos, int modExps, boolean success) {
+                if (operation == Operation.SIGN) {
+                    signModExps.add(modExps);
+                }
+            }
+        });
+    }
+
+    private static byte[] digest(int i) {
+        return ByteBuffer.allocate(32).putInt(i).array();
+    }
+
+    private ElGamalSignature sign(int i) {
+        ElGamalSignature signature = gamal.signDigest(digest(i), privateKey);
+        Assert.assertTrue(gamal.verifyDigest(digest(i), signature, privateKey.getPublicKey()));
+        return signature;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Przekroczony czas oczekiwania.", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private long pooledSignatures() {
+        return signModExps.stream().filter(modExps -> modExps == 0).count();
+    }
+
+    @Test
+    public void handsOutEachNonceOnce() throws Exception {
+        try (NoncePool pool = gamal.enableNoncePool(PARAMETERS, 64, 32)) {
+            await(() -> pool.available() == 64);
+            int threads = 4;
+            int perThread = 50;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<List<ElGamalSignature>>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        List<ElGamalSignature> signatures = new ArrayList<>();
+                        for (int i = 0; i < perThread; i++) {
+                            signatures.add(sign(thread * perThread + i));
+                        }
+                        return signatures;
+                    }));
+                }
+                // r = g^k mod p - powtórzone r oznaczałoby powtórzone k
+                Set<BigInteger> rs = new HashSet<>();
+                for (Future<List<ElGamalSignature>> future : futures) {
+                    for (ElGamalSignature signature : future.get()) {
+                        Assert.assertTrue(rs.add(signature.getR()));
+                    }
+                }
+            } finally {
+                executor.shutdown();
+            }
+            Assert.assertTrue(pooledSignatures() >= 64);
+        }
+    }
+
+    @Test
+    public void refillsBelowThreshold() throws Exception {
+        try (NoncePool pool = gamal.enableNoncePool(PARAMETERS, 32, 8)) {
+            await(() -> pool.available() == 32);
+            for (int i = 0; i < 24; i++) {
+                sign(i);
+            }
+            // 8 trójek to jeszcze nie mniej niż próg - pula nie jest uzupełniana
+            Assert.assertEquals(8, pool.available());
+            sign(24);
+            await(() -> pool.available() == 32);
+            Assert.assertEquals(25, pooledSignatures());
+        }
+    }
+
+    @Test
+    public void signingFallsBackWhenPoolIsEmpty() throws Exception {
+        // Próg 0 - pula nigdy nie jest uzupełniana po pierwszym wypełnieniu
+        try (NoncePool pool = gamal.enableNoncePool(PARAMETERS, 3, 0)) {
+            await(() -> pool.available() == 3);
+            for (int i = 0; i < 8; i++) {
+                sign(i);
+            }
+            Assert.assertEquals(0, pool.available());
+            Assert.assertEquals(3, pooledSignatures());
+            Assert.assertEquals(8, signModExps.size());
+        }
+    }
+
+    @Test
+    public void closeDetachesPool() throws Exception {
+        NoncePool first = gamal.enableNoncePool(PARAMETERS, 8, 2);
+        Assert.assertSame(first, gamal.getNoncePool(PARAMETERS));
+
+        // Nowa pula dla tej samej grupy zamyka poprzednią; ponowne zamknięcie starej nie odłącza nowej
+        NoncePool second = gamal.enableNoncePool(PARAMETERS, 8, 2);
+        Assert.assertTrue(first.isClosed());
+        first.close();
+        Assert.assertSame(second, gamal.getNoncePool(PARAMETERS));
+
+        await(() -> second.available() == 8);
+        second.close();
+        Assert.assertTrue(second.isClosed());
+        Assert.assertEquals(0, second.available());
+        Assert.assertNull(gamal.getNoncePool(PARAMETERS));
+        sign(0);
+        Assert.assertEquals(0, pooledSignatures());
+
+        gamal.enableNoncePool(PARAMETERS.toList(), 4, 1);
+        gamal.disableNoncePool(PARAMETERS.toList());
+        Assert.assertNull(gamal.getNoncePool(PARAMETERS));
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.KeyFingerprint;
+import org.zespol.core.PublicKeyStore;
+import org.zespol.core.StandardGroup;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PublicKeyStoreTest {
+    private static List<BigInteger> key(int i) {
+        BigInteger p = StandardGroup.FFDHE_2048.getP();
+        return List.of(p, BigInteger.TWO, BigInteger.TWO.modPow(BigInteger.valueOf(1000 + i), p));
+    }
+
+    @Test
+    public void bulkImportLookupAndReopen() throws IOException, NoSuchAlgorithmException {
+        Path directory = Files.createTempDirectory("elgamal-keys");
+        int n = 3000; // więcej niż początkowa pojemność indeksu, więc indeks jest powiększany
+
+        List<List<BigInteger>> keys = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            keys.add(key(i));
+        }
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            Assert.assertEquals(n - 1, store.putAll(keys.subList(0, n - 1)));
+            store.put(keys.get(n - 1));
+            store.put(keys.get(0)); // duplikat nie jest dodawany
+            Assert.assertEquals(n, store.size());
+        }
+
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            Assert.assertEquals(n, store.size());
+            for (int i = 0; i < n; i += 7) {
+                Assert.assertEquals(keys.get(i), store.get(KeyFingerprint.of(keys.get(i))));
+            }
+            Assert.assertNull(store.get(KeyFingerprint.of(key(n))));
+            Assert.assertFalse(store.contains(new byte[KeyFingerprint.LENGTH]));
+
+            // Dopisywanie po ponownym otwarciu
+            byte[] fingerprint = store.put(key(n));
+            Assert.assertEquals(key(n), store.get(fingerprint));
+        }
+    }
+
+    @Test
+    public void rebuildsLostOrStaleIndexFromData() throws IOException, NoSuchAlgorithmException {
+        Path directory = Files.createTempDirectory("elgamal-keys");
+        Path indexFile = directory.resolve("keys.idx");
+        int n = 1500;
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            for (int i = 0; i < n; i++) {
+                store.put(key(i));
+            }
+        }
+        Path staleIndex = Files.copy(indexFile, directory.resolve("keys.idx.old"));
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            for (int i = n; i < 2 * n; i++) {
+                store.put(key(i));
+            }
+        }
+
+        // Indeks sprzed ostatnich zapisów - brakujący koniec odtwarzany z keys.dat
+        Files.copy(staleIndex, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            Assert.assertEquals(2 * n, store.size());
+            Assert.assertEquals(key(2 * n - 1), store.get(KeyFingerprint.of(key(2 * n - 1))));
+        }
+
+        // Brak indeksu - odtwarzany w całości, a nowe klucze nie nadpisują starych rekordów
+        Files.delete(indexFile);
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            Assert.assertEquals(2 * n, store.size());
+            store.put(key(2 * n));
+            for (int i = 0; i <= 2 * n; i++) {
+                Assert.assertEquals(key(i), store.get(KeyFingerprint.of(key(i))));
+            }
+        }
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            Assert.assertEquals(2 * n + 1, store.size());
+            Assert.assertEquals(key(0), store.get(KeyFingerprint.of(key(0))));
+        }
+    }
+
+    @Test
+    public void indexSpansSeveralMappedChunks() throws IOException, NoSuchAlgorithmException {
+        // 200 000 kluczy wymaga 2^19 gniazd - więcej niż jeden fragment mapowania indeksu (2^18 gniazd)
+        Path directory = Files.createTempDirectory("elgamal-keys");
+        int n = 200_000;
+        List<List<BigInteger>> keys = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            keys.add(List.of(BigInteger.valueOf(1_000_003), BigInteger.TWO, BigInteger.valueOf(i + 3)));
+        }
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            Assert.assertEquals(n, store.putAll(keys));
+        }
+        Assert.assertTrue(Files.size(directory.resolve("keys.idx")) > 40L * (1 << 19));
+        try (PublicKeyStore store = PublicKeyStore.open(directory)) {
+            Assert.assertEquals(n, store.size());
+            for (int i = 0; i < n; i += 997) {
+                Assert.assertEquals(keys.get(i), store.get(KeyFingerprint.of(keys.get(i))));
+            }
+            Assert.assertEquals(keys.get(n - 1), store.get(KeyFingerprint.of(keys.get(n - 1))));
+        }
+    }
+
+    @Test
+    public void fingerprintDependsOnAllComponents() throws NoSuchAlgorithmException {
+        byte[] a = KeyFingerprint.of(key(1));
+        Assert.assertEquals(KeyFingerprint.LENGTH, a.length);
+        Assert.assertArrayEquals(a, KeyFingerprint.fromHex(KeyFingerprint.toHex(a)));
+        Assert.assertFalse(KeyFingerprint.toHex(a).equals(KeyFingerprint.toHex(KeyFingerprint.of(key(2)))));
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.DeterministicNonceGenerator;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.RandomnessProvider;
+import org.zespol.core.StandardGroup;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class RandomnessTest {
+    @Test
+    public void rfc6979TestVectors() throws NoSuchAlgorithmException {
+        // RFC 6979, A.2.5: ECDSA na P-256 z SHA-256
+        BigInteger n = new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+        BigInteger x = new BigInteger("C9AFA9D845BA75166B5C215767B1D6934E50C3DB36E89B127B8A622B120F6721", 16);
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[] sample = sha256.digest("sample".getBytes(StandardCharsets.US_ASCII));
+        byte[] test = sha256.digest("test".getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals(new BigInteger("A6E3C57DD01ABE90086538398355DD4C3B17AA873382B0F24D6129493D8AAD60", 16),
+                new DeterministicNonceGenerator(n, x, sample).next());
+        Assert.assertEquals(new BigInteger("D16B6AE827F17175E040871A1C7EC3500192C4C92677336EC2537ACAEE0008E0", 16),
+                new DeterministicNonceGenerator(n, x, test).next());
+
+        DeterministicNonceGenerator generator = new DeterministicNonceGenerator(n, x, sample);
+        Assert.assertNotEquals(generator.next(), generator.next());
+    }
+
+    @Test
+    public void deterministicSignaturesRepeat() throws NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        gamal.setDeterministicNonces(true);
+        byte[] message = "wiadomość".getBytes(StandardCharsets.UTF_8);
+        byte[] other = "inna wiadomość".getBytes(StandardCharsets.UTF_8);
+
+        ElGamalParameters full = ElGamalParameters.of(StandardGroup.FFDHE_2048);
+        List<BigInteger> pgq = gamal.generateSubgroupParameters(1024, 160, null);
+        ElGamalParameters subgroup = gamal.subgroupParameters(pgq.get(0), pgq.get(1), pgq.get(2));
+        for (ElGamalParameters parameters : new ElGamalParameters[]{full, subgroup}) {
+            ElGamalPrivateKey privateKey = gamal.generatePrivateKey(parameters);
+            ElGamalSignature signature = gamal.sign(message, privateKey);
+            Assert.assertEquals(signature, gamal.sign(message, privateKey));
+            Assert.assertNotEquals(signature, gamal.sign(other, privateKey));
+            Assert.assertTrue(gamal.verify(message, signature, privateKey.getPublicKey()));
+        }
+    }
+
+    @Test
+    public void perThreadProviderSignsConcurrently() throws Exception {
+        RandomnessProvider provider = RandomnessProvider.perThread();
+        SecureRandom mine = provider.current();
+        Assert.assertSame(mine, provider.current());
+        Assert.assertNotSame(mine, CompletableFuture.supplyAsync(provider::current).get());
+
+        ElGamal gamal = new ElGamal();
+        gamal.setRandomnessProvider(provider);
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+        byte[] message = "wiadomość".getBytes(StandardCharsets.UTF_8);
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[4];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    for (int j = 0; j < 4; j++) {
+                        Assert.assertTrue(gamal.verify(message, gamal.sign(message, privateKey), privateKey.getPublicKey()));
+                    }
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        CompletableFuture.allOf(tasks).get();
+    }
+}
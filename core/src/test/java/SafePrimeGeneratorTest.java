@@ -0,0 +1,30 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.SafePrimeGenerator;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SafePrimeGeneratorTest {
+    @Test
+    public void generatesSafePrimeAndGenerator() {
+        AtomicLong progress = new AtomicLong();
+        SafePrimeGenerator generator = new SafePrimeGenerator(2, 50, new SecureRandom());
+        for (int bitLength : new int[]{3, 16, 256}) {
+            List<BigInteger> pg = generator.generate(bitLength, (done, total) -> progress.set(done));
+            BigInteger p = pg.get(0);
+            BigInteger g = pg.get(1);
+            BigInteger q = p.shiftRight(1);
+
+            Assert.assertEquals(bitLength, p.bitLength());
+            Assert.assertTrue(p.isProbablePrime(50));
+            Assert.assertTrue(q.isProbablePrime(50));
+            // g jest generatorem Z_p^*: jego rząd nie dzieli ani 2, ani q
+            Assert.assertNotEquals(BigInteger.ONE, g.modPow(BigInteger.TWO, p));
+            Assert.assertNotEquals(BigInteger.ONE, g.modPow(q, p));
+        }
+        Assert.assertTrue(progress.get() > 0);
+    }
+}
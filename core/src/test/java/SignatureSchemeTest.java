@@ -0,0 +1,105 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.EcPrivateKey;
+import org.zespol.core.EcPublicKey;
+import org.zespol.core.EcSchnorrScheme;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalScheme;
+import org.zespol.core.SignatureScheme;
+import org.zespol.core.StandardGroup;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+
+public class SignatureSchemeTest {
+    private static final byte[] MESSAGE = "Wiadomość do podpisania".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void ecPublicKeyMatchesJdk() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        for (int i = 0; i < 4; i++) {
+            KeyPair pair = generator.generateKeyPair();
+            BigInteger d = ((ECPrivateKey) pair.getPrivate()).getS();
+            ECPublicKey expected = (ECPublicKey) pair.getPublic();
+            EcPublicKey publicKey = new EcPrivateKey(d).getPublicKey();
+            Assert.assertEquals(expected.getW().getAffineX(), publicKey.getX());
+            Assert.assertEquals(expected.getW().getAffineY(), publicKey.getY());
+            Assert.assertEquals(publicKey, EcPublicKey.decode(publicKey.encode()));
+        }
+    }
+
+    @Test
+    public void ecSignAndVerify() throws GeneralSecurityException {
+        SignatureScheme scheme = SignatureScheme.forName(EcSchnorrScheme.NAME);
+        SignatureScheme.PrivateKey privateKey = scheme.generatePrivateKey();
+        SignatureScheme.PublicKey publicKey = privateKey.getPublicKey();
+        Assert.assertEquals(32, privateKey.encode().length);
+        Assert.assertEquals(33, publicKey.encode().length);
+
+        byte[] signature = scheme.sign(MESSAGE, privateKey);
+        Assert.assertEquals(EcSchnorrScheme.SIGNATURE_LENGTH, signature.length);
+        Assert.assertTrue(scheme.verify(MESSAGE, signature, publicKey));
+        assertRejectsTampering(scheme, signature, publicKey);
+
+        SignatureScheme.PublicKey other = scheme.generatePrivateKey().getPublicKey();
+        Assert.assertFalse(scheme.verify(MESSAGE, signature, other));
+        Assert.assertEquals(privateKey, scheme.decodePrivateKey(privateKey.encode()));
+        Assert.assertTrue(scheme.verify(MESSAGE, signature, scheme.decodePublicKey(publicKey.encode())));
+    }
+
+    @Test
+    public void elGamalSignAndVerify() throws GeneralSecurityException {
+        SignatureScheme scheme = SignatureScheme.forName("elgamal-ffdhe2048");
+        Assert.assertEquals("elgamal-ffdhe2048", scheme.getName());
+        SignatureScheme.PrivateKey privateKey = scheme.generatePrivateKey();
+        SignatureScheme.PublicKey publicKey = privateKey.getPublicKey();
+
+        byte[] signature = scheme.sign(MESSAGE, privateKey);
+        Assert.assertTrue(scheme.verify(MESSAGE, signature, publicKey));
+        assertRejectsTampering(scheme, signature, publicKey);
+        Assert.assertEquals(privateKey, scheme.decodePrivateKey(privateKey.encode()));
+        Assert.assertEquals(publicKey, scheme.decodePublicKey(publicKey.encode()));
+    }
+
+    @Test
+    public void elGamalSchemeNames() {
+        ElGamal gamal = new ElGamal();
+        ElGamalScheme standard = new ElGamalScheme(gamal, ElGamalParameters.of(StandardGroup.FFDHE_2048.parameters()));
+        Assert.assertEquals("elgamal-ffdhe2048", standard.getName());
+        Assert.assertEquals(standard.getName(), SignatureScheme.forName(standard.getName()).getName());
+
+        ElGamalScheme custom = new ElGamalScheme(gamal, gamal.parameters(gamal.generateParameters(256)));
+        Assert.assertEquals(ElGamalScheme.CUSTOM_NAME_PREFIX + "256", custom.getName());
+        Assert.assertThrows(IllegalArgumentException.class, () -> SignatureScheme.forName(custom.getName()));
+    }
+
+    @Test
+    public void keysOfOtherSchemeAreRejected() {
+        SignatureScheme ec = new EcSchnorrScheme();
+        ElGamalScheme elGamal = (ElGamalScheme) SignatureScheme.forName("elgamal-ffdhe2048");
+        byte[] digest = new byte[32];
+        Assert.assertThrows(IllegalArgumentException.class, () -> ec.signDigest(digest, elGamal.generatePrivateKey()));
+        Assert.assertThrows(IllegalArgumentException.class, () -> elGamal.signDigest(digest, ec.generatePrivateKey()));
+        Assert.assertThrows(IllegalArgumentException.class, () -> ec.decodePublicKey(new byte[33]));
+        Assert.assertThrows(IllegalArgumentException.class, () -> SignatureScheme.forName("rsa"));
+    }
+
+    private static void assertRejectsTampering(SignatureScheme scheme, byte[] signature, SignatureScheme.PublicKey publicKey)
+            throws GeneralSecurityException {
+        byte[] altered = MESSAGE.clone();
+        altered[0] ^= 1;
+        Assert.assertFalse(scheme.verify(altered, signature, publicKey));
+        byte[] damaged = signature.clone();
+        damaged[damaged.length - 1] ^= 1;
+        Assert.assertFalse(scheme.verify(MESSAGE, damaged, publicKey));
+        Assert.assertFalse(scheme.verify(MESSAGE, new byte[3], publicKey));
+    }
+}
@@ -0,0 +1,203 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.SignatureStore;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SignatureStoreTest {
+    private static byte[] bytes(int tag, int i) {
+        return ByteBuffer.allocate(32).putInt(tag).putInt(i).putInt(i * 31 + tag).array();
+    }
+
+    private static ElGamalSignature signature(int i) {
+        return new ElGamalSignature(BigInteger.TWO.pow(2040).add(BigInteger.valueOf(i)), BigInteger.valueOf(1000 + i));
+    }
+
+    @Test
+    public void concurrentAppendsQueriesAndReopen() throws Exception {
+        Path directory = Files.createTempDirectory("elgamal-signatures");
+        int threads = 4;
+        int perThread = 300;
+        int keys = 5;
+        try (SignatureStore store = SignatureStore.open(directory, 64 << 10)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = thread * perThread; i < (thread + 1) * perThread; i++) {
+                            store.append(bytes(1, i % keys), bytes(2, i), signature(i), i);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            // Mały rozmiar segmentu wymusza przechodzenie do kolejnych plików
+            Assert.assertTrue(store.getSegmentCount() > 1);
+            Assert.assertEquals(threads * perThread / keys, store.findByKey(bytes(1, 3), Integer.MAX_VALUE).size());
+        }
+
+        try (SignatureStore store = SignatureStore.open(directory, 64 << 10)) {
+            int n = threads * perThread;
+            List<SignatureStore.Entry> byKey = store.findByKey(bytes(1, 2), Integer.MAX_VALUE);
+            Assert.assertEquals(n / keys, byKey.size());
+            for (int i = 1; i < byKey.size(); i++) {
+                Assert.assertTrue(byKey.get(i - 1).position() > byKey.get(i).position()); // od najnowszego
+            }
+            for (SignatureStore.Entry entry : byKey) {
+                Assert.assertArrayEquals(bytes(1, 2), entry.fingerprint());
+                Assert.assertEquals(signature((int) entry.timestamp()), entry.signature());
+            }
+            Assert.assertEquals(3, store.findByKey(bytes(1, 0), 3).size());
+
+            List<SignatureStore.Entry> byDigest = store.findByDigest(bytes(2, 77));
+            Assert.assertEquals(1, byDigest.size());
+            Assert.assertEquals(signature(77), byDigest.get(0).signature());
+            Assert.assertEquals(77, store.read(byDigest.get(0).position()).timestamp());
+            Assert.assertTrue(store.findByDigest(bytes(2, n)).isEmpty());
+
+            // Ten sam skrót podpisany drugim kluczem
+            store.append(bytes(1, 9), bytes(2, 77), signature(5), 5);
+            Assert.assertEquals(2, store.findByDigest(bytes(2, 77)).size());
+
+            List<SignatureStore.Entry> scanned = new ArrayList<>();
+            long resume = store.scan(0, scanned::add);
+            Assert.assertEquals(n + 1, scanned.size());
+            for (int i = 1; i < scanned.size(); i++) {
+                Assert.assertTrue(scanned.get(i - 1).position() < scanned.get(i).position());
+            }
+            store.append(bytes(1, 9), bytes(2, n + 1), signature(6), 6);
+            List<SignatureStore.Entry> newer = new ArrayList<>();
+            store.scan(resume, newer::add);
+            Assert.assertEquals(1, newer.size());
+            Assert.assertEquals(6, newer.get(0).timestamp());
+        }
+    }
+
+    @Test
+    public void rebuildsIndexesAndDropsTornTail() throws IOException {
+        Path directory = Files.createTempDirectory("elgamal-signatures");
+        long end;
+        try (SignatureStore store = SignatureStore.open(directory)) {
+            for (int i = 0; i < 3; i++) {
+                store.append(bytes(1, 1), bytes(2, i), signature(i), i);
+            }
+            end = store.getEndPosition();
+        }
+        // Symulacja awarii: indeksy utracone, a za ostatnim rekordem przerwany zapis kolejnego
+        Files.delete(directory.resolve("by-key.idx"));
+        Files.delete(directory.resolve("by-digest.idx"));
+        try (FileChannel channel = FileChannel.open(directory.resolve("signatures-00000000.seg"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(12).putInt(200).putInt(0x12345678).putInt(7).flip(), (int) end);
+        }
+
+        try (SignatureStore store = SignatureStore.open(directory)) {
+            Assert.assertEquals(3, store.findByKey(bytes(1, 1), 10).size());
+            Assert.assertEquals(signature(2), store.findByDigest(bytes(2, 2)).get(0).signature());
+            Assert.assertEquals(end, store.getEndPosition());
+            Assert.assertEquals(end, store.append(bytes(1, 1), bytes(2, 3), signature(3), 3));
+            Assert.assertEquals(4, store.findByKey(bytes(1, 1), 10).size());
+        }
+    }
+
+    @Test
+    public void closeFailsAppendsStillQueued() throws Exception {
+        Path directory = Files.createTempDirectory("elgamal-signatures");
+        int threads = 4;
+        AtomicInteger stored = new AtomicInteger();
+        SignatureStore store = SignatureStore.open(directory, 64 << 10);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = thread; ; i += threads) {
+                        try {
+                            store.append(bytes(1, thread), bytes(2, i), signature(i), i);
+                            stored.incrementAndGet();
+                        } catch (IllegalStateException | IOException e) {
+                            return null; // magazyn zamknięty - przed dodaniem do kolejki lub przed zapisem
+                        }
+                    }
+                }));
+            }
+            while (stored.get() < 200) {
+                Thread.onSpinWait();
+            }
+            store.close();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS); // żaden wątek dopisujący nie zostaje w zawieszeniu
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Zapisane są dokładnie te rekordy, których dopisanie się powiodło
+        try (SignatureStore reopened = SignatureStore.open(directory, 64 << 10)) {
+            List<SignatureStore.Entry> all = new ArrayList<>();
+            reopened.scan(0, all::add);
+            Assert.assertEquals(stored.get(), all.size());
+        }
+    }
+
+    @Test
+    public void closeDuringQueriesFailsCleanly() throws Exception {
+        Path directory = Files.createTempDirectory("elgamal-signatures");
+        SignatureStore store = SignatureStore.open(directory, 64 << 10);
+        for (int i = 0; i < 2000; i++) {
+            store.append(bytes(1, i % 2), bytes(2, i % 50), signature(i), i);
+        }
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            AtomicInteger walks = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    // Długie łańcuchy przez kilka segmentów - zamknięcie trafia w trakcie przechodzenia
+                    try {
+                        while (true) {
+                            Assert.assertEquals(1000, store.findByKey(bytes(1, thread % 2), Integer.MAX_VALUE).size());
+                            Assert.assertEquals(40, store.findByDigest(bytes(2, thread)).size());
+                            walks.incrementAndGet();
+                        }
+                    } catch (IllegalStateException expected) {
+                        return null;
+                    }
+                }));
+            }
+            while (walks.get() < 20) {
+                Thread.sleep(1);
+            }
+            store.close();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS); // każdy inny wyjątek wyszedłby tutaj
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertThrows(IllegalStateException.class, () -> store.read(0));
+    }
+}
@@ -0,0 +1,78 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ParameterCache;
+import org.zespol.core.StandardGroup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class StandardGroupTest {
+    @Test
+    public void groupsAreSafePrimes() {
+        for (StandardGroup group : StandardGroup.values()) {
+            BigInteger p = group.getP();
+            Assert.assertEquals(group.name(), group.getBitLength(), p.bitLength());
+            Assert.assertTrue(group.name(), p.isProbablePrime(20));
+            Assert.assertTrue(group.name(), p.shiftRight(1).isProbablePrime(20));
+        }
+        Assert.assertEquals(StandardGroup.FFDHE_3072, StandardGroup.forName("ffdhe-3072"));
+        Assert.assertEquals(StandardGroup.MODP_2048, StandardGroup.forName("modp2048"));
+    }
+
+    @Test
+    public void cacheRoundTrip() throws IOException {
+        Path root = Files.createTempDirectory("elgamal-params");
+        ParameterCache cache = new ParameterCache(root);
+        Assert.assertNull(cache.load(256));
+
+        ElGamal gamal = new ElGamal();
+        gamal.setParameterCache(cache);
+        List<BigInteger> generated = gamal.obtainParameters(256, null);
+        Assert.assertEquals(generated, cache.load(256));
+        Assert.assertEquals(generated, gamal.obtainParameters(256, null));
+    }
+
+    @Test
+    public void tamperedCacheEntryIsReplaced() throws IOException {
+        ParameterCache cache = new ParameterCache(Files.createTempDirectory("elgamal-params"));
+        ElGamal gamal = new ElGamal();
+        gamal.setParameterCache(cache);
+        List<BigInteger> valid = gamal.obtainParameters(128, null);
+        BigInteger p = valid.get(0);
+
+        // Liczba złożona w miejscu p oraz g rzędu 2 - oba wpisy przechodzą podstawową walidację odczytu
+        List<List<BigInteger>> tampered = List.of(
+                List.of(BigInteger.ONE.shiftLeft(127).add(BigInteger.valueOf(3 * 5 * 7)), BigInteger.TWO),
+                List.of(p, p.subtract(BigInteger.ONE)));
+        for (List<BigInteger> entry : tampered) {
+            cache.store(entry);
+            Assert.assertEquals(entry, cache.load(128));
+            List<BigInteger> obtained = gamal.obtainParameters(128, null);
+            Assert.assertNotEquals(entry, obtained);
+            Assert.assertTrue(obtained.get(0).shiftRight(1).isProbablePrime(50));
+            Assert.assertEquals(obtained, cache.load(128));
+        }
+    }
+
+    @Test
+    public void cacheWriteFailureIsSilent() throws IOException {
+        // Katalog pamięci podręcznej zajęty przez zwykły plik - zapis musi się nie udać
+        ElGamal gamal = new ElGamal();
+        gamal.setParameterCache(new ParameterCache(Files.createTempFile("elgamal-params", ".tmp")));
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream stderr = System.err;
+        try {
+            System.setErr(new PrintStream(errors, true));
+            Assert.assertEquals(2, gamal.obtainParameters(128, null).size());
+        } finally {
+            System.setErr(stderr);
+        }
+        Assert.assertEquals(0, errors.size());
+    }
+}
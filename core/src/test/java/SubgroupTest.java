@@ -0,0 +1,125 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.KeyCodec;
+import org.zespol.core.KeyFingerprint;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SubgroupTest {
+    private static final ElGamal gamal = new ElGamal();
+    private static final List<BigInteger> pgq = gamal.generateSubgroupParameters(1024, 160, null);
+    private static final ElGamalParameters group = gamal.subgroupParameters(pgq.get(0), pgq.get(1), pgq.get(2));
+
+    @Test
+    public void parametersDefineSubgroup() {
+        ElGamalParameters parameters = group;
+        BigInteger p = parameters.getP();
+        BigInteger q = parameters.getQ();
+        Assert.assertTrue(parameters.isSubgroup());
+        Assert.assertEquals(1024, p.bitLength());
+        Assert.assertEquals(160, q.bitLength());
+        Assert.assertEquals(160, parameters.getExponentBitLength());
+        Assert.assertEquals(BigInteger.ZERO, p.subtract(BigInteger.ONE).mod(q));
+        Assert.assertEquals(BigInteger.ONE, parameters.getG().modPow(q, p));
+        Assert.assertEquals(pgq, parameters.toList());
+        Assert.assertSame(parameters, gamal.subgroupParameters(pgq.get(0), pgq.get(1), pgq.get(2)));
+        // Lista trzyelementowa to dla parameters(List) klucz publiczny [p, g, y], nie podgrupa
+        Assert.assertThrows(IllegalArgumentException.class, () -> gamal.parameters(pgq));
+
+        List<BigInteger> wrongQ = List.of(pgq.get(0), pgq.get(1), q.nextProbablePrime());
+        Assert.assertThrows(IllegalArgumentException.class, () -> ElGamalParameters.of(wrongQ));
+    }
+
+    @Test
+    public void signAndVerify() throws NoSuchAlgorithmException {
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(group);
+        ElGamalPublicKey publicKey = privateKey.getPublicKey();
+        Assert.assertTrue(privateKey.getX().bitLength() <= 160);
+
+        byte[] message = "Wiadomość w podgrupie".getBytes(StandardCharsets.UTF_8);
+        ElGamalSignature signature = gamal.sign(message, privateKey);
+        Assert.assertTrue(signature.getR().bitLength() <= 160);
+        Assert.assertTrue(signature.getS().bitLength() <= 160);
+        Assert.assertTrue(gamal.verify(message, signature, publicKey));
+
+        message[0] ^= 1;
+        Assert.assertFalse(gamal.verify(message, signature, publicKey));
+        message[0] ^= 1;
+        ElGamalSignature tampered = new ElGamalSignature(signature.getR(), signature.getS().add(BigInteger.ONE));
+        Assert.assertFalse(gamal.verify(message, tampered, publicKey));
+        ElGamalSignature outOfRange = new ElGamalSignature(signature.getR().add(pgq.get(2)), signature.getS());
+        Assert.assertFalse(gamal.verify(message, outOfRange, publicKey));
+    }
+
+    @Test
+    public void batchVerification() throws NoSuchAlgorithmException {
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(group);
+        List<byte[]> digests = new ArrayList<>();
+        List<ElGamalSignature> signatures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            byte[] digest = gamal.digest(("wiadomość " + i).getBytes(StandardCharsets.UTF_8));
+            digests.add(digest);
+            signatures.add(gamal.signDigest(digest, privateKey));
+        }
+        signatures.set(5, signatures.get(4));
+
+        boolean[] results = gamal.verifyDigestBatch(digests, signatures, privateKey.getPublicKey());
+        for (int i = 0; i < results.length; i++) {
+            Assert.assertEquals("podpis " + i, i != 5, results[i]);
+        }
+    }
+
+    @Test
+    public void fingerprintCoversQ() throws NoSuchAlgorithmException {
+        ElGamalPublicKey publicKey = gamal.generatePrivateKey(group).getPublicKey();
+        List<BigInteger> components = publicKey.toList();
+        Assert.assertEquals(4, components.size());
+        Assert.assertArrayEquals(KeyFingerprint.of(components), publicKey.fingerprint());
+
+        // Te same p, g, y z innym q (lub bez q) to inny klucz
+        List<BigInteger> otherQ = new ArrayList<>(components);
+        otherQ.set(3, components.get(3).nextProbablePrime());
+        Assert.assertFalse(Arrays.equals(KeyFingerprint.of(components), KeyFingerprint.of(otherQ)));
+        Assert.assertFalse(Arrays.equals(KeyFingerprint.of(components), KeyFingerprint.of(components.subList(0, 3))));
+    }
+
+    @Test
+    public void keyFilesRoundTrip() throws IOException {
+        ElGamalPrivateKey privateKey = gamal.generatePrivateKey(group);
+        ElGamalPublicKey publicKey = privateKey.getPublicKey();
+        Assert.assertEquals(KeyCodec.Kind.SUBGROUP_PRIVATE_KEY, KeyCodec.privateKeyKind(privateKey.toList()));
+        Assert.assertEquals(KeyCodec.Kind.SUBGROUP_PUBLIC_KEY, KeyCodec.publicKeyKind(publicKey.toList()));
+
+        Path dir = Files.createTempDirectory("elgamal-subgroup");
+        for (boolean hex : new boolean[]{false, true}) {
+            Path privateFile = dir.resolve("private" + hex);
+            Path publicFile = dir.resolve("public" + hex);
+            KeyCodec.write(KeyCodec.privateKeyKind(privateKey.toList()), privateKey.toList(), privateFile, hex);
+            KeyCodec.write(KeyCodec.publicKeyKind(publicKey.toList()), publicKey.toList(), publicFile, hex);
+            Assert.assertEquals(privateKey, ElGamalPrivateKey.of(KeyCodec.readPrivateKey(privateFile)));
+            Assert.assertEquals(publicKey, ElGamalPublicKey.of(KeyCodec.readPublicKey(publicFile)));
+        }
+        Assert.assertEquals(publicKey, ElGamalPublicKey.of(KeyCodec.decodePublicKey(ByteBuffer.wrap(publicKey.encode()))));
+
+        // Klucze pełnej grupy nadal czytane są przez te same metody
+        List<BigInteger> pg = gamal.generateParameters(256);
+        ElGamalPrivateKey classic = gamal.generatePrivateKey(gamal.parameters(pg));
+        Path classicFile = dir.resolve("classic");
+        KeyCodec.write(KeyCodec.Kind.PRIVATE_KEY, classic.toList(), classicFile, false);
+        Assert.assertEquals(classic, ElGamalPrivateKey.of(KeyCodec.readPrivateKey(classicFile)));
+    }
+}
@@ -0,0 +1,54 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.VerificationCache;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+public class VerificationCacheTest {
+    @Test
+    public void repeatedVerificationHitsCache() throws NoSuchAlgorithmException {
+        ElGamal gamal = new ElGamal();
+        List<BigInteger> pg = gamal.standardParameters("ffdhe2048");
+        BigInteger x = gamal.generatePrivateKey(pg);
+        List<BigInteger> publicKey = gamal.generatePublicKey(pg, x);
+        byte[] message = "wiadomość".getBytes(StandardCharsets.UTF_8);
+        List<BigInteger> signature = gamal.sign(message, x, pg);
+        List<BigInteger> forged = List.of(signature.get(0), signature.get(1).add(BigInteger.ONE));
+
+        VerificationCache cache = new VerificationCache(1024, false);
+        gamal.setVerificationCache(cache);
+        Assert.assertTrue(gamal.verify(message, signature, publicKey));
+        Assert.assertTrue(gamal.verify(message, signature, publicKey));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        // Wyniki negatywne nie są zapamiętywane
+        Assert.assertFalse(gamal.verify(message, forged, publicKey));
+        Assert.assertFalse(gamal.verify(message, forged, publicKey));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.size());
+
+        VerificationCache negative = new VerificationCache(1024, true);
+        gamal.setVerificationCache(negative);
+        Assert.assertFalse(gamal.verify(message, forged, publicKey));
+        Assert.assertFalse(gamal.verify(message, forged, publicKey));
+        Assert.assertEquals(1, negative.getHits());
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        VerificationCache cache = new VerificationCache(64, true);
+        List<BigInteger> publicKey = List.of(BigInteger.valueOf(23), BigInteger.valueOf(5), BigInteger.valueOf(8));
+        byte[] digest = new byte[32];
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(publicKey, digest, List.of(BigInteger.valueOf(i), BigInteger.ONE), true);
+        }
+        Assert.assertTrue(cache.size() <= 64);
+        Assert.assertEquals(Boolean.TRUE, cache.get(publicKey, digest, List.of(BigInteger.valueOf(9_999), BigInteger.ONE)));
+        Assert.assertNull(cache.get(publicKey, digest, List.of(BigInteger.ZERO, BigInteger.ONE)));
+    }
+}
@@ -0,0 +1,98 @@
+package org.zespol.daemon;
+
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.KeyCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Treść ramek protokołu demona ({@link FrameChannel}). Żądanie:
+ * <pre>
+ *   id(u32)  operacja(u8)  długość nazwy klucza(u8)  nazwa UTF-8  [skrót(32 bajty)  [rekord podpisu KeyCodec]]
+ * </pre>
+ * Odpowiedź:
+ * <pre>
+ *   id(u32)  status(u8)  wynik
+ * </pre>
+ * Wynikiem jest rekord podpisu ({@link #SIGN}), bajt 1/0 ({@link #VERIFY}), rekord klucza publicznego
+ * ({@link #PUBLIC_KEY}) albo komunikat błędu UTF-8 ({@link #STATUS_ERROR}). Identyfikator nadaje klient;
+ * odpowiedzi mogą przychodzić w innej kolejności niż żądania.
+ */
+final class DaemonProtocol {
+    /** Podpis skrótu SHA-256 kluczem prywatnym. */
+    static final int SIGN = 1;
+    /** Weryfikacja podpisu skrótu SHA-256 kluczem publicznym. */
+    static final int VERIFY = 2;
+    /** Pobranie klucza publicznego. */
+    static final int PUBLIC_KEY = 3;
+
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+
+    static final int DIGEST_LENGTH = 32;
+    private static final int MAX_KEY_NAME_LENGTH = 0xFF;
+
+    /** Żądanie odczytane przez demona. */
+    record Request(FrameChannel connection, int id, int operation, String key, byte[] digest, ElGamalSignature signature) {
+    }
+
+    private DaemonProtocol() {
+    }
+
+    static ByteBuffer encodeRequest(int id, int operation, String key, byte[] digest, ElGamalSignature signature) {
+        byte[] name = key.getBytes(StandardCharsets.UTF_8);
+        if (name.length == 0 || name.length > MAX_KEY_NAME_LENGTH) {
+            throw new IllegalArgumentException("Nazwa klucza musi mieć od 1 do " + MAX_KEY_NAME_LENGTH + " bajtów.");
+        }
+        if (digest != null && digest.length != DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Skrót SHA-256 musi mieć " + DIGEST_LENGTH + " bajty.");
+        }
+        byte[] record = (signature != null) ? signature.encode() : new byte[0];
+        ByteBuffer frame = ByteBuffer.allocate(6 + name.length + (digest != null ? DIGEST_LENGTH : 0) + record.length);
+        frame.putInt(id).put((byte) operation).put((byte) name.length).put(name);
+        if (digest != null) {
+            frame.put(digest);
+        }
+        return frame.put(record).flip();
+    }
+
+    /**
+     * @throws IllegalArgumentException Jeśli ramka jest ucięta, ma nieznaną operację lub uszkodzony podpis.
+     */
+    static Request decodeRequest(FrameChannel connection, ByteBuffer frame) {
+        if (frame.remaining() < 6) {
+            throw new IllegalArgumentException("Ucięte żądanie.");
+        }
+        int id = frame.getInt();
+        int operation = frame.get() & 0xFF;
+        byte[] name = new byte[frame.get() & 0xFF];
+        if (frame.remaining() < name.length) {
+            throw new IllegalArgumentException("Ucięte żądanie " + id + ".");
+        }
+        frame.get(name);
+        String key = new String(name, StandardCharsets.UTF_8);
+        if (operation == PUBLIC_KEY) {
+            return new Request(connection, id, operation, key, null, null);
+        }
+        if (operation != SIGN && operation != VERIFY) {
+            throw new IllegalArgumentException("Nieznana operacja " + operation + " w żądaniu " + id + ".");
+        }
+        if (frame.remaining() < DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Ucięte żądanie " + id + ".");
+        }
+        byte[] digest = new byte[DIGEST_LENGTH];
+        frame.get(digest);
+        ElGamalSignature signature = (operation == VERIFY)
+                ? ElGamalSignature.of(KeyCodec.decode(KeyCodec.Kind.SIGNATURE, frame)) : null;
+        return new Request(connection, id, operation, key, digest, signature);
+    }
+
+    static ByteBuffer response(int id, int status, byte[] result) {
+        return ByteBuffer.allocate(5 + result.length).putInt(id).put((byte) status).put(result).flip();
+    }
+
+    static ByteBuffer error(int id, String message) {
+        return response(id, STATUS_ERROR, String.valueOf(message).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package org.zespol.daemon;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Ramki protokołu demona na blokującym {@link SocketChannel}: {@code długość(u32)  treść}. Odczyt i zapis mogą
+ * odbywać się jednocześnie z dwóch wątków (kanał gniazda ma osobne blokady odczytu i zapisu), co pozwala
+ * klientowi wysyłać kolejne żądania przed otrzymaniem odpowiedzi na poprzednie.
+ * <p>
+ * Odczyt idzie przez bufor 64 KiB, więc wiele małych ramek wysłanych jedną porcją to jedno wywołanie
+ * systemowe; zapis łączy ramki w jeden {@link SocketChannel#write(ByteBuffer[])}.
+ */
+final class FrameChannel implements Closeable {
+    /** Największa dopuszczalna długość treści ramki. */
+    static final int MAX_FRAME_SIZE = 1 << 20;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private final Object writeLock = new Object();
+
+    FrameChannel(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Czyta następną ramkę. Wywoływane z jednego wątku naraz.
+     *
+     * @return Treść ramki (bufor na nowej tablicy) lub null, gdy druga strona zamknęła połączenie między ramkami.
+     * @throws IOException Jeśli połączenie zostało zerwane w środku ramki lub ramka jest za długa.
+     */
+    ByteBuffer read() throws IOException {
+        if (!fill(Integer.BYTES, true)) {
+            return null;
+        }
+        int length = in.getInt();
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Nieprawidłowa długość ramki: " + length);
+        }
+        byte[] frame = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            fill(1, false);
+            int chunk = Math.min(in.remaining(), length - copied);
+            in.get(frame, copied, chunk);
+            copied += chunk;
+        }
+        return ByteBuffer.wrap(frame);
+    }
+
+    /** Dopełnia bufor do co najmniej {@code count} bajtów (count &lt;= rozmiar bufora). */
+    private boolean fill(int count, boolean boundary) throws IOException {
+        while (in.remaining() < count) {
+            boolean empty = !in.hasRemaining();
+            in.compact();
+            int read;
+            try {
+                read = channel.read(in);
+            } finally {
+                in.flip();
+            }
+            if (read < 0) {
+                if (boundary && empty) {
+                    return false;
+                }
+                throw new EOFException("Połączenie zamknięte w środku ramki.");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Zapisuje ramki jednym zapisem zbiorczym. Bezpieczne wątkowo - ramki z różnych wywołań się nie przeplatają.
+     *
+     * @param frames Treści ramek (od pozycji do limitu); pozycje buforów są przesuwane.
+     */
+    void write(ByteBuffer... frames) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[2 * frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            buffers[2 * i] = ByteBuffer.allocate(Integer.BYTES).putInt(0, frames[i].remaining());
+            buffers[2 * i + 1] = frames[i];
+        }
+        synchronized (writeLock) {
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
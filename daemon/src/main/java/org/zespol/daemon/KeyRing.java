@@ -0,0 +1,77 @@
+package org.zespol.daemon;
+
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.KeyCodec;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nazwane klucze demona. Każdy klucz jest wczytywany raz i od razu rozgrzewany: tablice prekomputacji dla g i y
+ * są budowane przy ładowaniu, a dla kluczy prywatnych włączana jest pula jednorazowych trójek
+ * ({@link ElGamal#enableNoncePool}), więc pierwsze żądanie nie płaci kosztu przygotowania.
+ */
+final class KeyRing {
+
+    /** Klucz pod nazwą: klucz prywatny (null dla samego klucza publicznego) i klucz publiczny. */
+    record Entry(ElGamalPrivateKey privateKey, ElGamalPublicKey publicKey) {
+    }
+
+    private final ElGamal elGamal;
+    private final int noncePoolSize;
+    private final Map<String, Entry> keys = new ConcurrentHashMap<>();
+
+    /**
+     * @param elGamal       Wspólna instancja, przez którą przechodzą wszystkie operacje demona.
+     * @param noncePoolSize Rozmiar puli trójek dla każdej grupy kluczy prywatnych (0 - bez puli).
+     */
+    KeyRing(ElGamal elGamal, int noncePoolSize) {
+        this.elGamal = elGamal;
+        this.noncePoolSize = noncePoolSize;
+    }
+
+    /**
+     * Wczytuje plik klucza prywatnego lub publicznego (binarny albo hex, pełna grupa lub podgrupa) i rozgrzewa go.
+     *
+     * @throws IllegalArgumentException Jeśli plik nie jest kluczem ElGamala lub nazwa jest już zajęta.
+     */
+    void load(String name, Path file) throws IOException {
+        Entry entry;
+        try {
+            ElGamalPrivateKey privateKey = ElGamalPrivateKey.of(KeyCodec.readPrivateKey(file));
+            entry = new Entry(privateKey, privateKey.getPublicKey());
+        } catch (IllegalArgumentException notPrivate) {
+            entry = new Entry(null, ElGamalPublicKey.of(KeyCodec.readPublicKey(file)));
+        }
+        add(name, entry);
+    }
+
+    void add(String name, Entry entry) {
+        entry.publicKey().precompute();
+        if (entry.privateKey() != null && noncePoolSize > 0) {
+            elGamal.enableNoncePool(entry.privateKey().getParameters(), noncePoolSize, noncePoolSize / 2);
+        }
+        if (keys.putIfAbsent(name, entry) != null) {
+            throw new IllegalArgumentException("Klucz o nazwie " + name + " jest już wczytany.");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException Jeśli nie ma klucza o tej nazwie.
+     */
+    Entry get(String name) {
+        Entry entry = keys.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("Nieznany klucz: " + name);
+        }
+        return entry;
+    }
+
+    int size() {
+        return keys.size();
+    }
+}
@@ -0,0 +1,256 @@
+package org.zespol.daemon;
+
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Łączy współbieżne żądania w mikropartie i wykonuje je na stałej puli wątków.
+ * <p>
+ * Wątek rozdzielający pobiera żądania z ograniczonej kolejki dopiero wtedy, gdy któryś wątek roboczy jest wolny.
+ * Bez obciążenia partia ma więc jedno żądanie i nie czeka na nic, a gdy wszystkie wątki liczą, żądania zbierają
+ * się w kolejce i następna partia zabiera je naraz (do {@code maxBatch}). Opcjonalne {@code linger} dodatkowo
+ * czeka na dalsze żądania, zanim partia zostanie wysłana. Pełna kolejka wstrzymuje wątki czytające połączenia,
+ * co przez TCP/gniazdo spowalnia klientów.
+ * <p>
+ * W partii weryfikacje tym samym kluczem idą jednym {@link ElGamal#verifyDigestBatch} (jedno wspólne potęgowanie
+ * zamiast trzech na podpis), podpisy - kolejno przez {@link ElGamal#signDigest} z rozgrzanymi tablicami i pulą
+ * trójek. Odpowiedzi dla jednego połączenia wysyłane są jednym zapisem.
+ */
+final class RequestBatcher implements AutoCloseable {
+    private static final String CLOSING = "Demon jest zamykany.";
+
+    private final ElGamal elGamal;
+    private final KeyRing keys;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final BlockingQueue<DaemonProtocol.Request> queue;
+    private final Semaphore idleWorkers;
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private final LatencyHistogram batchSizes = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * @param threads   Liczba wątków roboczych.
+     * @param maxBatch  Największa liczba żądań w partii.
+     * @param linger    Dodatkowy czas oczekiwania na żądania do partii (0 - bez czekania).
+     * @param queueSize Pojemność kolejki żądań oczekujących.
+     */
+    RequestBatcher(ElGamal elGamal, KeyRing keys, int threads, int maxBatch, long linger, TimeUnit unit, int queueSize) {
+        if (threads < 1 || maxBatch < 1 || queueSize < 1 || linger < 0) {
+            throw new IllegalArgumentException("Liczba wątków, rozmiar partii i kolejki muszą być dodatnie.");
+        }
+        this.elGamal = elGamal;
+        this.keys = keys;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = unit.toNanos(linger);
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.idleWorkers = new Semaphore(threads);
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "elgamal-daemon-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatch, "elgamal-daemon-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Dodaje żądanie do kolejki, czekając na miejsce, gdy jest pełna.
+     *
+     * @throws IllegalStateException Jeśli demon jest zamykany.
+     */
+    void submit(DaemonProtocol.Request request) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException(CLOSING);
+        }
+        queue.put(request);
+        if (closed) {
+            // close() mogło opróżnić kolejkę przed dodaniem tego żądania - nikt inny już na nie nie odpowie
+            rejectQueued();
+        }
+    }
+
+    private void dispatch() {
+        try {
+            while (!closed) {
+                idleWorkers.acquire();
+                List<DaemonProtocol.Request> batch = new ArrayList<>();
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatch - 1);
+                boolean interrupted = linger(batch);
+                workers.execute(() -> {
+                    try {
+                        process(batch);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+                if (interrupted) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Zamknięcie demona
+        }
+    }
+
+    /**
+     * Czeka do {@code linger} na kolejne żądania do partii.
+     *
+     * @return true, jeśli oczekiwanie przerwało zamknięcie demona - zebrana partia i tak zostanie wykonana.
+     */
+    private boolean linger(List<DaemonProtocol.Request> batch) {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatch && lingerNanos > 0) {
+            DaemonProtocol.Request next;
+            try {
+                next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                return true;
+            }
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatch - batch.size());
+        }
+        return false;
+    }
+
+    private void process(List<DaemonProtocol.Request> batch) {
+        requests.add(batch.size());
+        batchSizes.record(batch.size());
+        Map<FrameChannel, List<ByteBuffer>> responses = new LinkedHashMap<>();
+        Map<String, List<DaemonProtocol.Request>> verifications = new LinkedHashMap<>();
+        for (DaemonProtocol.Request request : batch) {
+            if (request.operation() == DaemonProtocol.VERIFY) {
+                verifications.computeIfAbsent(request.key(), key -> new ArrayList<>()).add(request);
+            } else {
+                respond(responses, request, execute(request));
+            }
+        }
+        for (Map.Entry<String, List<DaemonProtocol.Request>> group : verifications.entrySet()) {
+            verify(group.getKey(), group.getValue(), responses);
+        }
+        send(responses);
+    }
+
+    /** Wysyła odpowiedzi - dla każdego połączenia jednym zapisem. */
+    private static void send(Map<FrameChannel, List<ByteBuffer>> responses) {
+        for (Map.Entry<FrameChannel, List<ByteBuffer>> entry : responses.entrySet()) {
+            try {
+                entry.getKey().write(entry.getValue().toArray(new ByteBuffer[0]));
+            } catch (IOException e) {
+                // Klient się rozłączył - jego wątek czytający zamknie połączenie
+            }
+        }
+    }
+
+    private ByteBuffer execute(DaemonProtocol.Request request) {
+        try {
+            KeyRing.Entry key = keys.get(request.key());
+            if (request.operation() == DaemonProtocol.PUBLIC_KEY) {
+                return DaemonProtocol.response(request.id(), DaemonProtocol.STATUS_OK, key.publicKey().encode());
+            }
+            if (key.privateKey() == null) {
+                throw new IllegalArgumentException("Klucz " + request.key() + " nie ma części prywatnej.");
+            }
+            ElGamalSignature signature = elGamal.signDigest(request.digest(), key.privateKey());
+            return DaemonProtocol.response(request.id(), DaemonProtocol.STATUS_OK, signature.encode());
+        } catch (RuntimeException e) {
+            // Każde żądanie musi dostać odpowiedź - inaczej klient potokujący czekałby na nią bez końca
+            return DaemonProtocol.error(request.id(), message(e));
+        }
+    }
+
+    private void verify(String name, List<DaemonProtocol.Request> group, Map<FrameChannel, List<ByteBuffer>> responses) {
+        boolean[] results;
+        try {
+            KeyRing.Entry key = keys.get(name);
+            if (group.size() == 1) {
+                DaemonProtocol.Request request = group.get(0);
+                results = new boolean[]{elGamal.verifyDigest(request.digest(), request.signature(), key.publicKey())};
+            } else {
+                List<byte[]> digests = new ArrayList<>(group.size());
+                List<ElGamalSignature> signatures = new ArrayList<>(group.size());
+                for (DaemonProtocol.Request request : group) {
+                    digests.add(request.digest());
+                    signatures.add(request.signature());
+                }
+                results = elGamal.verifyDigestBatch(digests, signatures, key.publicKey());
+            }
+        } catch (RuntimeException e) {
+            for (DaemonProtocol.Request request : group) {
+                respond(responses, request, DaemonProtocol.error(request.id(), message(e)));
+            }
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            DaemonProtocol.Request request = group.get(i);
+            respond(responses, request, DaemonProtocol.response(request.id(), DaemonProtocol.STATUS_OK,
+                    new byte[]{(byte) (results[i] ? 1 : 0)}));
+        }
+    }
+
+    /** Komunikat błędu dla klienta: treść dla błędów żądania, nazwa wyjątku dla pozostałych. */
+    private static String message(RuntimeException e) {
+        return (e instanceof IllegalArgumentException) ? e.getMessage() : "Błąd wewnętrzny demona: " + e;
+    }
+
+    /** Odpowiada błędem na wszystkie żądania pozostałe w kolejce. */
+    private void rejectQueued() {
+        List<DaemonProtocol.Request> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        Map<FrameChannel, List<ByteBuffer>> responses = new LinkedHashMap<>();
+        for (DaemonProtocol.Request request : rejected) {
+            respond(responses, request, DaemonProtocol.error(request.id(), CLOSING));
+        }
+        send(responses);
+    }
+
+    private static void respond(Map<FrameChannel, List<ByteBuffer>> responses, DaemonProtocol.Request request, ByteBuffer response) {
+        responses.computeIfAbsent(request.connection(), connection -> new ArrayList<>()).add(response);
+    }
+
+    /** Liczba obsłużonych żądań. */
+    long getRequests() {
+        return requests.sum();
+    }
+
+    /** Rozkład rozmiarów partii (wartości to liczby żądań, nie nanosekundy). */
+    LatencyHistogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Kończy przyjmowanie żądań, czeka na dokończenie rozpoczętych partii, a żądaniom, które nie trafiły do
+     * żadnej partii, odpowiada błędem.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        dispatcher.interrupt();
+        dispatcher.join();
+        rejectQueued();
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,170 @@
+package org.zespol.daemon;
+
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.KeyCodec;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Klient demona podpisującego ({@link SigningDaemon}) z potokowaniem: metody wysyłają żądanie i od razu zwracają
+ * {@link CompletableFuture}, a odpowiedzi odbiera osobny wątek i dopasowuje po identyfikatorze. Wiele żądań
+ * (także z wielu wątków) idzie więc jednym połączeniem bez czekania na kolejne odpowiedzi, a demon może je
+ * połączyć w jedną partię.
+ * <p>
+ * Klient przesyła tylko skróty SHA-256 - wiadomość haszuje wywołujący (np. {@link org.zespol.core.ElGamal#digest}).
+ * Liczba żądań w locie jest ograniczona; po jej osiągnięciu wysyłanie czeka na odpowiedzi. Błąd po stronie demona
+ * (np. nieznany klucz) kończy przyszły wynik wyjątkiem {@link IllegalArgumentException}, a zerwanie połączenia -
+ * wyjątkiem {@link IOException}.
+ */
+public final class SigningClient implements AutoCloseable {
+    /** Domyślna największa liczba żądań w locie. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    private final FrameChannel connection;
+    private final Map<Integer, CompletableFuture<ByteBuffer>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Semaphore inFlight;
+    private volatile IOException failure;
+
+    /**
+     * Łączy się z demonem z domyślnym limitem żądań w locie.
+     *
+     * @see #SigningClient(SocketAddress, int)
+     */
+    public SigningClient(SocketAddress address) throws IOException {
+        this(address, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param address     {@link UnixDomainSocketAddress} lub adres TCP demona.
+     * @param maxInFlight Największa liczba żądań wysłanych bez odpowiedzi.
+     */
+    public SigningClient(SocketAddress address, int maxInFlight) throws IOException {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Liczba żądań w locie musi być dodatnia.");
+        }
+        SocketChannel channel = (address instanceof UnixDomainSocketAddress)
+                ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+        try {
+            channel.connect(address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        connection = new FrameChannel(channel);
+        inFlight = new Semaphore(maxInFlight);
+        Thread reader = new Thread(this::receive, "elgamal-daemon-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Podpisuje skrót kluczem prywatnym demona.
+     *
+     * @param key    Nazwa klucza w demonie.
+     * @param digest Skrót SHA-256 wiadomości (32 bajty).
+     */
+    public CompletableFuture<ElGamalSignature> signDigest(String key, byte[] digest) throws IOException, InterruptedException {
+        return send(DaemonProtocol.SIGN, key, digest, null).thenApply(result ->
+                ElGamalSignature.of(KeyCodec.decode(KeyCodec.Kind.SIGNATURE, result)));
+    }
+
+    /**
+     * Weryfikuje podpis skrótu kluczem publicznym demona.
+     *
+     * @param key       Nazwa klucza w demonie.
+     * @param digest    Skrót SHA-256 wiadomości (32 bajty).
+     * @param signature Podpis do sprawdzenia.
+     */
+    public CompletableFuture<Boolean> verifyDigest(String key, byte[] digest, ElGamalSignature signature) throws IOException, InterruptedException {
+        if (signature == null) {
+            throw new IllegalArgumentException("Podpis nie może być null.");
+        }
+        return send(DaemonProtocol.VERIFY, key, digest, signature).thenApply(result -> result.get() != 0);
+    }
+
+    /**
+     * Pobiera klucz publiczny demona, np. aby zapisać go obok podpisów.
+     *
+     * @param key Nazwa klucza w demonie.
+     */
+    public CompletableFuture<ElGamalPublicKey> publicKey(String key) throws IOException, InterruptedException {
+        return send(DaemonProtocol.PUBLIC_KEY, key, null, null).thenApply(result ->
+                ElGamalPublicKey.of(KeyCodec.decodePublicKey(result)));
+    }
+
+    private CompletableFuture<ByteBuffer> send(int operation, String key, byte[] digest, ElGamalSignature signature) throws IOException, InterruptedException {
+        if (digest == null && operation != DaemonProtocol.PUBLIC_KEY) {
+            throw new IllegalArgumentException("Skrót nie może być null.");
+        }
+        int id = nextId.getAndIncrement();
+        ByteBuffer frame = DaemonProtocol.encodeRequest(id, operation, key, digest, signature);
+        inFlight.acquire();
+        CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+        result.whenComplete((value, error) -> inFlight.release());
+        pending.put(id, result);
+        // Wątek odbierający mógł zakończyć się przed dodaniem żądania - wtedy nikt by go nie zakończył
+        IOException failed = failure;
+        if (failed != null) {
+            fail(id, failed);
+            throw failed;
+        }
+        try {
+            connection.write(frame);
+        } catch (IOException e) {
+            fail(id, e);
+            throw e;
+        }
+        return result;
+    }
+
+    private void receive() {
+        try {
+            ByteBuffer frame;
+            while ((frame = connection.read()) != null) {
+                int id = frame.getInt();
+                int status = frame.get() & 0xFF;
+                CompletableFuture<ByteBuffer> result = pending.remove(id);
+                if (result == null) {
+                    continue;
+                }
+                if (status == DaemonProtocol.STATUS_OK) {
+                    result.complete(frame.slice());
+                } else {
+                    result.completeExceptionally(new IllegalArgumentException(StandardCharsets.UTF_8.decode(frame).toString()));
+                }
+            }
+            failure = new IOException("Demon zamknął połączenie.");
+        } catch (IOException e) {
+            failure = e;
+        }
+        for (Integer id : pending.keySet()) {
+            fail(id, failure);
+        }
+    }
+
+    private void fail(int id, IOException e) {
+        CompletableFuture<ByteBuffer> result = pending.remove(id);
+        if (result != null) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /** Zamyka połączenie; żądania bez odpowiedzi kończą się wyjątkiem {@link IOException}. */
+    @Override
+    public void close() throws IOException {
+        connection.close();
+    }
+}
@@ -0,0 +1,262 @@
+package org.zespol.daemon;
+
+import org.zespol.core.ElGamal;
+import org.zespol.core.LatencyHistogram;
+import org.zespol.core.MetricsRecorder;
+import org.zespol.core.RandomnessProvider;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Długo działający lokalny demon podpisujący. Klucze wczytywane są raz i trzymane rozgrzane ({@link KeyRing}),
+ * a wszystkie żądania przechodzą przez jedną instancję {@link ElGamal}, więc krótkotrwałe procesy
+ * ({@link SigningClient}) nie płacą za wczytanie klucza, budowę tablic ani rozgrzewanie JIT.
+ * <pre>
+ *   (-socket ścieżka | -port N) -key nazwa=plik [-key ...] [-threads N] [-batch N] [-linger µs] [-nonces N]
+ * </pre>
+ * Demon słucha na gnieździe domeny Unix albo na porcie TCP interfejsu pętli zwrotnej - nigdy na adresach
+ * zewnętrznych. Każde połączenie ma własny wątek wirtualny czytający ramki; żądania trafiają do
+ * {@link RequestBatcher}, który łączy je w mikropartie. Klient może wysyłać kolejne żądania bez czekania na
+ * odpowiedzi.
+ */
+public final class SigningDaemon implements AutoCloseable {
+    /** Domyślna największa liczba żądań w partii. */
+    public static final int DEFAULT_MAX_BATCH = 64;
+    /** Domyślny rozmiar puli trójek dla grupy kluczy prywatnych. */
+    public static final int DEFAULT_NONCE_POOL_SIZE = 256;
+    private static final int QUEUE_PER_THREAD = 256; // Długość kolejki żądań na wątek
+
+    private final ElGamal elGamal = new ElGamal();
+    private final MetricsRecorder metrics = new MetricsRecorder();
+    private final KeyRing keys;
+    private final RequestBatcher batcher;
+    private final Set<FrameChannel> connections = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocketChannel server;
+    private volatile Path socketFile;
+
+    /**
+     * @param threads       Liczba wątków roboczych.
+     * @param maxBatch      Największa liczba żądań w partii.
+     * @param lingerMicros  Dodatkowe oczekiwanie na żądania do partii w mikrosekundach (0 - bez czekania).
+     * @param noncePoolSize Rozmiar puli trójek dla grupy kluczy prywatnych (0 - bez puli).
+     * @throws IllegalArgumentException Jeśli któryś parametr jest spoza zakresu.
+     */
+    public SigningDaemon(int threads, int maxBatch, long lingerMicros, int noncePoolSize) {
+        if (noncePoolSize < 0 || noncePoolSize == 1) {
+            throw new IllegalArgumentException("Rozmiar puli trójek musi być równy 0 lub większy od 1.");
+        }
+        elGamal.setInstrumentation(metrics);
+        // Wątki robocze podpisują równolegle - każdy z własnym generatorem zamiast jednego wspólnego
+        elGamal.setRandomnessProvider(RandomnessProvider.perThread());
+        keys = new KeyRing(elGamal, noncePoolSize);
+        batcher = new RequestBatcher(elGamal, keys, threads, maxBatch, lingerMicros, TimeUnit.MICROSECONDS,
+                threads * QUEUE_PER_THREAD);
+    }
+
+    /**
+     * Wczytuje i rozgrzewa klucz prywatny lub publiczny dostępny dla klientów pod podaną nazwą.
+     *
+     * @throws IllegalArgumentException Jeśli plik nie jest kluczem lub nazwa jest już zajęta.
+     */
+    public void loadKey(String name, Path file) throws IOException {
+        keys.load(name, file);
+    }
+
+    /**
+     * Zaczyna przyjmować połączenia.
+     *
+     * @param address {@link UnixDomainSocketAddress} albo {@link InetSocketAddress} interfejsu pętli zwrotnej
+     *                (port 0 - dowolny wolny). Pozostały po poprzednim uruchomieniu plik gniazda jest usuwany.
+     * @return Faktyczny adres nasłuchu (np. z przydzielonym portem).
+     * @throws IllegalArgumentException Jeśli adres TCP nie jest adresem pętli zwrotnej.
+     * @throws IllegalStateException    Jeśli demon już nasłuchuje.
+     */
+    public synchronized SocketAddress start(SocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Demon już nasłuchuje.");
+        }
+        ServerSocketChannel channel;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+            channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            socketFile = unix.getPath();
+        } else if (address instanceof InetSocketAddress inet && inet.getAddress() != null
+                && inet.getAddress().isLoopbackAddress()) {
+            channel = ServerSocketChannel.open();
+        } else {
+            throw new IllegalArgumentException("Demon słucha tylko na gnieździe Unix lub adresie pętli zwrotnej: " + address);
+        }
+        channel.bind(address);
+        server = channel;
+        Thread acceptor = new Thread(this::accept, "elgamal-daemon-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return channel.getLocalAddress();
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                FrameChannel connection = new FrameChannel(server.accept());
+                connections.add(connection);
+                Thread.ofVirtual().name("elgamal-daemon-connection").start(() -> serve(connection));
+            }
+        } catch (ClosedChannelException e) {
+            // Zamknięcie demona
+        } catch (IOException e) {
+            System.err.println("Błąd przyjmowania połączeń: " + e.getMessage());
+        }
+    }
+
+    private void serve(FrameChannel connection) {
+        try (connection) {
+            ByteBuffer frame;
+            while ((frame = connection.read()) != null) {
+                DaemonProtocol.Request request;
+                try {
+                    request = DaemonProtocol.decodeRequest(connection, frame);
+                } catch (IllegalArgumentException e) {
+                    if (frame.limit() < Integer.BYTES) {
+                        return;
+                    }
+                    connection.write(DaemonProtocol.error(frame.getInt(0), e.getMessage()));
+                    continue;
+                }
+                try {
+                    batcher.submit(request);
+                } catch (IllegalStateException e) {
+                    // Demon jest zamykany - odpowiedź błędem, zanim połączenie zostanie zamknięte
+                    connection.write(DaemonProtocol.error(request.id(), e.getMessage()));
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Klient zerwał połączenie lub wysłał nieprawidłową ramkę
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /** Liczba obsłużonych żądań. */
+    public long getRequests() {
+        return batcher.getRequests();
+    }
+
+    /** Rozkład rozmiarów partii (wartości to liczby żądań w partii). */
+    public LatencyHistogram getBatchSizes() {
+        return batcher.getBatchSizes();
+    }
+
+    /** Podsumowanie: liczba żądań, rozmiary partii i czasy operacji. */
+    public String summary() {
+        return String.format("Żądania: %d, klucze: %d, połączenia: %d, partia: średnio %.1f, p99 %d, max %d%n",
+                batcher.getRequests(), keys.size(), connections.size(), batcher.getBatchSizes().getMean(),
+                batcher.getBatchSizes().getPercentile(0.99), batcher.getBatchSizes().getMax())
+                + metrics.summary();
+    }
+
+    /**
+     * Przestaje przyjmować połączenia, dokańcza rozpoczęte partie i zamyka połączenia klientów.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        ServerSocketChannel channel = server;
+        if (channel != null) {
+            channel.close();
+        }
+        batcher.close();
+        for (FrameChannel connection : connections) {
+            connection.close();
+        }
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SocketAddress address = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxBatch = DEFAULT_MAX_BATCH;
+        long linger = 0;
+        int nonces = DEFAULT_NONCE_POOL_SIZE;
+        Map<String, Path> keyFiles = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    System.exit(usage("Brak wartości opcji " + arg));
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "-socket" -> address = UnixDomainSocketAddress.of(value);
+                    case "-port" -> address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(value));
+                    case "-threads" -> threads = Integer.parseInt(value);
+                    case "-batch" -> maxBatch = Integer.parseInt(value);
+                    case "-linger" -> linger = Long.parseLong(value);
+                    case "-nonces" -> nonces = Integer.parseInt(value);
+                    case "-key" -> {
+                        int separator = value.indexOf('=');
+                        if (separator <= 0) {
+                            System.exit(usage("Klucz należy podać jako nazwa=plik: " + value));
+                        }
+                        keyFiles.put(value.substring(0, separator), Paths.get(value.substring(separator + 1)));
+                    }
+                    default -> System.exit(usage("Nieznana opcja: " + arg));
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.exit(usage("Nieprawidłowa liczba: " + e.getMessage()));
+        }
+        if (address == null || keyFiles.isEmpty()) {
+            System.exit(usage("Brak adresu nasłuchu lub kluczy."));
+        }
+
+        SigningDaemon daemon;
+        try {
+            daemon = new SigningDaemon(threads, maxBatch, linger, nonces);
+            for (Map.Entry<String, Path> key : keyFiles.entrySet()) {
+                daemon.loadKey(key.getKey(), key.getValue());
+            }
+            System.err.println("Nasłuch: " + daemon.start(address) + ", klucze: " + keyFiles.keySet());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Błąd: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+            } catch (IOException | InterruptedException e) {
+                // Proces i tak się kończy
+            }
+            System.err.print(daemon.summary());
+        }));
+        // Wątki demona są wątkami tła - główny wątek czeka do zakończenia procesu sygnałem
+        Thread.currentThread().join();
+    }
+
+    private static int usage(String message) {
+        System.err.println(message);
+        System.err.println("Użycie:");
+        System.err.println("  (-socket ścieżka | -port N) -key nazwa=plik [-key ...] [-threads N] [-batch N] [-linger µs] [-nonces N]");
+        return 2;
+    }
+}
@@ -0,0 +1,188 @@
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.zespol.core.ElGamal;
+import org.zespol.core.ElGamalParameters;
+import org.zespol.core.ElGamalPrivateKey;
+import org.zespol.core.ElGamalPublicKey;
+import org.zespol.core.ElGamalSignature;
+import org.zespol.core.StandardGroup;
+import org.zespol.daemon.SigningClient;
+import org.zespol.daemon.SigningDaemon;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class SigningDaemonTest {
+    private final ElGamal gamal = new ElGamal();
+    private ElGamalPrivateKey privateKey;
+    private Path privateFile;
+    private Path publicFile;
+    private SigningDaemon daemon;
+
+    @Before
+    public void setUp() throws IOException {
+        privateKey = gamal.generatePrivateKey(ElGamalParameters.of(StandardGroup.FFDHE_2048));
+        privateFile = Files.createTempFile("elgamal-daemon", ".key");
+        publicFile = Files.createTempFile("elgamal-daemon", ".pub");
+        Files.write(privateFile, privateKey.encode());
+        Files.write(publicFile, privateKey.getPublicKey().encode());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (daemon != null) {
+            daemon.close();
+        }
+        Files.deleteIfExists(privateFile);
+        Files.deleteIfExists(publicFile);
+    }
+
+    /** Demon z jednym wątkiem roboczym; linger w mikrosekundach. */
+    private SocketAddress start(int maxBatch, long linger) throws IOException {
+        daemon = new SigningDaemon(1, maxBatch, linger, 0);
+        daemon.loadKey("signer", privateFile);
+        daemon.loadKey("verifier", publicFile);
+        return daemon.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    private static byte[] digest(int i) {
+        return ByteBuffer.allocate(32).putInt(i).putInt(~i).array();
+    }
+
+    @Test
+    public void pipelinedRequestsAreBatchedAndMatchedById() throws Exception {
+        SocketAddress address = start(64, 50_000);
+        int count = 24;
+        try (SigningClient client = new SigningClient(address)) {
+            // Wszystkie żądania wysłane przed odebraniem pierwszej odpowiedzi - demon łączy je w partie
+            List<CompletableFuture<ElGamalSignature>> signed = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                signed.add(client.signDigest("signer", digest(i)));
+            }
+            CompletableFuture<ElGamalPublicKey> publicKey = client.publicKey("signer");
+            CompletableFuture<ElGamalSignature> unknown = client.signDigest("missing", digest(0));
+            CompletableFuture<ElGamalSignature> publicOnly = client.signDigest("verifier", digest(0));
+
+            ElGamalPublicKey expected = privateKey.getPublicKey();
+            Assert.assertEquals(expected, publicKey.get(30, TimeUnit.SECONDS));
+            List<ElGamalSignature> signatures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ElGamalSignature signature = signed.get(i).get(30, TimeUnit.SECONDS);
+                // Odpowiedź dopasowana po identyfikatorze: podpis dotyczy skrótu z tego samego żądania
+                Assert.assertTrue(gamal.verifyDigest(digest(i), signature, expected));
+                signatures.add(signature);
+            }
+            assertError(unknown, "missing");
+            assertError(publicOnly, "verifier");
+
+            // Weryfikacje tym samym kluczem idą jedną partią; podpis 5 zamieniony z 6 musi zostać odrzucony
+            List<CompletableFuture<Boolean>> verified = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ElGamalSignature signature = signatures.get(i == 5 ? 6 : i);
+                verified.add(client.verifyDigest("verifier", digest(i), signature));
+            }
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(i != 5, verified.get(i).get(30, TimeUnit.SECONDS));
+            }
+        }
+        Assert.assertEquals(2 * count + 3, daemon.getRequests());
+        Assert.assertTrue(daemon.getBatchSizes().getMax() > 1);
+        Assert.assertTrue(daemon.getBatchSizes().getCount() < 2 * count + 3);
+    }
+
+    @Test
+    public void malformedFramesGetErrorReply() throws Exception {
+        SocketAddress address = start(64, 0);
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            // Nieznana operacja 9 i podpis (operacja 1) z uciętym skrótem, potem poprawne pobranie klucza (3)
+            write(channel, ByteBuffer.allocate(7).putInt(77).put((byte) 9).put((byte) 1).put((byte) 'k').flip());
+            write(channel, ByteBuffer.allocate(17).putInt(78).put((byte) 1).put((byte) 6)
+                    .put("signer".getBytes(StandardCharsets.US_ASCII)).put(new byte[5]).flip());
+            write(channel, ByteBuffer.allocate(12).putInt(79).put((byte) 3).put((byte) 6)
+                    .put("signer".getBytes(StandardCharsets.US_ASCII)).flip());
+
+            ByteBuffer first = read(channel);
+            Assert.assertEquals(77, first.getInt());
+            Assert.assertEquals(1, first.get());
+            ByteBuffer second = read(channel);
+            Assert.assertEquals(78, second.getInt());
+            Assert.assertEquals(1, second.get());
+            // Połączenie działa dalej
+            ByteBuffer third = read(channel);
+            Assert.assertEquals(79, third.getInt());
+            Assert.assertEquals(0, third.get());
+        }
+    }
+
+    @Test
+    public void shutdownAnswersQueuedRequests() throws Exception {
+        // Długi linger i małe partie - po zamknięciu większość żądań wciąż czeka w kolejce
+        SocketAddress address = start(2, 200_000);
+        int count = 40;
+        try (SigningClient client = new SigningClient(address)) {
+            List<CompletableFuture<ElGamalSignature>> signed = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                signed.add(client.signDigest("signer", digest(i)));
+            }
+            signed.get(0).get(30, TimeUnit.SECONDS);
+            daemon.close();
+
+            int rejected = 0;
+            for (CompletableFuture<ElGamalSignature> future : signed) {
+                try {
+                    future.get(30, TimeUnit.SECONDS); // żadne żądanie nie może zawisnąć
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalArgumentException || e.getCause() instanceof IOException);
+                    if (String.valueOf(e.getCause().getMessage()).contains("zamykany")) {
+                        rejected++;
+                    }
+                }
+            }
+            Assert.assertTrue(rejected > 0);
+        }
+    }
+
+    private static void assertError(CompletableFuture<?> future, String fragment) throws Exception {
+        try {
+            future.get(30, TimeUnit.SECONDS);
+            Assert.fail("Oczekiwano błędu demona.");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+            Assert.assertTrue(e.getCause().getMessage().contains(fragment));
+        }
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer frame) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).putInt(0, frame.remaining());
+        channel.write(new ByteBuffer[]{length, frame});
+    }
+
+    private static ByteBuffer read(SocketChannel channel) throws IOException {
+        ByteBuffer length = readFully(channel, Integer.BYTES);
+        return readFully(channel, length.getInt());
+    }
+
+    private static ByteBuffer readFully(SocketChannel channel, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Połączenie zamknięte.");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -6,17 +6,16 @@ import javafx.scene.control.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.zespol.core.ElGamal; // Zaimportuj swoją klasę ElGamal
+import org.zespol.core.KeyCodec;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
-import java.util.Properties; // Do łatwego zapisu/odczytu kluczy
+import java.util.function.Consumer;
 
 public class HelloController {
 
@@ -32,6 +31,11 @@ public class HelloController {
     @FXML private Label selectedFileLabel;
     @FXML private TextField verificationResultField;
     @FXML private Label statusLabel;
+    @FXML private ProgressBar progressBar;
+    @FXML private Button cancelButton;
+    @FXML private Button generateKeysButton;
+    @FXML private Button signButton;
+    @FXML private Button verifyButton;
 
     // --- Instancja ElGamal ---
     private final ElGamal elGamal = new ElGamal();
@@ -39,6 +43,7 @@ public class HelloController {
     // --- Zmienne pomocnicze ---
     private File selectedFile = null; // Przechowuje wybrany plik do podpisu/weryfikacji
     private final FileChooser fileChooser = new FileChooser(); // Do wyboru plików
+    private ProgressTask<?> currentTask = null; // Bieżące obliczenie w tle (null, gdy nic nie trwa)
 
     // --- Metody Inicjalizacyjne (opcjonalne, można tu np. ustawić filtry FileChooser) ---
     @FXML
@@ -47,53 +52,79 @@ public class HelloController {
         fileChooser.getExtensionFilters().addAll(
                 new FileChooser.ExtensionFilter("Pliki kluczy ElGamal (*.key, *.pub)", "*.key", "*.pub"),
                 new FileChooser.ExtensionFilter("Pliki podpisów ElGamal (*.sig)", "*.sig"),
+                new FileChooser.ExtensionFilter("Eksport tekstowy hex (*.txt)", "*.txt"),
                 new FileChooser.ExtensionFilter("Wszystkie pliki (*.*)", "*.*")
         );
+        progressBar.setVisible(false);
+        cancelButton.setDisable(true);
         updateStatus("Gotowy.", false);
     }
 
 
+    /** Wynik generowania kluczy w tle. */
+    private record GeneratedKeys(List<BigInteger> pg, BigInteger x, BigInteger y) {
+    }
+
     @FXML
     void handleGenerateKeys(ActionEvent event) {
-        try {
-            int bitLength = Integer.parseInt(bitLengthField.getText().trim());
+        String groupSpec = bitLengthField.getText().trim();
+        boolean standardGroup = !groupSpec.isEmpty() && Character.isLetter(groupSpec.charAt(0));
+        int bitLength;
+        if (standardGroup) {
+            bitLength = 0;
+        } else {
+            try {
+                bitLength = Integer.parseInt(groupSpec);
+            } catch (NumberFormatException e) {
+                showAlert(Alert.AlertType.ERROR, "Błąd Wejścia", "Nieprawidłowy format długości bitowej.", "Wpisz liczbę całkowitą lub nazwę grupy (np. ffdhe2048).");
+                updateStatus("Błąd: Nieprawidłowa długość bitowa.", true);
+                return;
+            }
             if (bitLength < 16) { // Minimalna rozsądna długość dla testów
                 showAlert(Alert.AlertType.WARNING, "Generowanie Kluczy", "Nieprawidłowa długość bitowa.", "Podaj większą długość bitową (np. 512).");
                 return;
             }
+        }
 
-            updateStatus("Generowanie parametrów p i g...", false);
-            List<BigInteger> pg = elGamal.generateParameters(bitLength);
-            BigInteger p = pg.get(0);
-            BigInteger g = pg.get(1);
+        runTask(new ProgressTask<GeneratedKeys>(task -> {
+            List<BigInteger> pg;
+            if (standardGroup) {
+                // Nazwa grupy standardowej, np. "ffdhe2048" lub "MODP_3072"
+                task.message("Wczytywanie grupy standardowej " + groupSpec + "...");
+                pg = elGamal.standardParameters(groupSpec);
+            } else {
+                // Parametry z pamięci podręcznej na dysku lub nowo wygenerowane (i zapisane na następny raz)
+                task.message("Generowanie parametrów p i g...");
+                pg = elGamal.obtainParameters(bitLength, task.listener("Generowanie parametrów p i g, sprawdzono kandydatów"));
+            }
 
-            updateStatus("Generowanie klucza prywatnego x...", false);
+            task.message("Generowanie klucza prywatnego x...");
             BigInteger x = elGamal.generatePrivateKey(pg);
 
-            updateStatus("Generowanie klucza publicznego y...", false);
-            List<BigInteger> publicKey = elGamal.generatePublicKey(pg, x);
-            BigInteger y = publicKey.get(2); // y jest na indeksie 2
-
+            task.message("Generowanie klucza publicznego y...");
+            BigInteger y = elGamal.generatePublicKey(pg, x).get(2); // y jest na indeksie 2
+            return new GeneratedKeys(pg, x, y);
+        }), keys -> {
             // Wyświetl wyniki w polach
-            pField.setText(p.toString(16));
-            gField.setText(g.toString(16));
-            xField.setText(x.toString(16));
-            yField.setText(y.toString(16));
+            pField.setText(keys.pg().get(0).toString(16));
+            gField.setText(keys.pg().get(1).toString(16));
+            xField.setText(keys.x().toString(16));
+            yField.setText(keys.y().toString(16));
 
             // Wyczyść stare dane podpisu i weryfikacji
             rField.clear();
             sField.clear();
             verificationResultField.clear();
             updateStatus("Klucze i parametry wygenerowane pomyślnie.", false);
-
-        } catch (NumberFormatException e) {
-            showAlert(Alert.AlertType.ERROR, "Błąd Wejścia", "Nieprawidłowy format długości bitowej.", "Wpisz liczbę całkowitą.");
-            updateStatus("Błąd: Nieprawidłowa długość bitowa.", true);
-        } catch (Exception e) { // Ogólny handler dla innych błędów ElGamal
-            showAlert(Alert.AlertType.ERROR, "Błąd Generowania", "Wystąpił błąd podczas generowania kluczy.", e.getMessage());
-            updateStatus("Błąd generowania kluczy.", true);
-            e.printStackTrace(); // Wypisz stack trace do konsoli dla debugowania
-        }
+        }, e -> {
+            if (e instanceof IllegalArgumentException) {
+                showAlert(Alert.AlertType.ERROR, "Błąd Wejścia", "Nieznana grupa standardowa.", e.getMessage());
+                updateStatus("Błąd: Nieznana grupa standardowa.", true);
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Błąd Generowania", "Wystąpił błąd podczas generowania kluczy.", e.getMessage());
+                updateStatus("Błąd generowania kluczy.", true);
+            }
+        });
     }
 
     @FXML
@@ -112,14 +143,11 @@ public class HelloController {
         File file = fileChooser.showSaveDialog(getStage());
 
         if (file != null) {
-            Properties props = new Properties();
-            props.setProperty("p", p);
-            props.setProperty("g", g);
-            props.setProperty("x", x);
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                props.store(fos, "ElGamal Private Key");
+            try {
+                List<BigInteger> privateKey = List.of(new BigInteger(p, 16), new BigInteger(g, 16), new BigInteger(x, 16));
+                KeyCodec.write(KeyCodec.Kind.PRIVATE_KEY, privateKey, file.toPath(), isHexFile(file));
                 updateStatus("Klucz prywatny zapisany do: " + file.getName(), false);
-            } catch (IOException e) {
+            } catch (IOException | NumberFormatException e) {
                 showAlert(Alert.AlertType.ERROR, "Błąd Zapisu", "Nie można zapisać klucza prywatnego.", e.getMessage());
                 updateStatus("Błąd zapisu klucza prywatnego.", true);
             }
@@ -142,14 +170,11 @@ public class HelloController {
         File file = fileChooser.showSaveDialog(getStage());
 
         if (file != null) {
-            Properties props = new Properties();
-            props.setProperty("p", p);
-            props.setProperty("g", g);
-            props.setProperty("y", y); // Zapisujemy Y
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                props.store(fos, "ElGamal Public Key");
+            try {
+                List<BigInteger> publicKey = List.of(new BigInteger(p, 16), new BigInteger(g, 16), new BigInteger(y, 16));
+                KeyCodec.write(KeyCodec.Kind.PUBLIC_KEY, publicKey, file.toPath(), isHexFile(file));
                 updateStatus("Klucz publiczny zapisany do: " + file.getName(), false);
-            } catch (IOException e) {
+            } catch (IOException | NumberFormatException e) {
                 showAlert(Alert.AlertType.ERROR, "Błąd Zapisu", "Nie można zapisać klucza publicznego.", e.getMessage());
                 updateStatus("Błąd zapisu klucza publicznego.", true);
             }
@@ -163,25 +188,16 @@ public class HelloController {
         File file = fileChooser.showOpenDialog(getStage());
 
         if (file != null) {
-            Properties props = new Properties();
-            try (FileInputStream fis = new FileInputStream(file)) {
-                props.load(fis);
-                String pStr = props.getProperty("p");
-                String gStr = props.getProperty("g");
-                String xStr = props.getProperty("x");
-
-                if (pStr == null || gStr == null || xStr == null) {
-                    throw new IOException("Niekompletny plik klucza prywatnego.");
-                }
-
-                // Podstawowa walidacja formatu hex
-                BigInteger p = new BigInteger(pStr, 16);
-                BigInteger g = new BigInteger(gStr, 16);
-                BigInteger x = new BigInteger(xStr, 16);
+            try {
+                // Format (binarny lub tekstowy hex) rozpoznawany jest po nagłówku pliku
+                List<BigInteger> privateKey = KeyCodec.read(KeyCodec.Kind.PRIVATE_KEY, file.toPath());
+                BigInteger p = privateKey.get(0);
+                BigInteger g = privateKey.get(1);
+                BigInteger x = privateKey.get(2);
 
-                pField.setText(pStr);
-                gField.setText(gStr);
-                xField.setText(xStr);
+                pField.setText(p.toString(16));
+                gField.setText(g.toString(16));
+                xField.setText(x.toString(16));
 
                 // Oblicz i ustaw Y na podstawie wczytanych p, g, x
                 List<BigInteger> pg = List.of(p, g);
@@ -194,7 +210,7 @@ public class HelloController {
                 verificationResultField.clear();
                 updateStatus("Klucz prywatny wczytany z: " + file.getName(), false);
 
-            } catch (IOException | NumberFormatException | NullPointerException e) {
+            } catch (IOException | IllegalArgumentException e) {
                 showAlert(Alert.AlertType.ERROR, "Błąd Odczytu", "Nie można wczytać lub sparsować klucza prywatnego.", e.getMessage());
                 updateStatus("Błąd wczytywania klucza prywatnego.", true);
             } catch (Exception e) { // Inne błędy, np. z generatePublicKey
@@ -211,25 +227,12 @@ public class HelloController {
         File file = fileChooser.showOpenDialog(getStage());
 
         if (file != null) {
-            Properties props = new Properties();
-            try (FileInputStream fis = new FileInputStream(file)) {
-                props.load(fis);
-                String pStr = props.getProperty("p");
-                String gStr = props.getProperty("g");
-                String yStr = props.getProperty("y"); // Odczytujemy Y
-
-                if (pStr == null || gStr == null || yStr == null) {
-                    throw new IOException("Niekompletny plik klucza publicznego.");
-                }
-
-                // Podstawowa walidacja formatu hex
-                new BigInteger(pStr, 16);
-                new BigInteger(gStr, 16);
-                new BigInteger(yStr, 16);
+            try {
+                List<BigInteger> publicKey = KeyCodec.read(KeyCodec.Kind.PUBLIC_KEY, file.toPath());
 
-                pField.setText(pStr);
-                gField.setText(gStr);
-                yField.setText(yStr);
+                pField.setText(publicKey.get(0).toString(16));
+                gField.setText(publicKey.get(1).toString(16));
+                yField.setText(publicKey.get(2).toString(16));
                 xField.clear(); // Wyczyść pole klucza prywatnego, bo go nie znamy
 
                 // Wyczyść stare dane podpisu i weryfikacji
@@ -238,7 +241,7 @@ public class HelloController {
                 verificationResultField.clear();
                 updateStatus("Klucz publiczny wczytany z: " + file.getName(), false);
 
-            } catch (IOException | NumberFormatException | NullPointerException e) {
+            } catch (IOException | IllegalArgumentException e) {
                 showAlert(Alert.AlertType.ERROR, "Błąd Odczytu", "Nie można wczytać lub sparsować klucza publicznego.", e.getMessage());
                 updateStatus("Błąd wczytywania klucza publicznego.", true);
             }
@@ -260,13 +263,11 @@ public class HelloController {
         File file = fileChooser.showSaveDialog(getStage());
 
         if (file != null) {
-            Properties props = new Properties();
-            props.setProperty("r", r);
-            props.setProperty("s", s);
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                props.store(fos, "ElGamal Signature");
+            try {
+                List<BigInteger> signature = List.of(new BigInteger(r, 16), new BigInteger(s, 16));
+                KeyCodec.write(KeyCodec.Kind.SIGNATURE, signature, file.toPath(), isHexFile(file));
                 updateStatus("Podpis zapisany do: " + file.getName(), false);
-            } catch (IOException e) {
+            } catch (IOException | NumberFormatException e) {
                 showAlert(Alert.AlertType.ERROR, "Błąd Zapisu", "Nie można zapisać podpisu.", e.getMessage());
                 updateStatus("Błąd zapisu podpisu.", true);
             }
@@ -280,26 +281,15 @@ public class HelloController {
         File file = fileChooser.showOpenDialog(getStage());
 
         if (file != null) {
-            Properties props = new Properties();
-            try (FileInputStream fis = new FileInputStream(file)) {
-                props.load(fis);
-                String rStr = props.getProperty("r");
-                String sStr = props.getProperty("s");
-
-                if (rStr == null || sStr == null) {
-                    throw new IOException("Niekompletny plik podpisu.");
-                }
-
-                // Podstawowa walidacja formatu hex
-                new BigInteger(rStr, 16);
-                new BigInteger(sStr, 16);
+            try {
+                List<BigInteger> signature = KeyCodec.read(KeyCodec.Kind.SIGNATURE, file.toPath());
 
-                rField.setText(rStr);
-                sField.setText(sStr);
+                rField.setText(signature.get(0).toString(16));
+                sField.setText(signature.get(1).toString(16));
                 verificationResultField.clear(); // Wyczyść stary wynik weryfikacji
                 updateStatus("Podpis wczytany z: " + file.getName(), false);
 
-            } catch (IOException | NumberFormatException | NullPointerException e) {
+            } catch (IOException | IllegalArgumentException e) {
                 showAlert(Alert.AlertType.ERROR, "Błąd Odczytu", "Nie można wczytać lub sparsować podpisu.", e.getMessage());
                 updateStatus("Błąd wczytywania podpisu.", true);
             }
@@ -323,63 +313,64 @@ public class HelloController {
 
     @FXML
     void handleSignMessage(ActionEvent event) {
-        try {
-            // 1. Pobierz klucz prywatny i parametry
-            BigInteger p = getBigIntegerFromField(pField, "Parametr p");
-            BigInteger g = getBigIntegerFromField(gField, "Parametr g");
-            BigInteger x = getBigIntegerFromField(xField, "Klucz prywatny x");
-
-            if (p == null || g == null || x == null) return; // Błąd został już pokazany w getBigIntegerFromField
-
-            List<BigInteger> pg = List.of(p, g);
-
-            // 2. Pobierz dane do podpisania (plik lub tekst)
-            byte[] dataToSign = getDataToProcess();
-            if (dataToSign == null) return; // Komunikat o błędzie pokazany w getDataToProcess
-
-            // 3. Wykonaj podpisywanie
-            updateStatus("Podpisywanie...", false);
-            List<BigInteger> signature = elGamal.sign(dataToSign, x, pg);
-
+        // 1. Pobierz klucz prywatny i parametry
+        BigInteger p = getBigIntegerFromField(pField, "Parametr p");
+        BigInteger g = getBigIntegerFromField(gField, "Parametr g");
+        BigInteger x = getBigIntegerFromField(xField, "Klucz prywatny x");
+        if (p == null || g == null || x == null) return; // Błąd został już pokazany w getBigIntegerFromField
+        List<BigInteger> pg = List.of(p, g);
+
+        // 2. Wybierz dane do podpisania (plik lub tekst) - skrót liczony jest już w tle
+        DigestSource source = getDigestSource();
+        if (source == null) return; // Komunikat o błędzie pokazany w getDigestSource
+
+        // 3. Wykonaj podpisywanie w tle
+        runTask(new ProgressTask<List<BigInteger>>(task -> {
+            byte[] digestToSign = source.digest(task);
+            task.message("Podpisywanie...");
+            return elGamal.signDigest(digestToSign, x, pg);
+        }), signature -> {
             // 4. Wyświetl podpis
             rField.setText(signature.get(0).toString(16));
             sField.setText(signature.get(1).toString(16));
             verificationResultField.clear(); // Wyczyść stary wynik weryfikacji
             updateStatus("Podpisywanie zakończone pomyślnie.", false);
-
-        } catch (NoSuchAlgorithmException e) {
-            showAlert(Alert.AlertType.ERROR, "Błąd Podpisywania", "Nie znaleziono algorytmu SHA-256.", e.getMessage());
-            updateStatus("Błąd: Brak SHA-256.", true);
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Błąd Podpisywania", "Wystąpił nieoczekiwany błąd podczas podpisywania.", e.getMessage());
-            updateStatus("Błąd podpisywania.", true);
-            e.printStackTrace();
-        }
+        }, e -> {
+            if (e instanceof NoSuchAlgorithmException) {
+                showAlert(Alert.AlertType.ERROR, "Błąd Podpisywania", "Nie znaleziono algorytmu SHA-256.", e.getMessage());
+                updateStatus("Błąd: Brak SHA-256.", true);
+            } else if (e instanceof IOException) {
+                showAlert(Alert.AlertType.ERROR, "Błąd Odczytu Pliku", "Nie można odczytać wybranego pliku.", e.getMessage());
+                updateStatus("Błąd odczytu pliku.", true);
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Błąd Podpisywania", "Wystąpił nieoczekiwany błąd podczas podpisywania.", e.getMessage());
+                updateStatus("Błąd podpisywania.", true);
+            }
+        });
     }
 
     @FXML
     void handleVerifySignature(ActionEvent event) {
-        try {
-            // 1. Pobierz klucz publiczny, parametry i podpis
-            BigInteger p = getBigIntegerFromField(pField, "Parametr p");
-            BigInteger g = getBigIntegerFromField(gField, "Parametr g");
-            BigInteger y = getBigIntegerFromField(yField, "Klucz publiczny y");
-            BigInteger r = getBigIntegerFromField(rField, "Podpis r");
-            BigInteger s = getBigIntegerFromField(sField, "Podpis s");
-
-            if (p == null || g == null || y == null || r == null || s == null) return;
-
-            List<BigInteger> publicKey = List.of(p, g, y);
-            List<BigInteger> signature = List.of(r, s);
-
-            // 2. Pobierz dane do weryfikacji (plik lub tekst)
-            byte[] dataToVerify = getDataToProcess();
-            if (dataToVerify == null) return;
-
-            // 3. Wykonaj weryfikację
-            updateStatus("Weryfikowanie...", false);
-            boolean isValid = elGamal.verify(dataToVerify, signature, publicKey);
-
+        // 1. Pobierz klucz publiczny, parametry i podpis
+        BigInteger p = getBigIntegerFromField(pField, "Parametr p");
+        BigInteger g = getBigIntegerFromField(gField, "Parametr g");
+        BigInteger y = getBigIntegerFromField(yField, "Klucz publiczny y");
+        BigInteger r = getBigIntegerFromField(rField, "Podpis r");
+        BigInteger s = getBigIntegerFromField(sField, "Podpis s");
+        if (p == null || g == null || y == null || r == null || s == null) return;
+        List<BigInteger> publicKey = List.of(p, g, y);
+        List<BigInteger> signature = List.of(r, s);
+
+        // 2. Wybierz dane do weryfikacji (plik lub tekst)
+        DigestSource source = getDigestSource();
+        if (source == null) return;
+
+        // 3. Wykonaj weryfikację w tle
+        runTask(new ProgressTask<Boolean>(task -> {
+            byte[] digestToVerify = source.digest(task);
+            task.message("Weryfikowanie...");
+            return elGamal.verifyDigest(digestToVerify, signature, publicKey);
+        }), isValid -> {
             // 4. Wyświetl wynik
             if (isValid) {
                 verificationResultField.setText("POPRAWNY");
@@ -392,54 +383,132 @@ public class HelloController {
                 verificationResultField.setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
                 updateStatus("Weryfikacja zakończona: Podpis jest niepoprawny.", false); // To niekoniecznie błąd, więc isError = false
             }
+        }, e -> {
+            if (e instanceof NoSuchAlgorithmException) {
+                showAlert(Alert.AlertType.ERROR, "Błąd Weryfikacji", "Nie znaleziono algorytmu SHA-256.", e.getMessage());
+                updateStatus("Błąd: Brak SHA-256.", true);
+            } else if (e instanceof IOException) {
+                showAlert(Alert.AlertType.ERROR, "Błąd Odczytu Pliku", "Nie można odczytać wybranego pliku.", e.getMessage());
+                updateStatus("Błąd odczytu pliku.", true);
+            } else if (e instanceof IllegalArgumentException) { // Specjalnie dla błędów formatu podpisu lub klucza
+                showAlert(Alert.AlertType.WARNING, "Błąd Weryfikacji", "Podpis poza wymaganym zakresem.", e.getMessage());
+                updateStatus("Błąd weryfikacji: podpis poza zakresem.", true);
+                verificationResultField.setText("BŁĄD ZAKRESU");
+                verificationResultField.setStyle("-fx-text-fill: orange;");
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Błąd Weryfikacji", "Wystąpił nieoczekiwany błąd podczas weryfikacji.", e.getMessage());
+                updateStatus("Błąd weryfikacji.", true);
+            }
+        });
+    }
 
-        } catch (NoSuchAlgorithmException e) {
-            showAlert(Alert.AlertType.ERROR, "Błąd Weryfikacji", "Nie znaleziono algorytmu SHA-256.", e.getMessage());
-            updateStatus("Błąd: Brak SHA-256.", true);
-        } catch (IllegalArgumentException e) { // Specjalnie dla błędów zakresu r, s z metody verify
-            showAlert(Alert.AlertType.WARNING, "Błąd Weryfikacji", "Podpis poza wymaganym zakresem.", e.getMessage());
-            updateStatus("Błąd weryfikacji: podpis poza zakresem.", true);
-            verificationResultField.setText("BŁĄD ZAKRESU");
-            verificationResultField.setStyle("-fx-text-fill: orange;");
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Błąd Weryfikacji", "Wystąpił nieoczekiwany błąd podczas weryfikacji.", e.getMessage());
-            updateStatus("Błąd weryfikacji.", true);
-            e.printStackTrace();
+    @FXML
+    void handleCancel(ActionEvent event) {
+        if (currentTask != null) {
+            currentTask.cancel(); // Przerywa wątek tła - rdzeń kończy pracę przy najbliższym sprawdzeniu
         }
     }
 
     // --- Metody Pomocnicze ---
 
-    /** Pobiera dane do przetworzenia (z pliku lub z pola tekstowego). */
-    private byte[] getDataToProcess() {
-        byte[] data = null;
+    /** Źródło skrótu danych do podpisu/weryfikacji, obliczanego w wątku tła. */
+    @FunctionalInterface
+    private interface DigestSource {
+        byte[] digest(ProgressTask<?> task) throws IOException, NoSuchAlgorithmException;
+    }
+
+    /**
+     * Wybiera dane do przetworzenia (plik lub pole tekstowe) i sprawdza je w wątku JavaFX.
+     * Plik jest haszowany w tle fragmentami mapowanymi w pamięć, więc nie jest wczytywany w całości do pamięci.
+     *
+     * @return Źródło skrótu lub null, jeśli brak danych (komunikat został już pokazany).
+     */
+    private DigestSource getDigestSource() {
         if (selectedFile != null && selectedFile.exists()) {
+            File file = selectedFile;
             try {
-                data = Files.readAllBytes(selectedFile.toPath());
-                if (data.length == 0) {
-                    showAlert(Alert.AlertType.WARNING, "Pusty Plik", "Wybrany plik jest pusty.", selectedFile.getName());
+                if (Files.size(file.toPath()) == 0) {
+                    showAlert(Alert.AlertType.WARNING, "Pusty Plik", "Wybrany plik jest pusty.", file.getName());
                     updateStatus("Ostrzeżenie: Wybrany plik jest pusty.", false);
                     return null; // Zwróć null, jeśli plik jest pusty
                 }
-                updateStatus("Przetwarzanie danych z pliku: " + selectedFile.getName(), false);
             } catch (IOException e) {
                 showAlert(Alert.AlertType.ERROR, "Błąd Odczytu Pliku", "Nie można odczytać wybranego pliku.", e.getMessage());
                 updateStatus("Błąd odczytu pliku.", true);
                 return null;
             }
-        } else {
-            if (!messageArea.isDisabled() && !messageArea.getText().isEmpty()) {
-                data = messageArea.getText().getBytes(StandardCharsets.UTF_8);
-                updateStatus("Przetwarzanie danych z pola tekstowego.", false);
-            } else {
-                showAlert(Alert.AlertType.WARNING, "Brak Danych", "Nie wybrano pliku ani nie wpisano wiadomości.", "Wpisz wiadomość lub wybierz plik.");
-                updateStatus("Brak danych do przetworzenia.", true);
-                return null;
-            }
+            return task -> {
+                task.message("Przetwarzanie danych z pliku: " + file.getName());
+                return elGamal.digest(file.toPath(), task.listener("Haszowanie pliku " + file.getName()));
+            };
+        }
+        if (!messageArea.isDisabled() && !messageArea.getText().isEmpty()) {
+            byte[] message = messageArea.getText().getBytes(StandardCharsets.UTF_8);
+            return task -> {
+                task.message("Przetwarzanie danych z pola tekstowego.");
+                return elGamal.digest(message);
+            };
         }
-        return data;
+        showAlert(Alert.AlertType.WARNING, "Brak Danych", "Nie wybrano pliku ani nie wpisano wiadomości.", "Wpisz wiadomość lub wybierz plik.");
+        updateStatus("Brak danych do przetworzenia.", true);
+        return null;
     }
 
+    /**
+     * Uruchamia obliczenie w wątku tła. Na czas jego trwania przyciski obliczeń są zablokowane, pasek postępu
+     * i przycisk anulowania aktywne, a komunikaty zadania trafiają na etykietę statusu.
+     *
+     * @param task      Zadanie do wykonania.
+     * @param onSuccess Obsługa wyniku (w wątku JavaFX).
+     * @param onFailure Obsługa błędu (w wątku JavaFX).
+     */
+    private <T> void runTask(ProgressTask<T> task, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        if (currentTask != null) {
+            return; // Przyciski są zablokowane, ale skrót klawiszowy mógłby uruchomić drugie zadanie
+        }
+        currentTask = task;
+        setBusy(true);
+        progressBar.progressProperty().bind(task.progressProperty());
+        task.messageProperty().addListener((observable, oldMessage, message) -> updateStatus(message, false));
+
+        task.setOnSucceeded(e -> {
+            finishTask();
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            finishTask();
+            Throwable error = task.getException();
+            onFailure.accept(error);
+            error.printStackTrace(); // Wypisz stack trace do konsoli dla debugowania
+        });
+        task.setOnCancelled(e -> {
+            finishTask();
+            updateStatus("Operacja anulowana.", true);
+        });
+
+        Thread thread = new Thread(task, "elgamal-ui-task");
+        thread.setDaemon(true); // Nie blokuj zamknięcia aplikacji
+        thread.start();
+    }
+
+    private void finishTask() {
+        progressBar.progressProperty().unbind();
+        currentTask = null;
+        setBusy(false);
+    }
+
+    private void setBusy(boolean busy) {
+        generateKeysButton.setDisable(busy);
+        signButton.setDisable(busy);
+        verifyButton.setDisable(busy);
+        cancelButton.setDisable(!busy);
+        progressBar.setVisible(busy);
+    }
+
+    /** Pliki z rozszerzeniem .txt zapisywane są w tekstowym formacie hex (eksport), pozostałe binarnie. */
+    private boolean isHexFile(File file) {
+        return file.getName().toLowerCase().endsWith(".txt");
+    }
 
     /** Pobiera BigInteger z pola tekstowego, waliduje i pokazuje błąd. */
     private BigInteger getBigIntegerFromField(TextField field, String fieldName) {
@@ -0,0 +1,54 @@
+package org.zespol.ui;
+
+import javafx.concurrent.Task;
+import org.zespol.core.ProgressListener;
+
+/**
+ * Zadanie JavaFX wykonujące obliczenia ElGamala w wątku tła. Praca otrzymuje zadanie, aby przekazywać
+ * komunikaty ({@link #message(String)}) i postęp z rdzenia ({@link #listener(String)}); oba trafiają do wątku
+ * JavaFX przez właściwości {@code message} i {@code progress}, które Task scala przy częstych aktualizacjach.
+ * Anulowanie ({@link #cancel()}) przerywa wątek, a rdzeń kończy wtedy pracę wyjątkiem
+ * {@link java.util.concurrent.CancellationException}.
+ */
+final class ProgressTask<T> extends Task<T> {
+
+    /** Obliczenie wykonywane w tle. */
+    @FunctionalInterface
+    interface Work<T> {
+        T run(ProgressTask<T> task) throws Exception;
+    }
+
+    private final Work<T> work;
+
+    ProgressTask(Work<T> work) {
+        this.work = work;
+    }
+
+    @Override
+    protected T call() throws Exception {
+        return work.run(this);
+    }
+
+    /** Ustawia komunikat statusu i przełącza pasek postępu w tryb nieokreślony. */
+    void message(String message) {
+        updateMessage(message);
+        updateProgress(-1, 1);
+    }
+
+    /**
+     * Odbiorca postępu dla rdzenia: przy znanej całości pokazuje procent, w przeciwnym razie licznik jednostek.
+     *
+     * @param label Opis operacji, np. "Haszowanie pliku".
+     */
+    ProgressListener listener(String label) {
+        return (done, total) -> {
+            if (total > 0) {
+                updateProgress(done, total);
+                updateMessage(String.format("%s: %d%%", label, done * 100 / total));
+            } else {
+                updateProgress(-1, 1);
+                updateMessage(label + ": " + done);
+            }
+        };
+    }
+}